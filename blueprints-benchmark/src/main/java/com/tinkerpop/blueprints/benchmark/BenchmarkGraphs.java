@@ -0,0 +1,40 @@
+package com.tinkerpop.blueprints.benchmark;
+
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphFactory;
+import com.tinkerpop.blueprints.TransactionalGraph;
+
+/**
+ * Opens the graph that a benchmark runs against.  Every benchmark has a graph parameter which is either the name of a
+ * Graph class with a public no-argument constructor or the path of a properties file that GraphFactory can open.
+ * The graph that is opened must be empty.
+ */
+public class BenchmarkGraphs {
+
+    public static final String TINKERGRAPH = "com.tinkerpop.blueprints.impls.tg.TinkerGraph";
+
+    private static final String PROPERTIES_EXTENSION = ".properties";
+
+    public static Graph open(final String graph) {
+        if (graph.endsWith(PROPERTIES_EXTENSION))
+            return GraphFactory.open(graph);
+
+        try {
+            return (Graph) Class.forName(graph).newInstance();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Could not instantiate graph class " + graph, e);
+        }
+    }
+
+    public static void commit(final Graph graph) {
+        if (graph instanceof TransactionalGraph)
+            ((TransactionalGraph) graph).commit();
+    }
+
+    public static void close(final Graph graph) {
+        if (null != graph) {
+            commit(graph);
+            graph.shutdown();
+        }
+    }
+}
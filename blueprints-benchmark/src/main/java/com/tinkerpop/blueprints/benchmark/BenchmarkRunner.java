@@ -0,0 +1,37 @@
+package com.tinkerpop.blueprints.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected by the JMH command line options and, unless -rf or -rff say otherwise, writes the
+ * results as JSON to blueprints-benchmark.json.  For example, to run the traversal benchmarks over 100000 vertices:
+ * <p>
+ * java -jar benchmarks.jar TraversalBenchmark -p vertices=100000 -rff traversal.json
+ */
+public class BenchmarkRunner {
+
+    public static final String DEFAULT_RESULT_FILE = "blueprints-benchmark.json";
+
+    public static void main(final String[] args) throws Exception {
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if (commandLineOptions.shouldHelp()) {
+            commandLineOptions.showHelp();
+            return;
+        }
+        if (commandLineOptions.shouldList()) {
+            new Runner(commandLineOptions).list();
+            return;
+        }
+
+        final ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLineOptions);
+        if (!commandLineOptions.getResultFormat().hasValue())
+            builder.resultFormat(ResultFormatType.JSON);
+        if (!commandLineOptions.getResult().hasValue())
+            builder.result(DEFAULT_RESULT_FILE);
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,24 @@
+package com.tinkerpop.blueprints.benchmark;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * The random number generator of a benchmark thread.  Each thread draws the vertices it starts from out of the same
+ * reproducible sequence, without contending with the other threads.
+ */
+@State(Scope.Thread)
+public class Cursor {
+
+    private final Random random = new Random(42l);
+
+    public int nextInt(final int bound) {
+        return this.random.nextInt(bound);
+    }
+
+    public double nextDouble() {
+        return this.random.nextDouble();
+    }
+}
@@ -0,0 +1,67 @@
+package com.tinkerpop.blueprints.benchmark;
+
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A graph that is loaded with a power law graph once per trial and shared by all the threads of a benchmark.
+ * Subclasses prepare the graph further, e.g. by creating indices, in beforeLoad() and afterLoad().
+ */
+@State(Scope.Benchmark)
+public class GraphState {
+
+    @Param(BenchmarkGraphs.TINKERGRAPH)
+    public String graph;
+
+    @Param("10000")
+    public int vertices;
+
+    @Param("5")
+    public int edgesPerVertex;
+
+    @Param("42")
+    public long seed;
+
+    protected Graph g;
+    protected Object[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.g = BenchmarkGraphs.open(this.graph);
+        this.beforeLoad();
+        this.ids = new PowerLawGraphGenerator(this.vertices, this.edgesPerVertex, this.seed).generate(this.g);
+        BenchmarkGraphs.commit(this.g);
+        this.afterLoad();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkGraphs.close(this.g);
+        this.g = null;
+        this.ids = null;
+    }
+
+    protected void beforeLoad() throws Exception {
+    }
+
+    protected void afterLoad() throws Exception {
+    }
+
+    public Graph getGraph() {
+        return this.g;
+    }
+
+    public Object getId(final int vertex) {
+        return this.ids[vertex];
+    }
+
+    public Vertex randomVertex(final Cursor cursor) {
+        return this.g.getVertex(this.ids[cursor.nextInt(this.vertices)]);
+    }
+}
@@ -0,0 +1,128 @@
+package com.tinkerpop.blueprints.benchmark;
+
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.util.io.gml.GMLReader;
+import com.tinkerpop.blueprints.util.io.gml.GMLWriter;
+import com.tinkerpop.blueprints.util.io.graphml.GraphMLReader;
+import com.tinkerpop.blueprints.util.io.graphml.GraphMLWriter;
+import com.tinkerpop.blueprints.util.io.graphson.GraphSONReader;
+import com.tinkerpop.blueprints.util.io.graphson.GraphSONWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a power law graph to memory and reads it back in each of the formats of util.io.  The graph that is written
+ * is the graph under benchmark loaded with the power law graph.  The graph that is read into is the graph under
+ * benchmark opened empty for every invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IOBenchmark {
+
+    public enum Format {
+        GRAPHSON {
+            void write(final Graph graph, final OutputStream out) throws IOException {
+                GraphSONWriter.outputGraph(graph, out);
+            }
+
+            void read(final Graph graph, final InputStream in) throws IOException {
+                GraphSONReader.inputGraph(graph, in);
+            }
+        },
+        GRAPHML {
+            void write(final Graph graph, final OutputStream out) throws IOException {
+                GraphMLWriter.outputGraph(graph, out);
+            }
+
+            void read(final Graph graph, final InputStream in) throws IOException {
+                GraphMLReader.inputGraph(graph, in);
+            }
+        },
+        GML {
+            void write(final Graph graph, final OutputStream out) throws IOException {
+                GMLWriter.outputGraph(graph, out);
+            }
+
+            void read(final Graph graph, final InputStream in) throws IOException {
+                GMLReader.inputGraph(graph, in);
+            }
+        };
+
+        abstract void write(final Graph graph, final OutputStream out) throws IOException;
+
+        abstract void read(final Graph graph, final InputStream in) throws IOException;
+    }
+
+    /**
+     * The loaded graph together with its serialization in the benchmarked format.
+     */
+    @State(Scope.Benchmark)
+    public static class SourceState extends GraphState {
+
+        @Param({"GRAPHSON", "GRAPHML", "GML"})
+        public Format format;
+
+        protected byte[] bytes;
+
+        protected void afterLoad() throws IOException {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            this.format.write(this.g, out);
+            this.bytes = out.toByteArray();
+        }
+    }
+
+    /**
+     * An empty graph per invocation to read into.
+     */
+    @State(Scope.Thread)
+    public static class TargetState {
+
+        protected Graph g;
+
+        @Setup(Level.Invocation)
+        public void setUp(final SourceState source) {
+            this.g = BenchmarkGraphs.open(source.graph);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            BenchmarkGraphs.close(this.g);
+            this.g = null;
+        }
+    }
+
+    @Benchmark
+    public int write(final SourceState source) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(source.bytes.length);
+        source.format.write(source.getGraph(), out);
+        return out.size();
+    }
+
+    @Benchmark
+    public Graph read(final SourceState source, final TargetState target) throws IOException {
+        source.format.read(target.g, new ByteArrayInputStream(source.bytes));
+        BenchmarkGraphs.commit(target.g);
+        return target.g;
+    }
+}
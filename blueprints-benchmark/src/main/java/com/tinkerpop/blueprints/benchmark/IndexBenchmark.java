@@ -0,0 +1,114 @@
+package com.tinkerpop.blueprints.benchmark;
+
+import com.tinkerpop.blueprints.Index;
+import com.tinkerpop.blueprints.IndexableGraph;
+import com.tinkerpop.blueprints.KeyIndexableGraph;
+import com.tinkerpop.blueprints.Parameter;
+import com.tinkerpop.blueprints.RangeIndexableGraph;
+import com.tinkerpop.blueprints.Vertex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Looks up vertices through key indices and manual indices.  The state of each benchmark creates the index it needs
+ * and fails the benchmark when the graph does not support that kind of index.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IndexBenchmark {
+
+    private static final String INDEX_NAME = "names";
+
+    /**
+     * Key indices on name and group, created before the graph is loaded.  The age key is range indexed when the
+     * graph is a RangeIndexableGraph.
+     */
+    @State(Scope.Benchmark)
+    public static class KeyIndexState extends GraphState {
+
+        protected void beforeLoad() {
+            if (!(this.g instanceof KeyIndexableGraph))
+                throw new UnsupportedOperationException(this.graph + " is not a KeyIndexableGraph");
+
+            final KeyIndexableGraph graph = (KeyIndexableGraph) this.g;
+            graph.createKeyIndex(PowerLawGraphGenerator.NAME, Vertex.class);
+            graph.createKeyIndex(PowerLawGraphGenerator.GROUP, Vertex.class);
+            if (this.g instanceof RangeIndexableGraph)
+                graph.createKeyIndex(PowerLawGraphGenerator.AGE, Vertex.class, new Parameter<String, String>(RangeIndexableGraph.TYPE, RangeIndexableGraph.RANGE));
+        }
+    }
+
+    /**
+     * A manual vertex index holding the name of every vertex.
+     */
+    @State(Scope.Benchmark)
+    public static class ManualIndexState extends GraphState {
+
+        protected Index<Vertex> index;
+
+        protected void afterLoad() {
+            if (!(this.g instanceof IndexableGraph))
+                throw new UnsupportedOperationException(this.graph + " is not an IndexableGraph");
+
+            this.index = ((IndexableGraph) this.g).createIndex(INDEX_NAME, Vertex.class);
+            for (final Vertex vertex : this.g.getVertices()) {
+                this.index.put(PowerLawGraphGenerator.NAME, vertex.getProperty(PowerLawGraphGenerator.NAME), vertex);
+            }
+            BenchmarkGraphs.commit(this.g);
+        }
+    }
+
+    @Benchmark
+    public long keyIndexUniqueLookup(final KeyIndexState state, final Cursor cursor) {
+        return count(state.getGraph().getVertices(PowerLawGraphGenerator.NAME, PowerLawGraphGenerator.name(cursor.nextInt(state.vertices))));
+    }
+
+    @Benchmark
+    public long keyIndexLookup(final KeyIndexState state, final Cursor cursor) {
+        return count(state.getGraph().getVertices(PowerLawGraphGenerator.GROUP, cursor.nextInt(PowerLawGraphGenerator.GROUPS)));
+    }
+
+    @Benchmark
+    public long keyIndexMiss(final KeyIndexState state, final Cursor cursor) {
+        return count(state.getGraph().getVertices(PowerLawGraphGenerator.NAME, "missing" + cursor.nextInt(state.vertices)));
+    }
+
+    @Benchmark
+    public long keyIndexGraphQuery(final KeyIndexState state, final Cursor cursor) {
+        return count(state.getGraph().query()
+                .has(PowerLawGraphGenerator.GROUP, cursor.nextInt(PowerLawGraphGenerator.GROUPS))
+                .has(PowerLawGraphGenerator.AGE, cursor.nextInt(PowerLawGraphGenerator.AGES)).vertices());
+    }
+
+    @Benchmark
+    public long keyIndexRangeQuery(final KeyIndexState state, final Cursor cursor) {
+        final int start = cursor.nextInt(PowerLawGraphGenerator.AGES - 5);
+        return count(state.getGraph().query().interval(PowerLawGraphGenerator.AGE, start, start + 5).vertices());
+    }
+
+    @Benchmark
+    public long manualIndexGet(final ManualIndexState state, final Cursor cursor) {
+        return count(state.index.get(PowerLawGraphGenerator.NAME, PowerLawGraphGenerator.name(cursor.nextInt(state.vertices))));
+    }
+
+    @Benchmark
+    public long manualIndexCount(final ManualIndexState state, final Cursor cursor) {
+        return state.index.count(PowerLawGraphGenerator.NAME, PowerLawGraphGenerator.name(cursor.nextInt(state.vertices)));
+    }
+
+    private static long count(final Iterable<?> iterable) {
+        long count = 0;
+        for (final Object element : iterable) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,145 @@
+package com.tinkerpop.blueprints.benchmark;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Adds elements to a graph.  The single element benchmarks add to a graph that is opened empty for every iteration,
+ * so the graph grows over the course of an iteration.  The load benchmarks add a whole power law graph to an empty
+ * graph, either directly or through a BatchGraph, and report the time it takes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InsertionBenchmark {
+
+    private static final int POOL_SIZE = 1000;
+
+    /**
+     * An empty graph per iteration with a pool of vertices to add edges between.
+     */
+    @State(Scope.Benchmark)
+    public static class EmptyGraphState {
+
+        @Param(BenchmarkGraphs.TINKERGRAPH)
+        public String graph;
+
+        protected Graph g;
+        protected Vertex[] pool;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            this.g = BenchmarkGraphs.open(this.graph);
+            this.pool = new Vertex[POOL_SIZE];
+            for (int i = 0; i < POOL_SIZE; i++) {
+                this.pool[i] = this.g.addVertex(null);
+            }
+            BenchmarkGraphs.commit(this.g);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            BenchmarkGraphs.close(this.g);
+            this.g = null;
+            this.pool = null;
+        }
+    }
+
+    /**
+     * An empty graph per invocation for the load benchmarks.
+     */
+    @State(Scope.Benchmark)
+    public static class LoadState {
+
+        @Param(BenchmarkGraphs.TINKERGRAPH)
+        public String graph;
+
+        @Param("100000")
+        public int vertices;
+
+        @Param("5")
+        public int edgesPerVertex;
+
+        @Param("42")
+        public long seed;
+
+        @Param("10000")
+        public long bufferSize;
+
+        protected Graph g;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            this.g = BenchmarkGraphs.open(this.graph);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            BenchmarkGraphs.close(this.g);
+            this.g = null;
+        }
+
+        protected PowerLawGraphGenerator generator() {
+            return new PowerLawGraphGenerator(this.vertices, this.edgesPerVertex, this.seed);
+        }
+    }
+
+    @Benchmark
+    public Vertex addVertex(final EmptyGraphState state) {
+        return state.g.addVertex(null);
+    }
+
+    @Benchmark
+    public Vertex addVertexWithProperties(final EmptyGraphState state, final Cursor cursor) {
+        final Vertex vertex = state.g.addVertex(null);
+        vertex.setProperty(PowerLawGraphGenerator.NAME, PowerLawGraphGenerator.name(cursor.nextInt(POOL_SIZE)));
+        vertex.setProperty(PowerLawGraphGenerator.AGE, cursor.nextInt(PowerLawGraphGenerator.AGES));
+        return vertex;
+    }
+
+    @Benchmark
+    public Edge addEdge(final EmptyGraphState state, final Cursor cursor) {
+        final Vertex outVertex = state.pool[cursor.nextInt(POOL_SIZE)];
+        final Vertex inVertex = state.pool[cursor.nextInt(POOL_SIZE)];
+        final Edge edge = state.g.addEdge(null, outVertex, inVertex, PowerLawGraphGenerator.LABELS[cursor.nextInt(PowerLawGraphGenerator.LABELS.length)]);
+        edge.setProperty(PowerLawGraphGenerator.WEIGHT, cursor.nextDouble());
+        return edge;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public Object[] load(final LoadState state) {
+        final Object[] ids = state.generator().generate(state.g);
+        BenchmarkGraphs.commit(state.g);
+        return ids;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public Object[] batchLoad(final LoadState state) {
+        final BatchGraph<?> batchGraph = BatchGraph.wrap(state.g, state.bufferSize);
+        batchGraph.setLoadingFromScratch(true);
+        final Object[] ids = state.generator().generate(batchGraph);
+        batchGraph.commit();
+        return ids;
+    }
+}
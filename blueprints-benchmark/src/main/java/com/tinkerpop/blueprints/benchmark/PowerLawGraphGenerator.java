@@ -0,0 +1,101 @@
+package com.tinkerpop.blueprints.benchmark;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.util.Random;
+
+/**
+ * Generates a synthetic graph whose degree distribution follows a power law by preferential attachment.
+ * Each vertex attaches edgesPerVertex edges to the vertices added before it, choosing an endpoint of an existing
+ * edge at random so that a vertex is chosen with a probability proportional to its degree.
+ * <p>
+ * The generated graph is fully determined by its size and seed.  Vertex i is added with the id i (a Long) and has
+ * the properties name ("v" + i), age (int) and group (int, i % GROUPS).  Every edge is labeled with one of LABELS and
+ * has the properties weight (double) and since (int).
+ */
+public class PowerLawGraphGenerator {
+
+    public static final String NAME = "name";
+    public static final String AGE = "age";
+    public static final String GROUP = "group";
+    public static final String WEIGHT = "weight";
+    public static final String SINCE = "since";
+
+    public static final String[] LABELS = new String[]{"knows", "created", "likes", "follows"};
+    public static final int GROUPS = 100;
+    public static final int AGES = 100;
+
+    private final int vertexCount;
+    private final int edgesPerVertex;
+    private final long seed;
+
+    public PowerLawGraphGenerator(final int vertexCount, final int edgesPerVertex, final long seed) {
+        if (vertexCount < 1)
+            throw new IllegalArgumentException("The number of vertices must be positive: " + vertexCount);
+        if (edgesPerVertex < 1)
+            throw new IllegalArgumentException("The number of edges per vertex must be positive: " + edgesPerVertex);
+
+        this.vertexCount = vertexCount;
+        this.edgesPerVertex = edgesPerVertex;
+        this.seed = seed;
+    }
+
+    public int getVertexCount() {
+        return this.vertexCount;
+    }
+
+    /**
+     * @return the number of edges that generate() adds
+     */
+    public long getEdgeCount() {
+        final long full = (long) Math.max(0, this.vertexCount - this.edgesPerVertex) * this.edgesPerVertex;
+        final int partial = Math.min(this.vertexCount, this.edgesPerVertex);
+        return full + ((long) partial * (partial - 1)) / 2;
+    }
+
+    public static String name(final int i) {
+        return "v" + i;
+    }
+
+    /**
+     * Add the generated vertices and edges to the graph.
+     *
+     * @param graph the graph to add to
+     * @return the ids the graph assigned to the generated vertices, indexed by vertex number
+     */
+    public Object[] generate(final Graph graph) {
+        final Random random = new Random(this.seed);
+        final Vertex[] vertices = new Vertex[this.vertexCount];
+        final int[] endpoints = new int[(int) Math.min(Integer.MAX_VALUE - 8, 2 * this.getEdgeCount())];
+        int size = 0;
+
+        for (int i = 0; i < this.vertexCount; i++) {
+            final Vertex vertex = graph.addVertex((long) i);
+            vertex.setProperty(NAME, name(i));
+            vertex.setProperty(AGE, random.nextInt(AGES));
+            vertex.setProperty(GROUP, i % GROUPS);
+            vertices[i] = vertex;
+
+            final int degree = Math.min(i, this.edgesPerVertex);
+            for (int j = 0; j < degree; j++) {
+                // until every earlier vertex has been attached to, attach to each of them in turn
+                final int target = i <= this.edgesPerVertex ? j : endpoints[random.nextInt(size)];
+                final Edge edge = graph.addEdge(null, vertex, vertices[target], LABELS[random.nextInt(LABELS.length)]);
+                edge.setProperty(WEIGHT, random.nextDouble());
+                edge.setProperty(SINCE, 1990 + random.nextInt(25));
+                if (size < endpoints.length - 1) {
+                    endpoints[size++] = i;
+                    endpoints[size++] = target;
+                }
+            }
+        }
+
+        final Object[] ids = new Object[this.vertexCount];
+        for (int i = 0; i < this.vertexCount; i++) {
+            ids[i] = vertices[i].getId();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,75 @@
+package com.tinkerpop.blueprints.benchmark;
+
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs vertex queries around randomly chosen vertices and graph queries over the whole graph.  No key indices are
+ * created, so the graph queries measure the cost of filtering all the elements of the graph; see IndexBenchmark for
+ * indexed lookups.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QueryBenchmark {
+
+    @Benchmark
+    public long vertexQueryCount(final GraphState state, final Cursor cursor) {
+        return state.randomVertex(cursor).query().direction(Direction.BOTH).count();
+    }
+
+    @Benchmark
+    public long vertexQueryByLabelAndProperty(final GraphState state, final Cursor cursor) {
+        long count = 0;
+        final Vertex start = state.randomVertex(cursor);
+        for (final Vertex vertex : start.query().direction(Direction.OUT).labels("knows", "likes")
+                .has(PowerLawGraphGenerator.WEIGHT, Compare.GREATER_THAN, 0.5d).vertices()) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long vertexQueryInterval(final GraphState state, final Cursor cursor) {
+        return state.randomVertex(cursor).query().direction(Direction.BOTH)
+                .interval(PowerLawGraphGenerator.SINCE, 2000, 2005).count();
+    }
+
+    @Benchmark
+    public long vertexQueryLimit(final GraphState state, final Cursor cursor) {
+        long count = 0;
+        for (final Vertex vertex : state.randomVertex(cursor).query().direction(Direction.IN).limit(3).vertices()) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long graphQueryEquality(final GraphState state, final Cursor cursor) {
+        long count = 0;
+        for (final Vertex vertex : state.getGraph().query()
+                .has(PowerLawGraphGenerator.GROUP, cursor.nextInt(PowerLawGraphGenerator.GROUPS)).vertices()) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long graphQueryInterval(final GraphState state, final Cursor cursor) {
+        long count = 0;
+        final int start = cursor.nextInt(PowerLawGraphGenerator.AGES - 5);
+        for (final Vertex vertex : state.getGraph().query()
+                .interval(PowerLawGraphGenerator.AGE, start, start + 5).limit(100).vertices()) {
+            count++;
+        }
+        return count;
+    }
+}
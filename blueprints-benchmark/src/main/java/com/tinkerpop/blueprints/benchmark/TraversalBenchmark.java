@@ -0,0 +1,75 @@
+package com.tinkerpop.blueprints.benchmark;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Walks the adjacency of randomly chosen vertices.  The power law degree distribution means that most steps start
+ * from a vertex of small degree while a few start from hubs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TraversalBenchmark {
+
+    @Benchmark
+    public Vertex getVertex(final GraphState state, final Cursor cursor) {
+        return state.randomVertex(cursor);
+    }
+
+    @Benchmark
+    public long outEdges(final GraphState state, final Cursor cursor) {
+        long count = 0;
+        for (final Edge edge : state.randomVertex(cursor).getEdges(Direction.OUT)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long bothVertices(final GraphState state, final Cursor cursor) {
+        long count = 0;
+        for (final Vertex vertex : state.randomVertex(cursor).getVertices(Direction.BOTH)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long inVerticesByLabel(final GraphState state, final Cursor cursor) {
+        long count = 0;
+        final String label = PowerLawGraphGenerator.LABELS[cursor.nextInt(PowerLawGraphGenerator.LABELS.length)];
+        for (final Vertex vertex : state.randomVertex(cursor).getVertices(Direction.IN, label)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long twoSteps(final GraphState state, final Cursor cursor) {
+        long count = 0;
+        for (final Vertex vertex : state.randomVertex(cursor).getVertices(Direction.OUT)) {
+            for (final Vertex other : vertex.getVertices(Direction.BOTH)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long edgeProperties(final GraphState state, final Cursor cursor) {
+        long sum = 0;
+        for (final Edge edge : state.randomVertex(cursor).getEdges(Direction.BOTH)) {
+            sum += (Integer) edge.getProperty(PowerLawGraphGenerator.SINCE);
+        }
+        return sum;
+    }
+}
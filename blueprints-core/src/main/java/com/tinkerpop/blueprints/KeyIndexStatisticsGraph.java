@@ -0,0 +1,29 @@
+package com.tinkerpop.blueprints;
+
+/**
+ * A KeyIndexStatisticsGraph is a KeyIndexableGraph that can report the cardinality of its key indices without iterating over them.
+ * These statistics allow a query planner to choose the most selective key index for a query.
+ */
+public interface KeyIndexStatisticsGraph extends KeyIndexableGraph {
+
+    /**
+     * Return the number of elements of the element class whose value for the indexed key equals the provided value.
+     *
+     * @param key          the indexed key
+     * @param value        the value of the key
+     * @param elementClass the element class that the index is for
+     * @param <T>          the element class specification
+     * @return the number of elements with the key/value pair
+     */
+    public <T extends Element> long countKeyIndex(String key, Object value, Class<T> elementClass);
+
+    /**
+     * Return the number of elements of the element class that have a value for the indexed key.
+     *
+     * @param key          the indexed key
+     * @param elementClass the element class that the index is for
+     * @param <T>          the element class specification
+     * @return the number of elements with a value for the key
+     */
+    public <T extends Element> long countKeyIndex(String key, Class<T> elementClass);
+}
@@ -0,0 +1,55 @@
+package com.tinkerpop.blueprints;
+
+import java.util.Set;
+
+/**
+ * A RangeIndexableGraph is a KeyIndexableGraph whose key indices can keep their values in sorted order.
+ * A key index is created as a range index by passing the parameter type=range to createKeyIndex().
+ * The elements whose value for a range indexed key falls between two bounds can then be retrieved without iterating over all the elements of the graph.
+ * Only values of the same class as the bounds are returned by a range lookup.
+ */
+public interface RangeIndexableGraph extends KeyIndexableGraph {
+
+    /**
+     * The key of the index parameter that selects the type of a key index.
+     */
+    public static final String TYPE = "type";
+
+    /**
+     * The value of the type index parameter that creates a range index.
+     */
+    public static final String RANGE = "range";
+
+    /**
+     * Return the keys associated with a particular element class that have a range index.
+     *
+     * @param elementClass the element class that the index is for
+     * @param <T>          the element class specification
+     * @return the range indexed keys as a Set
+     */
+    public <T extends Element> Set<String> getRangeIndexedKeys(Class<T> elementClass);
+
+    /**
+     * Return an iterable to all the vertices in the graph whose value for the range indexed key lies between the two bounds.
+     *
+     * @param key            the range indexed key of the vertices
+     * @param startValue     the lower bound or null if there is no lower bound
+     * @param startInclusive whether vertices with a value equal to the lower bound are included
+     * @param endValue       the upper bound or null if there is no upper bound
+     * @param endInclusive   whether vertices with a value equal to the upper bound are included
+     * @return an iterable of vertices with a value for the key within the bounds
+     */
+    public Iterable<Vertex> getVertices(String key, Object startValue, boolean startInclusive, Object endValue, boolean endInclusive);
+
+    /**
+     * Return an iterable to all the edges in the graph whose value for the range indexed key lies between the two bounds.
+     *
+     * @param key            the range indexed key of the edges
+     * @param startValue     the lower bound or null if there is no lower bound
+     * @param startInclusive whether edges with a value equal to the lower bound are included
+     * @param endValue       the upper bound or null if there is no upper bound
+     * @param endInclusive   whether edges with a value equal to the upper bound are included
+     * @return an iterable of edges with a value for the key within the bounds
+     */
+    public Iterable<Edge> getEdges(String key, Object startValue, boolean startInclusive, Object endValue, boolean endInclusive);
+}
@@ -0,0 +1,58 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.ElementHelper;
+import com.tinkerpop.blueprints.util.ExceptionFactory;
+import com.tinkerpop.blueprints.util.StringFactory;
+
+import java.util.Set;
+
+/**
+ * An edge of a ColumnarTinkerGraph.
+ */
+class ColumnarTinkerEdge extends ColumnarTinkerElement implements Edge {
+
+    protected ColumnarTinkerEdge(final long id, final int slot, final ColumnarTinkerGraph graph) {
+        super(id, slot, graph);
+    }
+
+    public String getLabel() {
+        return this.graph.getEdgeLabel(this.slot);
+    }
+
+    public Vertex getVertex(final Direction direction) throws IllegalArgumentException {
+        if (direction.equals(Direction.IN))
+            return this.graph.getEdgeVertex(this.slot, false);
+        else if (direction.equals(Direction.OUT))
+            return this.graph.getEdgeVertex(this.slot, true);
+        else
+            throw ExceptionFactory.bothIsNotSupported();
+    }
+
+    public <T> T getProperty(final String key) {
+        return (T) this.graph.getEdgeProperty(this.slot, key);
+    }
+
+    public Set<String> getPropertyKeys() {
+        return this.graph.getEdgePropertyKeys(this.slot);
+    }
+
+    public void setProperty(final String key, final Object value) {
+        ElementHelper.validateProperty(this, key, value);
+        this.graph.setEdgeProperty(this, key, value);
+    }
+
+    public <T> T removeProperty(final String key) {
+        return (T) this.graph.removeEdgeProperty(this, key);
+    }
+
+    public void remove() {
+        this.graph.removeEdge(this);
+    }
+
+    public String toString() {
+        return StringFactory.edgeString(this);
+    }
+}
@@ -0,0 +1,33 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.util.ElementHelper;
+
+/**
+ * A lightweight handle onto an element slot of a ColumnarTinkerGraph.  The element holds no state of its own beyond
+ * its identifier and slot so that any number of handles to the same element can be created and discarded cheaply.
+ */
+abstract class ColumnarTinkerElement implements Element {
+
+    protected final long id;
+    protected final int slot;
+    protected final ColumnarTinkerGraph graph;
+
+    protected ColumnarTinkerElement(final long id, final int slot, final ColumnarTinkerGraph graph) {
+        this.id = id;
+        this.slot = slot;
+        this.graph = graph;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public int hashCode() {
+        return (int) (this.id ^ (this.id >>> 32));
+    }
+
+    public boolean equals(final Object object) {
+        return ElementHelper.areEqual(this, object);
+    }
+}
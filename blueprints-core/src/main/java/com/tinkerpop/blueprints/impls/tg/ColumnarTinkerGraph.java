@@ -0,0 +1,728 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.carrotsearch.hppc.IntOpenHashSet;
+import com.carrotsearch.hppc.LongIntOpenHashMap;
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+import com.tinkerpop.blueprints.CloseableIterable;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Features;
+import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.Index;
+import com.tinkerpop.blueprints.IndexableGraph;
+import com.tinkerpop.blueprints.KeyIndexableGraph;
+import com.tinkerpop.blueprints.Parameter;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.DefaultGraphQuery;
+import com.tinkerpop.blueprints.util.ExceptionFactory;
+import com.tinkerpop.blueprints.util.PropertyFilteredIterable;
+import com.tinkerpop.blueprints.util.StringFactory;
+import com.tinkerpop.blueprints.util.WrappingCloseableIterable;
+import org.apache.commons.configuration.Configuration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An in-memory TinkerGraph storage engine geared toward large graphs.  Rather than keeping an object per element with
+ * its own property map, ColumnarTinkerGraph assigns every vertex and edge a dense int slot.  Identifiers, endpoints and
+ * labels are kept in primitive arrays indexed by slot and property values are kept in one typed column per property key.
+ * The Vertex and Edge instances handed out by the graph are lightweight handles over those slots.
+ * <p>
+ * Element identifiers are always primitive longs generated by the graph, so supplied identifiers are ignored.
+ * Slots of removed elements are not reused.
+ */
+public class ColumnarTinkerGraph implements IndexableGraph, KeyIndexableGraph {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int[] NO_LABEL_FILTER = new int[0];
+
+    protected long currentId = 0l;
+
+    protected long[] vertexIds = new long[INITIAL_CAPACITY];
+    protected final BitSet liveVertices = new BitSet();
+    protected final LongIntOpenHashMap vertexSlots = new LongIntOpenHashMap();
+    protected int vertexHighWater = 0;
+
+    protected final TinkerAdjacency outAdjacency = new TinkerAdjacency(INITIAL_CAPACITY);
+    protected final TinkerAdjacency inAdjacency = new TinkerAdjacency(INITIAL_CAPACITY);
+
+    protected long[] edgeIds = new long[INITIAL_CAPACITY];
+    protected int[] edgeOutSlots = new int[INITIAL_CAPACITY];
+    protected int[] edgeInSlots = new int[INITIAL_CAPACITY];
+    protected int[] edgeLabels = new int[INITIAL_CAPACITY];
+    protected final BitSet liveEdges = new BitSet();
+    protected final LongIntOpenHashMap edgeSlots = new LongIntOpenHashMap();
+    protected int edgeHighWater = 0;
+
+    protected final List<String> labels = new ArrayList<String>();
+    protected final ObjectIntOpenHashMap<String> labelIds = new ObjectIntOpenHashMap<String>();
+
+    protected final Map<String, TinkerPropertyColumn> vertexProperties = new HashMap<String, TinkerPropertyColumn>();
+    protected final Map<String, TinkerPropertyColumn> edgeProperties = new HashMap<String, TinkerPropertyColumn>();
+
+    protected Map<String, TinkerIndex> indices = new HashMap<String, TinkerIndex>();
+    protected SlotKeyIndex vertexKeyIndex = new SlotKeyIndex(true);
+    protected SlotKeyIndex edgeKeyIndex = new SlotKeyIndex(false);
+
+    private static final Features FEATURES = new Features();
+
+    static {
+        FEATURES.supportsDuplicateEdges = true;
+        FEATURES.supportsSelfLoops = true;
+        FEATURES.supportsSerializableObjectProperty = true;
+        FEATURES.supportsBooleanProperty = true;
+        FEATURES.supportsDoubleProperty = true;
+        FEATURES.supportsFloatProperty = true;
+        FEATURES.supportsIntegerProperty = true;
+        FEATURES.supportsPrimitiveArrayProperty = true;
+        FEATURES.supportsUniformListProperty = true;
+        FEATURES.supportsMixedListProperty = true;
+        FEATURES.supportsLongProperty = true;
+        FEATURES.supportsMapProperty = true;
+        FEATURES.supportsStringProperty = true;
+
+        FEATURES.ignoresSuppliedIds = true;
+        FEATURES.isPersistent = false;
+        FEATURES.isWrapper = false;
+
+        FEATURES.supportsIndices = true;
+        FEATURES.supportsKeyIndices = true;
+        FEATURES.supportsVertexKeyIndex = true;
+        FEATURES.supportsEdgeKeyIndex = true;
+        FEATURES.supportsVertexIndex = true;
+        FEATURES.supportsEdgeIndex = true;
+        FEATURES.supportsTransactions = false;
+        FEATURES.supportsVertexIteration = true;
+        FEATURES.supportsEdgeIteration = true;
+        FEATURES.supportsEdgeRetrieval = true;
+        FEATURES.supportsVertexProperties = true;
+        FEATURES.supportsEdgeProperties = true;
+        FEATURES.supportsThreadedTransactions = false;
+        FEATURES.supportsThreadIsolatedTransactions = false;
+    }
+
+    public ColumnarTinkerGraph(final Configuration configuration) {
+        if (configuration == null) {
+            throw new IllegalArgumentException("configuration cannot be null");
+        }
+
+        if (configuration.getString("blueprints.tg.directory", null) != null) {
+            throw new IllegalArgumentException("ColumnarTinkerGraph is in-memory only and does not support blueprints.tg.directory");
+        }
+    }
+
+    public ColumnarTinkerGraph() {
+    }
+
+    public Features getFeatures() {
+        return FEATURES;
+    }
+
+    public Vertex addVertex(final Object id) {
+        final long vertexId = this.nextId();
+        final int slot = this.vertexHighWater++;
+        this.ensureVertexCapacity(slot);
+        this.vertexIds[slot] = vertexId;
+        this.liveVertices.set(slot);
+        this.vertexSlots.put(vertexId, slot);
+        return new ColumnarTinkerVertex(vertexId, slot, this);
+    }
+
+    public Vertex getVertex(final Object id) {
+        if (null == id)
+            throw ExceptionFactory.vertexIdCanNotBeNull();
+
+        final Long vertexId = toLong(id);
+        if (null == vertexId || !this.vertexSlots.containsKey(vertexId))
+            return null;
+
+        return new ColumnarTinkerVertex(vertexId, this.vertexSlots.lget(), this);
+    }
+
+    public void removeVertex(final Vertex vertex) {
+        final int slot = this.liveVertexSlot(vertex);
+
+        for (final Edge edge : this.getIncidentEdges((ColumnarTinkerVertex) vertex, Direction.BOTH)) {
+            this.removeEdge(edge);
+        }
+
+        this.vertexKeyIndex.removeSlot(slot);
+        for (final TinkerIndex index : this.indices.values()) {
+            if (Vertex.class.isAssignableFrom(index.getIndexClass()))
+                index.removeElement(vertex);
+        }
+
+        for (final TinkerPropertyColumn column : this.vertexProperties.values()) {
+            column.remove(slot);
+        }
+
+        this.outAdjacency.clear(slot);
+        this.inAdjacency.clear(slot);
+        this.liveVertices.clear(slot);
+        this.vertexSlots.remove(this.vertexIds[slot]);
+    }
+
+    public Iterable<Vertex> getVertices() {
+        return new SlotIterable<Vertex>(true);
+    }
+
+    public Iterable<Vertex> getVertices(final String key, final Object value) {
+        if (this.vertexKeyIndex.getIndexedKeys().contains(key)) {
+            return (Iterable) this.vertexKeyIndex.get(key, value);
+        } else {
+            return new PropertyFilteredIterable<Vertex>(key, value, this.getVertices());
+        }
+    }
+
+    public Edge addEdge(final Object id, final Vertex outVertex, final Vertex inVertex, final String label) {
+        if (label == null)
+            throw ExceptionFactory.edgeLabelCanNotBeNull();
+
+        final int outSlot = this.liveVertexSlot(outVertex);
+        final int inSlot = this.liveVertexSlot(inVertex);
+
+        final long edgeId = this.nextId();
+        final int slot = this.edgeHighWater++;
+        this.ensureEdgeCapacity(slot);
+        this.edgeIds[slot] = edgeId;
+        this.edgeOutSlots[slot] = outSlot;
+        this.edgeInSlots[slot] = inSlot;
+        this.edgeLabels[slot] = this.labelId(label);
+        this.liveEdges.set(slot);
+        this.edgeSlots.put(edgeId, slot);
+
+        this.outAdjacency.add(outSlot, slot);
+        this.inAdjacency.add(inSlot, slot);
+
+        this.edgeKeyIndex.autoUpdate(StringFactory.LABEL, label, null, slot);
+        return new ColumnarTinkerEdge(edgeId, slot, this);
+    }
+
+    public Edge getEdge(final Object id) {
+        if (null == id)
+            throw ExceptionFactory.edgeIdCanNotBeNull();
+
+        final Long edgeId = toLong(id);
+        if (null == edgeId || !this.edgeSlots.containsKey(edgeId))
+            return null;
+
+        return new ColumnarTinkerEdge(edgeId, this.edgeSlots.lget(), this);
+    }
+
+    public void removeEdge(final Edge edge) {
+        final int slot = ((ColumnarTinkerEdge) edge).slot;
+        if (!this.liveEdges.get(slot))
+            return;
+
+        final int outSlot = this.edgeOutSlots[slot];
+        final int inSlot = this.edgeInSlots[slot];
+        this.outAdjacency.remove(outSlot, slot);
+        this.inAdjacency.remove(inSlot, slot);
+
+        this.edgeKeyIndex.removeSlot(slot);
+        for (final TinkerIndex index : this.indices.values()) {
+            if (Edge.class.isAssignableFrom(index.getIndexClass()))
+                index.removeElement(edge);
+        }
+
+        for (final TinkerPropertyColumn column : this.edgeProperties.values()) {
+            column.remove(slot);
+        }
+
+        this.liveEdges.clear(slot);
+        this.edgeSlots.remove(this.edgeIds[slot]);
+    }
+
+    public Iterable<Edge> getEdges() {
+        return new SlotIterable<Edge>(false);
+    }
+
+    public Iterable<Edge> getEdges(final String key, final Object value) {
+        if (this.edgeKeyIndex.getIndexedKeys().contains(key)) {
+            return (Iterable) this.edgeKeyIndex.get(key, value);
+        } else {
+            return new PropertyFilteredIterable<Edge>(key, value, this.getEdges());
+        }
+    }
+
+    public GraphQuery query() {
+        return new DefaultGraphQuery(this);
+    }
+
+    /**
+     * Rebuild the adjacency of the graph into its compressed sparse row layout.  This should be called after a bulk
+     * load and may be called again at any time to fold in edges that were added or removed since the last compaction.
+     * Iterators that are open during compaction continue over the layout they started with.
+     */
+    public void compact() {
+        this.outAdjacency.compact(this.vertexHighWater, this.edgeOutSlots, this.edgeLabels, this.liveEdges, this.edgeHighWater, this.labels.size());
+        this.inAdjacency.compact(this.vertexHighWater, this.edgeInSlots, this.edgeLabels, this.liveEdges, this.edgeHighWater, this.labels.size());
+    }
+
+    public <T extends Element> void createKeyIndex(final String key, final Class<T> elementClass, final Parameter... indexParameters) {
+        this.getKeyIndex(elementClass).createKeyIndex(key);
+    }
+
+    public <T extends Element> void dropKeyIndex(final String key, final Class<T> elementClass) {
+        this.getKeyIndex(elementClass).dropKeyIndex(key);
+    }
+
+    public <T extends Element> Set<String> getIndexedKeys(final Class<T> elementClass) {
+        return this.getKeyIndex(elementClass).getIndexedKeys();
+    }
+
+    public <T extends Element> Index<T> createIndex(final String indexName, final Class<T> indexClass, final Parameter... indexParameters) {
+        if (this.indices.containsKey(indexName))
+            throw ExceptionFactory.indexAlreadyExists(indexName);
+
+        final TinkerIndex index = new TinkerIndex(indexName, indexClass);
+        this.indices.put(index.getIndexName(), index);
+        return index;
+    }
+
+    public <T extends Element> Index<T> getIndex(final String indexName, final Class<T> indexClass) {
+        final Index index = this.indices.get(indexName);
+        if (null == index)
+            return null;
+        if (!indexClass.isAssignableFrom(index.getIndexClass()))
+            throw ExceptionFactory.indexDoesNotSupportClass(indexName, indexClass);
+        else
+            return index;
+    }
+
+    public Iterable<Index<? extends Element>> getIndices() {
+        final List<Index<? extends Element>> list = new ArrayList<Index<? extends Element>>();
+        for (final Index index : this.indices.values()) {
+            list.add(index);
+        }
+        return list;
+    }
+
+    public void dropIndex(final String indexName) {
+        this.indices.remove(indexName);
+    }
+
+    public void shutdown() {
+    }
+
+    public String toString() {
+        return StringFactory.graphString(this, "vertices:" + this.vertexSlots.size() + " edges:" + this.edgeSlots.size());
+    }
+
+    ////////////////////
+
+    protected Object getVertexProperty(final int slot, final String key) {
+        final TinkerPropertyColumn column = this.vertexProperties.get(key);
+        return null == column ? null : column.get(slot);
+    }
+
+    protected Object getEdgeProperty(final int slot, final String key) {
+        final TinkerPropertyColumn column = this.edgeProperties.get(key);
+        return null == column ? null : column.get(slot);
+    }
+
+    protected Set<String> getVertexPropertyKeys(final int slot) {
+        return getPropertyKeys(this.vertexProperties, slot);
+    }
+
+    protected Set<String> getEdgePropertyKeys(final int slot) {
+        return getPropertyKeys(this.edgeProperties, slot);
+    }
+
+    protected void setVertexProperty(final ColumnarTinkerVertex vertex, final String key, final Object value) {
+        if (!this.liveVertices.get(vertex.slot))
+            throw ExceptionFactory.vertexWithIdDoesNotExist(vertex.getId());
+
+        final Object oldValue = setProperty(this.vertexProperties, vertex.slot, key, value);
+        this.vertexKeyIndex.autoUpdate(key, value, oldValue, vertex.slot);
+    }
+
+    protected void setEdgeProperty(final ColumnarTinkerEdge edge, final String key, final Object value) {
+        if (!this.liveEdges.get(edge.slot))
+            throw new IllegalStateException("Edge with id does not exist: " + edge.getId());
+
+        final Object oldValue = setProperty(this.edgeProperties, edge.slot, key, value);
+        this.edgeKeyIndex.autoUpdate(key, value, oldValue, edge.slot);
+    }
+
+    protected Object removeVertexProperty(final ColumnarTinkerVertex vertex, final String key) {
+        final Object oldValue = removeProperty(this.vertexProperties, vertex.slot, key);
+        this.vertexKeyIndex.autoRemove(key, oldValue, vertex.slot);
+        return oldValue;
+    }
+
+    protected Object removeEdgeProperty(final ColumnarTinkerEdge edge, final String key) {
+        final Object oldValue = removeProperty(this.edgeProperties, edge.slot, key);
+        this.edgeKeyIndex.autoRemove(key, oldValue, edge.slot);
+        return oldValue;
+    }
+
+    protected String getEdgeLabel(final int slot) {
+        return this.labels.get(this.edgeLabels[slot]);
+    }
+
+    protected Vertex getEdgeVertex(final int slot, final boolean out) {
+        final int vertexSlot = out ? this.edgeOutSlots[slot] : this.edgeInSlots[slot];
+        return this.vertexAt(vertexSlot);
+    }
+
+    protected Iterable<Edge> getIncidentEdges(final ColumnarTinkerVertex vertex, final Direction direction, final String... labels) {
+        return new AdjacencyIterable<Edge>(vertex.slot, direction, labels, false);
+    }
+
+    protected Iterable<Vertex> getAdjacentVertices(final ColumnarTinkerVertex vertex, final Direction direction, final String... labels) {
+        return new AdjacencyIterable<Vertex>(vertex.slot, direction, labels, true);
+    }
+
+    protected Vertex vertexAt(final int slot) {
+        return new ColumnarTinkerVertex(this.vertexIds[slot], slot, this);
+    }
+
+    protected Edge edgeAt(final int slot) {
+        return new ColumnarTinkerEdge(this.edgeIds[slot], slot, this);
+    }
+
+    /**
+     * @return the label ids to filter on, an empty array for no filtering or null if none of the labels exist
+     */
+    private int[] labelFilter(final String... labels) {
+        if (labels.length == 0)
+            return NO_LABEL_FILTER;
+
+        final int[] filter = new int[labels.length];
+        int size = 0;
+        for (final String label : labels) {
+            if (this.labelIds.containsKey(label))
+                filter[size++] = this.labelIds.lget();
+        }
+        return size == 0 ? null : Arrays.copyOf(filter, size);
+    }
+
+    private int labelId(final String label) {
+        if (this.labelIds.containsKey(label))
+            return this.labelIds.lget();
+
+        final int labelId = this.labels.size();
+        this.labels.add(label);
+        this.labelIds.put(label, labelId);
+        return labelId;
+    }
+
+    private int liveVertexSlot(final Vertex vertex) {
+        final ColumnarTinkerVertex v = (ColumnarTinkerVertex) vertex;
+        if (v.graph != this || !this.liveVertices.get(v.slot))
+            throw ExceptionFactory.vertexWithIdDoesNotExist(vertex.getId());
+        return v.slot;
+    }
+
+    private long nextId() {
+        return this.currentId++;
+    }
+
+    private void ensureVertexCapacity(final int slot) {
+        if (slot < this.vertexIds.length)
+            return;
+
+        final int capacity = this.vertexIds.length << 1;
+        this.vertexIds = Arrays.copyOf(this.vertexIds, capacity);
+        this.outAdjacency.ensureCapacity(capacity);
+        this.inAdjacency.ensureCapacity(capacity);
+    }
+
+    private void ensureEdgeCapacity(final int slot) {
+        if (slot < this.edgeIds.length)
+            return;
+
+        final int capacity = this.edgeIds.length << 1;
+        this.edgeIds = Arrays.copyOf(this.edgeIds, capacity);
+        this.edgeOutSlots = Arrays.copyOf(this.edgeOutSlots, capacity);
+        this.edgeInSlots = Arrays.copyOf(this.edgeInSlots, capacity);
+        this.edgeLabels = Arrays.copyOf(this.edgeLabels, capacity);
+    }
+
+    private SlotKeyIndex getKeyIndex(final Class<? extends Element> elementClass) {
+        if (elementClass == null)
+            throw ExceptionFactory.classForElementCannotBeNull();
+
+        if (Vertex.class.isAssignableFrom(elementClass))
+            return this.vertexKeyIndex;
+        else if (Edge.class.isAssignableFrom(elementClass))
+            return this.edgeKeyIndex;
+        else
+            throw ExceptionFactory.classIsNotIndexable(elementClass);
+    }
+
+    private static Object setProperty(final Map<String, TinkerPropertyColumn> columns, final int slot, final String key, final Object value) {
+        final TinkerPropertyColumn column = columns.get(key);
+        if (null == column) {
+            columns.put(key, TinkerPropertyColumn.forValue(value).set(slot, value));
+            return null;
+        }
+
+        final Object oldValue = column.get(slot);
+        final TinkerPropertyColumn updated = column.set(slot, value);
+        if (updated != column)
+            columns.put(key, updated);
+        return oldValue;
+    }
+
+    private static Object removeProperty(final Map<String, TinkerPropertyColumn> columns, final int slot, final String key) {
+        final TinkerPropertyColumn column = columns.get(key);
+        if (null == column)
+            return null;
+
+        final Object oldValue = column.remove(slot);
+        if (column.size() == 0)
+            columns.remove(key);
+        return oldValue;
+    }
+
+    private static Set<String> getPropertyKeys(final Map<String, TinkerPropertyColumn> columns, final int slot) {
+        final Set<String> keys = new HashSet<String>();
+        for (final Map.Entry<String, TinkerPropertyColumn> entry : columns.entrySet()) {
+            if (entry.getValue().contains(slot))
+                keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    private static Long toLong(final Object id) {
+        if (id instanceof Long)
+            return (Long) id;
+        else if (id instanceof Number)
+            return ((Number) id).longValue();
+
+        try {
+            return Long.valueOf(id.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Iterates the live slots of the vertex or edge store without copying them.  Slots are never reused, so
+     * elements added during iteration may or may not be seen and elements removed during iteration are skipped.
+     */
+    private class SlotIterable<T extends Element> implements Iterable<T> {
+        private final boolean forVertex;
+
+        public SlotIterable(final boolean forVertex) {
+            this.forVertex = forVertex;
+        }
+
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private final BitSet live = forVertex ? liveVertices : liveEdges;
+                private int nextSlot = live.nextSetBit(0);
+
+                public boolean hasNext() {
+                    if (this.nextSlot >= 0 && !this.live.get(this.nextSlot))
+                        this.nextSlot = this.live.nextSetBit(this.nextSlot);
+                    return this.nextSlot >= 0;
+                }
+
+                public T next() {
+                    if (!this.hasNext())
+                        throw new NoSuchElementException();
+
+                    final int slot = this.nextSlot;
+                    this.nextSlot = this.live.nextSetBit(slot + 1);
+                    return (T) (forVertex ? vertexAt(slot) : edgeAt(slot));
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+
+    /**
+     * Iterates the incident edges, or the adjacent vertices, of a vertex straight over the adjacency arrays.  Edges
+     * removed during iteration are skipped and edges added during iteration are not seen.
+     */
+    private class AdjacencyIterable<T extends Element> implements Iterable<T> {
+        private final int vertexSlot;
+        private final Direction direction;
+        private final String[] labels;
+        private final boolean adjacentVertices;
+
+        public AdjacencyIterable(final int vertexSlot, final Direction direction, final String[] labels, final boolean adjacentVertices) {
+            this.vertexSlot = vertexSlot;
+            this.direction = direction;
+            this.labels = labels;
+            this.adjacentVertices = adjacentVertices;
+        }
+
+        public Iterator<T> iterator() {
+            final int[] labelFilter = labelFilter(this.labels);
+            if (null == labelFilter)
+                return Collections.<T>emptyList().iterator();
+
+            final int[] currentLabels = edgeLabels;
+            final TinkerAdjacency.Cursor outCursor = this.direction.equals(Direction.IN) ? null : outAdjacency.cursor(this.vertexSlot, currentLabels, labelFilter);
+            final TinkerAdjacency.Cursor inCursor = this.direction.equals(Direction.OUT) ? null : inAdjacency.cursor(this.vertexSlot, currentLabels, labelFilter);
+
+            return new Iterator<T>() {
+                private TinkerAdjacency.Cursor cursor = null == outCursor ? inCursor : outCursor;
+                private boolean out = null != outCursor;
+                private int nextEdge = -2;
+
+                public boolean hasNext() {
+                    if (this.nextEdge == -2)
+                        this.nextEdge = this.advance();
+                    return this.nextEdge >= 0;
+                }
+
+                public T next() {
+                    if (!this.hasNext())
+                        throw new NoSuchElementException();
+
+                    final int edge = this.nextEdge;
+                    this.nextEdge = -2;
+                    if (adjacentVertices)
+                        return (T) vertexAt(this.out ? edgeInSlots[edge] : edgeOutSlots[edge]);
+                    else
+                        return (T) edgeAt(edge);
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+
+                private int advance() {
+                    while (null != this.cursor) {
+                        final int edge = this.cursor.next();
+                        if (edge >= 0) {
+                            if (liveEdges.get(edge))
+                                return edge;
+                        } else if (this.out && null != inCursor) {
+                            this.cursor = inCursor;
+                            this.out = false;
+                        } else {
+                            this.cursor = null;
+                        }
+                    }
+                    return -1;
+                }
+            };
+        }
+    }
+
+    /**
+     * A key index whose posting lists are sets of element slots rather than sets of element objects.
+     */
+    protected class SlotKeyIndex {
+
+        private final boolean forVertex;
+        private final Set<String> indexedKeys = new HashSet<String>();
+        private final Map<String, Map<Object, IntOpenHashSet>> index = new HashMap<String, Map<Object, IntOpenHashSet>>();
+
+        public SlotKeyIndex(final boolean forVertex) {
+            this.forVertex = forVertex;
+        }
+
+        public void autoUpdate(final String key, final Object newValue, final Object oldValue, final int slot) {
+            if (this.indexedKeys.contains(key)) {
+                if (oldValue != null)
+                    this.remove(key, oldValue, slot);
+                this.put(key, newValue, slot);
+            }
+        }
+
+        public void autoRemove(final String key, final Object oldValue, final int slot) {
+            if (this.indexedKeys.contains(key) && oldValue != null)
+                this.remove(key, oldValue, slot);
+        }
+
+        public void removeSlot(final int slot) {
+            for (final String key : this.indexedKeys) {
+                final Object value = this.valueAt(key, slot);
+                if (null != value)
+                    this.remove(key, value, slot);
+            }
+        }
+
+        public CloseableIterable<Element> get(final String key, final Object value) {
+            final Map<Object, IntOpenHashSet> keyMap = this.index.get(key);
+            final IntOpenHashSet slots = null == keyMap ? null : keyMap.get(value);
+            if (null == slots)
+                return new WrappingCloseableIterable<Element>((Iterable) Collections.emptyList());
+
+            final List<Element> elements = new ArrayList<Element>(slots.size());
+            for (final int slot : slots.toArray()) {
+                elements.add(this.forVertex ? vertexAt(slot) : edgeAt(slot));
+            }
+            return new WrappingCloseableIterable<Element>(elements);
+        }
+
+        public void createKeyIndex(final String key) {
+            if (this.indexedKeys.contains(key))
+                return;
+
+            this.indexedKeys.add(key);
+
+            final BitSet live = this.forVertex ? liveVertices : liveEdges;
+            for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                final Object value = this.valueAt(key, slot);
+                if (null != value)
+                    this.put(key, value, slot);
+            }
+        }
+
+        public void dropKeyIndex(final String key) {
+            this.indexedKeys.remove(key);
+            this.index.remove(key);
+        }
+
+        public Set<String> getIndexedKeys() {
+            return new HashSet<String>(this.indexedKeys);
+        }
+
+        private Object valueAt(final String key, final int slot) {
+            if (this.forVertex)
+                return getVertexProperty(slot, key);
+            else if (key.equals(StringFactory.LABEL))
+                return getEdgeLabel(slot);
+            else
+                return getEdgeProperty(slot, key);
+        }
+
+        private void put(final String key, final Object value, final int slot) {
+            Map<Object, IntOpenHashSet> keyMap = this.index.get(key);
+            if (null == keyMap) {
+                keyMap = new HashMap<Object, IntOpenHashSet>();
+                this.index.put(key, keyMap);
+            }
+            IntOpenHashSet slots = keyMap.get(value);
+            if (null == slots) {
+                slots = new IntOpenHashSet();
+                keyMap.put(value, slots);
+            }
+            slots.add(slot);
+        }
+
+        private void remove(final String key, final Object value, final int slot) {
+            final Map<Object, IntOpenHashSet> keyMap = this.index.get(key);
+            if (null != keyMap) {
+                final IntOpenHashSet slots = keyMap.get(value);
+                if (null != slots) {
+                    slots.remove(slot);
+                    if (slots.isEmpty())
+                        keyMap.remove(value);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.VertexQuery;
+import com.tinkerpop.blueprints.util.DefaultVertexQuery;
+import com.tinkerpop.blueprints.util.ElementHelper;
+import com.tinkerpop.blueprints.util.StringFactory;
+
+import java.util.Set;
+
+/**
+ * A vertex of a ColumnarTinkerGraph.
+ */
+class ColumnarTinkerVertex extends ColumnarTinkerElement implements Vertex {
+
+    protected ColumnarTinkerVertex(final long id, final int slot, final ColumnarTinkerGraph graph) {
+        super(id, slot, graph);
+    }
+
+    public <T> T getProperty(final String key) {
+        return (T) this.graph.getVertexProperty(this.slot, key);
+    }
+
+    public Set<String> getPropertyKeys() {
+        return this.graph.getVertexPropertyKeys(this.slot);
+    }
+
+    public void setProperty(final String key, final Object value) {
+        ElementHelper.validateProperty(this, key, value);
+        this.graph.setVertexProperty(this, key, value);
+    }
+
+    public <T> T removeProperty(final String key) {
+        return (T) this.graph.removeVertexProperty(this, key);
+    }
+
+    public Iterable<Edge> getEdges(final Direction direction, final String... labels) {
+        return this.graph.getIncidentEdges(this, direction, labels);
+    }
+
+    public Iterable<Vertex> getVertices(final Direction direction, final String... labels) {
+        return this.graph.getAdjacentVertices(this, direction, labels);
+    }
+
+    public VertexQuery query() {
+        return new DefaultVertexQuery(this);
+    }
+
+    public Edge addEdge(final String label, final Vertex vertex) {
+        return this.graph.addEdge(null, this, vertex, label);
+    }
+
+    public void remove() {
+        this.graph.removeVertex(this);
+    }
+
+    public String toString() {
+        return StringFactory.vertexString(this);
+    }
+}
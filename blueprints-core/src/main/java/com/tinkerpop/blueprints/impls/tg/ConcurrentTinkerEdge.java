@@ -0,0 +1,28 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * A TinkerEdge whose properties are copied on write.  Property writes are serialized per edge so that the key index
+ * always agrees with the properties.
+ */
+class ConcurrentTinkerEdge extends TinkerEdge {
+
+    private static final long serialVersionUID = 1l;
+
+    protected ConcurrentTinkerEdge(final String id, final Vertex outVertex, final Vertex inVertex, final String label, final ConcurrentTinkerGraph graph) {
+        super(id, outVertex, inVertex, label, graph);
+    }
+
+    public synchronized void setProperty(final String key, final Object value) {
+        super.setProperty(key, value);
+    }
+
+    public synchronized <T> T removeProperty(final String key) {
+        return super.removeProperty(key);
+    }
+
+    protected TinkerProperties writableProperties() {
+        return null == this.properties ? new TinkerProperties() : this.properties.copy();
+    }
+}
@@ -0,0 +1,253 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Index;
+import com.tinkerpop.blueprints.Parameter;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.ElementHelper;
+import com.tinkerpop.blueprints.util.ExceptionFactory;
+import com.tinkerpop.blueprints.util.StringFactory;
+import org.apache.commons.configuration.Configuration;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A TinkerGraph that may be read and written by many threads at once.
+ * <p>
+ * Elements, adjacency, manual indices and key indices are held in concurrent maps and sets, so reads never block.
+ * Identifiers are generated under a lock and supplied identifiers are claimed atomically.  Adding an edge and
+ * removing a vertex hold a lock stripe for each vertex involved, so an edge can not be attached to a vertex that is
+ * being removed.  Property writes are serialized per element.  The iterables returned by getVertices(), getEdges()
+ * and the indices stream over the concurrent maps and sets.  Their iterators are weakly consistent: they never fail
+ * while the graph is written, but may or may not reflect writes made after they were created.
+ * <p>
+ * A persistent ConcurrentTinkerGraph uses the same file types as TinkerGraph.
+ */
+public class ConcurrentTinkerGraph extends TinkerGraph {
+
+    private static final long serialVersionUID = 1l;
+
+    private static final int LOCK_STRIPES = 256;
+
+    private final ReentrantLock idLock = new ReentrantLock();
+    private final ReentrantLock[] vertexLocks = new ReentrantLock[LOCK_STRIPES];
+
+    {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            this.vertexLocks[i] = new ReentrantLock();
+        }
+    }
+
+    public ConcurrentTinkerGraph(final Configuration configuration) {
+        super(configuration);
+        this.makeConcurrent();
+    }
+
+    public ConcurrentTinkerGraph(final String directory, final FileType fileType) {
+        super(directory, fileType);
+        this.makeConcurrent();
+    }
+
+    public ConcurrentTinkerGraph(final String directory, final FileType fileType, final boolean writeAheadLog) {
+        super(directory, fileType, writeAheadLog);
+        this.makeConcurrent();
+    }
+
+    public ConcurrentTinkerGraph(final String directory) {
+        this(directory, FileType.JAVA);
+    }
+
+    public ConcurrentTinkerGraph() {
+        super();
+        this.makeConcurrent();
+    }
+
+    public Vertex addVertex(final Object id) {
+        final String idString = null == id ? null : id.toString();
+        while (true) {
+            final String candidate = null == idString ? this.getNextId() : idString;
+            final TinkerVertex vertex = new ConcurrentTinkerVertex(candidate, this);
+            if (null == this.vertexMap().putIfAbsent(candidate, vertex)) {
+                if (null != this.log)
+                    this.log.addVertex(candidate);
+                return vertex;
+            }
+            if (null != idString)
+                throw ExceptionFactory.vertexWithIdAlreadyExists(id);
+        }
+    }
+
+    public Edge addEdge(final Object id, final Vertex outVertex, final Vertex inVertex, final String label) {
+        if (label == null)
+            throw ExceptionFactory.edgeLabelCanNotBeNull();
+
+        final int outStripe = stripe(outVertex);
+        final int inStripe = stripe(inVertex);
+        final ReentrantLock first = this.vertexLocks[Math.min(outStripe, inStripe)];
+        final ReentrantLock second = this.vertexLocks[Math.max(outStripe, inStripe)];
+        first.lock();
+        second.lock();
+        try {
+            if (!this.vertices.containsKey(outVertex.getId().toString()))
+                throw ExceptionFactory.vertexWithIdDoesNotExist(outVertex.getId());
+            if (!this.vertices.containsKey(inVertex.getId().toString()))
+                throw ExceptionFactory.vertexWithIdDoesNotExist(inVertex.getId());
+
+            final String idString = null == id ? null : id.toString();
+            TinkerEdge edge;
+            while (true) {
+                final String candidate = null == idString ? this.getNextId() : idString;
+                edge = new ConcurrentTinkerEdge(candidate, outVertex, inVertex, label, this);
+                if (null == this.edgeMap().putIfAbsent(candidate, edge))
+                    break;
+                if (null != idString)
+                    throw ExceptionFactory.edgeWithIdAlreadyExist(id);
+            }
+
+            this.edgeKeyIndex.autoUpdate(StringFactory.LABEL, label, null, edge);
+            ((TinkerVertex) outVertex).addOutEdge(edge.label, edge);
+            ((TinkerVertex) inVertex).addInEdge(edge.label, edge);
+            if (null != this.log)
+                this.log.addEdge(edge);
+            return edge;
+        } finally {
+            second.unlock();
+            first.unlock();
+        }
+    }
+
+    public Iterable<Vertex> getVertices() {
+        return Collections.unmodifiableCollection(this.vertices.values());
+    }
+
+    public Iterable<Edge> getEdges() {
+        return Collections.unmodifiableCollection(this.edges.values());
+    }
+
+    public void removeVertex(final Vertex vertex) {
+        final ReentrantLock lock = this.vertexLocks[stripe(vertex)];
+        lock.lock();
+        try {
+            super.removeVertex(vertex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public <T extends Element> Index<T> createIndex(final String indexName, final Class<T> indexClass, final Parameter... indexParameters) {
+        final TinkerIndex<T> index = new TinkerIndex<T>(indexName, indexClass, true);
+        if (null != ((ConcurrentMap<String, TinkerIndex>) this.indices).putIfAbsent(indexName, index))
+            throw ExceptionFactory.indexAlreadyExists(indexName);
+        if (null != this.log) {
+            index.log = this.log;
+            this.log.createIndex(indexName, indexClass);
+        }
+        return index;
+    }
+
+    public void clear() {
+        super.clear();
+        this.vertexKeyIndex = new TinkerKeyIndex<TinkerVertex>(TinkerVertex.class, this, true);
+        this.edgeKeyIndex = new TinkerKeyIndex<TinkerEdge>(TinkerEdge.class, this, true);
+    }
+
+    protected String getNextId() {
+        this.idLock.lock();
+        try {
+            return super.getNextId();
+        } finally {
+            this.idLock.unlock();
+        }
+    }
+
+    private ConcurrentMap<String, Vertex> vertexMap() {
+        return (ConcurrentMap<String, Vertex>) this.vertices;
+    }
+
+    private ConcurrentMap<String, Edge> edgeMap() {
+        return (ConcurrentMap<String, Edge>) this.edges;
+    }
+
+    /**
+     * Stripes are always locked in ascending order so that two threads adding edges can not deadlock.
+     */
+    private static int stripe(final Vertex vertex) {
+        int hash = vertex.getId().toString().hashCode();
+        hash ^= (hash >>> 16);
+        return hash & (LOCK_STRIPES - 1);
+    }
+
+    /**
+     * The TinkerGraph constructors leave this graph with the plain maps of a new or loaded TinkerGraph.  Move their
+     * contents into concurrent structures unless they came from a serialized ConcurrentTinkerGraph.  The contents
+     * are already persisted, so moving them is not written to the write-ahead log.
+     */
+    private void makeConcurrent() {
+        if (this.vertices instanceof ConcurrentMap)
+            return;
+
+        final TinkerWriteAheadLog log = this.log;
+        this.log = null;
+        try {
+            this.copyIntoConcurrent();
+        } finally {
+            this.log = log;
+        }
+        for (final TinkerIndex index : this.indices.values()) {
+            index.log = log;
+        }
+    }
+
+    private void copyIntoConcurrent() {
+        final Map<String, Vertex> loadedVertices = this.vertices;
+        final Map<String, Edge> loadedEdges = this.edges;
+        final Map<String, TinkerIndex> loadedIndices = this.indices;
+        final Set<String> vertexKeys = this.vertexKeyIndex.getIndexedKeys();
+        final Set<String> edgeKeys = this.edgeKeyIndex.getIndexedKeys();
+        final Set<String> vertexRangeKeys = this.vertexKeyIndex.getRangeIndexedKeys();
+        final Set<String> edgeRangeKeys = this.edgeKeyIndex.getRangeIndexedKeys();
+
+        this.vertices = new ConcurrentHashMap<String, Vertex>();
+        this.edges = new ConcurrentHashMap<String, Edge>();
+        this.indices = new ConcurrentHashMap<String, TinkerIndex>();
+        this.vertexKeyIndex = new TinkerKeyIndex<TinkerVertex>(TinkerVertex.class, this, true);
+        this.edgeKeyIndex = new TinkerKeyIndex<TinkerEdge>(TinkerEdge.class, this, true);
+
+        for (final String key : vertexKeys) {
+            this.vertexKeyIndex.createKeyIndex(key, vertexRangeKeys.contains(key));
+        }
+        for (final String key : edgeKeys) {
+            this.edgeKeyIndex.createKeyIndex(key, edgeRangeKeys.contains(key));
+        }
+
+        for (final Vertex vertex : loadedVertices.values()) {
+            ElementHelper.copyProperties(vertex, this.addVertex(vertex.getId()));
+        }
+        for (final Edge edge : loadedEdges.values()) {
+            final Vertex outVertex = this.getVertex(edge.getVertex(Direction.OUT).getId());
+            final Vertex inVertex = this.getVertex(edge.getVertex(Direction.IN).getId());
+            ElementHelper.copyProperties(edge, this.addEdge(edge.getId(), outVertex, inVertex, edge.getLabel()));
+        }
+
+        for (final TinkerIndex<? extends Element> loadedIndex : loadedIndices.values()) {
+            final TinkerIndex<Element> index = new TinkerIndex<Element>(loadedIndex.getIndexName(), (Class<Element>) loadedIndex.getIndexClass(), true);
+            final boolean isVertexIndex = Vertex.class.isAssignableFrom(loadedIndex.getIndexClass());
+            for (final Map.Entry<String, ? extends Map<Object, ? extends Set<? extends Element>>> keyEntry : loadedIndex.index.entrySet()) {
+                for (final Map.Entry<Object, ? extends Set<? extends Element>> valueEntry : keyEntry.getValue().entrySet()) {
+                    for (final Element element : valueEntry.getValue()) {
+                        final Element copy = isVertexIndex ? this.getVertex(element.getId()) : this.getEdge(element.getId());
+                        index.put(keyEntry.getKey(), valueEntry.getKey(), copy);
+                    }
+                }
+            }
+            this.indices.put(index.getIndexName(), index);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Edge;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A TinkerVertex whose adjacency is held in concurrent sets and whose properties are copied on write.  Property
+ * writes and the addition of edges are serialized per vertex so that the key index always agrees with the properties.
+ */
+class ConcurrentTinkerVertex extends TinkerVertex {
+
+    private static final long serialVersionUID = 1l;
+
+    protected ConcurrentTinkerVertex(final String id, final ConcurrentTinkerGraph graph) {
+        super(id, graph);
+    }
+
+    public synchronized void setProperty(final String key, final Object value) {
+        super.setProperty(key, value);
+    }
+
+    public synchronized <T> T removeProperty(final String key) {
+        return super.removeProperty(key);
+    }
+
+    protected synchronized void addOutEdge(final int label, final Edge edge) {
+        super.addOutEdge(label, edge);
+    }
+
+    protected synchronized void addInEdge(final int label, final Edge edge) {
+        super.addInEdge(label, edge);
+    }
+
+    protected Set<Edge> newEdgeSet() {
+        return Collections.newSetFromMap(new ConcurrentHashMap<Edge, Boolean>());
+    }
+
+    protected TinkerProperties writableProperties() {
+        return null == this.properties ? new TinkerProperties() : this.properties.copy();
+    }
+}
@@ -0,0 +1,209 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The incident edges of one direction of a ColumnarTinkerGraph in compressed sparse row (CSR) layout.
+ * <p>
+ * After compact(), the edge slots of every vertex occupy the range [offsets[v], offsets[v + 1]) of a single csr array
+ * and are sorted by interned label id within that range.  Edges added after the last compaction go to a small
+ * per-vertex delta array.  Removed edges are left in place in the csr array and skipped by readers, while removal
+ * from a delta array swaps in a new array.  Neither arrays nor ranges are ever modified underneath a reader, so
+ * iterators can run straight over the arrays they captured when they were created without copying them.
+ */
+final class TinkerAdjacency {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] offsets = new int[]{0};
+    private int[] csr = EMPTY;
+    private int compactedVertices = 0;
+
+    private int[][] delta;
+    private int[] deltaDegree;
+
+    public TinkerAdjacency(final int vertexCapacity) {
+        this.delta = new int[vertexCapacity][];
+        this.deltaDegree = new int[vertexCapacity];
+    }
+
+    public void ensureCapacity(final int vertexCapacity) {
+        if (vertexCapacity > this.delta.length) {
+            this.delta = Arrays.copyOf(this.delta, vertexCapacity);
+            this.deltaDegree = Arrays.copyOf(this.deltaDegree, vertexCapacity);
+        }
+    }
+
+    public void add(final int vertexSlot, final int edgeSlot) {
+        int[] edges = this.delta[vertexSlot];
+        final int degree = this.deltaDegree[vertexSlot];
+        if (null == edges)
+            edges = new int[4];
+        else if (degree == edges.length)
+            edges = Arrays.copyOf(edges, degree << 1);
+        edges[degree] = edgeSlot;
+        this.delta[vertexSlot] = edges;
+        this.deltaDegree[vertexSlot] = degree + 1;
+    }
+
+    /**
+     * Remove an edge from the delta of the vertex.  Edges that were compacted into the csr array are not touched as
+     * readers skip them once the edge is no longer live.
+     */
+    public void remove(final int vertexSlot, final int edgeSlot) {
+        final int[] edges = this.delta[vertexSlot];
+        final int degree = this.deltaDegree[vertexSlot];
+        for (int i = 0; i < degree; i++) {
+            if (edges[i] == edgeSlot) {
+                final int[] copy = new int[Math.max(degree - 1, 1)];
+                System.arraycopy(edges, 0, copy, 0, i);
+                System.arraycopy(edges, i + 1, copy, i, degree - i - 1);
+                this.delta[vertexSlot] = copy;
+                this.deltaDegree[vertexSlot] = degree - 1;
+                return;
+            }
+        }
+    }
+
+    public void clear(final int vertexSlot) {
+        this.delta[vertexSlot] = null;
+        this.deltaDegree[vertexSlot] = 0;
+    }
+
+    /**
+     * Rebuild the csr array from all live edges and empty every delta.  The edges are placed with a counting sort
+     * by label followed by a stable counting sort by vertex, so each vertex range ends up ordered by label.
+     *
+     * @param vertexCount    the number of vertex slots to cover
+     * @param edgeVertices   the vertex slot of this direction for each edge slot
+     * @param edgeLabels     the interned label id for each edge slot
+     * @param liveEdges      the edge slots that have not been removed
+     * @param edgeCount      the number of edge slots to consider
+     * @param labelCount     the number of interned labels
+     */
+    public void compact(final int vertexCount, final int[] edgeVertices, final int[] edgeLabels, final BitSet liveEdges,
+                        final int edgeCount, final int labelCount) {
+        final int[] byLabelOffsets = new int[labelCount + 1];
+        int liveCount = 0;
+        for (int edge = liveEdges.nextSetBit(0); edge >= 0 && edge < edgeCount; edge = liveEdges.nextSetBit(edge + 1)) {
+            byLabelOffsets[edgeLabels[edge] + 1]++;
+            liveCount++;
+        }
+        for (int i = 0; i < labelCount; i++) {
+            byLabelOffsets[i + 1] += byLabelOffsets[i];
+        }
+        final int[] byLabel = new int[liveCount];
+        for (int edge = liveEdges.nextSetBit(0); edge >= 0 && edge < edgeCount; edge = liveEdges.nextSetBit(edge + 1)) {
+            byLabel[byLabelOffsets[edgeLabels[edge]]++] = edge;
+        }
+
+        final int[] newOffsets = new int[vertexCount + 1];
+        for (final int edge : byLabel) {
+            newOffsets[edgeVertices[edge] + 1]++;
+        }
+        for (int i = 0; i < vertexCount; i++) {
+            newOffsets[i + 1] += newOffsets[i];
+        }
+        final int[] positions = Arrays.copyOf(newOffsets, vertexCount);
+        final int[] newCsr = new int[liveCount];
+        for (final int edge : byLabel) {
+            newCsr[positions[edgeVertices[edge]]++] = edge;
+        }
+
+        this.csr = newCsr;
+        this.offsets = newOffsets;
+        this.compactedVertices = vertexCount;
+        this.delta = new int[this.delta.length][];
+        this.deltaDegree = new int[this.deltaDegree.length];
+    }
+
+    public Cursor cursor(final int vertexSlot, final int[] edgeLabels, final int[] labelFilter) {
+        return new Cursor(vertexSlot, edgeLabels, labelFilter);
+    }
+
+    /**
+     * Walks the edge slots of a vertex, first through its csr range and then through its delta, over the arrays as
+     * they were when the cursor was created.  When filtering on a single label, the csr range is narrowed by binary
+     * search.
+     */
+    final class Cursor {
+        private final int[] csrEdges;
+        private final int[] deltaEdges;
+        private final int deltaEnd;
+        private final int[] edgeLabels;
+        private final int[] labelFilter;
+        private int csrPosition;
+        private int csrEnd;
+        private int deltaPosition = 0;
+
+        private Cursor(final int vertexSlot, final int[] edgeLabels, final int[] labelFilter) {
+            this.edgeLabels = edgeLabels;
+            this.labelFilter = labelFilter;
+            this.csrEdges = csr;
+            if (vertexSlot < compactedVertices) {
+                this.csrPosition = offsets[vertexSlot];
+                this.csrEnd = offsets[vertexSlot + 1];
+                if (labelFilter.length == 1)
+                    this.narrow(labelFilter[0]);
+            } else {
+                this.csrPosition = 0;
+                this.csrEnd = 0;
+            }
+            this.deltaEdges = delta[vertexSlot];
+            this.deltaEnd = deltaDegree[vertexSlot];
+        }
+
+        /**
+         * @return the next edge slot that matches the label filter or -1 when exhausted
+         */
+        public int next() {
+            while (this.csrPosition < this.csrEnd) {
+                final int edge = this.csrEdges[this.csrPosition++];
+                if (this.matches(edge))
+                    return edge;
+            }
+            while (this.deltaPosition < this.deltaEnd) {
+                final int edge = this.deltaEdges[this.deltaPosition++];
+                if (this.matches(edge))
+                    return edge;
+            }
+            return -1;
+        }
+
+        private boolean matches(final int edge) {
+            if (this.labelFilter.length == 0)
+                return true;
+
+            final int label = this.edgeLabels[edge];
+            for (final int l : this.labelFilter) {
+                if (l == label)
+                    return true;
+            }
+            return false;
+        }
+
+        private void narrow(final int label) {
+            int low = this.csrPosition;
+            int high = this.csrEnd;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (this.edgeLabels[this.csrEdges[mid]] < label)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            final int start = low;
+            high = this.csrEnd;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (this.edgeLabels[this.csrEdges[mid]] <= label)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            this.csrPosition = start;
+            this.csrEnd = low;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.tinkerpop.blueprints.impls.tg.TinkerBinaryWriter.BOOLEAN;
+import static com.tinkerpop.blueprints.impls.tg.TinkerBinaryWriter.BYTE;
+import static com.tinkerpop.blueprints.impls.tg.TinkerBinaryWriter.DOUBLE;
+import static com.tinkerpop.blueprints.impls.tg.TinkerBinaryWriter.FLOAT;
+import static com.tinkerpop.blueprints.impls.tg.TinkerBinaryWriter.INTEGER;
+import static com.tinkerpop.blueprints.impls.tg.TinkerBinaryWriter.LONG;
+import static com.tinkerpop.blueprints.impls.tg.TinkerBinaryWriter.MAGIC;
+import static com.tinkerpop.blueprints.impls.tg.TinkerBinaryWriter.MIXED;
+import static com.tinkerpop.blueprints.impls.tg.TinkerBinaryWriter.OBJECT;
+import static com.tinkerpop.blueprints.impls.tg.TinkerBinaryWriter.SHORT;
+import static com.tinkerpop.blueprints.impls.tg.TinkerBinaryWriter.STRING;
+import static com.tinkerpop.blueprints.impls.tg.TinkerBinaryWriter.TRAILER_LENGTH;
+import static com.tinkerpop.blueprints.impls.tg.TinkerBinaryWriter.UTF8;
+import static com.tinkerpop.blueprints.impls.tg.TinkerBinaryWriter.VERSION;
+
+/**
+ * Reads the vertices and edges written by TinkerBinaryWriter into a TinkerGraph.
+ * <p>
+ * Each segment of the file is memory-mapped and decoded on its own thread.  The vertex segments are decoded first, so
+ * that the edge segments can resolve their vertices by position, and the decoded elements are added to the graph in
+ * the order they were written.  Key and manual indices are not part of the format and are expected to be loaded
+ * afterwards from the TinkerGraph metadata.
+ */
+class TinkerBinaryReader {
+
+    private final TinkerGraph graph;
+    private final int threads;
+
+    /**
+     * @param graph the TinkerGraph to push data to
+     */
+    public TinkerBinaryReader(final TinkerGraph graph) {
+        this(graph, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param graph   the TinkerGraph to push data to
+     * @param threads the maximum number of segments decoded at once
+     */
+    public TinkerBinaryReader(final TinkerGraph graph, final int threads) {
+        this.graph = graph;
+        this.threads = threads;
+    }
+
+    /**
+     * Load the vertices and edges of a file into the graph.
+     *
+     * @param filename the name of the file written by TinkerBinaryWriter
+     * @throws IOException thrown if the file can not be read or is not in the binary format
+     */
+    public void load(final String filename) throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(new File(filename), "r");
+        try {
+            this.load(file.getChannel());
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Load the vertices and edges of a file into a TinkerGraph.
+     *
+     * @param graph    the TinkerGraph to push data to
+     * @param filename the name of the file written by TinkerBinaryWriter
+     * @throws IOException thrown if the file can not be read or is not in the binary format
+     */
+    public static void load(final TinkerGraph graph, final String filename) throws IOException {
+        new TinkerBinaryReader(graph).load(filename);
+    }
+
+    private void load(final FileChannel channel) throws IOException {
+        final long size = channel.size();
+        if (size < 8 + TRAILER_LENGTH)
+            throw new IOException("not a binary TinkerGraph file");
+
+        final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, 8);
+        if (header.getInt() != MAGIC)
+            throw new IOException("not a binary TinkerGraph file");
+        final int version = header.getInt();
+        if (version > VERSION)
+            throw new IOException("unsupported binary TinkerGraph version: " + version);
+
+        final ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - TRAILER_LENGTH, TRAILER_LENGTH);
+        final long footerOffset = trailer.getLong();
+        final int footerLength = trailer.getInt();
+        if (trailer.getInt() != MAGIC)
+            throw new IOException("binary TinkerGraph file is truncated");
+
+        final ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, footerOffset, footerLength);
+        final String[] dictionary = new String[(int) readVarLong(footer)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(footer);
+        }
+        final int[] symbols = new int[dictionary.length];
+        for (int i = 0; i < dictionary.length; i++) {
+            symbols[i] = this.graph.symbols.intern(dictionary[i]);
+        }
+        final List<Segment> vertexSegments = readSegments(channel, footer);
+        final List<Segment> edgeSegments = readSegments(channel, footer);
+
+        final int parallelism = Math.min(this.threads, Math.max(vertexSegments.size(), edgeSegments.size()));
+        final ExecutorService executor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism) : null;
+        try {
+            final TinkerVertex[] vertices = new TinkerVertex[count(vertexSegments)];
+            final List<Callable<Object>> vertexTasks = new ArrayList<Callable<Object>>();
+            for (final Segment segment : vertexSegments) {
+                vertexTasks.add(new Callable<Object>() {
+                    public Object call() throws IOException {
+                        decodeVertices(segment, symbols, vertices);
+                        return null;
+                    }
+                });
+            }
+            runAll(executor, vertexTasks);
+
+            this.graph.vertices = new HashMap<String, Vertex>(capacity(vertices.length));
+            for (final TinkerVertex vertex : vertices) {
+                this.graph.vertices.put(vertex.getId(), vertex);
+            }
+
+            final TinkerEdge[] edges = new TinkerEdge[count(edgeSegments)];
+            final List<Callable<Object>> edgeTasks = new ArrayList<Callable<Object>>();
+            for (final Segment segment : edgeSegments) {
+                edgeTasks.add(new Callable<Object>() {
+                    public Object call() throws IOException {
+                        decodeEdges(segment, symbols, vertices, edges);
+                        return null;
+                    }
+                });
+            }
+            runAll(executor, edgeTasks);
+
+            this.graph.edges = new HashMap<String, Edge>(capacity(edges.length));
+            for (final TinkerEdge edge : edges) {
+                this.graph.edges.put(edge.getId(), edge);
+                ((TinkerVertex) edge.getVertex(Direction.OUT)).addOutEdge(edge.label, edge);
+                ((TinkerVertex) edge.getVertex(Direction.IN)).addInEdge(edge.label, edge);
+            }
+        } finally {
+            if (null != executor)
+                executor.shutdown();
+        }
+    }
+
+    private void decodeVertices(final Segment segment, final int[] symbols, final TinkerVertex[] vertices) throws IOException {
+        final ByteBuffer buffer = segment.buffer;
+        final int count = (int) readVarLong(buffer);
+        final TinkerElement[] elements = new TinkerElement[count];
+        for (int i = 0; i < count; i++) {
+            final TinkerVertex vertex = new TinkerVertex(readId(buffer), this.graph);
+            vertices[segment.start + i] = vertex;
+            elements[i] = vertex;
+        }
+        decodeColumns(buffer, symbols, elements);
+    }
+
+    private void decodeEdges(final Segment segment, final int[] symbols, final TinkerVertex[] vertices, final TinkerEdge[] edges) throws IOException {
+        final ByteBuffer buffer = segment.buffer;
+        final int count = (int) readVarLong(buffer);
+        final TinkerElement[] elements = new TinkerElement[count];
+        for (int i = 0; i < count; i++) {
+            final String id = readId(buffer);
+            final int label = symbols[(int) readVarLong(buffer)];
+            final TinkerVertex outVertex = vertices[(int) readVarLong(buffer)];
+            final TinkerVertex inVertex = vertices[(int) readVarLong(buffer)];
+            final TinkerEdge edge = new TinkerEdge(id, outVertex, inVertex, label, this.graph);
+            edges[segment.start + i] = edge;
+            elements[i] = edge;
+        }
+        decodeColumns(buffer, symbols, elements);
+    }
+
+    private static void decodeColumns(final ByteBuffer buffer, final int[] symbols, final TinkerElement[] elements) throws IOException {
+        final int columns = (int) readVarLong(buffer);
+        for (int c = 0; c < columns; c++) {
+            final int key = symbols[(int) readVarLong(buffer)];
+            final byte type = buffer.get();
+            final int count = (int) readVarLong(buffer);
+            int position = -1;
+            for (int i = 0; i < count; i++) {
+                position = position + 1 + (int) readVarLong(buffer);
+                final Object value = type == MIXED ? readValue(buffer, buffer.get()) : readValue(buffer, type);
+                elements[position].loadProperty(key, value);
+            }
+        }
+    }
+
+    private static List<Segment> readSegments(final FileChannel channel, final ByteBuffer footer) throws IOException {
+        final List<Segment> segments = new ArrayList<Segment>();
+        final int count = (int) readVarLong(footer);
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            final long offset = readVarLong(footer);
+            final long length = readVarLong(footer);
+            final int elements = (int) readVarLong(footer);
+            segments.add(new Segment(channel.map(FileChannel.MapMode.READ_ONLY, offset, length), start, elements));
+            start = start + elements;
+        }
+        return segments;
+    }
+
+    private static int count(final List<Segment> segments) {
+        int count = 0;
+        for (final Segment segment : segments) {
+            count = count + segment.count;
+        }
+        return count;
+    }
+
+    private static void runAll(final ExecutorService executor, final List<Callable<Object>> tasks) throws IOException {
+        if (null == executor || tasks.size() == 1) {
+            for (final Callable<Object> task : tasks) {
+                try {
+                    task.call();
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException(e.getMessage(), e);
+                }
+            }
+            return;
+        }
+
+        try {
+            for (final Future<Object> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while loading binary TinkerGraph");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static int capacity(final int size) {
+        return Math.max(16, (int) (size / 0.75f) + 1);
+    }
+
+    static long readVarLong(final ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift = shift + 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long readZigZag(final ByteBuffer buffer) {
+        final long value = readVarLong(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static byte[] readBytes(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[(int) readVarLong(buffer)];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        return new String(readBytes(buffer), UTF8);
+    }
+
+    private static String readId(final ByteBuffer buffer) {
+        final long header = readVarLong(buffer);
+        if ((header & 1) == 1)
+            return Long.toString(header >>> 1);
+
+        final byte[] bytes = new byte[(int) (header >>> 1)];
+        buffer.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static Object readValue(final ByteBuffer buffer, final byte type) throws IOException {
+        switch (type) {
+            case STRING:
+                return readString(buffer);
+            case INTEGER:
+                return (int) readZigZag(buffer);
+            case LONG:
+                return readZigZag(buffer);
+            case SHORT:
+                return (short) readZigZag(buffer);
+            case FLOAT:
+                return buffer.getFloat();
+            case DOUBLE:
+                return buffer.getDouble();
+            case BOOLEAN:
+                return buffer.get() != 0;
+            case BYTE:
+                return buffer.get();
+            case OBJECT:
+                final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(readBytes(buffer)));
+                try {
+                    return in.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e.getMessage());
+                } finally {
+                    in.close();
+                }
+            default:
+                throw new IOException("unknown data type: " + type);
+        }
+    }
+
+    /**
+     * A memory-mapped segment of the file, the position in the file of its first element and its number of elements.
+     */
+    private static class Segment {
+        private final ByteBuffer buffer;
+        private final int start;
+        private final int count;
+
+        public Segment(final ByteBuffer buffer, final int start, final int count) {
+            this.buffer = buffer;
+            this.start = start;
+            this.count = count;
+        }
+    }
+}
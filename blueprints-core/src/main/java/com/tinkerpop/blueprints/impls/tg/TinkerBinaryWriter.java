@@ -0,0 +1,405 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the vertices and edges of a TinkerGraph to an OutputStream in a compact, versioned binary format that
+ * TinkerBinaryReader can load with memory-mapped I/O.
+ * <p>
+ * The file starts with a magic number and the format version.  The elements follow in segments of a fixed number of
+ * vertices or edges, so that segments can be decoded independently of each other.  Labels and property keys are
+ * stored once in a dictionary and referred to by their position in it.  Identifiers that are canonical non-negative
+ * numbers are stored as varints, and edges refer to their vertices by the position of the vertex in the file.  The
+ * properties of a segment are stored per key as a column, typed when all the values of the column are of the same
+ * type.  Values of any type other than the primitive wrappers and String use java serialization.  The dictionary and
+ * the directory of the segments come last, followed by a fixed size trailer that points to them.
+ */
+class TinkerBinaryWriter {
+
+    static final int MAGIC = 0x54474231;
+    static final int VERSION = 1;
+    static final int TRAILER_LENGTH = 16;
+    static final int DEFAULT_SEGMENT_SIZE = 65536;
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // identifiers with at most this many digits still fit in a long after being shifted left by one
+    private static final int MAX_NUMERIC_ID_DIGITS = 18;
+
+    // column and value types, the first six share their codes with TinkerMetadataWriter.writeTypedData
+    static final byte STRING = 1;
+    static final byte INTEGER = 2;
+    static final byte LONG = 3;
+    static final byte SHORT = 4;
+    static final byte FLOAT = 5;
+    static final byte DOUBLE = 6;
+    static final byte BOOLEAN = 7;
+    static final byte BYTE = 8;
+    static final byte OBJECT = 9;
+    static final byte MIXED = 10;
+
+    private final TinkerGraph graph;
+    private final int segmentSize;
+    private final Map<String, Integer> symbols = new HashMap<String, Integer>();
+    private final List<String> dictionary = new ArrayList<String>();
+    private final Map<String, Integer> vertexOrdinals = new HashMap<String, Integer>();
+
+    /**
+     * @param graph the TinkerGraph to pull the data from
+     */
+    public TinkerBinaryWriter(final TinkerGraph graph) {
+        this(graph, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param graph       the TinkerGraph to pull the data from
+     * @param segmentSize the maximum number of vertices or edges in a segment
+     */
+    public TinkerBinaryWriter(final TinkerGraph graph, final int segmentSize) {
+        this.graph = graph;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Write the vertices and edges of the graph to a file.
+     *
+     * @param filename the name of the file to write the graph to
+     * @throws IOException thrown if there is an error writing the graph
+     */
+    public void save(final String filename) throws IOException {
+        final FileOutputStream fos = new FileOutputStream(filename);
+        try {
+            save(fos);
+        } finally {
+            fos.close();
+        }
+    }
+
+    /**
+     * Write the vertices and edges of the graph to an OutputStream.
+     *
+     * @param outputStream the OutputStream to write the graph to
+     * @throws IOException thrown if there is an error writing the graph
+     */
+    public void save(final OutputStream outputStream) throws IOException {
+        final DataOutputStream writer = new DataOutputStream(new BufferedOutputStream(outputStream));
+        long position = 0;
+        writer.writeInt(MAGIC);
+        writer.writeInt(VERSION);
+        position = position + 8;
+
+        final Encoder directory = new Encoder();
+
+        final List<List<TinkerVertex>> vertexSegments = segments((Iterable) this.graph.vertices.values());
+        directory.writeVarLong(vertexSegments.size());
+        for (final List<TinkerVertex> segment : vertexSegments) {
+            final Encoder encoder = this.encodeVertices(segment);
+            directory.writeVarLong(position);
+            directory.writeVarLong(encoder.size());
+            directory.writeVarLong(segment.size());
+            encoder.writeTo(writer);
+            position = position + encoder.size();
+        }
+
+        final List<List<TinkerEdge>> edgeSegments = segments(this.writtenEdges());
+        directory.writeVarLong(edgeSegments.size());
+        for (final List<TinkerEdge> segment : edgeSegments) {
+            final Encoder encoder = this.encodeEdges(segment);
+            directory.writeVarLong(position);
+            directory.writeVarLong(encoder.size());
+            directory.writeVarLong(segment.size());
+            encoder.writeTo(writer);
+            position = position + encoder.size();
+        }
+
+        // the dictionary is only complete once all the segments are encoded
+        final Encoder footer = new Encoder();
+        footer.writeVarLong(this.dictionary.size());
+        for (final String symbol : this.dictionary) {
+            footer.writeString(symbol);
+        }
+        directory.writeTo(footer);
+        footer.writeTo(writer);
+
+        writer.writeLong(position);
+        writer.writeInt(footer.size());
+        writer.writeInt(MAGIC);
+        writer.flush();
+    }
+
+    /**
+     * Write the vertices and edges of a TinkerGraph to an OutputStream.
+     *
+     * @param graph        the TinkerGraph to pull the data from
+     * @param outputStream the OutputStream to write the graph to
+     * @throws IOException thrown if there is an error writing the graph
+     */
+    public static void save(final TinkerGraph graph, final OutputStream outputStream) throws IOException {
+        new TinkerBinaryWriter(graph).save(outputStream);
+    }
+
+    /**
+     * Write the vertices and edges of a TinkerGraph to a file.
+     *
+     * @param graph    the TinkerGraph to pull the data from
+     * @param filename the name of the file to write the graph to
+     * @throws IOException thrown if there is an error writing the graph
+     */
+    public static void save(final TinkerGraph graph, final String filename) throws IOException {
+        new TinkerBinaryWriter(graph).save(filename);
+    }
+
+    private <T> List<List<T>> segments(final Iterable<T> elements) {
+        final List<List<T>> segments = new ArrayList<List<T>>();
+        List<T> segment = new ArrayList<T>();
+        for (final T element : elements) {
+            if (segment.size() == this.segmentSize) {
+                segments.add(segment);
+                segment = new ArrayList<T>();
+            }
+            segment.add(element);
+        }
+        if (!segment.isEmpty())
+            segments.add(segment);
+        return segments;
+    }
+
+    /**
+     * The edges between written vertices.  The edges of a ConcurrentTinkerGraph that gained a vertex after the vertices
+     * were written are left out, as a vertex that is not written can not be referenced.
+     */
+    private List<TinkerEdge> writtenEdges() {
+        final List<TinkerEdge> edges = new ArrayList<TinkerEdge>();
+        for (final Edge edge : this.graph.edges.values()) {
+            if (this.vertexOrdinals.containsKey(edge.getVertex(Direction.OUT).getId().toString())
+                    && this.vertexOrdinals.containsKey(edge.getVertex(Direction.IN).getId().toString()))
+                edges.add((TinkerEdge) edge);
+        }
+        return edges;
+    }
+
+    private Encoder encodeVertices(final List<TinkerVertex> vertices) throws IOException {
+        final Encoder encoder = new Encoder();
+        encoder.writeVarLong(vertices.size());
+        for (final TinkerVertex vertex : vertices) {
+            this.vertexOrdinals.put(vertex.getId(), this.vertexOrdinals.size());
+            encoder.writeId(vertex.getId());
+        }
+        this.encodeColumns(encoder, vertices);
+        return encoder;
+    }
+
+    private Encoder encodeEdges(final List<TinkerEdge> edges) throws IOException {
+        final Encoder encoder = new Encoder();
+        encoder.writeVarLong(edges.size());
+        for (final TinkerEdge edge : edges) {
+            encoder.writeId(edge.getId());
+            encoder.writeVarLong(this.symbol(edge.getLabel()));
+            encoder.writeVarLong(this.ordinal(edge.getVertex(Direction.OUT)));
+            encoder.writeVarLong(this.ordinal(edge.getVertex(Direction.IN)));
+        }
+        this.encodeColumns(encoder, edges);
+        return encoder;
+    }
+
+    private void encodeColumns(final Encoder encoder, final List<? extends TinkerElement> elements) throws IOException {
+        final Map<String, List<Integer>> positions = new LinkedHashMap<String, List<Integer>>();
+        final Map<String, List<Object>> values = new HashMap<String, List<Object>>();
+        for (int i = 0; i < elements.size(); i++) {
+            final TinkerProperties properties = elements.get(i).properties;
+            for (int p = 0; null != properties && p < properties.size(); p++) {
+                final String key = elements.get(i).graph.symbols.get(properties.keyAt(p));
+                List<Integer> keyPositions = positions.get(key);
+                if (null == keyPositions) {
+                    keyPositions = new ArrayList<Integer>();
+                    positions.put(key, keyPositions);
+                    values.put(key, new ArrayList<Object>());
+                }
+                keyPositions.add(i);
+                values.get(key).add(properties.valueAt(p));
+            }
+        }
+
+        encoder.writeVarLong(positions.size());
+        for (final Map.Entry<String, List<Integer>> column : positions.entrySet()) {
+            final List<Object> columnValues = values.get(column.getKey());
+            final byte type = columnType(columnValues);
+            encoder.writeVarLong(this.symbol(column.getKey()));
+            encoder.write(type);
+            encoder.writeVarLong(columnValues.size());
+            int previous = -1;
+            for (int i = 0; i < columnValues.size(); i++) {
+                final int position = column.getValue().get(i);
+                encoder.writeVarLong(position - previous - 1);
+                previous = position;
+                if (type == MIXED) {
+                    final byte valueType = typeOf(columnValues.get(i));
+                    encoder.write(valueType);
+                    encoder.writeValue(valueType, columnValues.get(i));
+                } else {
+                    encoder.writeValue(type, columnValues.get(i));
+                }
+            }
+        }
+    }
+
+    private int symbol(final String string) {
+        Integer symbol = this.symbols.get(string);
+        if (null == symbol) {
+            symbol = this.dictionary.size();
+            this.symbols.put(string, symbol);
+            this.dictionary.add(string);
+        }
+        return symbol;
+    }
+
+    private int ordinal(final Vertex vertex) throws IOException {
+        final Integer ordinal = this.vertexOrdinals.get(vertex.getId().toString());
+        if (null == ordinal)
+            throw new IOException("edge references a vertex that is not in the graph: " + vertex.getId());
+        return ordinal;
+    }
+
+    private static byte columnType(final List<Object> values) {
+        final byte type = typeOf(values.get(0));
+        for (final Object value : values) {
+            if (typeOf(value) != type)
+                return MIXED;
+        }
+        return type;
+    }
+
+    private static byte typeOf(final Object value) {
+        if (value instanceof String)
+            return STRING;
+        else if (value instanceof Integer)
+            return INTEGER;
+        else if (value instanceof Long)
+            return LONG;
+        else if (value instanceof Short)
+            return SHORT;
+        else if (value instanceof Float)
+            return FLOAT;
+        else if (value instanceof Double)
+            return DOUBLE;
+        else if (value instanceof Boolean)
+            return BOOLEAN;
+        else if (value instanceof Byte)
+            return BYTE;
+        else
+            return OBJECT;
+    }
+
+    static boolean isNumericId(final String id) {
+        final int length = id.length();
+        if (length == 0 || length > MAX_NUMERIC_ID_DIGITS || (length > 1 && id.charAt(0) == '0'))
+            return false;
+        for (int i = 0; i < length; i++) {
+            final char c = id.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Buffers a segment so that its length is known before it is written.
+     */
+    private static class Encoder extends ByteArrayOutputStream {
+
+        public Encoder() {
+            super(4096);
+        }
+
+        public void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                this.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            this.write((int) value);
+        }
+
+        public void writeZigZag(final long value) {
+            this.writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        public void writeFixed(final long value, final int bytes) {
+            for (int shift = 8 * (bytes - 1); shift >= 0; shift = shift - 8) {
+                this.write((int) (value >>> shift));
+            }
+        }
+
+        public void writeBytes(final byte[] bytes) {
+            this.writeVarLong(bytes.length);
+            this.write(bytes, 0, bytes.length);
+        }
+
+        public void writeString(final String string) {
+            this.writeBytes(string.getBytes(UTF8));
+        }
+
+        /**
+         * Numeric identifiers have their lowest bit set, otherwise the remaining bits are the length of the UTF-8
+         * bytes of the identifier which follow.
+         */
+        public void writeId(final String id) {
+            if (isNumericId(id)) {
+                this.writeVarLong((Long.parseLong(id) << 1) | 1);
+            } else {
+                final byte[] bytes = id.getBytes(UTF8);
+                this.writeVarLong((long) bytes.length << 1);
+                this.write(bytes, 0, bytes.length);
+            }
+        }
+
+        public void writeValue(final byte type, final Object value) throws IOException {
+            switch (type) {
+                case STRING:
+                    this.writeString((String) value);
+                    break;
+                case INTEGER:
+                    this.writeZigZag((Integer) value);
+                    break;
+                case LONG:
+                    this.writeZigZag((Long) value);
+                    break;
+                case SHORT:
+                    this.writeZigZag((Short) value);
+                    break;
+                case FLOAT:
+                    this.writeFixed(Float.floatToIntBits((Float) value), 4);
+                    break;
+                case DOUBLE:
+                    this.writeFixed(Double.doubleToLongBits((Double) value), 8);
+                    break;
+                case BOOLEAN:
+                    this.write((Boolean) value ? 1 : 0);
+                    break;
+                case BYTE:
+                    this.write((Byte) value);
+                    break;
+                default:
+                    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    final ObjectOutputStream out = new ObjectOutputStream(bytes);
+                    out.writeObject(value);
+                    out.close();
+                    this.writeBytes(bytes.toByteArray());
+            }
+        }
+    }
+}
@@ -14,20 +14,26 @@ import java.io.Serializable;
  */
 class TinkerEdge extends TinkerElement implements Edge, Serializable {
 
-    private final String label;
-    private final Vertex inVertex;
-    private final Vertex outVertex;
+    private static final long serialVersionUID = 1l;
+
+    protected final int label;
+    // not serialized, TinkerGraph links the edges to their vertices again when it is read
+    private transient Vertex inVertex;
+    private transient Vertex outVertex;
 
     protected TinkerEdge(final String id, final Vertex outVertex, final Vertex inVertex, final String label, final TinkerGraph graph) {
+        this(id, outVertex, inVertex, graph.symbols.intern(label), graph);
+    }
+
+    protected TinkerEdge(final String id, final Vertex outVertex, final Vertex inVertex, final int label, final TinkerGraph graph) {
         super(id, graph);
         this.label = label;
         this.outVertex = outVertex;
         this.inVertex = inVertex;
-        this.graph.edgeKeyIndex.autoUpdate(StringFactory.LABEL, this.label, null, this);
     }
 
     public String getLabel() {
-        return this.label;
+        return this.graph.symbols.get(this.label);
     }
 
     public Vertex getVertex(final Direction direction) throws IllegalArgumentException {
@@ -39,6 +45,14 @@ class TinkerEdge extends TinkerElement implements Edge, Serializable {
             throw ExceptionFactory.bothIsNotSupported();
     }
 
+    /**
+     * Set the vertices of an edge that was read with Java serialization.
+     */
+    void link(final Vertex outVertex, final Vertex inVertex) {
+        this.outVertex = outVertex;
+        this.inVertex = inVertex;
+    }
+
     public String toString() {
         return StringFactory.edgeString(this);
     }
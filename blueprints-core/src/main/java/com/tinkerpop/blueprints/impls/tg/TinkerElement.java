@@ -7,9 +7,7 @@ import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.ElementHelper;
 
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -17,7 +15,9 @@ import java.util.Set;
  */
 abstract class TinkerElement implements Element, Serializable {
 
-    protected Map<String, Object> properties = new HashMap<String, Object>();
+    private static final long serialVersionUID = 1l;
+
+    protected volatile TinkerProperties properties;
     protected final String id;
     protected final TinkerGraph graph;
 
@@ -27,31 +27,69 @@ abstract class TinkerElement implements Element, Serializable {
     }
 
     public Set<String> getPropertyKeys() {
-        return new HashSet<String>(this.properties.keySet());
+        final Set<String> keys = new HashSet<String>();
+        final TinkerProperties properties = this.properties;
+        if (null != properties) {
+            for (int i = 0; i < properties.size(); i++) {
+                keys.add(this.graph.symbols.get(properties.keyAt(i)));
+            }
+        }
+        return keys;
     }
 
     public <T> T getProperty(final String key) {
-        return (T) this.properties.get(key);
+        final TinkerProperties properties = this.properties;
+        if (null == properties)
+            return null;
+        final int symbol = this.graph.symbols.lookup(key);
+        return symbol == TinkerSymbols.NONE ? null : (T) properties.get(symbol);
     }
 
     public void setProperty(final String key, final Object value) {
         ElementHelper.validateProperty(this, key, value);
-        Object oldValue = this.properties.put(key, value);
+        final TinkerProperties properties = this.writableProperties();
+        Object oldValue = properties.put(this.graph.symbols.intern(key), value);
+        this.properties = properties;
         if (this instanceof TinkerVertex)
             this.graph.vertexKeyIndex.autoUpdate(key, value, oldValue, (TinkerVertex) this);
         else
             this.graph.edgeKeyIndex.autoUpdate(key, value, oldValue, (TinkerEdge) this);
+        if (null != this.graph.log)
+            this.graph.log.setProperty(this, key, value);
     }
 
     public <T> T removeProperty(final String key) {
-        Object oldValue = this.properties.remove(key);
+        Object oldValue = null;
+        final int symbol = this.graph.symbols.lookup(key);
+        if (symbol != TinkerSymbols.NONE && null != this.properties && null != this.properties.get(symbol)) {
+            final TinkerProperties properties = this.writableProperties();
+            oldValue = properties.remove(symbol);
+            this.properties = properties;
+        }
         if (this instanceof TinkerVertex)
             this.graph.vertexKeyIndex.autoRemove(key, oldValue, (TinkerVertex) this);
         else
             this.graph.edgeKeyIndex.autoRemove(key, oldValue, (TinkerEdge) this);
+        if (null != this.graph.log && null != oldValue)
+            this.graph.log.removeProperty(this, key);
         return (T) oldValue;
     }
 
+    /**
+     * Set a property without updating the key indices or the write-ahead log, as when the element is loaded.
+     */
+    protected void loadProperty(final int symbol, final Object value) {
+        final TinkerProperties properties = this.writableProperties();
+        properties.put(symbol, value);
+        this.properties = properties;
+    }
+
+    /**
+     * @return the properties to modify, which are published once they have been modified
+     */
+    protected TinkerProperties writableProperties() {
+        return null == this.properties ? new TinkerProperties() : this.properties;
+    }
 
     public int hashCode() {
         return this.id.hashCode();
@@ -8,8 +8,10 @@ import com.tinkerpop.blueprints.Features;
 import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.Index;
 import com.tinkerpop.blueprints.IndexableGraph;
+import com.tinkerpop.blueprints.KeyIndexStatisticsGraph;
 import com.tinkerpop.blueprints.KeyIndexableGraph;
 import com.tinkerpop.blueprints.Parameter;
+import com.tinkerpop.blueprints.RangeIndexableGraph;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.DefaultGraphQuery;
 import com.tinkerpop.blueprints.util.ExceptionFactory;
@@ -19,6 +21,9 @@ import com.tinkerpop.blueprints.util.StringFactory;
 import org.apache.commons.configuration.Configuration;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -28,24 +33,30 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * An in-memory, reference implementation of the property graph interfaces provided by Blueprints.
  *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
-public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializable {
+public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, RangeIndexableGraph, KeyIndexStatisticsGraph, Serializable {
+
+    private static final long serialVersionUID = 1l;
 
     protected Long currentId = 0l;
     protected Map<String, Vertex> vertices = new HashMap<String, Vertex>();
     protected Map<String, Edge> edges = new HashMap<String, Edge>();
     protected Map<String, TinkerIndex> indices = new HashMap<String, TinkerIndex>();
+    protected TinkerSymbols symbols = new TinkerSymbols();
 
     protected TinkerKeyIndex<TinkerVertex> vertexKeyIndex = new TinkerKeyIndex<TinkerVertex>(TinkerVertex.class, this);
     protected TinkerKeyIndex<TinkerEdge> edgeKeyIndex = new TinkerKeyIndex<TinkerEdge>(TinkerEdge.class, this);
 
     private final String directory;
     private final FileType fileType;
+    private transient TinkerSnapshots snapshots = new TinkerSnapshots();
+    protected transient TinkerWriteAheadLog log;
 
     private static final Features FEATURES = new Features();
     private static final Features PERSISTENT_FEATURES;
@@ -92,7 +103,8 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
         JAVA,
         GML,
         GRAPHML,
-        GRAPHSON
+        GRAPHSON,
+        BINARY
     }
 
     public TinkerGraph(final Configuration configuration) {
@@ -104,7 +116,11 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
         this.fileType = FileType.valueOf(configuration.getString("blueprints.tg.file-type", "JAVA"));
 
         if (directory != null) {
-            this.init();
+            if (configuration.getBoolean("blueprints.tg.wal", false))
+                this.init(configuration.getLong("blueprints.tg.wal.sync-interval", TinkerWriteAheadLog.DEFAULT_SYNC_INTERVAL),
+                        configuration.getLong("blueprints.tg.wal.checkpoint-size", TinkerWriteAheadLog.defaultCheckpointSize(this)));
+            else
+                this.init();
         }
     }
 
@@ -114,6 +130,21 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
         this.init();
     }
 
+    /**
+     * @param writeAheadLog when true, every mutation is appended to a log in the directory that is replayed when the
+     *                      graph is opened again, so that the graph survives a crash.  The log is compacted into the
+     *                      snapshot written in the file type on shutdown(), and for a ConcurrentTinkerGraph also in the
+     *                      background once it grows large.
+     */
+    public TinkerGraph(final String directory, final FileType fileType, final boolean writeAheadLog) {
+        this.directory = directory;
+        this.fileType = fileType;
+        if (writeAheadLog)
+            this.init(TinkerWriteAheadLog.DEFAULT_SYNC_INTERVAL, TinkerWriteAheadLog.defaultCheckpointSize(this));
+        else
+            this.init();
+    }
+
     public TinkerGraph(final String directory) {
         this(directory, FileType.JAVA);
     }
@@ -132,20 +163,61 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
                 }
             } else {
                 final TinkerStorage tinkerStorage = TinkerStorageFactory.getInstance().getTinkerStorage(fileType);
-                final TinkerGraph graph = tinkerStorage.load(directory);
-
-                this.vertices = graph.vertices;
-                this.edges = graph.edges;
-                this.currentId = graph.currentId;
-                this.indices = graph.indices;
-                this.vertexKeyIndex = graph.vertexKeyIndex;
-                this.edgeKeyIndex = graph.edgeKeyIndex;
+                this.copy(tinkerStorage.load(directory));
             }
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage(), e);
         }
     }
 
+    /**
+     * Load the snapshot, if any, replay the write-ahead log on top of it and keep logging to it.  The log is replayed
+     * on the loaded graph rather than on this one, so that subclasses are not called before they are constructed.
+     */
+    private void init(final long syncInterval, final long checkpointSize) {
+        try {
+            final File file = new File(directory);
+            TinkerGraph graph = null;
+            if (!file.exists()) {
+                if (!file.mkdirs()) {
+                    throw new RuntimeException("Could not create directory");
+                }
+            } else {
+                TinkerWriteAheadLog.recover(directory);
+                if (TinkerWriteAheadLog.hasSnapshot(directory)) {
+                    final TinkerStorage tinkerStorage = TinkerStorageFactory.getInstance().getTinkerStorage(fileType);
+                    graph = tinkerStorage.load(directory);
+                } else {
+                    graph = new TinkerGraph();
+                }
+                TinkerWriteAheadLog.replay(graph, directory);
+                this.copy(graph);
+            }
+
+            this.log = new TinkerWriteAheadLog(this, directory, fileType, syncInterval, checkpointSize);
+            if (null != graph)
+                graph.log = this.log;
+            for (final TinkerIndex index : this.indices.values()) {
+                index.log = this.log;
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The elements of a loaded graph keep referring to the loaded graph, which shares all of its state with this one.
+     */
+    private void copy(final TinkerGraph graph) {
+        this.vertices = graph.vertices;
+        this.edges = graph.edges;
+        this.currentId = graph.currentId;
+        this.indices = graph.indices;
+        this.vertexKeyIndex = graph.vertexKeyIndex;
+        this.edgeKeyIndex = graph.edgeKeyIndex;
+        this.symbols = graph.symbols;
+    }
+
     public Iterable<Vertex> getVertices(final String key, final Object value) {
         if (vertexKeyIndex.getIndexedKeys().contains(key)) {
             return (Iterable) vertexKeyIndex.get(key, value);
@@ -162,17 +234,33 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
         }
     }
 
+    public Iterable<Vertex> getVertices(final String key, final Object startValue, final boolean startInclusive, final Object endValue, final boolean endInclusive) {
+        return (Iterable) this.vertexKeyIndex.getRange(key, startValue, startInclusive, endValue, endInclusive);
+    }
+
+    public Iterable<Edge> getEdges(final String key, final Object startValue, final boolean startInclusive, final Object endValue, final boolean endInclusive) {
+        return (Iterable) this.edgeKeyIndex.getRange(key, startValue, startInclusive, endValue, endInclusive);
+    }
+
+    /**
+     * Create a key index.  When the parameter type=range is provided, the values of the key are also kept in sorted
+     * order so that the elements can be retrieved by range and the key index is reported by getRangeIndexedKeys().
+     * An existing key index is turned into a range index when it is created again with that parameter.
+     */
     public <T extends Element> void createKeyIndex(final String key, final Class<T> elementClass, final Parameter... indexParameters) {
         if (elementClass == null)
             throw ExceptionFactory.classForElementCannotBeNull();
 
+        final boolean range = isRange(indexParameters);
         if (Vertex.class.isAssignableFrom(elementClass)) {
-            this.vertexKeyIndex.createKeyIndex(key);
+            this.vertexKeyIndex.createKeyIndex(key, range);
         } else if (Edge.class.isAssignableFrom(elementClass)) {
-            this.edgeKeyIndex.createKeyIndex(key);
+            this.edgeKeyIndex.createKeyIndex(key, range);
         } else {
             throw ExceptionFactory.classIsNotIndexable(elementClass);
         }
+        if (null != this.log)
+            this.log.createKeyIndex(key, elementClass, range);
     }
 
     public <T extends Element> void dropKeyIndex(final String key, final Class<T> elementClass) {
@@ -186,6 +274,8 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
         } else {
             throw ExceptionFactory.classIsNotIndexable(elementClass);
         }
+        if (null != this.log)
+            this.log.dropKeyIndex(key, elementClass);
     }
 
     public <T extends Element> Set<String> getIndexedKeys(final Class<T> elementClass) {
@@ -201,12 +291,63 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
         }
     }
 
+    public <T extends Element> Set<String> getRangeIndexedKeys(final Class<T> elementClass) {
+        if (elementClass == null)
+            throw ExceptionFactory.classForElementCannotBeNull();
+
+        if (Vertex.class.isAssignableFrom(elementClass)) {
+            return this.vertexKeyIndex.getRangeIndexedKeys();
+        } else if (Edge.class.isAssignableFrom(elementClass)) {
+            return this.edgeKeyIndex.getRangeIndexedKeys();
+        } else {
+            throw ExceptionFactory.classIsNotIndexable(elementClass);
+        }
+    }
+
+    public <T extends Element> long countKeyIndex(final String key, final Object value, final Class<T> elementClass) {
+        if (elementClass == null)
+            throw ExceptionFactory.classForElementCannotBeNull();
+
+        if (Vertex.class.isAssignableFrom(elementClass)) {
+            return this.vertexKeyIndex.count(key, value);
+        } else if (Edge.class.isAssignableFrom(elementClass)) {
+            return this.edgeKeyIndex.count(key, value);
+        } else {
+            throw ExceptionFactory.classIsNotIndexable(elementClass);
+        }
+    }
+
+    public <T extends Element> long countKeyIndex(final String key, final Class<T> elementClass) {
+        if (elementClass == null)
+            throw ExceptionFactory.classForElementCannotBeNull();
+
+        if (Vertex.class.isAssignableFrom(elementClass)) {
+            return this.vertexKeyIndex.count(key);
+        } else if (Edge.class.isAssignableFrom(elementClass)) {
+            return this.edgeKeyIndex.count(key);
+        } else {
+            throw ExceptionFactory.classIsNotIndexable(elementClass);
+        }
+    }
+
+    private static boolean isRange(final Parameter... indexParameters) {
+        for (final Parameter parameter : indexParameters) {
+            if (TYPE.equals(parameter.getKey()) && RANGE.equals(parameter.getValue()))
+                return true;
+        }
+        return false;
+    }
+
     public <T extends Element> Index<T> createIndex(final String indexName, final Class<T> indexClass, final Parameter... indexParameters) {
         if (this.indices.containsKey(indexName))
             throw ExceptionFactory.indexAlreadyExists(indexName);
 
         final TinkerIndex index = new TinkerIndex(indexName, indexClass);
         this.indices.put(index.getIndexName(), index);
+        if (null != this.log) {
+            index.log = this.log;
+            this.log.createIndex(indexName, indexClass);
+        }
         return index;
     }
 
@@ -230,6 +371,8 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
 
     public void dropIndex(final String indexName) {
         this.indices.remove(indexName);
+        if (null != this.log)
+            this.log.dropIndex(indexName);
     }
 
 
@@ -253,7 +396,10 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
         }
 
         vertex = new TinkerVertex(idString, this);
+        this.snapshots.beforeWrite();
         this.vertices.put(vertex.getId().toString(), vertex);
+        if (null != this.log)
+            this.log.addVertex(idString);
         return vertex;
 
     }
@@ -275,12 +421,20 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
     }
 
 
+    /**
+     * The returned iterable is evaluated lazily.  Each of its iterators returns the vertices of the graph at the time
+     * the iterator was created, even if the graph is modified while iterating.
+     */
     public Iterable<Vertex> getVertices() {
-        return new ArrayList<Vertex>(this.vertices.values());
+        return this.snapshots.iterable(this.vertices.values());
     }
 
+    /**
+     * The returned iterable is evaluated lazily.  Each of its iterators returns the edges of the graph at the time
+     * the iterator was created, even if the graph is modified while iterating.
+     */
     public Iterable<Edge> getEdges() {
-        return new ArrayList<Edge>(this.edges.values());
+        return this.snapshots.iterable(this.edges.values());
     }
 
     public void removeVertex(final Vertex vertex) {
@@ -299,7 +453,10 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
             }
         }
 
+        this.snapshots.beforeWrite();
         this.vertices.remove(vertex.getId().toString());
+        if (null != this.log)
+            this.log.removeVertex(vertex.getId().toString());
     }
 
     public Edge addEdge(final Object id, final Vertex outVertex, final Vertex inVertex, final String label) {
@@ -324,29 +481,27 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
             }
         }
 
-        edge = new TinkerEdge(idString, outVertex, inVertex, label, this);
+        final TinkerEdge tinkerEdge = new TinkerEdge(idString, outVertex, inVertex, label, this);
+        edge = tinkerEdge;
+        this.snapshots.beforeWrite();
         this.edges.put(edge.getId().toString(), edge);
-        final TinkerVertex out = (TinkerVertex) outVertex;
-        final TinkerVertex in = (TinkerVertex) inVertex;
-        out.addOutEdge(label, edge);
-        in.addInEdge(label, edge);
+        this.edgeKeyIndex.autoUpdate(StringFactory.LABEL, label, null, tinkerEdge);
+        ((TinkerVertex) outVertex).addOutEdge(tinkerEdge.label, edge);
+        ((TinkerVertex) inVertex).addInEdge(tinkerEdge.label, edge);
+        if (null != this.log)
+            this.log.addEdge(edge);
         return edge;
 
     }
 
     public void removeEdge(final Edge edge) {
+        final int label = ((TinkerEdge) edge).label;
         TinkerVertex outVertex = (TinkerVertex) edge.getVertex(Direction.OUT);
         TinkerVertex inVertex = (TinkerVertex) edge.getVertex(Direction.IN);
-        if (null != outVertex && null != outVertex.outEdges) {
-            final Set<Edge> edges = outVertex.outEdges.get(edge.getLabel());
-            if (null != edges)
-                edges.remove(edge);
-        }
-        if (null != inVertex && null != inVertex.inEdges) {
-            final Set<Edge> edges = inVertex.inEdges.get(edge.getLabel());
-            if (null != edges)
-                edges.remove(edge);
-        }
+        if (null != outVertex)
+            outVertex.removeOutEdge(label, edge);
+        if (null != inVertex)
+            inVertex.removeInEdge(label, edge);
 
 
         this.edgeKeyIndex.removeElement((TinkerEdge) edge);
@@ -357,7 +512,10 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
             }
         }
 
+        this.snapshots.beforeWrite();
         this.edges.remove(edge.getId().toString());
+        if (null != this.log)
+            this.log.removeEdge(edge.getId().toString());
     }
 
     public GraphQuery query() {
@@ -373,16 +531,23 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
     }
 
     public void clear() {
+        this.snapshots.beforeWrite();
         this.vertices.clear();
         this.edges.clear();
         this.indices.clear();
         this.currentId = 0l;
         this.vertexKeyIndex = new TinkerKeyIndex<TinkerVertex>(TinkerVertex.class, this);
         this.edgeKeyIndex = new TinkerKeyIndex<TinkerEdge>(TinkerEdge.class, this);
+        if (null != this.log)
+            this.log.clear();
     }
 
     public void shutdown() {
-        if (null != this.directory) {
+        if (null != this.log) {
+            this.log.checkpoint();
+            this.log.close();
+            this.log = null;
+        } else if (null != this.directory) {
             try {
                 final TinkerStorage tinkerStorage = TinkerStorageFactory.getInstance().getTinkerStorage(this.fileType);
                 tinkerStorage.save(this, this.directory);
@@ -392,7 +557,7 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
         }
     }
 
-    private String getNextId() {
+    protected String getNextId() {
         String idString;
         while (true) {
             idString = this.currentId.toString();
@@ -410,14 +575,55 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
             return PERSISTENT_FEATURES;
     }
 
+    /**
+     * The elements do not serialize their adjacency, as following it from vertex to edge to vertex would recurse as deep
+     * as the longest path of the graph.  The vertices of the edges are written after the graph instead.
+     */
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (final Edge edge : this.edges.values()) {
+            out.writeObject(edge);
+            out.writeObject(edge.getVertex(Direction.OUT));
+            out.writeObject(edge.getVertex(Direction.IN));
+        }
+        out.writeObject(null);
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.snapshots = new TinkerSnapshots();
+        for (Object next = in.readObject(); null != next; next = in.readObject()) {
+            final TinkerEdge edge = (TinkerEdge) next;
+            final TinkerVertex outVertex = (TinkerVertex) in.readObject();
+            final TinkerVertex inVertex = (TinkerVertex) in.readObject();
+            // a ConcurrentTinkerGraph may gain or lose elements while it is written
+            if (this.edges.get(edge.getId()) != edge)
+                continue;
+            if (this.vertices.get(outVertex.getId()) != outVertex || this.vertices.get(inVertex.getId()) != inVertex) {
+                this.edges.remove(edge.getId());
+                continue;
+            }
+            edge.link(outVertex, inVertex);
+            outVertex.addOutEdge(edge.label, edge);
+            inVertex.addInEdge(edge.label, edge);
+        }
+    }
+
     protected class TinkerKeyIndex<T extends TinkerElement> extends TinkerIndex<T> implements Serializable {
 
-        private final Set<String> indexedKeys = new HashSet<String>();
+        private static final long serialVersionUID = 1l;
+
+        private final Set<String> indexedKeys;
         private TinkerGraph graph;
 
         public TinkerKeyIndex(final Class<T> indexClass, final TinkerGraph graph) {
-            super(null, indexClass);
+            this(indexClass, graph, false);
+        }
+
+        public TinkerKeyIndex(final Class<T> indexClass, final TinkerGraph graph, final boolean concurrent) {
+            super(null, indexClass, concurrent);
             this.graph = graph;
+            this.indexedKeys = concurrent ? Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>()) : new HashSet<String>();
         }
 
         public void autoUpdate(final String key, final Object newValue, final Object oldValue, final T element) {
@@ -435,6 +641,13 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
         }
 
         public void createKeyIndex(final String key) {
+            this.createKeyIndex(key, false);
+        }
+
+        public void createKeyIndex(final String key, final boolean range) {
+            if (range)
+                this.createRange(key);
+
             if (this.indexedKeys.contains(key))
                 return;
 
@@ -453,7 +666,13 @@ public class TinkerGraph implements IndexableGraph, KeyIndexableGraph, Serializa
 
             this.indexedKeys.remove(key);
             this.index.remove(key);
+            this.counts.remove(key);
+            this.dropRange(key);
+
+        }
 
+        public Set<String> getRangeIndexedKeys() {
+            return new HashSet<String>(this.ranges.keySet());
         }
 
         public Set<String> getIndexedKeys() {
@@ -1,13 +1,56 @@
 package com.tinkerpop.blueprints.impls.tg;
 
 
+import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Vertex;
+import org.apache.commons.configuration.Configuration;
 
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
 public class TinkerGraphFactory {
 
+    /**
+     * The storage engines that can back a TinkerGraph when opened through the GraphFactory.
+     */
+    public enum StorageType {
+        /**
+         * The reference TinkerGraph with one object and one property map per element.
+         */
+        DEFAULT,
+        /**
+         * The ColumnarTinkerGraph with primitive long identifiers, slot arrays and per-key property columns.
+         */
+        COLUMNAR,
+        /**
+         * The ConcurrentTinkerGraph with concurrent maps and lock striping for use by many threads at once.
+         */
+        CONCURRENT
+    }
+
+    /**
+     * Open a TinkerGraph whose storage engine is chosen by the blueprints.tg.storage setting.  This method allows
+     * the GraphFactory to be configured with this class as the blueprints.graph setting.
+     *
+     * @param configuration the blueprints.tg.* settings for the graph
+     * @return a TinkerGraph backed by the configured storage engine
+     */
+    public static Graph open(final Configuration configuration) {
+        if (configuration == null) {
+            throw new IllegalArgumentException("configuration cannot be null");
+        }
+
+        final StorageType storageType = StorageType.valueOf(configuration.getString("blueprints.tg.storage", "DEFAULT"));
+        switch (storageType) {
+            case COLUMNAR:
+                return new ColumnarTinkerGraph(configuration);
+            case CONCURRENT:
+                return new ConcurrentTinkerGraph(configuration);
+            default:
+                return new TinkerGraph(configuration);
+        }
+    }
+
     public static TinkerGraph createTinkerGraph() {
 
         TinkerGraph graph = new TinkerGraph();
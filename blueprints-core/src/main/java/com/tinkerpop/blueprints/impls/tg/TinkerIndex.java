@@ -6,26 +6,66 @@ import com.tinkerpop.blueprints.Index;
 import com.tinkerpop.blueprints.util.StringFactory;
 import com.tinkerpop.blueprints.util.WrappingCloseableIterable;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
 class TinkerIndex<T extends Element> implements Index<T>, Serializable {
 
-    protected Map<String, Map<Object, Set<T>>> index = new HashMap<String, Map<Object, Set<T>>>();
+    private static final long serialVersionUID = 1l;
+
+    private static final int LOCK_STRIPES = 64;
+    private static final Comparator<Object> RANGE_ORDER = new RangeComparator();
+
+    protected Map<String, Map<Object, Set<T>>> index;
+    protected Map<String, NavigableMap<Object, Set<T>>> ranges;
+    protected Map<String, AtomicLong> counts;
     protected final String indexName;
     protected final Class<T> indexClass;
+    protected final boolean concurrent;
+    private transient Object[] locks;
+    private transient TinkerSnapshots snapshots = new TinkerSnapshots();
+    transient TinkerWriteAheadLog log;
 
     public TinkerIndex(final String indexName, final Class<T> indexClass) {
+        this(indexName, indexClass, false);
+    }
+
+    /**
+     * @param concurrent when true, the index is backed by concurrent maps and sets so it can be read without locking,
+     *                   while writes to the same key/value pair are serialized on one of a fixed set of lock stripes
+     */
+    public TinkerIndex(final String indexName, final Class<T> indexClass, final boolean concurrent) {
         this.indexName = indexName;
         this.indexClass = indexClass;
+        this.concurrent = concurrent;
+        if (concurrent) {
+            this.index = new ConcurrentHashMap<String, Map<Object, Set<T>>>();
+            this.ranges = new ConcurrentHashMap<String, NavigableMap<Object, Set<T>>>();
+            this.counts = new ConcurrentHashMap<String, AtomicLong>();
+            this.locks = createLocks();
+        } else {
+            this.index = new HashMap<String, Map<Object, Set<T>>>();
+            this.ranges = new HashMap<String, NavigableMap<Object, Set<T>>>();
+            this.counts = new HashMap<String, AtomicLong>();
+        }
     }
 
     public String getIndexName() {
@@ -37,20 +77,50 @@ class TinkerIndex<T extends Element> implements Index<T>, Serializable {
     }
 
     public void put(final String key, final Object value, final T element) {
+        if (this.concurrent) {
+            synchronized (this.lockFor(key, value)) {
+                this.putInternal(key, value, element);
+            }
+        } else {
+            this.putInternal(key, value, element);
+        }
+        if (null != this.log)
+            this.log.indexPut(this.indexName, key, value, element);
+    }
+
+    private void putInternal(final String key, final Object value, final T element) {
+        this.beforeWrite();
         Map<Object, Set<T>> keyMap = this.index.get(key);
         if (keyMap == null) {
-            keyMap = new HashMap<Object, Set<T>>();
-            this.index.put(key, keyMap);
+            if (this.concurrent) {
+                keyMap = new ConcurrentHashMap<Object, Set<T>>();
+                final Map<Object, Set<T>> existing = ((ConcurrentMap<String, Map<Object, Set<T>>>) this.index).putIfAbsent(key, keyMap);
+                if (null != existing)
+                    keyMap = existing;
+            } else {
+                keyMap = new HashMap<Object, Set<T>>();
+                this.index.put(key, keyMap);
+            }
         }
         Set<T> objects = keyMap.get(value);
         if (null == objects) {
-            objects = new HashSet<T>();
+            objects = this.concurrent ? Collections.newSetFromMap(new ConcurrentHashMap<T, Boolean>()) : new HashSet<T>();
             keyMap.put(value, objects);
+            final NavigableMap<Object, Set<T>> range = this.ranges.get(key);
+            if (null != range && value instanceof Comparable)
+                range.put(value, objects);
         }
-        objects.add(element);
+        if (objects.add(element))
+            this.counter(key).incrementAndGet();
 
     }
 
+    /**
+     * The returned iterable is evaluated lazily.  Each of its iterators returns the elements indexed under the
+     * key/value pair at the time the iterator was created, even if the index is modified while iterating.  The
+     * iterators of a concurrent index are weakly consistent instead: they never fail, but may or may not reflect
+     * writes made after they were created.
+     */
     public CloseableIterable<T> get(final String key, final Object value) {
         final Map<Object, Set<T>> keyMap = this.index.get(key);
         if (null == keyMap) {
@@ -59,8 +129,10 @@ class TinkerIndex<T extends Element> implements Index<T>, Serializable {
             Set<T> set = keyMap.get(value);
             if (null == set)
                 return new WrappingCloseableIterable<T>((Iterable) Collections.emptyList());
+            else if (this.concurrent)
+                return new WrappingCloseableIterable<T>(Collections.unmodifiableSet(set));
             else
-                return new WrappingCloseableIterable<T>(new ArrayList<T>(set));
+                return this.snapshots.iterable(set);
         }
     }
 
@@ -81,14 +153,39 @@ class TinkerIndex<T extends Element> implements Index<T>, Serializable {
         }
     }
 
+    /**
+     * @return the number of elements indexed under the key for any value
+     */
+    public long count(final String key) {
+        final AtomicLong count = this.counts.get(key);
+        return null == count ? 0 : count.get();
+    }
+
     public void remove(final String key, final Object value, final T element) {
+        if (this.concurrent) {
+            synchronized (this.lockFor(key, value)) {
+                this.removeInternal(key, value, element);
+            }
+        } else {
+            this.removeInternal(key, value, element);
+        }
+        if (null != this.log)
+            this.log.indexRemove(this.indexName, key, value, element);
+    }
+
+    private void removeInternal(final String key, final Object value, final T element) {
+        this.beforeWrite();
         final Map<Object, Set<T>> keyMap = this.index.get(key);
         if (null != keyMap) {
             Set<T> objects = keyMap.get(value);
             if (null != objects) {
-                objects.remove(element);
+                if (objects.remove(element))
+                    this.counter(key).decrementAndGet();
                 if (objects.size() == 0) {
                     keyMap.remove(value);
+                    final NavigableMap<Object, Set<T>> range = this.ranges.get(key);
+                    if (null != range && value instanceof Comparable)
+                        range.remove(value);
                 }
             }
         }
@@ -96,15 +193,156 @@ class TinkerIndex<T extends Element> implements Index<T>, Serializable {
 
     public void removeElement(final T element) {
         if (this.indexClass.isAssignableFrom(element.getClass())) {
-            for (Map<Object, Set<T>> map : index.values()) {
-                for (Set<T> set : map.values()) {
-                    set.remove(element);
+            this.beforeWrite();
+            for (Map.Entry<String, Map<Object, Set<T>>> entry : index.entrySet()) {
+                for (Set<T> set : entry.getValue().values()) {
+                    if (set.remove(element))
+                        this.counter(entry.getKey()).decrementAndGet();
                 }
             }
         }
     }
 
+    /**
+     * Keep the values of the key in sorted order, in addition to the hash lookup, so that they can be retrieved by
+     * range.  Only Comparable values are kept in sorted order.
+     */
+    public void createRange(final String key) {
+        if (this.ranges.containsKey(key))
+            return;
+
+        final NavigableMap<Object, Set<T>> range = this.concurrent ?
+                new ConcurrentSkipListMap<Object, Set<T>>(RANGE_ORDER) : new TreeMap<Object, Set<T>>(RANGE_ORDER);
+        this.ranges.put(key, range);
+        final Map<Object, Set<T>> keyMap = this.index.get(key);
+        if (null != keyMap) {
+            for (final Map.Entry<Object, Set<T>> entry : keyMap.entrySet()) {
+                if (entry.getKey() instanceof Comparable)
+                    range.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    public void dropRange(final String key) {
+        this.ranges.remove(key);
+    }
+
+    public boolean hasRange(final String key) {
+        return this.ranges.containsKey(key);
+    }
+
+    /**
+     * Get the elements with a value for the key between the two bounds.  Only values of the same class as the
+     * bounds are considered.
+     *
+     * @param startValue the lower bound or null if there is no lower bound
+     * @param endValue   the upper bound or null if there is no upper bound
+     */
+    public CloseableIterable<T> getRange(final String key, final Object startValue, final boolean startInclusive,
+                                         final Object endValue, final boolean endInclusive) {
+        NavigableMap<Object, Set<T>> range = this.ranges.get(key);
+        if (null == range)
+            throw new IllegalArgumentException("Key is not range indexed: " + key);
+        if (null == startValue && null == endValue)
+            throw new IllegalArgumentException("A range must have at least one bound");
+
+        final Class valueClass = null == startValue ? endValue.getClass() : startValue.getClass();
+        if (null != startValue && null != endValue) {
+            if (!endValue.getClass().equals(valueClass))
+                throw new IllegalArgumentException("The bounds of a range must be of the same class");
+            if (RANGE_ORDER.compare(startValue, endValue) > 0)
+                return new WrappingCloseableIterable<T>((Iterable) Collections.emptyList());
+        }
+
+        if (null != startValue)
+            range = range.tailMap(startValue, startInclusive);
+        if (null != endValue)
+            range = range.headMap(endValue, endInclusive);
+
+        final List<T> elements = new ArrayList<T>();
+        boolean inClass = false;
+        for (final Map.Entry<Object, Set<T>> entry : range.entrySet()) {
+            if (entry.getKey().getClass().equals(valueClass)) {
+                inClass = true;
+                elements.addAll(entry.getValue());
+            } else if (inClass) {
+                break;
+            }
+        }
+        return new WrappingCloseableIterable<T>(elements);
+    }
+
     public String toString() {
         return StringFactory.indexString(this);
     }
+
+    private void beforeWrite() {
+        if (!this.concurrent)
+            this.snapshots.beforeWrite();
+    }
+
+    private AtomicLong counter(final String key) {
+        AtomicLong count = this.counts.get(key);
+        if (null == count) {
+            count = new AtomicLong();
+            if (this.concurrent) {
+                final AtomicLong existing = ((ConcurrentMap<String, AtomicLong>) this.counts).putIfAbsent(key, count);
+                if (null != existing)
+                    count = existing;
+            } else {
+                this.counts.put(key, count);
+            }
+        }
+        return count;
+    }
+
+    private Object lockFor(final String key, final Object value) {
+        int hash = 31 * key.hashCode() + (null == value ? 0 : value.hashCode());
+        hash ^= (hash >>> 16);
+        return this.locks[hash & (LOCK_STRIPES - 1)];
+    }
+
+    private static Object[] createLocks() {
+        final Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    /**
+     * Orders values by class name and then by their natural order, so that values of different classes can share
+     * one sorted map while each class occupies a contiguous run of it.
+     */
+    private static class RangeComparator implements Comparator<Object>, Serializable {
+        private static final long serialVersionUID = 1l;
+
+        public int compare(final Object first, final Object second) {
+            final Class firstClass = first.getClass();
+            final Class secondClass = second.getClass();
+            if (!firstClass.equals(secondClass))
+                return firstClass.getName().compareTo(secondClass.getName());
+            return ((Comparable) first).compareTo(second);
+        }
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.snapshots = new TinkerSnapshots();
+        if (this.concurrent)
+            this.locks = createLocks();
+        if (null == this.ranges)
+            this.ranges = this.concurrent ?
+                    new ConcurrentHashMap<String, NavigableMap<Object, Set<T>>>() : new HashMap<String, NavigableMap<Object, Set<T>>>();
+        if (null == this.counts) {
+            this.counts = this.concurrent ? new ConcurrentHashMap<String, AtomicLong>() : new HashMap<String, AtomicLong>();
+            for (final Map.Entry<String, Map<Object, Set<T>>> entry : this.index.entrySet()) {
+                long count = 0;
+                for (final Set<T> set : entry.getValue().values()) {
+                    count = count + set.size();
+                }
+                this.counts.put(entry.getKey(), new AtomicLong(count));
+            }
+        }
+    }
 }
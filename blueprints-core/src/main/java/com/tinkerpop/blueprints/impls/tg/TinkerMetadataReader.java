@@ -4,13 +4,10 @@ import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
 
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
 
 /**
  * Reads TinkerGraph metadata from an InputStream.
@@ -53,6 +50,7 @@ class TinkerMetadataReader {
             readIndices(reader, this.graph);
             readVertexKeyIndices(reader, this.graph);
             readEdgeKeyIndices(reader, this.graph);
+            readRangeKeyIndices(reader, this.graph);
         } catch (IOException e) {
             throw new RuntimeException("Could not read metadata file");
         } finally {
@@ -149,30 +147,22 @@ class TinkerMetadataReader {
 
             graph.vertexKeyIndex.createKeyIndex(indexName);
 
-            Map<Object, Set<TinkerVertex>> items = new HashMap<Object, Set<TinkerVertex>>();
-
             // Read the number of items associated with this key index name
             int itemCount = reader.readInt();
             for (int j = 0; j < itemCount; j++) {
                 // Read the item key
                 Object key = readTypedData(reader);
 
-                Set<TinkerVertex> vertices = new HashSet<TinkerVertex>();
-
                 // Read the number of vertices in this item
                 int vertexCount = reader.readInt();
                 for (int k = 0; k < vertexCount; k++) {
                     // Read the vertex identifier
                     Vertex v = graph.getVertex(readTypedData(reader));
                     if (v != null) {
-                        vertices.add((TinkerVertex) v);
+                        graph.vertexKeyIndex.put(indexName, key, (TinkerVertex) v);
                     }
                 }
-
-                items.put(key, vertices);
             }
-
-            graph.vertexKeyIndex.index.put(indexName, items);
         }
     }
 
@@ -186,30 +176,42 @@ class TinkerMetadataReader {
 
             graph.edgeKeyIndex.createKeyIndex(indexName);
 
-            Map<Object, Set<TinkerEdge>> items = new HashMap<Object, Set<TinkerEdge>>();
-
             // Read the number of items associated with this key index name
             int itemCount = reader.readInt();
             for (int j = 0; j < itemCount; j++) {
                 // Read the item key
                 Object key = readTypedData(reader);
 
-                Set<TinkerEdge> edges = new HashSet<TinkerEdge>();
-
                 // Read the number of edges in this item
                 int edgeCount = reader.readInt();
                 for (int k = 0; k < edgeCount; k++) {
                     // Read the edge identifier
                     Edge e = graph.getEdge(readTypedData(reader));
                     if (e != null) {
-                        edges.add((TinkerEdge) e);
+                        graph.edgeKeyIndex.put(indexName, key, (TinkerEdge) e);
                     }
                 }
-
-                items.put(key, edges);
             }
+        }
+    }
+
+    private void readRangeKeyIndices(final DataInputStream reader, final TinkerGraph graph) throws IOException {
+        // Read the number of vertex range key indices, which are absent from metadata written without any
+        int vertexKeyCount;
+        try {
+            vertexKeyCount = reader.readInt();
+        } catch (EOFException e) {
+            return;
+        }
+
+        for (int i = 0; i < vertexKeyCount; i++) {
+            graph.vertexKeyIndex.createKeyIndex(reader.readUTF(), true);
+        }
 
-            graph.edgeKeyIndex.index.put(indexName, items);
+        // Read the number of edge range key indices
+        int edgeKeyCount = reader.readInt();
+        for (int i = 0; i < edgeKeyCount; i++) {
+            graph.edgeKeyIndex.createKeyIndex(reader.readUTF(), true);
         }
     }
 
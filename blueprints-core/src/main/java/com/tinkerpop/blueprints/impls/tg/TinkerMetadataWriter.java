@@ -7,6 +7,7 @@ import java.io.DataOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 
@@ -51,6 +52,7 @@ class TinkerMetadataWriter {
             writeIndices(writer, this.graph);
             writeVertexKeyIndices(writer, this.graph);
             writeEdgeKeyIndices(writer, this.graph);
+            writeRangeKeyIndices(writer, this.graph);
         } catch (IOException e) {
             throw new RuntimeException("Could not write metadata file");
         } finally {
@@ -189,6 +191,23 @@ class TinkerMetadataWriter {
         }
     }
 
+    private void writeRangeKeyIndices(final DataOutputStream writer, final TinkerGraph graph) throws IOException {
+        final Set<String> vertexKeys = graph.vertexKeyIndex.getRangeIndexedKeys();
+        final Set<String> edgeKeys = graph.edgeKeyIndex.getRangeIndexedKeys();
+
+        // Range key indices are an optional trailing section so that metadata without them is unchanged
+        if (vertexKeys.isEmpty() && edgeKeys.isEmpty())
+            return;
+
+        for (Set<String> keys : Arrays.asList(vertexKeys, edgeKeys)) {
+            // Write the number of range key indices followed by their names
+            writer.writeInt(keys.size());
+            for (String key : keys) {
+                writer.writeUTF(key);
+            }
+        }
+    }
+
     private void writeTypedData(final DataOutputStream writer, final Object data) throws IOException {
         if (data instanceof String) {
             writer.writeByte(1);
@@ -0,0 +1,136 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.carrotsearch.hppc.IntIntOpenHashMap;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The properties of a TinkerElement keyed by the symbols of their keys.  Keys and values are held in two parallel
+ * arrays that are scanned linearly, which for the few properties an element usually has is both smaller and faster
+ * than a HashMap.  Once an element has more than INDEX_THRESHOLD properties, a hash index from key to position is
+ * kept alongside the arrays.
+ */
+final class TinkerProperties implements Serializable {
+
+    private static final long serialVersionUID = 1l;
+
+    static final int INDEX_THRESHOLD = 12;
+
+    private static final int INITIAL_CAPACITY = 2;
+    private static final int ABSENT = -1;
+
+    private int[] keys;
+    private Object[] values;
+    private int size = 0;
+    private transient IntIntOpenHashMap index;
+
+    public TinkerProperties() {
+        this.keys = new int[INITIAL_CAPACITY];
+        this.values = new Object[INITIAL_CAPACITY];
+    }
+
+    private TinkerProperties(final TinkerProperties properties, final int capacity) {
+        this.keys = Arrays.copyOf(properties.keys, capacity);
+        this.values = Arrays.copyOf(properties.values, capacity);
+        this.size = properties.size;
+        if (null != properties.index)
+            this.index = new IntIntOpenHashMap(properties.index);
+    }
+
+    /**
+     * @return a copy that can be modified without affecting this one
+     */
+    public TinkerProperties copy() {
+        return new TinkerProperties(this, Math.max(INITIAL_CAPACITY, this.size + 1));
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int keyAt(final int position) {
+        return this.keys[position];
+    }
+
+    public Object valueAt(final int position) {
+        return this.values[position];
+    }
+
+    public Object get(final int key) {
+        final int position = this.position(key);
+        return position == ABSENT ? null : this.values[position];
+    }
+
+    /**
+     * @return the value previously held by the key or null
+     */
+    public Object put(final int key, final Object value) {
+        final int position = this.position(key);
+        if (position != ABSENT) {
+            final Object oldValue = this.values[position];
+            this.values[position] = value;
+            return oldValue;
+        }
+
+        if (this.size == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, this.size << 1);
+            this.values = Arrays.copyOf(this.values, this.size << 1);
+        }
+        this.keys[this.size] = key;
+        this.values[this.size] = value;
+        if (null != this.index)
+            this.index.put(key, this.size);
+        this.size++;
+        if (null == this.index && this.size > INDEX_THRESHOLD)
+            this.buildIndex();
+        return null;
+    }
+
+    /**
+     * @return the value held by the key or null
+     */
+    public Object remove(final int key) {
+        final int position = this.position(key);
+        if (position == ABSENT)
+            return null;
+
+        final Object oldValue = this.values[position];
+        final int last = --this.size;
+        this.keys[position] = this.keys[last];
+        this.values[position] = this.values[last];
+        this.values[last] = null;
+        if (null != this.index) {
+            this.index.remove(key);
+            if (position != last)
+                this.index.put(this.keys[position], position);
+        }
+        return oldValue;
+    }
+
+    private int position(final int key) {
+        if (null != this.index)
+            return this.index.getOrDefault(key, ABSENT);
+
+        for (int i = 0; i < this.size; i++) {
+            if (this.keys[i] == key)
+                return i;
+        }
+        return ABSENT;
+    }
+
+    private void buildIndex() {
+        this.index = new IntIntOpenHashMap(this.size << 1);
+        for (int i = 0; i < this.size; i++) {
+            this.index.put(this.keys[i], i);
+        }
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (this.size > INDEX_THRESHOLD)
+            this.buildIndex();
+    }
+}
@@ -0,0 +1,195 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Stores the values of a single property key for every element slot of a ColumnarTinkerGraph.
+ * Integer, long and double values are held in primitive arrays.  As soon as a value of another type is written
+ * to a primitive column, the column is promoted to an Object column and the caller must use the returned instance.
+ */
+abstract class TinkerPropertyColumn implements Serializable {
+
+    private static final long serialVersionUID = 1l;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    protected final BitSet present = new BitSet();
+    protected int size = 0;
+
+    /**
+     * Create an empty column best suited to hold the provided value.
+     */
+    public static TinkerPropertyColumn forValue(final Object value) {
+        if (value instanceof Integer)
+            return new IntColumn();
+        else if (value instanceof Long)
+            return new LongColumn();
+        else if (value instanceof Double)
+            return new DoubleColumn();
+        else
+            return new ObjectColumn();
+    }
+
+    /**
+     * @return the value at the slot or null if there is no value
+     */
+    public abstract Object get(final int slot);
+
+    /**
+     * Set the value at the slot.
+     *
+     * @return the column to use from this point forward which may be a promoted copy of this column
+     */
+    public abstract TinkerPropertyColumn set(final int slot, final Object value);
+
+    /**
+     * Remove the value at the slot.
+     *
+     * @return the removed value or null if there was no value
+     */
+    public Object remove(final int slot) {
+        if (!this.present.get(slot))
+            return null;
+
+        final Object oldValue = this.get(slot);
+        this.present.clear(slot);
+        this.size--;
+        this.clear(slot);
+        return oldValue;
+    }
+
+    public boolean contains(final int slot) {
+        return this.present.get(slot);
+    }
+
+    /**
+     * @return the number of slots that have a value in this column
+     */
+    public int size() {
+        return this.size;
+    }
+
+    protected abstract void clear(final int slot);
+
+    protected void markPresent(final int slot) {
+        if (!this.present.get(slot)) {
+            this.present.set(slot);
+            this.size++;
+        }
+    }
+
+    protected ObjectColumn promote() {
+        final ObjectColumn column = new ObjectColumn();
+        for (int slot = this.present.nextSetBit(0); slot >= 0; slot = this.present.nextSetBit(slot + 1)) {
+            column.set(slot, this.get(slot));
+        }
+        return column;
+    }
+
+    protected static int grow(final int length, final int slot) {
+        int capacity = Math.max(length, INITIAL_CAPACITY);
+        while (capacity <= slot) {
+            capacity = capacity << 1;
+        }
+        return capacity;
+    }
+
+    static class IntColumn extends TinkerPropertyColumn {
+        private static final long serialVersionUID = 1l;
+
+        private int[] values = new int[0];
+
+        public Object get(final int slot) {
+            return this.present.get(slot) ? this.values[slot] : null;
+        }
+
+        public TinkerPropertyColumn set(final int slot, final Object value) {
+            if (!(value instanceof Integer))
+                return this.promote().set(slot, value);
+
+            if (slot >= this.values.length)
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, slot));
+            this.values[slot] = (Integer) value;
+            this.markPresent(slot);
+            return this;
+        }
+
+        protected void clear(final int slot) {
+            this.values[slot] = 0;
+        }
+    }
+
+    static class LongColumn extends TinkerPropertyColumn {
+        private static final long serialVersionUID = 1l;
+
+        private long[] values = new long[0];
+
+        public Object get(final int slot) {
+            return this.present.get(slot) ? this.values[slot] : null;
+        }
+
+        public TinkerPropertyColumn set(final int slot, final Object value) {
+            if (!(value instanceof Long))
+                return this.promote().set(slot, value);
+
+            if (slot >= this.values.length)
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, slot));
+            this.values[slot] = (Long) value;
+            this.markPresent(slot);
+            return this;
+        }
+
+        protected void clear(final int slot) {
+            this.values[slot] = 0l;
+        }
+    }
+
+    static class DoubleColumn extends TinkerPropertyColumn {
+        private static final long serialVersionUID = 1l;
+
+        private double[] values = new double[0];
+
+        public Object get(final int slot) {
+            return this.present.get(slot) ? this.values[slot] : null;
+        }
+
+        public TinkerPropertyColumn set(final int slot, final Object value) {
+            if (!(value instanceof Double))
+                return this.promote().set(slot, value);
+
+            if (slot >= this.values.length)
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, slot));
+            this.values[slot] = (Double) value;
+            this.markPresent(slot);
+            return this;
+        }
+
+        protected void clear(final int slot) {
+            this.values[slot] = 0.0d;
+        }
+    }
+
+    static class ObjectColumn extends TinkerPropertyColumn {
+        private static final long serialVersionUID = 1l;
+
+        private Object[] values = new Object[0];
+
+        public Object get(final int slot) {
+            return slot < this.values.length ? this.values[slot] : null;
+        }
+
+        public TinkerPropertyColumn set(final int slot, final Object value) {
+            if (slot >= this.values.length)
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, slot));
+            this.values[slot] = value;
+            this.markPresent(slot);
+            return this;
+        }
+
+        protected void clear(final int slot) {
+            this.values[slot] = null;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.CloseableIterable;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hands out lazily evaluated iterables over a collection of a TinkerGraph or a TinkerIndex.
+ * <p>
+ * An iterator streams directly over the backing collection.  The owner of the collection calls beforeWrite() before
+ * it modifies the collection, which copies the elements that each open iterator has not yet returned.  An iterator
+ * therefore returns the elements that the collection held when the iterator was created, just as if the collection
+ * had been copied up front, and the collection may be modified while it is being iterated over.  As long as no write
+ * happens while an iterator is open nothing is copied, so an iteration that stops after k elements costs O(k).
+ * <p>
+ * Open iterators are held weakly and each one is copied at most once, so an abandoned iterator never costs more than
+ * the up front copy it replaces.
+ */
+class TinkerSnapshots {
+
+    private static final int MIN_PRUNE_SIZE = 16;
+
+    private final List<WeakReference<SnapshotIterator<?>>> open = new ArrayList<WeakReference<SnapshotIterator<?>>>();
+    private int pruneSize = MIN_PRUNE_SIZE;
+
+    public <T> CloseableIterable<T> iterable(final Collection<? extends T> collection) {
+        return new SnapshotIterable<T>(collection);
+    }
+
+    /**
+     * Detach every open iterator from the backing collection.  Must be called before the collection is modified.
+     */
+    public synchronized void beforeWrite() {
+        if (this.open.isEmpty())
+            return;
+
+        for (final WeakReference<SnapshotIterator<?>> reference : this.open) {
+            final SnapshotIterator<?> iterator = reference.get();
+            if (null != iterator)
+                iterator.detach();
+        }
+        this.open.clear();
+        this.pruneSize = MIN_PRUNE_SIZE;
+    }
+
+    private synchronized void register(final SnapshotIterator<?> iterator) {
+        if (this.open.size() >= this.pruneSize) {
+            final Iterator<WeakReference<SnapshotIterator<?>>> itty = this.open.iterator();
+            while (itty.hasNext()) {
+                final SnapshotIterator<?> other = itty.next().get();
+                if (null == other || !other.hasNext())
+                    itty.remove();
+            }
+            this.pruneSize = Math.max(MIN_PRUNE_SIZE, 2 * this.open.size());
+        }
+        this.open.add(new WeakReference<SnapshotIterator<?>>(iterator));
+    }
+
+    private class SnapshotIterable<T> implements CloseableIterable<T> {
+
+        private final Collection<? extends T> collection;
+
+        public SnapshotIterable(final Collection<? extends T> collection) {
+            this.collection = collection;
+        }
+
+        public Iterator<T> iterator() {
+            if (this.collection.isEmpty())
+                return Collections.<T>emptyList().iterator();
+
+            final SnapshotIterator<T> iterator = new SnapshotIterator<T>(this.collection.iterator());
+            register(iterator);
+            return iterator;
+        }
+
+        public void close() {
+        }
+    }
+
+    private static class SnapshotIterator<T> implements Iterator<T> {
+
+        private Iterator<? extends T> itty;
+        private boolean detached = false;
+
+        public SnapshotIterator(final Iterator<? extends T> itty) {
+            this.itty = itty;
+        }
+
+        public boolean hasNext() {
+            return this.itty.hasNext();
+        }
+
+        public T next() {
+            return this.itty.next();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void detach() {
+            if (this.detached)
+                return;
+
+            final List<T> remaining = new ArrayList<T>();
+            while (this.itty.hasNext()) {
+                remaining.add(this.itty.next());
+            }
+            this.itty = remaining.iterator();
+            this.detached = true;
+        }
+    }
+}
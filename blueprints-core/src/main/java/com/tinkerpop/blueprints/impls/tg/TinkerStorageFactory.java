@@ -12,6 +12,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InvalidClassException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
@@ -45,6 +46,8 @@ class TinkerStorageFactory {
                 return new GraphSONTinkerStorage();
             case JAVA:
                 return new JavaTinkerStorage();
+            case BINARY:
+                return new BinaryTinkerStorage();
         }
 
         throw new RuntimeException(String.format("File Type [%s] is not configurable by the factory", fileType));
@@ -202,6 +205,24 @@ class TinkerStorageFactory {
         }
     }
 
+    /**
+     * Reads and writes a TinkerGraph to a compact binary format for the data that is loaded with memory-mapped I/O.
+     */
+    class BinaryTinkerStorage extends AbstractSeparateTinkerStorage {
+        private static final String GRAPH_FILE_BINARY = "/tinkergraph.bin";
+
+        @Override
+        public void loadGraphData(final TinkerGraph graph, final String directory) throws IOException {
+            TinkerBinaryReader.load(graph, directory + GRAPH_FILE_BINARY);
+        }
+
+        @Override
+        public void saveGraphData(final TinkerGraph graph, final String directory) throws IOException {
+            deleteFile(directory + GRAPH_FILE_BINARY);
+            TinkerBinaryWriter.save(graph, directory + GRAPH_FILE_BINARY);
+        }
+    }
+
     /**
      * Reads and writes a TinkerGraph using java object serialization.
      */
@@ -214,6 +235,11 @@ class TinkerStorageFactory {
 
             try {
                 return (TinkerGraph) input.readObject();
+            } catch (InvalidClassException ice) {
+                // the elements, properties and indices were stored differently before symbols were interned
+                throw new IOException(directory + GRAPH_FILE_JAVA + " was saved by an earlier version of TinkerGraph "
+                        + "whose FileType.JAVA format can no longer be read: open it with that version and save it with "
+                        + "another FileType, such as GRAPHSON, to move it to this version (" + ice.getMessage() + ")", ice);
             } catch (ClassNotFoundException cnfe) {
                 throw new RuntimeException(cnfe);
             } finally {
@@ -0,0 +1,76 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The graph-wide dictionary of the edge labels and property keys of a TinkerGraph.  Each distinct string is given a
+ * small int, its symbol, in the order it is first interned, and elements store symbols rather than strings.
+ * <p>
+ * The vocabulary of a graph is small and rarely grows, so the table is copied on write: interning a new string
+ * publishes a new map and array, while lookups never lock.  Lookups do not intern, so reading a key that was never
+ * written does not grow the table.
+ */
+class TinkerSymbols implements Serializable {
+
+    private static final long serialVersionUID = 1l;
+
+    /**
+     * The symbol of a string that has not been interned.
+     */
+    public static final int NONE = -1;
+
+    private volatile String[] strings = new String[0];
+    private transient volatile ObjectIntOpenHashMap<String> symbols = new ObjectIntOpenHashMap<String>();
+
+    /**
+     * @return the symbol of the string or NONE if it has not been interned
+     */
+    public int lookup(final String string) {
+        return null == string ? NONE : this.symbols.getOrDefault(string, NONE);
+    }
+
+    /**
+     * @return the symbol of the string, which is interned if it has not been already
+     */
+    public int intern(final String string) {
+        final int symbol = this.lookup(string);
+        return symbol == NONE ? this.add(string) : symbol;
+    }
+
+    public String get(final int symbol) {
+        return this.strings[symbol];
+    }
+
+    public int size() {
+        return this.strings.length;
+    }
+
+    private synchronized int add(final String string) {
+        final int existing = this.symbols.getOrDefault(string, NONE);
+        if (existing != NONE)
+            return existing;
+
+        final int symbol = this.strings.length;
+        final ObjectIntOpenHashMap<String> symbols = this.symbols.clone();
+        symbols.put(string, symbol);
+        final String[] strings = Arrays.copyOf(this.strings, symbol + 1);
+        strings[symbol] = string;
+        // publish the string before its symbol can be looked up
+        this.strings = strings;
+        this.symbols = symbols;
+        return symbol;
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.symbols = new ObjectIntOpenHashMap<String>(this.strings.length);
+        for (int i = 0; i < this.strings.length; i++) {
+            this.symbols.put(this.strings[i], i);
+        }
+    }
+}
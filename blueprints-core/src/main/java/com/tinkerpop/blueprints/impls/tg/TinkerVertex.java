@@ -9,15 +9,14 @@ import com.tinkerpop.blueprints.util.MultiIterable;
 import com.tinkerpop.blueprints.util.StringFactory;
 import com.tinkerpop.blueprints.util.VerticesFromEdgesIterable;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -25,8 +24,13 @@ import java.util.Set;
  */
 class TinkerVertex extends TinkerElement implements Vertex, Serializable {
 
-    protected Map<String, Set<Edge>> outEdges = new HashMap<String, Set<Edge>>();
-    protected Map<String, Set<Edge>> inEdges = new HashMap<String, Set<Edge>>();
+    private static final long serialVersionUID = 1l;
+
+    private static final LabeledEdges[] NO_EDGES = new LabeledEdges[0];
+
+    // not serialized, TinkerGraph links the edges to their vertices again when it is read
+    protected transient volatile LabeledEdges[] outEdges = NO_EDGES;
+    protected transient volatile LabeledEdges[] inEdges = NO_EDGES;
 
     protected TinkerVertex(final String id, final TinkerGraph graph) {
         super(id, graph);
@@ -34,11 +38,11 @@ class TinkerVertex extends TinkerElement implements Vertex, Serializable {
 
     public Iterable<Edge> getEdges(final Direction direction, final String... labels) {
         if (direction.equals(Direction.OUT)) {
-            return this.getOutEdges(labels);
+            return this.getEdges(this.outEdges, labels);
         } else if (direction.equals(Direction.IN))
-            return this.getInEdges(labels);
+            return this.getEdges(this.inEdges, labels);
         else {
-            return new MultiIterable<Edge>(Arrays.asList(this.getInEdges(labels), this.getOutEdges(labels)));
+            return new MultiIterable<Edge>(Arrays.asList(this.getEdges(this.inEdges, labels), this.getEdges(this.outEdges, labels)));
         }
     }
 
@@ -46,15 +50,15 @@ class TinkerVertex extends TinkerElement implements Vertex, Serializable {
         return new VerticesFromEdgesIterable(this, direction, labels);
     }
 
-    private Iterable<Edge> getInEdges(final String... labels) {
+    private Iterable<Edge> getEdges(final LabeledEdges[] adjacency, final String... labels) {
         if (labels.length == 0) {
             final List<Edge> totalEdges = new ArrayList<Edge>();
-            for (final Collection<Edge> edges : this.inEdges.values()) {
-                totalEdges.addAll(edges);
+            for (final LabeledEdges labeledEdges : adjacency) {
+                totalEdges.addAll(labeledEdges.edges);
             }
             return totalEdges;
         } else if (labels.length == 1) {
-            final Set<Edge> edges = this.inEdges.get(labels[0]);
+            final Set<Edge> edges = find(adjacency, this.graph.symbols.lookup(labels[0]));
             if (null == edges) {
                 return Collections.emptyList();
             } else {
@@ -63,33 +67,7 @@ class TinkerVertex extends TinkerElement implements Vertex, Serializable {
         } else {
             final List<Edge> totalEdges = new ArrayList<Edge>();
             for (final String label : labels) {
-                final Set<Edge> edges = this.inEdges.get(label);
-                if (null != edges) {
-                    totalEdges.addAll(edges);
-                }
-            }
-            return totalEdges;
-        }
-    }
-
-    private Iterable<Edge> getOutEdges(final String... labels) {
-        if (labels.length == 0) {
-            final List<Edge> totalEdges = new ArrayList<Edge>();
-            for (final Collection<Edge> edges : this.outEdges.values()) {
-                totalEdges.addAll(edges);
-            }
-            return totalEdges;
-        } else if (labels.length == 1) {
-            final Set<Edge> edges = this.outEdges.get(labels[0]);
-            if (null == edges) {
-                return Collections.emptyList();
-            } else {
-                return new ArrayList<Edge>(edges);
-            }
-        } else {
-            final List<Edge> totalEdges = new ArrayList<Edge>();
-            for (final String label : labels) {
-                final Set<Edge> edges = this.outEdges.get(label);
+                final Set<Edge> edges = find(adjacency, this.graph.symbols.lookup(label));
                 if (null != edges) {
                     totalEdges.addAll(edges);
                 }
@@ -110,21 +88,76 @@ class TinkerVertex extends TinkerElement implements Vertex, Serializable {
         return this.graph.addEdge(null, this, vertex, label);
     }
 
-    protected void addOutEdge(final String label, final Edge edge) {
-        Set<Edge> edges = this.outEdges.get(label);
-        if (null == edges) {
-            edges = new HashSet<Edge>();
-            this.outEdges.put(label, edges);
+    protected void addOutEdge(final int label, final Edge edge) {
+        this.outEdges = this.addEdge(this.outEdges, label, edge);
+    }
+
+    protected void addInEdge(final int label, final Edge edge) {
+        this.inEdges = this.addEdge(this.inEdges, label, edge);
+    }
+
+    protected void removeOutEdge(final int label, final Edge edge) {
+        final Set<Edge> edges = find(this.outEdges, label);
+        if (null != edges)
+            edges.remove(edge);
+    }
+
+    protected void removeInEdge(final int label, final Edge edge) {
+        final Set<Edge> edges = find(this.inEdges, label);
+        if (null != edges)
+            edges.remove(edge);
+    }
+
+    protected Set<Edge> newEdgeSet() {
+        return new HashSet<Edge>();
+    }
+
+    /**
+     * A label that is new to the vertex is appended to a copy of the adjacency, so a reader of the adjacency never
+     * sees it change size.
+     */
+    private LabeledEdges[] addEdge(final LabeledEdges[] adjacency, final int label, final Edge edge) {
+        final Set<Edge> edges = find(adjacency, label);
+        if (null != edges) {
+            edges.add(edge);
+            return adjacency;
+        }
+
+        final LabeledEdges labeledEdges = new LabeledEdges(label, this.newEdgeSet());
+        labeledEdges.edges.add(edge);
+        final LabeledEdges[] copy = Arrays.copyOf(adjacency, adjacency.length + 1);
+        copy[adjacency.length] = labeledEdges;
+        return copy;
+    }
+
+    private static Set<Edge> find(final LabeledEdges[] adjacency, final int label) {
+        if (label == TinkerSymbols.NONE)
+            return null;
+        for (final LabeledEdges labeledEdges : adjacency) {
+            if (labeledEdges.label == label)
+                return labeledEdges.edges;
         }
-        edges.add(edge);
+        return null;
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.outEdges = NO_EDGES;
+        this.inEdges = NO_EDGES;
     }
 
-    protected void addInEdge(final String label, final Edge edge) {
-        Set<Edge> edges = this.inEdges.get(label);
-        if (null == edges) {
-            edges = new HashSet<Edge>();
-            this.inEdges.put(label, edges);
+    /**
+     * The edges of one direction of a vertex that share a label.
+     */
+    protected static final class LabeledEdges implements Serializable {
+        private static final long serialVersionUID = 1l;
+
+        private final int label;
+        private final Set<Edge> edges;
+
+        private LabeledEdges(final int label, final Set<Edge> edges) {
+            this.label = label;
+            this.edges = edges;
         }
-        edges.add(edge);
     }
 }
@@ -0,0 +1,805 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Parameter;
+import com.tinkerpop.blueprints.RangeIndexableGraph;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of the mutations of a persistent TinkerGraph, so that the graph survives a crash without being
+ * saved in full on every write.
+ * <p>
+ * A mutation is recorded once it has been applied to the graph.  Records are collected in memory and group committed:
+ * the batch is written out when it grows large and fsynced every sync interval, or after every record when the sync
+ * interval is zero.  Each record is framed with its length and a CRC32, so a record torn by a crash is detected and
+ * dropped when the log is replayed.
+ * <p>
+ * When the log outgrows the checkpoint size, the graph is compacted into a snapshot with its TinkerStorage and the log
+ * starts over.  The current log is first moved aside, the snapshot is written to a checkpoint directory and marked
+ * complete, and only then are its files moved over the previous snapshot and the old log deleted.  A crash at any
+ * point leaves either the previous snapshot and all the logs, or a complete checkpoint that recovery finishes
+ * installing.  Only the log is moved aside while writers wait: a ConcurrentTinkerGraph, which may be read while it is
+ * written, is snapshot on a background thread.  Any other TinkerGraph is snapshot by the writer that crossed the
+ * checkpoint size, which stalls every writer until the snapshot is saved, so these checkpoints are off unless a
+ * checkpoint size is given.
+ * <p>
+ * Replay tolerates records that are already reflected in the snapshot: adding an element that exists and removing or
+ * updating one that does not are skipped.  This matters for ConcurrentTinkerGraph, whose checkpoints may observe
+ * writes of other threads that are logged after the log was moved aside.
+ */
+class TinkerWriteAheadLog {
+
+    static final String LOG_FILE = "/tinkergraph.wal";
+    static final String ROTATED_LOG_FILE = "/tinkergraph.wal.old";
+    static final String CHECKPOINT_DIRECTORY = "/tinkergraph.checkpoint";
+    private static final String CHECKPOINT_COMPLETE = "/complete";
+
+    public static final long DEFAULT_SYNC_INTERVAL = 100l;
+    public static final long DEFAULT_CHECKPOINT_SIZE = 64l * 1024l * 1024l;
+    private static final int BATCH_SIZE = 64 * 1024;
+
+    private static final byte ADD_VERTEX = 1;
+    private static final byte REMOVE_VERTEX = 2;
+    private static final byte ADD_EDGE = 3;
+    private static final byte REMOVE_EDGE = 4;
+    private static final byte SET_PROPERTY = 5;
+    private static final byte REMOVE_PROPERTY = 6;
+    private static final byte CREATE_KEY_INDEX = 7;
+    private static final byte DROP_KEY_INDEX = 8;
+    private static final byte CREATE_INDEX = 9;
+    private static final byte DROP_INDEX = 10;
+    private static final byte INDEX_PUT = 11;
+    private static final byte INDEX_REMOVE = 12;
+    private static final byte CLEAR = 13;
+
+    private static final byte VERTEX = 1;
+    private static final byte EDGE = 2;
+
+    // value types share their codes with TinkerBinaryWriter
+    private static final byte NULL = 0;
+
+    private final TinkerGraph graph;
+    private final String directory;
+    private final TinkerStorage storage;
+    private final long syncInterval;
+    private final long checkpointSize;
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream(BATCH_SIZE);
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private final DataOutputStream recordOut = new DataOutputStream(this.record);
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService syncer;
+    private final ExecutorService checkpointer;
+    private FileChannel channel;
+    private long size;
+    private boolean checkpointing = false;
+    private Future<?> snapshot;
+
+    /**
+     * Open the log of the directory for appending.  The log must have been replayed.
+     *
+     * @param syncInterval   the number of milliseconds between fsyncs of the log or zero to fsync every record
+     * @param checkpointSize the size in bytes of the log that triggers a checkpoint or zero to checkpoint on close only
+     */
+    public TinkerWriteAheadLog(final TinkerGraph graph, final String directory, final TinkerGraph.FileType fileType,
+                               final long syncInterval, final long checkpointSize) throws IOException {
+        this.graph = graph;
+        this.directory = directory;
+        this.storage = TinkerStorageFactory.getInstance().getTinkerStorage(fileType);
+        this.syncInterval = syncInterval;
+        this.checkpointSize = checkpointSize;
+        this.open();
+
+        if (syncInterval > 0) {
+            this.syncer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "tinkergraph-wal-sync");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.syncer.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    try {
+                        sync();
+                    } catch (RuntimeException e) {
+                        // the next write reports a log that can not be written
+                    }
+                }
+            }, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.syncer = null;
+        }
+
+        if (checkpointSize > 0 && graph instanceof ConcurrentTinkerGraph) {
+            this.checkpointer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "tinkergraph-wal-checkpoint");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        } else {
+            this.checkpointer = null;
+        }
+    }
+
+    /**
+     * @return the checkpoint size of a graph whose size is not configured: checkpoints that stall every writer of a
+     *         graph that can not be snapshot in the background are only taken on close
+     */
+    public static long defaultCheckpointSize(final TinkerGraph graph) {
+        return graph instanceof ConcurrentTinkerGraph ? DEFAULT_CHECKPOINT_SIZE : 0l;
+    }
+
+    public synchronized void addVertex(final String id) {
+        try {
+            this.recordOut.writeByte(ADD_VERTEX);
+            writeString(this.recordOut, id);
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    public synchronized void removeVertex(final String id) {
+        try {
+            this.recordOut.writeByte(REMOVE_VERTEX);
+            writeString(this.recordOut, id);
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    public synchronized void addEdge(final Edge edge) {
+        try {
+            this.recordOut.writeByte(ADD_EDGE);
+            writeString(this.recordOut, edge.getId().toString());
+            writeString(this.recordOut, edge.getVertex(Direction.OUT).getId().toString());
+            writeString(this.recordOut, edge.getVertex(Direction.IN).getId().toString());
+            writeString(this.recordOut, edge.getLabel());
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    public synchronized void removeEdge(final String id) {
+        try {
+            this.recordOut.writeByte(REMOVE_EDGE);
+            writeString(this.recordOut, id);
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    public synchronized void setProperty(final Element element, final String key, final Object value) {
+        try {
+            this.recordOut.writeByte(SET_PROPERTY);
+            this.recordOut.writeByte(element instanceof Vertex ? VERTEX : EDGE);
+            writeString(this.recordOut, element.getId().toString());
+            writeString(this.recordOut, key);
+            writeValue(this.recordOut, value);
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    public synchronized void removeProperty(final Element element, final String key) {
+        try {
+            this.recordOut.writeByte(REMOVE_PROPERTY);
+            this.recordOut.writeByte(element instanceof Vertex ? VERTEX : EDGE);
+            writeString(this.recordOut, element.getId().toString());
+            writeString(this.recordOut, key);
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    public synchronized void createKeyIndex(final String key, final Class<? extends Element> elementClass, final boolean range) {
+        try {
+            this.recordOut.writeByte(CREATE_KEY_INDEX);
+            this.recordOut.writeByte(Vertex.class.isAssignableFrom(elementClass) ? VERTEX : EDGE);
+            writeString(this.recordOut, key);
+            this.recordOut.writeBoolean(range);
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    public synchronized void dropKeyIndex(final String key, final Class<? extends Element> elementClass) {
+        try {
+            this.recordOut.writeByte(DROP_KEY_INDEX);
+            this.recordOut.writeByte(Vertex.class.isAssignableFrom(elementClass) ? VERTEX : EDGE);
+            writeString(this.recordOut, key);
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    public synchronized void createIndex(final String indexName, final Class<? extends Element> indexClass) {
+        try {
+            this.recordOut.writeByte(CREATE_INDEX);
+            this.recordOut.writeByte(Vertex.class.isAssignableFrom(indexClass) ? VERTEX : EDGE);
+            writeString(this.recordOut, indexName);
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    public synchronized void dropIndex(final String indexName) {
+        try {
+            this.recordOut.writeByte(DROP_INDEX);
+            writeString(this.recordOut, indexName);
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    public synchronized void indexPut(final String indexName, final String key, final Object value, final Element element) {
+        this.indexRecord(INDEX_PUT, indexName, key, value, element);
+    }
+
+    public synchronized void indexRemove(final String indexName, final String key, final Object value, final Element element) {
+        this.indexRecord(INDEX_REMOVE, indexName, key, value, element);
+    }
+
+    public synchronized void clear() {
+        try {
+            this.recordOut.writeByte(CLEAR);
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    /**
+     * Write the records collected so far to the log and fsync it.
+     */
+    public synchronized void sync() {
+        try {
+            this.flush();
+            this.channel.force(false);
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+    }
+
+    /**
+     * Compact the graph into a snapshot and start a new log.
+     */
+    public synchronized void checkpoint() {
+        this.awaitSnapshot();
+        try {
+            this.rotate();
+            this.snapshot();
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+    }
+
+    public synchronized void close() {
+        if (null != this.syncer)
+            this.syncer.shutdown();
+        if (null != this.checkpointer) {
+            try {
+                this.awaitSnapshot();
+            } finally {
+                this.checkpointer.shutdown();
+            }
+        }
+        try {
+            this.flush();
+            this.channel.force(false);
+            this.channel.close();
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+    }
+
+    /**
+     * Finish or discard a checkpoint that was interrupted by a crash.  Must be called before the snapshot is loaded.
+     */
+    public static void recover(final String directory) throws IOException {
+        final File checkpoint = new File(directory + CHECKPOINT_DIRECTORY);
+        if (!checkpoint.exists())
+            return;
+
+        if (new File(checkpoint.getPath() + CHECKPOINT_COMPLETE).exists())
+            installCheckpoint(directory);
+        else
+            deleteDirectory(checkpoint);
+    }
+
+    /**
+     * @return whether the directory holds a snapshot as opposed to only logs
+     */
+    public static boolean hasSnapshot(final String directory) {
+        for (final String name : new File(directory).list()) {
+            if (!("/" + name).equals(LOG_FILE) && !("/" + name).equals(ROTATED_LOG_FILE) && !("/" + name).equals(CHECKPOINT_DIRECTORY))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Apply the logs of the directory to the graph, which must not be logging itself.  A torn record at the end of the
+     * log is cut off.
+     */
+    public static void replay(final TinkerGraph graph, final String directory) throws IOException {
+        final File rotated = new File(directory + ROTATED_LOG_FILE);
+        if (rotated.exists())
+            replay(graph, rotated);
+
+        final File log = new File(directory + LOG_FILE);
+        if (log.exists()) {
+            final long valid = replay(graph, log);
+            if (valid < log.length()) {
+                final RandomAccessFile file = new RandomAccessFile(log, "rw");
+                try {
+                    file.getChannel().truncate(valid);
+                    file.getChannel().force(false);
+                } finally {
+                    file.close();
+                }
+            }
+        }
+    }
+
+    private static long replay(final TinkerGraph graph, final File log) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(log)));
+        final CRC32 crc = new CRC32();
+        long valid = 0;
+        try {
+            while (true) {
+                final byte[] bytes;
+                final int checksum;
+                try {
+                    final int length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < 0 || valid + 8 + length > log.length())
+                        break;
+                    bytes = new byte[length];
+                    in.readFully(bytes);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(bytes, 0, bytes.length);
+                if ((int) crc.getValue() != checksum)
+                    break;
+
+                apply(graph, new DataInputStream(new ByteArrayInputStream(bytes)));
+                valid = valid + 8 + bytes.length;
+            }
+        } finally {
+            in.close();
+        }
+        return valid;
+    }
+
+    private static void apply(final TinkerGraph graph, final DataInputStream in) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+            case ADD_VERTEX: {
+                final String id = readString(in);
+                if (null == graph.getVertex(id))
+                    graph.addVertex(id);
+                break;
+            }
+            case REMOVE_VERTEX: {
+                final Vertex vertex = graph.getVertex(readString(in));
+                if (null != vertex)
+                    graph.removeVertex(vertex);
+                break;
+            }
+            case ADD_EDGE: {
+                final String id = readString(in);
+                final Vertex outVertex = graph.getVertex(readString(in));
+                final Vertex inVertex = graph.getVertex(readString(in));
+                final String label = readString(in);
+                if (null == graph.getEdge(id) && null != outVertex && null != inVertex)
+                    graph.addEdge(id, outVertex, inVertex, label);
+                break;
+            }
+            case REMOVE_EDGE: {
+                final Edge edge = graph.getEdge(readString(in));
+                if (null != edge)
+                    graph.removeEdge(edge);
+                break;
+            }
+            case SET_PROPERTY: {
+                final Element element = readElement(graph, in.readByte(), in);
+                final String key = readString(in);
+                final Object value = readValue(in);
+                if (null != element)
+                    element.setProperty(key, value);
+                break;
+            }
+            case REMOVE_PROPERTY: {
+                final Element element = readElement(graph, in.readByte(), in);
+                final String key = readString(in);
+                if (null != element)
+                    element.removeProperty(key);
+                break;
+            }
+            case CREATE_KEY_INDEX: {
+                final Class<? extends Element> elementClass = elementClass(in.readByte());
+                final String key = readString(in);
+                if (in.readBoolean())
+                    graph.createKeyIndex(key, elementClass, new Parameter<String, String>(RangeIndexableGraph.TYPE, RangeIndexableGraph.RANGE));
+                else if (!graph.getIndexedKeys(elementClass).contains(key))
+                    graph.createKeyIndex(key, elementClass);
+                break;
+            }
+            case DROP_KEY_INDEX: {
+                final Class<? extends Element> elementClass = elementClass(in.readByte());
+                graph.dropKeyIndex(readString(in), elementClass);
+                break;
+            }
+            case CREATE_INDEX: {
+                final Class<? extends Element> indexClass = elementClass(in.readByte());
+                final String indexName = readString(in);
+                if (!graph.indices.containsKey(indexName))
+                    graph.createIndex(indexName, indexClass);
+                break;
+            }
+            case DROP_INDEX:
+                graph.dropIndex(readString(in));
+                break;
+            case INDEX_PUT:
+            case INDEX_REMOVE: {
+                final TinkerIndex index = graph.indices.get(readString(in));
+                final String key = readString(in);
+                final Object value = readValue(in);
+                final Element element = readElement(graph, in.readByte(), in);
+                if (null != index && null != element) {
+                    if (type == INDEX_PUT)
+                        index.put(key, value, element);
+                    else
+                        index.remove(key, value, element);
+                }
+                break;
+            }
+            case CLEAR:
+                graph.clear();
+                break;
+            default:
+                throw new IOException("unknown log record: " + type);
+        }
+    }
+
+    private void indexRecord(final byte type, final String indexName, final String key, final Object value, final Element element) {
+        try {
+            this.recordOut.writeByte(type);
+            writeString(this.recordOut, indexName);
+            writeString(this.recordOut, key);
+            writeValue(this.recordOut, value);
+            this.recordOut.writeByte(element instanceof Vertex ? VERTEX : EDGE);
+            writeString(this.recordOut, element.getId().toString());
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    /**
+     * Frame the current record into the batch, then commit the batch and checkpoint the graph as needed.
+     */
+    private void append() {
+        final byte[] bytes = this.record.toByteArray();
+        this.record.reset();
+        this.crc.reset();
+        this.crc.update(bytes, 0, bytes.length);
+        final DataOutputStream out = new DataOutputStream(this.batch);
+        try {
+            out.writeInt(bytes.length);
+            out.writeInt((int) this.crc.getValue());
+            out.write(bytes);
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.size = this.size + 8 + bytes.length;
+
+        if (this.syncInterval <= 0) {
+            this.sync();
+        } else if (this.batch.size() >= BATCH_SIZE) {
+            try {
+                this.flush();
+            } catch (IOException e) {
+                throw this.failed(e);
+            }
+        }
+
+        if (this.checkpointSize <= 0 || this.size < this.checkpointSize || this.checkpointing)
+            return;
+
+        if (null != this.checkpointer) {
+            // a snapshot still being written covers the log moved aside so far, the next one picks up the rest
+            if (null != this.snapshot && !this.snapshot.isDone())
+                return;
+            // a failed snapshot left its log aside, so it is retried rather than reported to this writer
+            this.snapshot = null;
+            try {
+                this.rotate();
+            } catch (IOException e) {
+                throw this.failed(e);
+            }
+            this.snapshot = this.checkpointer.submit(new Runnable() {
+                public void run() {
+                    try {
+                        snapshot();
+                    } catch (IOException e) {
+                        throw new RuntimeException("Could not checkpoint the TinkerGraph log: " + e.getMessage(), e);
+                    }
+                }
+            });
+        } else {
+            this.checkpointing = true;
+            try {
+                this.checkpoint();
+            } finally {
+                this.checkpointing = false;
+            }
+        }
+    }
+
+    /**
+     * Save the graph to the checkpoint directory and install it over the previous snapshot.  Does not touch the
+     * current log, so that it may run without holding the lock of the log.
+     */
+    private void snapshot() throws IOException {
+        final File checkpoint = new File(this.directory + CHECKPOINT_DIRECTORY);
+        deleteDirectory(checkpoint);
+        if (!checkpoint.mkdirs())
+            throw new IOException("Could not create directory " + checkpoint);
+        this.storage.save(this.graph, checkpoint.getPath());
+        for (final File file : checkpoint.listFiles()) {
+            forceFile(file);
+        }
+        if (!new File(checkpoint.getPath() + CHECKPOINT_COMPLETE).createNewFile())
+            throw new IOException("Could not complete checkpoint " + checkpoint);
+
+        installCheckpoint(this.directory);
+    }
+
+    /**
+     * Wait for the background snapshot, if any, and report its failure.  The log it covers was moved aside and is kept
+     * until a later checkpoint succeeds, so nothing is lost when it fails.
+     */
+    private void awaitSnapshot() {
+        if (null == this.snapshot)
+            return;
+        final Future<?> snapshot = this.snapshot;
+        this.snapshot = null;
+        try {
+            snapshot.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void flush() throws IOException {
+        if (this.batch.size() == 0)
+            return;
+
+        final ByteBuffer buffer = ByteBuffer.wrap(this.batch.toByteArray());
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+        this.batch.reset();
+    }
+
+    private void open() throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(this.directory + LOG_FILE, "rw");
+        this.channel = file.getChannel();
+        this.size = this.channel.size();
+        this.channel.position(this.size);
+    }
+
+    /**
+     * Move the current log aside, appending it to a log left by an unfinished checkpoint, and start a new one.
+     */
+    private void rotate() throws IOException {
+        this.flush();
+        this.channel.force(false);
+        this.channel.close();
+
+        final File log = new File(this.directory + LOG_FILE);
+        final File rotated = new File(this.directory + ROTATED_LOG_FILE);
+        if (rotated.exists()) {
+            final FileChannel source = new FileInputStream(log).getChannel();
+            final FileChannel target = new RandomAccessFile(rotated, "rw").getChannel();
+            try {
+                target.position(target.size());
+                long position = 0;
+                while (position < source.size()) {
+                    position = position + source.transferTo(position, source.size() - position, target);
+                }
+                target.force(false);
+            } finally {
+                source.close();
+                target.close();
+            }
+            if (!log.delete())
+                throw new IOException("Could not delete " + log);
+        } else if (!log.renameTo(rotated)) {
+            throw new IOException("Could not rename " + log + " to " + rotated);
+        }
+
+        this.open();
+    }
+
+    private static void installCheckpoint(final String directory) throws IOException {
+        final File checkpoint = new File(directory + CHECKPOINT_DIRECTORY);
+        final File complete = new File(checkpoint.getPath() + CHECKPOINT_COMPLETE);
+        for (final File file : checkpoint.listFiles()) {
+            if (file.equals(complete))
+                continue;
+            final File target = new File(directory, file.getName());
+            if (target.exists() && !target.delete())
+                throw new IOException("Could not delete " + target);
+            if (!file.renameTo(target))
+                throw new IOException("Could not rename " + file + " to " + target);
+        }
+
+        final File rotated = new File(directory + ROTATED_LOG_FILE);
+        if (rotated.exists() && !rotated.delete())
+            throw new IOException("Could not delete " + rotated);
+        deleteDirectory(checkpoint);
+    }
+
+    private static void deleteDirectory(final File directory) {
+        if (directory.exists()) {
+            for (final File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    private static void forceFile(final File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.getFD().sync();
+        } finally {
+            raf.close();
+        }
+    }
+
+    private RuntimeException failed(final IOException e) {
+        this.record.reset();
+        return new RuntimeException("Could not write the TinkerGraph log: " + e.getMessage(), e);
+    }
+
+    private static Class<? extends Element> elementClass(final byte type) {
+        return type == VERTEX ? Vertex.class : Edge.class;
+    }
+
+    private static Element readElement(final TinkerGraph graph, final byte type, final DataInputStream in) throws IOException {
+        final String id = readString(in);
+        return type == VERTEX ? graph.getVertex(id) : graph.getEdge(id);
+    }
+
+    private static void writeString(final DataOutputStream out, final String string) throws IOException {
+        final byte[] bytes = string.getBytes(TinkerBinaryWriter.UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, TinkerBinaryWriter.UTF8);
+    }
+
+    private static void writeValue(final DataOutputStream out, final Object value) throws IOException {
+        if (null == value) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TinkerBinaryWriter.STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TinkerBinaryWriter.INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TinkerBinaryWriter.LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Short) {
+            out.writeByte(TinkerBinaryWriter.SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Float) {
+            out.writeByte(TinkerBinaryWriter.FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TinkerBinaryWriter.DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TinkerBinaryWriter.BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(TinkerBinaryWriter.BYTE);
+            out.writeByte((Byte) value);
+        } else {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final ObjectOutputStream objectOut = new ObjectOutputStream(bytes);
+            objectOut.writeObject(value);
+            objectOut.close();
+            out.writeByte(TinkerBinaryWriter.OBJECT);
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        }
+    }
+
+    private static Object readValue(final DataInputStream in) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case TinkerBinaryWriter.STRING:
+                return readString(in);
+            case TinkerBinaryWriter.INTEGER:
+                return in.readInt();
+            case TinkerBinaryWriter.LONG:
+                return in.readLong();
+            case TinkerBinaryWriter.SHORT:
+                return in.readShort();
+            case TinkerBinaryWriter.FLOAT:
+                return in.readFloat();
+            case TinkerBinaryWriter.DOUBLE:
+                return in.readDouble();
+            case TinkerBinaryWriter.BOOLEAN:
+                return in.readBoolean();
+            case TinkerBinaryWriter.BYTE:
+                return in.readByte();
+            case TinkerBinaryWriter.OBJECT:
+                final byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                final ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes));
+                try {
+                    return objectIn.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e.getMessage());
+                } finally {
+                    objectIn.close();
+                }
+            default:
+                throw new IOException("unknown data type: " + type);
+        }
+    }
+}
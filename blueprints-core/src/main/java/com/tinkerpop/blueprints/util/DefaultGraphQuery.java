@@ -1,14 +1,22 @@
 package com.tinkerpop.blueprints.util;
 
 import com.tinkerpop.blueprints.Predicate;
+import com.tinkerpop.blueprints.Contains;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.KeyIndexStatisticsGraph;
 import com.tinkerpop.blueprints.KeyIndexableGraph;
+import com.tinkerpop.blueprints.RangeIndexableGraph;
 import com.tinkerpop.blueprints.Vertex;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
@@ -20,6 +28,18 @@ import java.util.Set;
  */
 public class DefaultGraphQuery extends DefaultQuery implements GraphQuery {
 
+    /**
+     * An access path is intersected with the driving access path when it is at most this many times larger.
+     */
+    protected static final long INTERSECTION_RATIO = 4;
+
+    /**
+     * Without a histogram, a range with two bounds is estimated to match a tenth of the indexed elements and a range
+     * with one bound a third of them.
+     */
+    private static final long BOUNDED_RANGE_SELECTIVITY = 10;
+    private static final long OPEN_RANGE_SELECTIVITY = 3;
+
     protected final Graph graph;
 
     public DefaultGraphQuery(final Graph graph) {
@@ -74,6 +94,122 @@ public class DefaultGraphQuery extends DefaultQuery implements GraphQuery {
         return new DefaultGraphQueryIterable<Vertex>(true);
     }
 
+    /**
+     * Explain how vertices() retrieves the vertices of this query without executing it.
+     */
+    public QueryPlan explainVertices() {
+        return this.plan(Vertex.class, this.indexedKeys(Vertex.class));
+    }
+
+    /**
+     * Explain how edges() retrieves the edges of this query without executing it.
+     */
+    public QueryPlan explainEdges() {
+        return this.plan(Edge.class, this.indexedKeys(Edge.class));
+    }
+
+    /**
+     * Plan the retrieval of the candidate elements of this query.  Each EQUAL and Contains.IN has container on an
+     * indexed key, and the bounds on a range indexed key, is an access path.  When the graph provides key index
+     * statistics, the access path with the lowest estimated cardinality drives the query and is intersected with
+     * the other EQUAL and IN access paths that are at most INTERSECTION_RATIO times larger.  Otherwise the first
+     * EQUAL access path is used, then the first IN access path and then the range access path.  All the has
+     * containers are evaluated against the candidate elements.
+     *
+     * @param elementClass the class of the elements to retrieve
+     * @param indexedKeys  the key indexed keys of the element class
+     * @return the plan for the query
+     */
+    protected QueryPlan plan(final Class<? extends Element> elementClass, final Set<String> indexedKeys) {
+        final KeyIndexStatisticsGraph statistics = this.graph instanceof KeyIndexStatisticsGraph ? (KeyIndexStatisticsGraph) this.graph : null;
+        final List<QueryPlan.AccessPath> accessPaths = new ArrayList<QueryPlan.AccessPath>();
+        for (final HasContainer hasContainer : this.hasContainers) {
+            if (!indexedKeys.contains(hasContainer.key) || null == hasContainer.value)
+                continue;
+
+            if (hasContainer.predicate.equals(com.tinkerpop.blueprints.Compare.EQUAL)) {
+                final long estimate = null == statistics ? QueryPlan.UNKNOWN : statistics.countKeyIndex(hasContainer.key, hasContainer.value, elementClass);
+                accessPaths.add(new QueryPlan.Lookup(hasContainer.key, hasContainer.value, estimate));
+            } else if (hasContainer.predicate.equals(Contains.IN) && hasContainer.value instanceof Collection) {
+                final Set<Object> values = new LinkedHashSet<Object>((Collection) hasContainer.value);
+                // a null value also matches the elements without the key, which the key index does not hold
+                if (values.contains(null))
+                    continue;
+                long estimate = null == statistics ? QueryPlan.UNKNOWN : 0;
+                if (null != statistics) {
+                    for (final Object value : values) {
+                        estimate = estimate + statistics.countKeyIndex(hasContainer.key, value, elementClass);
+                    }
+                }
+                accessPaths.add(new QueryPlan.Union(hasContainer.key, values, estimate));
+            }
+        }
+
+        if (this.graph instanceof RangeIndexableGraph) {
+            final QueryPlan.AccessPath range = this.planRange((RangeIndexableGraph) this.graph, elementClass, statistics);
+            if (null != range)
+                accessPaths.add(range);
+        }
+
+        final List<QueryPlan.AccessPath> plan = new ArrayList<QueryPlan.AccessPath>();
+        if (!accessPaths.isEmpty()) {
+            Collections.sort(accessPaths, QueryPlan.COST_ORDER);
+            final QueryPlan.AccessPath driver = accessPaths.get(0);
+            plan.add(driver);
+            if (null != statistics && driver.estimate > 0) {
+                for (final QueryPlan.AccessPath accessPath : accessPaths.subList(1, accessPaths.size())) {
+                    if (!(accessPath instanceof QueryPlan.Range) && accessPath.estimate <= driver.estimate * INTERSECTION_RATIO)
+                        plan.add(accessPath);
+                }
+            }
+        }
+        return new QueryPlan(this.graph, elementClass, plan, this.hasContainers.size());
+    }
+
+    /**
+     * Use a range index for the first range indexed key that has a lower or upper bound.  Other bounds on the key
+     * only filter the candidate elements.
+     */
+    private QueryPlan.AccessPath planRange(final RangeIndexableGraph rangeGraph, final Class<? extends Element> elementClass, final KeyIndexStatisticsGraph statistics) {
+        final Set<String> keys = rangeGraph.getRangeIndexedKeys(elementClass);
+        HasContainer start = null;
+        HasContainer end = null;
+        for (final HasContainer hasContainer : this.hasContainers) {
+            if (!keys.contains(hasContainer.key) || !(hasContainer.value instanceof Comparable))
+                continue;
+
+            final HasContainer bound = null == start ? end : start;
+            if (null != bound && (!bound.key.equals(hasContainer.key) || !bound.value.getClass().equals(hasContainer.value.getClass())))
+                continue;
+
+            if (null == start && (hasContainer.predicate.equals(com.tinkerpop.blueprints.Compare.GREATER_THAN) || hasContainer.predicate.equals(com.tinkerpop.blueprints.Compare.GREATER_THAN_EQUAL)))
+                start = hasContainer;
+            else if (null == end && (hasContainer.predicate.equals(com.tinkerpop.blueprints.Compare.LESS_THAN) || hasContainer.predicate.equals(com.tinkerpop.blueprints.Compare.LESS_THAN_EQUAL)))
+                end = hasContainer;
+        }
+
+        if (null == start && null == end)
+            return null;
+
+        final String key = null == start ? end.key : start.key;
+        long estimate = QueryPlan.UNKNOWN;
+        if (null != statistics) {
+            final long count = statistics.countKeyIndex(key, elementClass);
+            estimate = null != start && null != end ? count / BOUNDED_RANGE_SELECTIVITY : count / OPEN_RANGE_SELECTIVITY;
+        }
+        return new QueryPlan.Range(key,
+                null == start ? null : start.value, null != start && start.predicate.equals(com.tinkerpop.blueprints.Compare.GREATER_THAN_EQUAL),
+                null == end ? null : end.value, null != end && end.predicate.equals(com.tinkerpop.blueprints.Compare.LESS_THAN_EQUAL),
+                estimate);
+    }
+
+    private Set<String> indexedKeys(final Class<? extends Element> elementClass) {
+        if (this.graph instanceof KeyIndexableGraph)
+            return ((KeyIndexableGraph) this.graph).getIndexedKeys(elementClass);
+        else
+            return Collections.emptySet();
+    }
+
     protected class DefaultGraphQueryIterable<T extends Element> implements Iterable<T> {
 
         private Iterable<T> iterable = null;
@@ -141,27 +277,10 @@ public class DefaultGraphQuery extends DefaultQuery implements GraphQuery {
         }
 
         private Iterable<?> getElementIterable(final Class<? extends Element> elementClass) {
-            if (graph instanceof KeyIndexableGraph) {
-                final Set<String> keys = getIndexedKeys(elementClass);
-                HasContainer container = null;
-                for (final HasContainer hasContainer : hasContainers) {
-                    if (hasContainer.predicate.equals(com.tinkerpop.blueprints.Compare.EQUAL) && keys.contains(hasContainer.key)) {
-                        container = hasContainer;
-                        break;
-                    }
-                }
-                if (container != null) {
-                    if (Vertex.class.isAssignableFrom(elementClass))
-                        return graph.getVertices(container.key, container.value);
-                    else
-                        return graph.getEdges(container.key, container.value);
-                }
-            }
-
-            if (Vertex.class.isAssignableFrom(elementClass))
-                return graph.getVertices();
+            if (graph instanceof KeyIndexableGraph)
+                return plan(elementClass, getIndexedKeys(elementClass)).execute();
             else
-                return graph.getEdges();
+                return plan(elementClass, Collections.<String>emptySet()).execute();
         }
 
         protected Set<String> getIndexedKeys(final Class<? extends Element> elementClass) {
@@ -0,0 +1,214 @@
+package com.tinkerpop.blueprints.util;
+
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.RangeIndexableGraph;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A QueryPlan describes how DefaultGraphQuery retrieves the candidate elements of a query before the has containers of the query are evaluated against them.
+ * The candidates either come from a scan of all the elements of the graph or from the key index access path with the lowest estimated cardinality.
+ * The elements of that access path may be intersected with those of further access paths of similar cardinality.
+ * The toString() of a plan is its explanation.
+ */
+public class QueryPlan {
+
+    /**
+     * The estimate of an access path when the graph does not provide key index statistics.
+     */
+    public static final long UNKNOWN = -1l;
+
+    static final Comparator<AccessPath> COST_ORDER = new Comparator<AccessPath>() {
+        public int compare(final AccessPath first, final AccessPath second) {
+            return first.cost < second.cost ? -1 : (first.cost == second.cost ? 0 : 1);
+        }
+    };
+
+    private final Graph graph;
+    private final Class<? extends Element> elementClass;
+    private final List<AccessPath> accessPaths;
+    private final int filters;
+
+    QueryPlan(final Graph graph, final Class<? extends Element> elementClass, final List<AccessPath> accessPaths, final int filters) {
+        this.graph = graph;
+        this.elementClass = elementClass;
+        this.accessPaths = accessPaths;
+        this.filters = filters;
+    }
+
+    /**
+     * @return whether the plan iterates over all the elements of the graph
+     */
+    public boolean isScan() {
+        return this.accessPaths.isEmpty();
+    }
+
+    /**
+     * @return the estimated number of candidate elements or UNKNOWN
+     */
+    public long getEstimatedCount() {
+        return this.isScan() ? UNKNOWN : this.accessPaths.get(0).estimate;
+    }
+
+    /**
+     * @return a description of each step of the plan in the order it is executed
+     */
+    public List<String> getSteps() {
+        final List<String> steps = new ArrayList<String>();
+        if (this.isScan()) {
+            steps.add("scan(" + (Vertex.class.isAssignableFrom(this.elementClass) ? "vertices" : "edges") + ")");
+        } else {
+            steps.add(this.accessPaths.get(0).toString());
+            for (final AccessPath accessPath : this.accessPaths.subList(1, this.accessPaths.size())) {
+                steps.add("intersect(" + accessPath + ")");
+            }
+        }
+        if (this.filters > 0)
+            steps.add("filter(" + this.filters + ")");
+        return steps;
+    }
+
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (final String step : this.getSteps()) {
+            if (builder.length() > 0)
+                builder.append(" -> ");
+            builder.append(step);
+        }
+        return builder.toString();
+    }
+
+    Iterable<?> execute() {
+        final boolean forVertex = Vertex.class.isAssignableFrom(this.elementClass);
+        if (this.isScan())
+            return forVertex ? this.graph.getVertices() : this.graph.getEdges();
+
+        final Iterable<? extends Element> driver = this.accessPaths.get(0).execute(this.graph, forVertex);
+        if (this.accessPaths.size() == 1)
+            return driver;
+
+        final List<Set<Element>> intersections = new ArrayList<Set<Element>>();
+        for (final AccessPath accessPath : this.accessPaths.subList(1, this.accessPaths.size())) {
+            final Set<Element> elements = new HashSet<Element>();
+            for (final Element element : accessPath.execute(this.graph, forVertex)) {
+                elements.add(element);
+            }
+            intersections.add(elements);
+        }
+
+        final List<Element> result = new ArrayList<Element>();
+        for (final Element element : driver) {
+            boolean contained = true;
+            for (final Set<Element> elements : intersections) {
+                if (!elements.contains(element)) {
+                    contained = false;
+                    break;
+                }
+            }
+            if (contained)
+                result.add(element);
+        }
+        return result;
+    }
+
+    /**
+     * A way to retrieve candidate elements from a key index.  The cost orders access paths when the estimate is
+     * UNKNOWN.
+     */
+    abstract static class AccessPath {
+        protected final String key;
+        protected final long estimate;
+        protected final long cost;
+
+        AccessPath(final String key, final long estimate, final long rank) {
+            this.key = key;
+            this.estimate = estimate;
+            this.cost = estimate == UNKNOWN ? rank : estimate;
+        }
+
+        abstract Iterable<? extends Element> execute(final Graph graph, final boolean forVertex);
+
+        protected String estimateString() {
+            return this.estimate == UNKNOWN ? "~?" : "~" + this.estimate;
+        }
+    }
+
+    static class Lookup extends AccessPath {
+        private final Object value;
+
+        Lookup(final String key, final Object value, final long estimate) {
+            super(key, estimate, 0);
+            this.value = value;
+        }
+
+        Iterable<? extends Element> execute(final Graph graph, final boolean forVertex) {
+            return forVertex ? graph.getVertices(this.key, this.value) : graph.getEdges(this.key, this.value);
+        }
+
+        public String toString() {
+            return "lookup(" + this.key + " = " + this.value + ") " + this.estimateString();
+        }
+    }
+
+    static class Union extends AccessPath {
+        private final Collection<?> values;
+
+        Union(final String key, final Collection<?> values, final long estimate) {
+            super(key, estimate, 1);
+            this.values = values;
+        }
+
+        Iterable<? extends Element> execute(final Graph graph, final boolean forVertex) {
+            final List<Iterable<Element>> iterables = new ArrayList<Iterable<Element>>();
+            for (final Object value : this.values) {
+                iterables.add((Iterable) (forVertex ? graph.getVertices(this.key, value) : graph.getEdges(this.key, value)));
+            }
+            return new MultiIterable<Element>(iterables);
+        }
+
+        public String toString() {
+            return "union(" + this.key + " in " + this.values + ") " + this.estimateString();
+        }
+    }
+
+    static class Range extends AccessPath {
+        private final Object startValue;
+        private final boolean startInclusive;
+        private final Object endValue;
+        private final boolean endInclusive;
+
+        Range(final String key, final Object startValue, final boolean startInclusive, final Object endValue, final boolean endInclusive, final long estimate) {
+            super(key, estimate, 2);
+            this.startValue = startValue;
+            this.startInclusive = startInclusive;
+            this.endValue = endValue;
+            this.endInclusive = endInclusive;
+        }
+
+        Iterable<? extends Element> execute(final Graph graph, final boolean forVertex) {
+            final RangeIndexableGraph rangeGraph = (RangeIndexableGraph) graph;
+            if (forVertex)
+                return rangeGraph.getVertices(this.key, this.startValue, this.startInclusive, this.endValue, this.endInclusive);
+            else
+                return rangeGraph.getEdges(this.key, this.startValue, this.startInclusive, this.endValue, this.endInclusive);
+        }
+
+        public String toString() {
+            final StringBuilder bounds = new StringBuilder();
+            if (null != this.startValue)
+                bounds.append(this.key).append(this.startInclusive ? " >= " : " > ").append(this.startValue);
+            if (null != this.startValue && null != this.endValue)
+                bounds.append(", ");
+            if (null != this.endValue)
+                bounds.append(this.key).append(this.endInclusive ? " <= " : " < ").append(this.endValue);
+            return "range(" + bounds + ") " + this.estimateString();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.tinkerpop.blueprints.util.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts string records by string keys in bounded memory.  Records are buffered until their size reaches the memory
+ * limit, then sorted and spilled to a temporary run file.  The records are returned by merging the runs, so any number
+ * of records is sorted with memory for a single buffer plus a read buffer per run.
+ * <p>
+ * Keys are compared with String.compareTo() and records with equal keys are returned in the order they were added,
+ * as LexicographicalElementComparator sorts elements by the string of their ids.
+ */
+public class ExternalSort implements Closeable {
+
+    /**
+     * Default number of key and record characters buffered before they are spilled
+     */
+    public static final long DEFAULT_MEMORY_LIMIT = 1l << 24;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+
+    private final long memoryLimit;
+    private final File directory;
+
+    private List<Entry> buffer = new ArrayList<Entry>();
+    private long bufferedChars = 0l;
+    private long sequence = 0l;
+    private final List<File> runs = new ArrayList<File>();
+    private final List<DataInputStream> readers = new ArrayList<DataInputStream>();
+
+    /**
+     * @param memoryLimit the number of key and record characters to buffer before spilling them to disk
+     * @param directory   the directory of the run files
+     */
+    public ExternalSort(final long memoryLimit, final File directory) {
+        if (memoryLimit <= 0) throw new IllegalArgumentException("Memory limit must be positive");
+        if (directory == null) throw new IllegalArgumentException("Directory may not be null");
+        this.memoryLimit = memoryLimit;
+        this.directory = directory;
+    }
+
+    public ExternalSort() {
+        this(DEFAULT_MEMORY_LIMIT, new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    public void add(final String key, final String record) throws IOException {
+        this.buffer.add(new Entry(key, record, this.sequence++));
+        this.bufferedChars += key.length() + record.length();
+        if (this.bufferedChars >= this.memoryLimit)
+            this.spill();
+    }
+
+    /**
+     * @return the number of runs spilled to disk so far
+     */
+    public int getRunCount() {
+        return this.runs.size();
+    }
+
+    /**
+     * Ends adding records and returns all records sorted by their keys.
+     */
+    public Iterator<String> sorted() throws IOException {
+        Collections.sort(this.buffer);
+        if (this.runs.isEmpty()) {
+            final Iterator<Entry> entries = this.buffer.iterator();
+            this.buffer = new ArrayList<Entry>();
+            return new Iterator<String>() {
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                public String next() {
+                    return entries.next().record;
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        this.spill();
+        final PriorityQueue<Run> queue = new PriorityQueue<Run>();
+        for (final File file : this.runs) {
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), IO_BUFFER_SIZE));
+            this.readers.add(in);
+            final Run run = new Run(in);
+            if (run.advance()) queue.add(run);
+        }
+        return new Iterator<String>() {
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            public String next() {
+                final Run run = queue.poll();
+                if (run == null) throw new NoSuchElementException();
+                final String record = run.current.record;
+                try {
+                    if (run.advance()) queue.add(run);
+                } catch (IOException e) {
+                    throw new RuntimeException(e.getMessage(), e);
+                }
+                return record;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Deletes the run files.
+     */
+    public void close() throws IOException {
+        for (final DataInputStream in : this.readers) {
+            in.close();
+        }
+        this.readers.clear();
+        for (final File file : this.runs) {
+            file.delete();
+        }
+        this.runs.clear();
+        this.buffer.clear();
+        this.bufferedChars = 0l;
+    }
+
+    private void spill() throws IOException {
+        if (this.buffer.isEmpty())
+            return;
+
+        Collections.sort(this.buffer);
+        final File file = File.createTempFile("sort", ".run", this.directory);
+        file.deleteOnExit();
+        this.runs.add(file);
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), IO_BUFFER_SIZE));
+        try {
+            for (final Entry entry : this.buffer) {
+                out.writeLong(entry.sequence);
+                writeString(out, entry.key);
+                writeString(out, entry.record);
+            }
+        } finally {
+            out.close();
+        }
+        this.buffer = new ArrayList<Entry>();
+        this.bufferedChars = 0l;
+    }
+
+    private static void writeString(final DataOutputStream out, final String string) throws IOException {
+        final byte[] bytes = string.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final String key;
+        private final String record;
+        private final long sequence;
+
+        private Entry(final String key, final String record, final long sequence) {
+            this.key = key;
+            this.record = record;
+            this.sequence = sequence;
+        }
+
+        public int compareTo(final Entry other) {
+            final int c = this.key.compareTo(other.key);
+            return c != 0 ? c : (this.sequence < other.sequence ? -1 : (this.sequence == other.sequence ? 0 : 1));
+        }
+    }
+
+    private static final class Run implements Comparable<Run> {
+        private final DataInputStream in;
+        private Entry current;
+
+        private Run(final DataInputStream in) {
+            this.in = in;
+        }
+
+        private boolean advance() throws IOException {
+            final long sequence;
+            try {
+                sequence = this.in.readLong();
+            } catch (EOFException e) {
+                this.current = null;
+                return false;
+            }
+            final String key = readString(this.in);
+            this.current = new Entry(key, readString(this.in), sequence);
+            return true;
+        }
+
+        public int compareTo(final Run other) {
+            return this.current.compareTo(other.current);
+        }
+    }
+}
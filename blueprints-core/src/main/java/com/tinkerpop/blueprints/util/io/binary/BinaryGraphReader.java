@@ -0,0 +1,164 @@
+package com.tinkerpop.blueprints.util.io.binary;
+
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BinaryGraphReader reads the binary graph format described by BinaryTokens into a graph.  Files are memory-mapped and
+ * decoded in place, other streams are decoded from a buffer refilled from the stream.
+ */
+public class BinaryGraphReader {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1000;
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+
+    private final Graph graph;
+
+    /**
+     * @param graph the graph to populate with the data
+     */
+    public BinaryGraphReader(final Graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Input the binary stream data into the graph.
+     * In practice, usually the provided graph is empty.
+     *
+     * @param binaryInputStream an InputStream of the binary graph format
+     * @throws IOException thrown when the data is not correctly formatted
+     */
+    public void inputGraph(final InputStream binaryInputStream) throws IOException {
+        BinaryGraphReader.inputGraph(this.graph, binaryInputStream, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Input the binary file data into the graph.
+     * In practice, usually the provided graph is empty.
+     *
+     * @param filename name of a file of the binary graph format
+     * @throws IOException thrown when the data is not correctly formatted
+     */
+    public void inputGraph(final String filename) throws IOException {
+        BinaryGraphReader.inputGraph(this.graph, filename, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Input the binary stream data into the graph.
+     *
+     * @param graph             the graph to populate with the data
+     * @param binaryInputStream an InputStream of the binary graph format
+     * @throws IOException thrown when the data is not correctly formatted
+     */
+    public static void inputGraph(final Graph graph, final InputStream binaryInputStream) throws IOException {
+        inputGraph(graph, binaryInputStream, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Input the binary file data into the graph.
+     *
+     * @param graph    the graph to populate with the data
+     * @param filename name of a file of the binary graph format
+     * @throws IOException thrown when the data is not correctly formatted
+     */
+    public static void inputGraph(final Graph graph, final String filename) throws IOException {
+        inputGraph(graph, filename, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Input the binary stream data into the graph.
+     *
+     * @param graph             the graph to populate with the data
+     * @param binaryInputStream an InputStream of the binary graph format
+     * @param bufferSize        the amount of elements to hold in memory before committing a transactions (only valid for TransactionalGraphs)
+     * @throws IOException thrown when the data is not correctly formatted
+     */
+    public static void inputGraph(final Graph graph, final InputStream binaryInputStream, final int bufferSize) throws IOException {
+        if (binaryInputStream == null) {
+            throw new IllegalArgumentException("InputStream must not be null");
+        }
+        inputGraph(graph, new BinaryInput(Channels.newChannel(binaryInputStream), IO_BUFFER_SIZE), bufferSize);
+    }
+
+    /**
+     * Input the binary file data into the graph.  Files of up to 2GB are memory-mapped.
+     *
+     * @param graph      the graph to populate with the data
+     * @param filename   name of a file of the binary graph format
+     * @param bufferSize the amount of elements to hold in memory before committing a transactions (only valid for TransactionalGraphs)
+     * @throws IOException thrown when the data is not correctly formatted
+     */
+    public static void inputGraph(final Graph graph, final String filename, final int bufferSize) throws IOException {
+        final FileInputStream fis = new FileInputStream(filename);
+        try {
+            final FileChannel channel = fis.getChannel();
+            final BinaryInput in = channel.size() <= Integer.MAX_VALUE
+                    ? new BinaryInput(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()))
+                    : new BinaryInput(channel, IO_BUFFER_SIZE);
+            inputGraph(graph, in, bufferSize);
+        } finally {
+            fis.close();
+        }
+    }
+
+    private static void inputGraph(final Graph inputGraph, final BinaryInput in, final int bufferSize) throws IOException {
+        for (final byte b : BinaryTokens.MAGIC) {
+            if (in.readByte() != b)
+                throw new StreamCorruptedException("Not a binary graph");
+        }
+        final byte version = in.readByte();
+        if (version != BinaryTokens.VERSION)
+            throw new StreamCorruptedException("Unsupported binary graph version: " + version);
+
+        // if this is a transactional graph then we're buffering
+        final BatchGraph graph = BatchGraph.wrap(inputGraph, bufferSize);
+        final List<String> dictionary = new ArrayList<String>();
+
+        byte record;
+        while ((record = in.readByte()) != BinaryTokens.END) {
+            switch (record) {
+                case BinaryTokens.KEY:
+                    dictionary.add(in.readString());
+                    break;
+                case BinaryTokens.VERTEX: {
+                    final Object id = in.readValue();
+                    graph.addVertex(id, readProperties(in, dictionary));
+                    break;
+                }
+                case BinaryTokens.EDGE: {
+                    final Object id = in.readValue();
+                    final Object outId = in.readValue();
+                    final Object inId = in.readValue();
+                    final String label = dictionary.get(in.readVarInt());
+                    graph.addEdge(id, graph.getVertex(outId), graph.getVertex(inId), label, readProperties(in, dictionary));
+                    break;
+                }
+                default:
+                    throw new StreamCorruptedException("Unknown record: " + record);
+            }
+        }
+
+        graph.commit();
+    }
+
+    /**
+     * Reads properties as alternating keys and values.
+     */
+    private static Object[] readProperties(final BinaryInput in, final List<String> dictionary) throws IOException {
+        final Object[] properties = new Object[in.readVarInt() << 1];
+        for (int i = 0; i < properties.length; i += 2) {
+            properties[i] = dictionary.get(in.readVarInt());
+            properties[i + 1] = in.readValue();
+        }
+        return properties;
+    }
+}
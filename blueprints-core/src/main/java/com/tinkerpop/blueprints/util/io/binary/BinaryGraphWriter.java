@@ -0,0 +1,133 @@
+package com.tinkerpop.blueprints.util.io.binary;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * BinaryGraphWriter writes a Graph to an OutputStream in the binary graph format described by BinaryTokens.  Each
+ * property key and edge label is written once to a dictionary and referred to by its position thereafter, ids and
+ * integral values are written as varints and property values keep their types, including primitive arrays, lists and
+ * maps.
+ */
+public class BinaryGraphWriter {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final Graph graph;
+    private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+
+    /**
+     * @param graph the Graph to pull the data from
+     */
+    public BinaryGraphWriter(final Graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Write the data in a Graph to a binary file.
+     *
+     * @param filename the binary file to write the Graph data to
+     * @throws IOException thrown if there is an error writing the data
+     */
+    public void outputGraph(final String filename) throws IOException {
+        final FileOutputStream fos = new FileOutputStream(filename);
+        try {
+            outputGraph(fos);
+        } finally {
+            fos.close();
+        }
+    }
+
+    /**
+     * Write the data in a Graph to a binary OutputStream.
+     *
+     * @param binaryOutputStream the OutputStream to write the Graph data to
+     * @throws IOException thrown if there is an error writing the data
+     */
+    public void outputGraph(final OutputStream binaryOutputStream) throws IOException {
+        this.dictionary.clear();
+        final BinaryOutput out = new BinaryOutput(binaryOutputStream, DEFAULT_BUFFER_SIZE);
+        out.writeBytes(BinaryTokens.MAGIC);
+        out.writeByte(BinaryTokens.VERSION);
+
+        for (final Vertex vertex : this.graph.getVertices()) {
+            final Set<String> keys = vertex.getPropertyKeys();
+            this.defineKeys(out, keys);
+            out.writeByte(BinaryTokens.VERTEX);
+            out.writeValue(vertex.getId());
+            this.writeProperties(out, vertex, keys);
+        }
+
+        for (final Edge edge : this.graph.getEdges()) {
+            final Set<String> keys = edge.getPropertyKeys();
+            this.defineKeys(out, keys);
+            this.defineKey(out, edge.getLabel());
+            out.writeByte(BinaryTokens.EDGE);
+            out.writeValue(edge.getId());
+            out.writeValue(edge.getVertex(Direction.OUT).getId());
+            out.writeValue(edge.getVertex(Direction.IN).getId());
+            out.writeVarInt(this.dictionary.get(edge.getLabel()));
+            this.writeProperties(out, edge, keys);
+        }
+
+        out.writeByte(BinaryTokens.END);
+        out.flush();
+    }
+
+    /**
+     * Writes KEY records for the strings not yet in the dictionary, which must precede the record using them.
+     */
+    private void defineKeys(final BinaryOutput out, final Set<String> keys) throws IOException {
+        for (final String key : keys) {
+            this.defineKey(out, key);
+        }
+    }
+
+    private void defineKey(final BinaryOutput out, final String key) throws IOException {
+        if (this.dictionary.containsKey(key))
+            return;
+        this.dictionary.put(key, this.dictionary.size());
+        out.writeByte(BinaryTokens.KEY);
+        out.writeString(key);
+    }
+
+    private void writeProperties(final BinaryOutput out, final Element element, final Set<String> keys) throws IOException {
+        out.writeVarInt(keys.size());
+        for (final String key : keys) {
+            out.writeVarInt(this.dictionary.get(key));
+            out.writeValue(element.getProperty(key));
+        }
+    }
+
+    /**
+     * Write the data in a Graph to a binary OutputStream.
+     *
+     * @param graph              the Graph to pull the data from
+     * @param binaryOutputStream the OutputStream to write the Graph data to
+     * @throws IOException thrown if there is an error writing the data
+     */
+    public static void outputGraph(final Graph graph, final OutputStream binaryOutputStream) throws IOException {
+        new BinaryGraphWriter(graph).outputGraph(binaryOutputStream);
+    }
+
+    /**
+     * Write the data in a Graph to a binary file.
+     *
+     * @param graph    the Graph to pull the data from
+     * @param filename the binary file to write the Graph data to
+     * @throws IOException thrown if there is an error writing the data
+     */
+    public static void outputGraph(final Graph graph, final String filename) throws IOException {
+        new BinaryGraphWriter(graph).outputGraph(filename);
+    }
+}
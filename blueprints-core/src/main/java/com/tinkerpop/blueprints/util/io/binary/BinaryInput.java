@@ -0,0 +1,285 @@
+package com.tinkerpop.blueprints.util.io.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes the records and values of the binary graph format from a ByteBuffer.  A buffer holding all of the input,
+ * e.g. a memory-mapped file, is decoded in place.  Otherwise the buffer is refilled from a channel as it is consumed.
+ * The values of the records of a ChangeLogWriter are decoded the same way.
+ */
+public class BinaryInput {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private byte[] scratch = new byte[256];
+
+    /**
+     * @param buffer the complete input
+     */
+    public BinaryInput(final ByteBuffer buffer) {
+        this.channel = null;
+        this.buffer = buffer;
+    }
+
+    /**
+     * @param channel    the input
+     * @param bufferSize the size of the buffer refilled from the channel
+     */
+    public BinaryInput(final ReadableByteChannel channel, final int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.buffer.flip();
+    }
+
+    /**
+     * Makes at least the given number of bytes available in the buffer.
+     */
+    private void require(final int bytes) throws IOException {
+        if (this.buffer.remaining() >= bytes)
+            return;
+        if (this.channel == null)
+            throw new EOFException();
+
+        if (bytes > this.buffer.capacity()) {
+            final ByteBuffer larger = ByteBuffer.allocate(Math.max(bytes, this.buffer.capacity() << 1));
+            larger.put(this.buffer);
+            this.buffer = larger;
+        } else {
+            this.buffer.compact();
+        }
+        while (this.buffer.position() < bytes) {
+            if (this.channel.read(this.buffer) == -1) {
+                this.buffer.flip();
+                throw new EOFException();
+            }
+        }
+        this.buffer.flip();
+    }
+
+    public byte readByte() throws IOException {
+        this.require(1);
+        return this.buffer.get();
+    }
+
+    public void readBytes(final byte[] bytes, final int length) throws IOException {
+        if (this.channel == null || length <= this.buffer.capacity()) {
+            this.require(length);
+            this.buffer.get(bytes, 0, length);
+            return;
+        }
+
+        // larger than the buffer, so read what is buffered and the rest straight from the channel
+        final int buffered = this.buffer.remaining();
+        this.buffer.get(bytes, 0, buffered);
+        final ByteBuffer rest = ByteBuffer.wrap(bytes, buffered, length - buffered);
+        while (rest.hasRemaining()) {
+            if (this.channel.read(rest) == -1)
+                throw new EOFException();
+        }
+    }
+
+    public int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final byte b = this.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    public long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            final byte b = this.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    public int readZigZagInt() throws IOException {
+        final int value = this.readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readZigZagLong() throws IOException {
+        final long value = this.readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public int readInt() throws IOException {
+        this.require(4);
+        return this.buffer.getInt();
+    }
+
+    public long readLong() throws IOException {
+        this.require(8);
+        return this.buffer.getLong();
+    }
+
+    public String readString() throws IOException {
+        final int length = this.readVarInt();
+        if (this.buffer.hasArray() && length <= this.buffer.capacity()) {
+            // decoded straight from the buffer
+            this.require(length);
+            final String value = new String(this.buffer.array(), this.buffer.arrayOffset() + this.buffer.position(), length, UTF8);
+            this.buffer.position(this.buffer.position() + length);
+            return value;
+        }
+        if (length > this.scratch.length)
+            this.scratch = new byte[Math.max(length, this.scratch.length << 1)];
+        this.readBytes(this.scratch, length);
+        return new String(this.scratch, 0, length, UTF8);
+    }
+
+    public Object readValue() throws IOException {
+        final byte type = this.readByte();
+        switch (type) {
+            case BinaryTokens.TYPE_NULL:
+                return null;
+            case BinaryTokens.TYPE_TRUE:
+                return Boolean.TRUE;
+            case BinaryTokens.TYPE_FALSE:
+                return Boolean.FALSE;
+            case BinaryTokens.TYPE_BYTE:
+                return this.readByte();
+            case BinaryTokens.TYPE_SHORT:
+                return (short) this.readZigZagInt();
+            case BinaryTokens.TYPE_INTEGER:
+                return this.readZigZagInt();
+            case BinaryTokens.TYPE_LONG:
+                return this.readZigZagLong();
+            case BinaryTokens.TYPE_FLOAT:
+                return Float.intBitsToFloat(this.readInt());
+            case BinaryTokens.TYPE_DOUBLE:
+                return Double.longBitsToDouble(this.readLong());
+            case BinaryTokens.TYPE_CHARACTER:
+                return (char) this.readVarInt();
+            case BinaryTokens.TYPE_STRING:
+                return this.readString();
+            case BinaryTokens.TYPE_LIST: {
+                final int size = this.readVarInt();
+                final List<Object> list = new ArrayList<Object>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(this.readValue());
+                }
+                return list;
+            }
+            case BinaryTokens.TYPE_MAP: {
+                final int size = this.readVarInt();
+                final Map<Object, Object> map = new HashMap<Object, Object>();
+                for (int i = 0; i < size; i++) {
+                    final Object key = this.readValue();
+                    map.put(key, this.readValue());
+                }
+                return map;
+            }
+            case BinaryTokens.TYPE_SERIALIZABLE: {
+                final byte[] bytes = new byte[this.readVarInt()];
+                this.readBytes(bytes, bytes.length);
+                final ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes));
+                try {
+                    return objects.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e.getMessage(), e);
+                } finally {
+                    objects.close();
+                }
+            }
+            default:
+                return this.readArray(type);
+        }
+    }
+
+    private Object readArray(final byte type) throws IOException {
+        final int length = this.readVarInt();
+        switch (type) {
+            case BinaryTokens.TYPE_BOOLEAN_ARRAY: {
+                final boolean[] array = new boolean[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = this.readByte() != 0;
+                }
+                return array;
+            }
+            case BinaryTokens.TYPE_BYTE_ARRAY: {
+                final byte[] array = new byte[length];
+                this.readBytes(array, length);
+                return array;
+            }
+            case BinaryTokens.TYPE_SHORT_ARRAY: {
+                final short[] array = new short[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = (short) this.readZigZagInt();
+                }
+                return array;
+            }
+            case BinaryTokens.TYPE_INTEGER_ARRAY: {
+                final int[] array = new int[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = this.readZigZagInt();
+                }
+                return array;
+            }
+            case BinaryTokens.TYPE_LONG_ARRAY: {
+                final long[] array = new long[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = this.readZigZagLong();
+                }
+                return array;
+            }
+            case BinaryTokens.TYPE_FLOAT_ARRAY: {
+                final float[] array = new float[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = Float.intBitsToFloat(this.readInt());
+                }
+                return array;
+            }
+            case BinaryTokens.TYPE_DOUBLE_ARRAY: {
+                final double[] array = new double[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = Double.longBitsToDouble(this.readLong());
+                }
+                return array;
+            }
+            case BinaryTokens.TYPE_CHARACTER_ARRAY: {
+                final char[] array = new char[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = (char) this.readVarInt();
+                }
+                return array;
+            }
+            case BinaryTokens.TYPE_STRING_ARRAY: {
+                final String[] array = new String[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = this.readByte() == 0 ? null : this.readString();
+                }
+                return array;
+            }
+            case BinaryTokens.TYPE_OBJECT_ARRAY: {
+                final Object[] array = new Object[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = this.readValue();
+                }
+                return array;
+            }
+            default:
+                throw new StreamCorruptedException("Unknown value type: " + type);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.tinkerpop.blueprints.util.io.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the records and values of the binary graph format into a buffer which is written to an OutputStream when
+ * full.  The values of the records of a ChangeLogWriter are encoded the same way.
+ */
+public class BinaryOutput {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position = 0;
+
+    public BinaryOutput(final OutputStream out, final int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    public void writeByte(final int b) throws IOException {
+        if (this.position == this.buffer.length)
+            this.flushBuffer();
+        this.buffer[this.position++] = (byte) b;
+    }
+
+    public void writeBytes(final byte[] bytes) throws IOException {
+        if (bytes.length > this.buffer.length - this.position) {
+            this.flushBuffer();
+            if (bytes.length > this.buffer.length) {
+                this.out.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+        this.position += bytes.length;
+    }
+
+    /**
+     * Writes a non-negative int in 7 bit groups, least significant first.
+     */
+    public void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            this.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.writeByte(value);
+    }
+
+    public void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            this.writeByte(((int) value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.writeByte((int) value);
+    }
+
+    public void writeZigZagInt(final int value) throws IOException {
+        this.writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public void writeZigZagLong(final long value) throws IOException {
+        this.writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeInt(final int value) throws IOException {
+        this.writeByte(value >>> 24);
+        this.writeByte(value >>> 16);
+        this.writeByte(value >>> 8);
+        this.writeByte(value);
+    }
+
+    public void writeLong(final long value) throws IOException {
+        this.writeInt((int) (value >>> 32));
+        this.writeInt((int) value);
+    }
+
+    public void writeString(final String value) throws IOException {
+        final byte[] bytes = value.getBytes(UTF8);
+        this.writeVarInt(bytes.length);
+        this.writeBytes(bytes);
+    }
+
+    /**
+     * Writes a value preceded by its type.  Values of no other type are written as serialized objects if they are
+     * Serializable and as their string otherwise.
+     */
+    public void writeValue(final Object value) throws IOException {
+        if (value == null) {
+            this.writeByte(BinaryTokens.TYPE_NULL);
+        } else if (value instanceof String) {
+            this.writeByte(BinaryTokens.TYPE_STRING);
+            this.writeString((String) value);
+        } else if (value instanceof Integer) {
+            this.writeByte(BinaryTokens.TYPE_INTEGER);
+            this.writeZigZagInt((Integer) value);
+        } else if (value instanceof Long) {
+            this.writeByte(BinaryTokens.TYPE_LONG);
+            this.writeZigZagLong((Long) value);
+        } else if (value instanceof Double) {
+            this.writeByte(BinaryTokens.TYPE_DOUBLE);
+            this.writeLong(Double.doubleToLongBits((Double) value));
+        } else if (value instanceof Float) {
+            this.writeByte(BinaryTokens.TYPE_FLOAT);
+            this.writeInt(Float.floatToIntBits((Float) value));
+        } else if (value instanceof Boolean) {
+            this.writeByte((Boolean) value ? BinaryTokens.TYPE_TRUE : BinaryTokens.TYPE_FALSE);
+        } else if (value instanceof Short) {
+            this.writeByte(BinaryTokens.TYPE_SHORT);
+            this.writeZigZagInt((Short) value);
+        } else if (value instanceof Byte) {
+            this.writeByte(BinaryTokens.TYPE_BYTE);
+            this.writeByte((Byte) value);
+        } else if (value instanceof Character) {
+            this.writeByte(BinaryTokens.TYPE_CHARACTER);
+            this.writeVarInt((Character) value);
+        } else if (value instanceof List) {
+            final List list = (List) value;
+            this.writeByte(BinaryTokens.TYPE_LIST);
+            this.writeVarInt(list.size());
+            for (final Object item : list) {
+                this.writeValue(item);
+            }
+        } else if (value instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) value;
+            this.writeByte(BinaryTokens.TYPE_MAP);
+            this.writeVarInt(map.size());
+            for (final Map.Entry<?, ?> entry : map.entrySet()) {
+                this.writeValue(entry.getKey());
+                this.writeValue(entry.getValue());
+            }
+        } else if (value.getClass().isArray()) {
+            this.writeArray(value);
+        } else if (value instanceof Serializable) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final ObjectOutputStream objects = new ObjectOutputStream(bytes);
+            objects.writeObject(value);
+            objects.close();
+            this.writeByte(BinaryTokens.TYPE_SERIALIZABLE);
+            this.writeVarInt(bytes.size());
+            this.writeBytes(bytes.toByteArray());
+        } else {
+            this.writeByte(BinaryTokens.TYPE_STRING);
+            this.writeString(value.toString());
+        }
+    }
+
+    private void writeArray(final Object value) throws IOException {
+        if (value instanceof boolean[]) {
+            final boolean[] array = (boolean[]) value;
+            this.writeByte(BinaryTokens.TYPE_BOOLEAN_ARRAY);
+            this.writeVarInt(array.length);
+            for (final boolean b : array) {
+                this.writeByte(b ? 1 : 0);
+            }
+        } else if (value instanceof byte[]) {
+            final byte[] array = (byte[]) value;
+            this.writeByte(BinaryTokens.TYPE_BYTE_ARRAY);
+            this.writeVarInt(array.length);
+            this.writeBytes(array);
+        } else if (value instanceof short[]) {
+            final short[] array = (short[]) value;
+            this.writeByte(BinaryTokens.TYPE_SHORT_ARRAY);
+            this.writeVarInt(array.length);
+            for (final short s : array) {
+                this.writeZigZagInt(s);
+            }
+        } else if (value instanceof int[]) {
+            final int[] array = (int[]) value;
+            this.writeByte(BinaryTokens.TYPE_INTEGER_ARRAY);
+            this.writeVarInt(array.length);
+            for (final int i : array) {
+                this.writeZigZagInt(i);
+            }
+        } else if (value instanceof long[]) {
+            final long[] array = (long[]) value;
+            this.writeByte(BinaryTokens.TYPE_LONG_ARRAY);
+            this.writeVarInt(array.length);
+            for (final long l : array) {
+                this.writeZigZagLong(l);
+            }
+        } else if (value instanceof float[]) {
+            final float[] array = (float[]) value;
+            this.writeByte(BinaryTokens.TYPE_FLOAT_ARRAY);
+            this.writeVarInt(array.length);
+            for (final float f : array) {
+                this.writeInt(Float.floatToIntBits(f));
+            }
+        } else if (value instanceof double[]) {
+            final double[] array = (double[]) value;
+            this.writeByte(BinaryTokens.TYPE_DOUBLE_ARRAY);
+            this.writeVarInt(array.length);
+            for (final double d : array) {
+                this.writeLong(Double.doubleToLongBits(d));
+            }
+        } else if (value instanceof char[]) {
+            final char[] array = (char[]) value;
+            this.writeByte(BinaryTokens.TYPE_CHARACTER_ARRAY);
+            this.writeVarInt(array.length);
+            for (final char c : array) {
+                this.writeVarInt(c);
+            }
+        } else if (value instanceof String[]) {
+            final String[] array = (String[]) value;
+            this.writeByte(BinaryTokens.TYPE_STRING_ARRAY);
+            this.writeVarInt(array.length);
+            for (final String s : array) {
+                if (s == null) {
+                    this.writeByte(0);
+                } else {
+                    this.writeByte(1);
+                    this.writeString(s);
+                }
+            }
+        } else {
+            final Object[] array = (Object[]) value;
+            this.writeByte(BinaryTokens.TYPE_OBJECT_ARRAY);
+            this.writeVarInt(array.length);
+            for (final Object item : array) {
+                this.writeValue(item);
+            }
+        }
+    }
+
+    public void flush() throws IOException {
+        this.flushBuffer();
+        this.out.flush();
+    }
+
+    private void flushBuffer() throws IOException {
+        this.out.write(this.buffer, 0, this.position);
+        this.position = 0;
+    }
+}
@@ -0,0 +1,52 @@
+package com.tinkerpop.blueprints.util.io.binary;
+
+/**
+ * A collection of tokens used for the binary graph format.
+ * <p>
+ * A stream starts with MAGIC and VERSION and is followed by records, each starting with its tag byte and ending with
+ * END.  A KEY record appends a string to the dictionary of property keys and edge labels, which later records refer to
+ * by its position.  A VERTEX record holds an id value and the properties, an EDGE record holds its id, out vertex id
+ * and in vertex id values, its label and the properties.  Properties are a varint count followed by pairs of a varint
+ * key and a value.  All vertices precede the edges.
+ * <p>
+ * A value is a type byte followed by its data.  Integral numbers are zigzag varints, floating point numbers are big
+ * endian IEEE 754, strings and arrays are preceded by their varint length and strings are UTF-8.
+ */
+public class BinaryTokens {
+    public static final byte[] MAGIC = {'B', 'P', 'G', 'B'};
+    public static final byte VERSION = 1;
+
+    public static final byte END = 0;
+    public static final byte KEY = 1;
+    public static final byte VERTEX = 2;
+    public static final byte EDGE = 3;
+
+    public static final byte TYPE_NULL = 0;
+    public static final byte TYPE_TRUE = 1;
+    public static final byte TYPE_FALSE = 2;
+    public static final byte TYPE_BYTE = 3;
+    public static final byte TYPE_SHORT = 4;
+    public static final byte TYPE_INTEGER = 5;
+    public static final byte TYPE_LONG = 6;
+    public static final byte TYPE_FLOAT = 7;
+    public static final byte TYPE_DOUBLE = 8;
+    public static final byte TYPE_CHARACTER = 9;
+    public static final byte TYPE_STRING = 10;
+    public static final byte TYPE_LIST = 11;
+    public static final byte TYPE_MAP = 12;
+    public static final byte TYPE_BOOLEAN_ARRAY = 13;
+    public static final byte TYPE_BYTE_ARRAY = 14;
+    public static final byte TYPE_SHORT_ARRAY = 15;
+    public static final byte TYPE_INTEGER_ARRAY = 16;
+    public static final byte TYPE_LONG_ARRAY = 17;
+    public static final byte TYPE_FLOAT_ARRAY = 18;
+    public static final byte TYPE_DOUBLE_ARRAY = 19;
+    public static final byte TYPE_CHARACTER_ARRAY = 20;
+    public static final byte TYPE_STRING_ARRAY = 21;
+    public static final byte TYPE_OBJECT_ARRAY = 22;
+
+    /**
+     * Any other Serializable value, as written by an ObjectOutputStream
+     */
+    public static final byte TYPE_SERIALIZABLE = 23;
+}
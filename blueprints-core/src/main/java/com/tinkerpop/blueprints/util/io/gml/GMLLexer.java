@@ -0,0 +1,298 @@
+package com.tinkerpop.blueprints.util.io.gml;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Splits GML into tokens.  The input is ISO 8859-1, so every byte is a char and is decoded from a ByteBuffer without a
+ * CharsetDecoder.  A buffer holding all of the input, e.g. a memory-mapped file, is read in place.  Otherwise the buffer
+ * is refilled from a channel as it is consumed.
+ * <p>
+ * Tokens are split as java.io.StreamTokenizer split them for GMLReader, except that integers are not parsed as doubles
+ * and reals may have an exponent.  Words, which are keys, are interned in a small table so that the keys repeated by
+ * every node and edge are not allocated again.
+ */
+class GMLLexer {
+
+    static final int EOF = -1;
+    static final int WORD = -2;
+    static final int INTEGER = -3;
+    static final int REAL = -4;
+    static final int STRING = -5;
+
+    private static final int SYMBOLS = 1 << 10;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    private char[] text = new char[64];
+    private int length = 0;
+    private final String[] symbols = new String[SYMBOLS];
+
+    private int lineNumber = 1;
+    private int type = EOF;
+    private String stringValue = null;
+    private long longValue = 0l;
+    private boolean longOverflow = false;
+
+    /**
+     * @param buffer the complete input
+     */
+    GMLLexer(final ByteBuffer buffer) {
+        this.channel = null;
+        this.buffer = buffer;
+    }
+
+    /**
+     * @param channel    the input
+     * @param bufferSize the size of the buffer refilled from the channel
+     */
+    GMLLexer(final ReadableByteChannel channel, final int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.buffer.flip();
+    }
+
+    /**
+     * @return the type of the token read: EOF, WORD, INTEGER, REAL, STRING or the char '[' or ']'
+     */
+    int nextToken() throws IOException {
+        int c = this.skipWhitespaceAndComments();
+        if (c < 0)
+            return this.type = EOF;
+
+        if (c == '[' || c == ']')
+            return this.type = c;
+
+        if (c == '"')
+            return this.type = this.readString();
+
+        if (isDigit(c) || ((c == '-' || c == '.') && this.startsNumber(c)))
+            return this.type = this.readNumber(c);
+
+        this.length = 0;
+        do {
+            this.append((char) c);
+            c = this.peek();
+            if (!isWordChar(c))
+                break;
+            this.read();
+        } while (true);
+        this.stringValue = this.symbol();
+        return this.type = WORD;
+    }
+
+    int getType() {
+        return this.type;
+    }
+
+    /**
+     * @return the text of a WORD or STRING token
+     */
+    String getStringValue() {
+        return this.stringValue;
+    }
+
+    /**
+     * @return the value of an INTEGER token as an Integer or, if it is out of range, a Long or a Double
+     */
+    Number getIntegerValue() throws IOException {
+        if (this.longOverflow)
+            return this.getDoubleValue();
+        if (this.longValue >= Integer.MIN_VALUE && this.longValue <= Integer.MAX_VALUE)
+            return (int) this.longValue;
+        return this.longValue;
+    }
+
+    /**
+     * @return the value of an INTEGER or REAL token
+     */
+    double getDoubleValue() throws IOException {
+        if (this.type == INTEGER && !this.longOverflow)
+            return this.longValue;
+        try {
+            return Double.parseDouble(new String(this.text, 0, this.length));
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed number " + new String(this.text, 0, this.length));
+        }
+    }
+
+    int getLineNumber() {
+        return this.lineNumber;
+    }
+
+    private int skipWhitespaceAndComments() throws IOException {
+        while (true) {
+            final int c = this.read();
+            if (c < 0) {
+                return c;
+            } else if (c == GMLTokens.COMMENT_CHAR) {
+                int d;
+                do {
+                    d = this.peek();
+                    if (d == '\n' || d == '\r' || d < 0)
+                        break;
+                    this.read();
+                } while (true);
+            } else if (c == '\n') {
+                this.lineNumber++;
+            } else if (c == '\r') {
+                if (this.peek() == '\n')
+                    this.read();
+                this.lineNumber++;
+            } else if (c > ' ') {
+                return c;
+            }
+        }
+    }
+
+    private boolean startsNumber(final int c) throws IOException {
+        final int d = this.peek();
+        return isDigit(d) || (c == '-' && d == '.');
+    }
+
+    private int readNumber(int c) throws IOException {
+        this.length = 0;
+        this.longValue = 0l;
+        this.longOverflow = false;
+        final boolean negative = c == '-';
+        boolean real = false;
+        boolean exponent = false;
+
+        while (true) {
+            this.append((char) c);
+            if (isDigit(c)) {
+                if (!real) {
+                    // accumulate negatively so that Long.MIN_VALUE is in range
+                    final int digit = c - '0';
+                    if (this.longValue < (Long.MIN_VALUE + digit) / 10)
+                        this.longOverflow = true;
+                    else
+                        this.longValue = this.longValue * 10 - digit;
+                }
+            } else if (c == '.') {
+                real = true;
+            } else if (c == 'e' || c == 'E') {
+                real = exponent = true;
+                final int sign = this.peek();
+                if (sign == '+' || sign == '-')
+                    this.append((char) this.read());
+            }
+
+            c = this.peek();
+            if (isDigit(c) || (c == '.' && !real) || ((c == 'e' || c == 'E') && !exponent))
+                this.read();
+            else
+                break;
+        }
+
+        if (!negative) {
+            if (this.longValue == Long.MIN_VALUE)
+                this.longOverflow = true;
+            else
+                this.longValue = -this.longValue;
+        }
+        return real ? REAL : INTEGER;
+    }
+
+    private int readString() throws IOException {
+        this.length = 0;
+        while (true) {
+            int c = this.read();
+            if (c < 0 || c == '"') {
+                break;
+            } else if (c == '\n') {
+                this.lineNumber++;
+            } else if (c == '\\') {
+                c = this.read();
+                if (c < 0)
+                    break;
+                switch (c) {
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 't':
+                        c = '\t';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                    case 'b':
+                        c = '\b';
+                        break;
+                    case 'f':
+                        c = '\f';
+                        break;
+                    default:
+                        break;
+                }
+            }
+            this.append((char) c);
+        }
+        this.stringValue = new String(this.text, 0, this.length);
+        return STRING;
+    }
+
+    /**
+     * @return the word in the text buffer, from the symbol table if it was read before
+     */
+    private String symbol() {
+        int hash = 0;
+        for (int i = 0; i < this.length; i++) {
+            hash = 31 * hash + this.text[i];
+        }
+        final int slot = (hash ^ (hash >>> 16)) & (SYMBOLS - 1);
+        final String symbol = this.symbols[slot];
+        if (symbol != null && symbol.length() == this.length) {
+            boolean equal = true;
+            for (int i = 0; i < this.length && equal; i++) {
+                equal = symbol.charAt(i) == this.text[i];
+            }
+            if (equal)
+                return symbol;
+        }
+        return this.symbols[slot] = new String(this.text, 0, this.length);
+    }
+
+    private void append(final char c) {
+        if (this.length == this.text.length) {
+            final char[] larger = new char[this.length << 1];
+            System.arraycopy(this.text, 0, larger, 0, this.length);
+            this.text = larger;
+        }
+        this.text[this.length++] = c;
+    }
+
+    private int read() throws IOException {
+        if (!this.buffer.hasRemaining() && !this.fill())
+            return -1;
+        return this.buffer.get() & 0xFF;
+    }
+
+    private int peek() throws IOException {
+        if (!this.buffer.hasRemaining() && !this.fill())
+            return -1;
+        return this.buffer.get(this.buffer.position()) & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        if (this.channel == null)
+            return false;
+        this.buffer.clear();
+        int read;
+        do {
+            read = this.channel.read(this.buffer);
+        } while (read == 0);
+        this.buffer.flip();
+        return read > 0;
+    }
+
+    private static boolean isDigit(final int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordChar(final int c) {
+        return c > ' ' && c != '[' && c != ']' && c != '"' && c != GMLTokens.COMMENT_CHAR;
+    }
+}
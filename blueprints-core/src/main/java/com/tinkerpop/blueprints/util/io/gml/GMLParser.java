@@ -2,12 +2,13 @@ package com.tinkerpop.blueprints.util.io.gml;
 
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
-import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
 
 import java.io.IOException;
-import java.io.StreamTokenizer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -24,7 +25,7 @@ class GMLParser {
 
     private final String defaultEdgeLabel;
 
-    private final Graph graph;
+    private final BatchGraph graph;
 
     private final String vertexIdKey;
 
@@ -36,7 +37,12 @@ class GMLParser {
 
     private int edgeCount = 0;
 
-    public GMLParser(final Graph graph, final String defaultEdgeLabel, final String vertexIdKey, final String edgeIdKey,
+    /**
+     * The properties of the element being read as alternating keys and values
+     */
+    private final List<Object> properties = new ArrayList<Object>();
+
+    public GMLParser(final BatchGraph graph, final String defaultEdgeLabel, final String vertexIdKey, final String edgeIdKey,
                      final String edgeLabelKey) {
         this.graph = graph;
         this.vertexIdKey = vertexIdKey;
@@ -45,74 +51,113 @@ class GMLParser {
         this.defaultEdgeLabel = defaultEdgeLabel;
     }
 
-    public void parse(final StreamTokenizer st) throws IOException {
-        while (hasNext(st)) {
-            int type = st.ttype;
-            if (notLineBreak(type)) {
-                final String value = st.sval;
-                if (GMLTokens.GRAPH.equals(value)) {
-                    parseGraph(st);
-                    if (!hasNext(st)) {
-                        return;
-                    }
+    public void parse(final GMLLexer lexer) throws IOException {
+        while (lexer.nextToken() != GMLLexer.EOF) {
+            if (lexer.getType() == GMLLexer.WORD && GMLTokens.GRAPH.equals(lexer.getStringValue())) {
+                parseGraph(lexer);
+                if (lexer.nextToken() == GMLLexer.EOF) {
+                    return;
                 }
             }
         }
         throw new IOException("Graph not complete");
     }
 
-    private void parseGraph(final StreamTokenizer st) throws IOException {
-        checkValid(st, GMLTokens.GRAPH);
-        while (hasNext(st)) {
-            // st.nextToken();
-            final int type = st.ttype;
-            if (notLineBreak(type)) {
-                if (type == ']') {
-                    return;
+    private void parseGraph(final GMLLexer lexer) throws IOException {
+        checkValid(lexer, GMLTokens.GRAPH);
+        while (lexer.nextToken() != GMLLexer.EOF) {
+            final int type = lexer.getType();
+            if (type == ']') {
+                return;
+            } else {
+                final String key = lexer.getStringValue();
+                if (GMLTokens.NODE.equals(key)) {
+                    parseNode(lexer);
+                } else if (GMLTokens.EDGE.equals(key)) {
+                    parseEdge(lexer);
+                } else if (GMLTokens.DIRECTED.equals(key)) {
+                    directed = parseBoolean(lexer);
                 } else {
-                    final String key = st.sval;
-                    if (GMLTokens.NODE.equals(key)) {
-                        addNode(parseNode(st));
-                    } else if (GMLTokens.EDGE.equals(key)) {
-                        addEdge(parseEdge(st));
-                    } else if (GMLTokens.DIRECTED.equals(key)) {
-                        directed = parseBoolean(st);
-                    } else {
-                        // IGNORE
-                        parseValue("ignore", st);
-                    }
+                    // IGNORE
+                    parseValue("ignore", lexer);
                 }
             }
         }
         throw new IOException("Graph not complete");
     }
 
-    private void addNode(final Map<String, Object> map) throws IOException {
-        final Object id = map.remove(GMLTokens.ID);
-        if (id != null) {
-            final Vertex vertex = createVertex(map, id);
-            addProperties(vertex, map);
-        } else {
-            throw new IOException("No id found for node");
+    /**
+     * Reads the attributes of a node and adds its vertex.  The id attributes are taken out as they are read and the
+     * others are kept as alternating keys and values, later ones overriding earlier ones with the same key.
+     */
+    private void parseNode(final GMLLexer lexer) throws IOException {
+        checkValid(lexer, GMLTokens.NODE);
+        Object id = null;
+        Object mappedId = null;
+        this.properties.clear();
+        while (true) {
+            if (lexer.nextToken() == GMLLexer.EOF)
+                throw new IOException(GMLTokens.NODE + " incomplete");
+            if (lexer.getType() == ']')
+                break;
+
+            final String key = lexer.getStringValue();
+            final Object value = parseValue(key, lexer);
+            if (GMLTokens.ID.equals(key)) {
+                id = value;
+            } else if (vertexIdKey != null && vertexIdKey.equals(key)) {
+                mappedId = value;
+            } else {
+                this.properties.add(key);
+                this.properties.add(value);
+            }
         }
-    }
 
-    private Vertex createVertex(final Map<String, Object> map, final Object id) {
-        //final Object vertexId = vertexIdKey == null ? (graph.getFeatures().ignoresSuppliedIds ? null : id) : map.remove(vertexIdKey);
+        if (id == null) {
+            throw new IOException("No id found for node");
+        }
         Object vertexId = id;
         if (vertexIdKey != null) {
-            vertexId = map.remove(vertexIdKey);
-            if (vertexId == null) vertexId = id;
+            if (mappedId != null) vertexId = mappedId;
             vertexMappedIdMap.put(id, vertexId);
         }
-        final Vertex createdVertex = graph.addVertex(vertexId);
-
-        return createdVertex;
+        final Vertex vertex = graph.addVertex(vertexId);
+        addProperties(vertex);
     }
 
-    private void addEdge(final Map<String, Object> map) throws IOException {
-        Object source = map.remove(GMLTokens.SOURCE);
-        Object target = map.remove(GMLTokens.TARGET);
+    private void parseEdge(final GMLLexer lexer) throws IOException {
+        checkValid(lexer, GMLTokens.EDGE);
+        Object source = null;
+        Object target = null;
+        Object mappedLabel = null;
+        Object label = null;
+        Object mappedId = null;
+        this.properties.clear();
+        while (true) {
+            if (lexer.nextToken() == GMLLexer.EOF)
+                throw new IOException(GMLTokens.EDGE + " incomplete");
+            if (lexer.getType() == ']')
+                break;
+
+            final String key = lexer.getStringValue();
+            final Object value = parseValue(key, lexer);
+            if (GMLTokens.SOURCE.equals(key)) {
+                source = value;
+            } else if (GMLTokens.TARGET.equals(key)) {
+                target = value;
+            } else if (edgeLabelKey != null && edgeLabelKey.equals(key)) {
+                mappedLabel = value;
+            } else if (GMLTokens.LABEL.equals(key)) {
+                // label is reserved and cannot be added as a property
+                label = value;
+            } else if (edgeIdKey != null && edgeIdKey.equals(key)) {
+                mappedId = value;
+            } else if (!GMLTokens.ID.equals(key)) {
+                // id is reserved unless it is the edgeIdKey, so it is dropped
+                this.properties.add(key);
+                this.properties.add(value);
+            }
+        }
 
         if (source == null) {
             throw new IOException("Edge has no source");
@@ -126,8 +171,8 @@ class GMLParser {
             target = vertexMappedIdMap.get(target);
         }
 
-        final Vertex outVertex = graph.getVertex(source);
-        final Vertex inVertex = graph.getVertex(target);
+        final Vertex outVertex = source == null ? null : graph.getVertex(source);
+        final Vertex inVertex = target == null ? null : graph.getVertex(target);
         if (outVertex == null) {
             throw new IOException("Edge source " + source + " not found");
         }
@@ -136,125 +181,86 @@ class GMLParser {
 
         }
 
-        Object label = map.remove(edgeLabelKey);
-        if (label == null) {
-            // try standard label key
-            label = map.remove(GMLTokens.LABEL);
-        } else {
-            // remove label in case edge label key is not label
-            // label is reserved and cannot be added as a property
-            // if so this data will be lost
-            map.remove(GMLTokens.LABEL);
+        if (mappedLabel != null) {
+            label = mappedLabel;
         }
-
         if (label == null) {
             label = defaultEdgeLabel;
         }
 
         Object edgeId = edgeCount++;
-        if (edgeIdKey != null) {
-            Object mappedKey = map.remove(edgeIdKey);
-            if (mappedKey != null) {
-                edgeId = mappedKey;
-            }
-            // else use edgecount - could fail if mapped ids overlap with edge count
+        if (mappedId != null) {
+            edgeId = mappedId;
         }
-
-        // remove id as reserved property - can be left is edgeIdKey in not id
-        // This data will be lost
-        map.remove(GMLTokens.ID);
+        // else use edgecount - could fail if mapped ids overlap with edge count
 
         Edge edge = graph.addEdge(edgeId, outVertex, inVertex, label.toString());
         if (directed) {
             edge.setProperty(GMLTokens.DIRECTED, directed);
         }
 
-        addProperties(edge, map);
-
+        addProperties(edge);
     }
 
-    private void addProperties(final Element element, final Map<String, Object> map) {
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            element.setProperty(entry.getKey(), entry.getValue());
+    private void addProperties(final Element element) {
+        for (int i = 0; i < this.properties.size(); i += 2) {
+            element.setProperty((String) this.properties.get(i), this.properties.get(i + 1));
         }
     }
 
-    private Object parseValue(final String key, final StreamTokenizer st) throws IOException {
-        while (hasNext(st)) {
-            final int type = st.ttype;
-            if (notLineBreak(type)) {
-                if (type == StreamTokenizer.TT_NUMBER) {
-                    final Double doubleValue = Double.valueOf(st.nval);
-                    if (doubleValue.equals(Double.valueOf(doubleValue.intValue()))) {
-                        return doubleValue.intValue();
-                    } else {
-                        return doubleValue.floatValue();
-                    }
+    /**
+     * Integers keep their precision as an Integer or Long.  Reals are returned as before, as an Integer if integral
+     * and as a Float otherwise.
+     */
+    private Object parseValue(final String key, final GMLLexer lexer) throws IOException {
+        while (lexer.nextToken() != GMLLexer.EOF) {
+            final int type = lexer.getType();
+            if (type == GMLLexer.INTEGER) {
+                return lexer.getIntegerValue();
+            } else if (type == GMLLexer.REAL) {
+                final Double doubleValue = lexer.getDoubleValue();
+                if (doubleValue.equals(Double.valueOf(doubleValue.intValue()))) {
+                    return doubleValue.intValue();
                 } else {
-                    if (type == '[') {
-                        return parseMap(key, st);
-                    } else if (type == '"') {
-                        return st.sval;
-                    }
+                    return doubleValue.floatValue();
                 }
+            } else if (type == '[') {
+                return parseMap(key, lexer);
+            } else if (type == GMLLexer.STRING) {
+                return lexer.getStringValue();
             }
         }
         throw new IOException("value not found");
     }
 
-    private boolean parseBoolean(final StreamTokenizer st) throws IOException {
-        while (hasNext(st)) {
-            final int type = st.ttype;
-            if (notLineBreak(type)) {
-                if (type == StreamTokenizer.TT_NUMBER) {
-                    return st.nval == 1.0;
-                }
+    private boolean parseBoolean(final GMLLexer lexer) throws IOException {
+        while (lexer.nextToken() != GMLLexer.EOF) {
+            final int type = lexer.getType();
+            if (type == GMLLexer.INTEGER || type == GMLLexer.REAL) {
+                return lexer.getDoubleValue() == 1.0;
             }
         }
         throw new IOException("boolean not found");
     }
 
-    private Map<String, Object> parseNode(final StreamTokenizer st) throws IOException {
-        return parseElement(st, GMLTokens.NODE);
-    }
-
-    private Map<String, Object> parseEdge(final StreamTokenizer st) throws IOException {
-        return parseElement(st, GMLTokens.EDGE);
-    }
-
-    private Map<String, Object> parseElement(final StreamTokenizer st, final String node) throws IOException {
-        checkValid(st, node);
-        return parseMap(node, st);
-    }
-
-    private Map<String, Object> parseMap(final String node, final StreamTokenizer st) throws IOException {
+    private Map<String, Object> parseMap(final String node, final GMLLexer lexer) throws IOException {
         final Map<String, Object> map = new HashMap<String, Object>();
-        while (hasNext(st)) {
-            final int type = st.ttype;
-            if (notLineBreak(type)) {
-                if (type == ']') {
-                    return map;
-                } else {
-                    final String key = st.sval;
-                    final Object value = parseValue(key, st);
-                    map.put(key, value);
-                }
+        while (lexer.nextToken() != GMLLexer.EOF) {
+            final int type = lexer.getType();
+            if (type == ']') {
+                return map;
+            } else {
+                final String key = lexer.getStringValue();
+                final Object value = parseValue(key, lexer);
+                map.put(key, value);
             }
         }
         throw new IOException(node + " incomplete");
     }
 
-    private void checkValid(final StreamTokenizer st, final String token) throws IOException {
-        if (st.nextToken() != '[') {
+    private void checkValid(final GMLLexer lexer, final String token) throws IOException {
+        if (lexer.nextToken() != '[') {
             throw new IOException(token + " not followed by [");
         }
     }
-
-    private boolean hasNext(final StreamTokenizer st) throws IOException {
-        return st.nextToken() != StreamTokenizer.TT_EOF;
-    }
-
-    private boolean notLineBreak(final int type) {
-        return type != StreamTokenizer.TT_EOL;
-    }
 }
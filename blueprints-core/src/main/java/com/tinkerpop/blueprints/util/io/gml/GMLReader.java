@@ -3,14 +3,12 @@ package com.tinkerpop.blueprints.util.io.gml;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
 
-import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.io.StreamTokenizer;
-import java.nio.charset.Charset;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 
 /**
  * A reader for the Graph Modelling Language (GML).
@@ -21,6 +19,9 @@ import java.nio.charset.Charset;
  * It's not clear that all node have to have id's or that they have to be integers - we assume that this is the case. We
  * also assume that only one graph can be defined in a file.
  *
+ * Integer values keep their precision as an Integer or, if out of its range, a Long.  Real values are read as a Float,
+ * or an Integer if they are integral.
+ *
  * @author Stuart Hendren (http://stuarthendren.net)
  * @author Stephen Mallette
  */
@@ -30,6 +31,8 @@ public class GMLReader {
 
     private static final int DEFAULT_BUFFER_SIZE = 1000;
 
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+
     private Graph graph;
 
     private final String defaultEdgeLabel;
@@ -160,7 +163,7 @@ public class GMLReader {
     }
 
     /**
-     * Load the GML file into the Graph.
+     * Load the GML file into the Graph.  Files of up to 2GB are memory-mapped.
      *
      * @param inputGraph       to receive the data
      * @param filename         GML file
@@ -173,10 +176,16 @@ public class GMLReader {
     public static void inputGraph(final Graph inputGraph, final String filename, final int bufferSize,
                                   final String defaultEdgeLabel, final String vertexIdKey, final String edgeIdKey,
                                   final String edgeLabelKey) throws IOException {
-        FileInputStream fis = new FileInputStream(filename);
-        GMLReader.inputGraph(inputGraph, fis, bufferSize, defaultEdgeLabel,
-                vertexIdKey, edgeIdKey, edgeLabelKey);
-        fis.close();
+        final FileInputStream fis = new FileInputStream(filename);
+        try {
+            final FileChannel channel = fis.getChannel();
+            final GMLLexer lexer = channel.size() <= Integer.MAX_VALUE
+                    ? new GMLLexer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()))
+                    : new GMLLexer(channel, IO_BUFFER_SIZE);
+            GMLReader.inputGraph(inputGraph, lexer, bufferSize, defaultEdgeLabel, vertexIdKey, edgeIdKey, edgeLabelKey);
+        } finally {
+            fis.close();
+        }
     }
 
     /**
@@ -193,29 +202,27 @@ public class GMLReader {
     public static void inputGraph(final Graph inputGraph, final InputStream inputStream, final int bufferSize,
                                   final String defaultEdgeLabel, final String vertexIdKey, final String edgeIdKey,
                                   final String edgeLabelKey) throws IOException {
-        final BatchGraph graph = BatchGraph.wrap(inputGraph, bufferSize);
-
-        final Reader r = new BufferedReader(new InputStreamReader(inputStream, Charset.forName("ISO-8859-1")));
-        final StreamTokenizer st = new StreamTokenizer(r);
-
+        final ReadableByteChannel channel = Channels.newChannel(inputStream);
         try {
-            st.commentChar(GMLTokens.COMMENT_CHAR);
-            st.ordinaryChar('[');
-            st.ordinaryChar(']');
+            GMLReader.inputGraph(inputGraph, new GMLLexer(channel, IO_BUFFER_SIZE), bufferSize, defaultEdgeLabel,
+                    vertexIdKey, edgeIdKey, edgeLabelKey);
+        } finally {
+            channel.close();
+        }
+    }
 
-            final String stringCharacters = "/\\(){}<>!£$%^&*-+=,.?:;@_`|~";
-            for (int i = 0; i < stringCharacters.length(); i++) {
-                st.wordChars(stringCharacters.charAt(i), stringCharacters.charAt(i));
-            }
+    private static void inputGraph(final Graph inputGraph, final GMLLexer lexer, final int bufferSize,
+                                   final String defaultEdgeLabel, final String vertexIdKey, final String edgeIdKey,
+                                   final String edgeLabelKey) throws IOException {
+        final BatchGraph graph = BatchGraph.wrap(inputGraph, bufferSize);
 
-            new GMLParser(graph, defaultEdgeLabel, vertexIdKey, edgeIdKey, edgeLabelKey).parse(st);
+        try {
+            new GMLParser(graph, defaultEdgeLabel, vertexIdKey, edgeIdKey, edgeLabelKey).parse(lexer);
 
             graph.commit();
 
         } catch (IOException e) {
-            throw new IOException("GML malformed line number " + st.lineno() + ": ", e);
-        } finally {
-            r.close();
+            throw new IOException("GML malformed line number " + lexer.getLineNumber() + ": ", e);
         }
     }
 }
@@ -4,20 +4,31 @@ import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
+import com.tinkerpop.blueprints.util.wrappers.batch.VertexIDType;
+import com.tinkerpop.blueprints.util.wrappers.batch.cache.VertexCache;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.XMLEvent;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
 /**
- * GraphMLReader writes the data from a GraphML stream to a graph.
+ * GraphMLReader writes the data from a GraphML stream to a graph.  The vertices are looked up by the ids of their nodes
+ * in the vertex cache of a BatchGraph, whose VertexIDType also holds the ids of nodes mapped to a vertex id key.
  *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  * @author Alex Averbuch (alex.averbuch@gmail.com)
@@ -30,6 +41,10 @@ public class GraphMLReader {
     private String edgeIdKey = null;
     private String edgeLabelKey = null;
 
+    private VertexIDType vertexIDType = VertexIDType.OBJECT;
+    private boolean verticesFirst = false;
+    private File spoolDirectory = new File(System.getProperty("java.io.tmpdir"));
+
     /**
      * @param graph the graph to populate with the GraphML data
      */
@@ -58,6 +73,31 @@ public class GraphMLReader {
         this.edgeLabelKey = edgeLabelKey;
     }
 
+    /**
+     * @param vertexIDType the type of the caches mapping the node ids to the vertices, which must hold string ids.
+     *                     VertexIDType.OFF_HEAP_STRING keeps the ids out of the Java heap.
+     */
+    public void setVertexIDType(final VertexIDType vertexIDType) {
+        if (vertexIDType == null) throw new IllegalArgumentException("Type may not be null");
+        this.vertexIDType = vertexIDType;
+    }
+
+    /**
+     * @param verticesFirst whether to add all vertices before any edge.  The edges are spooled to a temporary file
+     *                      until the end of the GraphML, so vertices referenced by edges before their nodes are read
+     *                      are not added without their properties first.
+     */
+    public void setVerticesFirst(final boolean verticesFirst) {
+        this.verticesFirst = verticesFirst;
+    }
+
+    /**
+     * @param spoolDirectory the directory of the temporary file of a vertices first load
+     */
+    public void setSpoolDirectory(final File spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+    }
+
     /**
      * Input the GraphML stream data into the graph.
      * In practice, usually the provided graph is empty.
@@ -66,7 +106,7 @@ public class GraphMLReader {
      * @throws IOException thrown when the GraphML data is not correctly formatted
      */
     public void inputGraph(final InputStream graphMLInputStream) throws IOException {
-        GraphMLReader.inputGraph(this.graph, graphMLInputStream, 1000, this.vertexIdKey, this.edgeIdKey, this.edgeLabelKey);
+        inputGraph(graphMLInputStream, 1000);
     }
 
     /**
@@ -77,7 +117,7 @@ public class GraphMLReader {
      * @throws IOException thrown when the GraphML data is not correctly formatted
      */
     public void inputGraph(final String filename) throws IOException {
-        GraphMLReader.inputGraph(this.graph, filename, 1000, this.vertexIdKey, this.edgeIdKey, this.edgeLabelKey);
+        inputGraph(filename, 1000);
     }
 
     /**
@@ -89,7 +129,8 @@ public class GraphMLReader {
      * @throws IOException thrown when the GraphML data is not correctly formatted
      */
     public void inputGraph(final InputStream graphMLInputStream, int bufferSize) throws IOException {
-        GraphMLReader.inputGraph(this.graph, graphMLInputStream, bufferSize, this.vertexIdKey, this.edgeIdKey, this.edgeLabelKey);
+        GraphMLReader.inputGraph(this.graph, graphMLInputStream, bufferSize, this.vertexIdKey, this.edgeIdKey, this.edgeLabelKey,
+                this.vertexIDType, this.verticesFirst ? this.spoolDirectory : null);
     }
 
     /**
@@ -101,7 +142,12 @@ public class GraphMLReader {
      * @throws IOException thrown when the GraphML data is not correctly formatted
      */
     public void inputGraph(final String filename, int bufferSize) throws IOException {
-        GraphMLReader.inputGraph(this.graph, filename, bufferSize, this.vertexIdKey, this.edgeIdKey, this.edgeLabelKey);
+        FileInputStream fis = new FileInputStream(filename);
+        try {
+            inputGraph(fis, bufferSize);
+        } finally {
+            fis.close();
+        }
     }
 
     /**
@@ -159,20 +205,30 @@ public class GraphMLReader {
      * @throws IOException thrown when the GraphML data is not correctly formatted
      */
     public static void inputGraph(final Graph inputGraph, final InputStream graphMLInputStream, int bufferSize, String vertexIdKey, String edgeIdKey, String edgeLabelKey) throws IOException {
+        GraphMLReader.inputGraph(inputGraph, graphMLInputStream, bufferSize, vertexIdKey, edgeIdKey, edgeLabelKey, VertexIDType.OBJECT, null);
+    }
+
+    private static void inputGraph(final Graph inputGraph, final InputStream graphMLInputStream, int bufferSize, String vertexIdKey, String edgeIdKey, String edgeLabelKey,
+                                   final VertexIDType vertexIDType, final File spoolDirectory) throws IOException {
 
         XMLInputFactory inputFactory = XMLInputFactory.newInstance();
 
+        final VertexCache vertexCache = vertexIDType.getVertexCache();
+        // <Default ID String, Mapped ID String>
+        final VertexCache vertexMappedIds = vertexIDType.getVertexCache();
+        EdgeSpool edgeSpool = null;
+
         try {
             XMLStreamReader reader = inputFactory.createXMLStreamReader(graphMLInputStream);
 
-            final BatchGraph graph = BatchGraph.wrap(inputGraph, bufferSize);
+            final BatchGraph graph = BatchGraph.wrap(inputGraph, vertexCache, bufferSize);
+
+            // edges are spooled until all vertices have been added when loading vertices first
+            if (null != spoolDirectory)
+                edgeSpool = new EdgeSpool(spoolDirectory);
 
             Map<String, String> keyIdMap = new HashMap<String, String>();
             Map<String, String> keyTypesMaps = new HashMap<String, String>();
-            // <Mapped ID String, ID Object>
-
-            // <Default ID String, Mapped ID String>
-            Map<String, String> vertexMappedIdMap = new HashMap<String, String>();
 
             // Buffered Vertex Data
             String vertexId = null;
@@ -182,7 +238,8 @@ public class GraphMLReader {
             // Buffered Edge Data
             String edgeId = null;
             String edgeLabel = null;
-            Vertex[] edgeEndVertices = null; //[0] = outVertex , [1] = inVertex
+            String[] edgeVertexIds = null; //[0] = outVertex , [1] = inVertex
+            Vertex[] edgeEndVertices = null;
             Map<String, Object> edgeProps = null;
             boolean inEdge = false;
 
@@ -202,7 +259,7 @@ public class GraphMLReader {
                     } else if (elementName.equals(GraphMLTokens.NODE)) {
                         vertexId = reader.getAttributeValue(null, GraphMLTokens.ID);
                         if (vertexIdKey != null)
-                            vertexMappedIdMap.put(vertexId, vertexId);
+                            mapId(vertexMappedIds, vertexId, vertexId);
                         inVertex = true;
                         vertexProps = new HashMap<String, Object>();
 
@@ -211,26 +268,11 @@ public class GraphMLReader {
                         edgeLabel = reader.getAttributeValue(null, GraphMLTokens.LABEL);
                         edgeLabel = edgeLabel == null ? GraphMLTokens._DEFAULT : edgeLabel;
 
-                        String[] vertexIds = new String[2];
-                        vertexIds[0] = reader.getAttributeValue(null, GraphMLTokens.SOURCE);
-                        vertexIds[1] = reader.getAttributeValue(null, GraphMLTokens.TARGET);
-                        edgeEndVertices = new Vertex[2];
-
-                        for (int i = 0; i < 2; i++) { //i=0 => outVertex, i=1 => inVertex
-                            if (vertexIdKey == null) {
-                                edgeEndVertices[i] = graph.getVertex(vertexIds[i]);
-                            } else {
-                                edgeEndVertices[i] = graph.getVertex(vertexMappedIdMap.get(vertexIds[i]));
-                            }
-
-                            if (null == edgeEndVertices[i]) {
-                                edgeEndVertices[i] = graph.addVertex(vertexIds[i]);
-                                if (vertexIdKey != null)
-                                    // Default to standard ID system (in case no mapped
-                                    // ID is found later)
-                                    vertexMappedIdMap.put(vertexIds[i], vertexIds[i]);
-                            }
-                        }
+                        edgeVertexIds = new String[2];
+                        edgeVertexIds[0] = reader.getAttributeValue(null, GraphMLTokens.SOURCE);
+                        edgeVertexIds[1] = reader.getAttributeValue(null, GraphMLTokens.TARGET);
+                        if (null == edgeSpool)
+                            edgeEndVertices = endVertices(graph, edgeVertexIds, vertexIdKey, vertexMappedIds);
 
                         inEdge = true;
                         edgeProps = new HashMap<String, Object>();
@@ -246,7 +288,7 @@ public class GraphMLReader {
                                 if ((vertexIdKey != null) && (key.equals(vertexIdKey))) {
                                     // Should occur at most once per Vertex
                                     // Assumes single ID prop per Vertex
-                                    vertexMappedIdMap.put(vertexId, value);
+                                    mapId(vertexMappedIds, vertexId, value);
                                     vertexId = value;
                                 } else
                                     vertexProps.put(attributeName, typeCastValue(key, value, keyTypesMaps));
@@ -278,14 +320,15 @@ public class GraphMLReader {
                         vertexProps = null;
                         inVertex = false;
                     } else if (elementName.equals(GraphMLTokens.EDGE)) {
-                        Edge currentEdge = graph.addEdge(edgeId, edgeEndVertices[0], edgeEndVertices[1], edgeLabel);
-
-                        for (Entry<String, Object> prop : edgeProps.entrySet()) {
-                            currentEdge.setProperty(prop.getKey(), prop.getValue());
+                        if (null == edgeSpool) {
+                            addEdge(graph, edgeId, edgeEndVertices, edgeLabel, edgeProps);
+                        } else {
+                            edgeSpool.write(edgeId, edgeVertexIds, edgeLabel, edgeProps);
                         }
 
                         edgeId = null;
                         edgeLabel = null;
+                        edgeVertexIds = null;
                         edgeEndVertices = null;
                         edgeProps = null;
                         inEdge = false;
@@ -296,11 +339,59 @@ public class GraphMLReader {
 
             reader.close();
 
+            if (null != edgeSpool)
+                edgeSpool.replay(graph, vertexIdKey, vertexMappedIds);
+
             graph.commit();
-            ;
         } catch (XMLStreamException xse) {
             throw new IOException(xse);
+        } finally {
+            if (null != edgeSpool)
+                edgeSpool.close();
+            if (vertexMappedIds instanceof Closeable)
+                ((Closeable) vertexMappedIds).close();
+            if (vertexCache instanceof Closeable)
+                ((Closeable) vertexCache).close();
+        }
+    }
+
+    /**
+     * Looks up the vertices of an edge by the ids of their nodes, adding those not yet read.
+     */
+    private static Vertex[] endVertices(final BatchGraph graph, final String[] vertexIds, final String vertexIdKey, final VertexCache vertexMappedIds) {
+        final Vertex[] edgeEndVertices = new Vertex[2]; //[0] = outVertex , [1] = inVertex
+        for (int i = 0; i < 2; i++) {
+            if (vertexIdKey == null) {
+                edgeEndVertices[i] = graph.getVertex(vertexIds[i]);
+            } else {
+                final Object mappedId = vertexMappedIds.getEntry(vertexIds[i]);
+                edgeEndVertices[i] = null == mappedId ? null : graph.getVertex(mappedId);
+            }
+
+            if (null == edgeEndVertices[i]) {
+                edgeEndVertices[i] = graph.addVertex(vertexIds[i]);
+                if (vertexIdKey != null)
+                    // Default to standard ID system (in case no mapped
+                    // ID is found later)
+                    mapId(vertexMappedIds, vertexIds[i], vertexIds[i]);
+            }
         }
+        return edgeEndVertices;
+    }
+
+    private static void addEdge(final BatchGraph graph, final String edgeId, final Vertex[] edgeEndVertices, final String edgeLabel,
+                                final Map<String, Object> edgeProps) {
+        Edge currentEdge = graph.addEdge(edgeId, edgeEndVertices[0], edgeEndVertices[1], edgeLabel);
+
+        for (Entry<String, Object> prop : edgeProps.entrySet()) {
+            currentEdge.setProperty(prop.getKey(), prop.getValue());
+        }
+    }
+
+    private static void mapId(final VertexCache vertexMappedIds, final String vertexId, final String mappedId) {
+        vertexMappedIds.setId(mappedId, vertexId);
+        // the mapped ids are not vertices, so this only keeps the cache from tracking them as the current transaction's
+        vertexMappedIds.newTransaction();
     }
 
     private static Object typeCastValue(String key, String value, Map<String, String> keyTypes) {
@@ -320,4 +411,133 @@ public class GraphMLReader {
         else
             return value;
     }
-}
\ No newline at end of file
+
+    /**
+     * Holds the edges of a vertices first load in a temporary file until all vertices have been added.
+     */
+    private static final class EdgeSpool implements Closeable {
+        private static final Charset UTF8 = Charset.forName("UTF-8");
+        private static final int IO_BUFFER_SIZE = 1 << 16;
+
+        private static final byte STRING = 0;
+        private static final byte FLOAT = 1;
+        private static final byte INT = 2;
+        private static final byte DOUBLE = 3;
+        private static final byte BOOLEAN = 4;
+        private static final byte LONG = 5;
+
+        private final File file;
+        private final DataOutputStream out;
+        private long count = 0l;
+
+        private EdgeSpool(final File directory) throws IOException {
+            this.file = File.createTempFile("graphml", ".edges", directory);
+            this.file.deleteOnExit();
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.file), IO_BUFFER_SIZE));
+        }
+
+        private void write(final String edgeId, final String[] vertexIds, final String edgeLabel,
+                           final Map<String, Object> edgeProps) throws IOException {
+            this.out.writeBoolean(null != edgeId);
+            if (null != edgeId)
+                writeString(this.out, edgeId);
+            writeString(this.out, vertexIds[0]);
+            writeString(this.out, vertexIds[1]);
+            writeString(this.out, edgeLabel);
+            this.out.writeInt(edgeProps.size());
+            for (Entry<String, Object> prop : edgeProps.entrySet()) {
+                writeString(this.out, prop.getKey());
+                writeValue(this.out, prop.getValue());
+            }
+            this.count++;
+        }
+
+        private void replay(final BatchGraph graph, final String vertexIdKey, final VertexCache vertexMappedIds) throws IOException {
+            this.out.close();
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file), IO_BUFFER_SIZE));
+            try {
+                final String[] vertexIds = new String[2];
+                for (long i = 0; i < this.count; i++) {
+                    final String edgeId = in.readBoolean() ? readString(in) : null;
+                    vertexIds[0] = readString(in);
+                    vertexIds[1] = readString(in);
+                    final String edgeLabel = readString(in);
+                    final int size = in.readInt();
+                    final Map<String, Object> edgeProps = new HashMap<String, Object>();
+                    for (int j = 0; j < size; j++) {
+                        edgeProps.put(readString(in), readValue(in));
+                    }
+                    addEdge(graph, edgeId, endVertices(graph, vertexIds, vertexIdKey, vertexMappedIds), edgeLabel, edgeProps);
+                }
+            } finally {
+                in.close();
+            }
+        }
+
+        /**
+         * Deletes the spool file.
+         */
+        public void close() throws IOException {
+            try {
+                this.out.close();
+            } finally {
+                this.file.delete();
+            }
+        }
+
+        /**
+         * Writes a value of one of the types of typeCastValue().
+         */
+        private static void writeValue(final DataOutputStream out, final Object value) throws IOException {
+            if (value instanceof Float) {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float) value);
+            } else if (value instanceof Integer) {
+                out.writeByte(INT);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Double) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            } else if (value instanceof Long) {
+                out.writeByte(LONG);
+                out.writeLong((Long) value);
+            } else {
+                out.writeByte(STRING);
+                writeString(out, (String) value);
+            }
+        }
+
+        private static Object readValue(final DataInputStream in) throws IOException {
+            final byte type = in.readByte();
+            switch (type) {
+                case FLOAT:
+                    return in.readFloat();
+                case INT:
+                    return in.readInt();
+                case DOUBLE:
+                    return in.readDouble();
+                case BOOLEAN:
+                    return in.readBoolean();
+                case LONG:
+                    return in.readLong();
+                default:
+                    return readString(in);
+            }
+        }
+
+        private static void writeString(final DataOutputStream out, final String string) throws IOException {
+            final byte[] bytes = string.getBytes(UTF8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(final DataInputStream in) throws IOException {
+            final byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, UTF8);
+        }
+    }
+}
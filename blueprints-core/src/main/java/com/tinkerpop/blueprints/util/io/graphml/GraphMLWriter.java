@@ -2,6 +2,7 @@ package com.tinkerpop.blueprints.util.io.graphml;
 
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.io.LexicographicalElementComparator;
@@ -10,18 +11,28 @@ import javax.xml.XMLConstants;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
- * GraphMLWriter writes a Graph to a GraphML OutputStream.
+ * GraphMLWriter writes a Graph to a GraphML OutputStream.  The key definitions precede the elements, so the key types
+ * are discovered in a pass over the graph unless they are set or single pass output is enabled.
  *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  * @author Joshua Shinavier (http://fortytwo.net)
@@ -37,6 +48,9 @@ public class GraphMLWriter {
     private String xmlSchemaLocation = null;
     private String edgeLabelKey = null;
 
+    private boolean singlePass = false;
+    private File spoolDirectory = new File(System.getProperty("java.io.tmpdir"));
+
     /**
      * @param graph the Graph to pull the data from
      */
@@ -86,6 +100,23 @@ public class GraphMLWriter {
         this.edgeKeyTypes = edgeKeyTypes;
     }
 
+    /**
+     * @param singlePass whether to discover the key types in the same pass over the graph that writes its elements.
+     *                   The nodes and edges are spooled to temporary files, or held in memory when normalizing,
+     *                   until the key definitions preceding them have been written.  Key types that have been set
+     *                   are not discovered, so the graph is read once either way.
+     */
+    public void setSinglePass(final boolean singlePass) {
+        this.singlePass = singlePass;
+    }
+
+    /**
+     * @param spoolDirectory the directory of the temporary files of single pass output
+     */
+    public void setSpoolDirectory(final File spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+    }
+
     /**
      * Write the data in a Graph to a GraphML file.
      *
@@ -105,34 +136,59 @@ public class GraphMLWriter {
      * @throws IOException thrown if there is an error generating the GraphML data
      */
     public void outputGraph(final OutputStream graphMLOutputStream) throws IOException {
+        Spool spool = null;
+        try {
+            List<Vertex> vertices = null;
+            List<Edge> edges = null;
+
+            if (null == vertexKeyTypes || null == edgeKeyTypes) {
+                Map<String, String> vertexKeyTypes = new HashMap<String, String>();
+                Map<String, String> edgeKeyTypes = new HashMap<String, String>();
+
+                // a single pass keeps the elements read while discovering the key types
+                if (singlePass && normalize) {
+                    vertices = new ArrayList<Vertex>();
+                    edges = new ArrayList<Edge>();
+                } else if (singlePass) {
+                    spool = new Spool(this.spoolDirectory);
+                }
 
-        if (null == vertexKeyTypes || null == edgeKeyTypes) {
-            Map<String, String> vertexKeyTypes = new HashMap<String, String>();
-            Map<String, String> edgeKeyTypes = new HashMap<String, String>();
-
-            for (Vertex vertex : graph.getVertices()) {
-                for (String key : vertex.getPropertyKeys()) {
-                    if (!vertexKeyTypes.containsKey(key)) {
-                        vertexKeyTypes.put(key, GraphMLWriter.getStringType(vertex.getProperty(key)));
+                for (Vertex vertex : graph.getVertices()) {
+                    discoverKeyTypes(vertex, vertexKeyTypes);
+                    if (null != vertices) {
+                        vertices.add(vertex);
+                    } else if (null != spool) {
+                        spool.writeVertex(vertex);
                     }
-                }
-                for (Edge edge : vertex.getEdges(Direction.OUT)) {
-                    for (String key : edge.getPropertyKeys()) {
-                        if (!edgeKeyTypes.containsKey(key)) {
-                            edgeKeyTypes.put(key, GraphMLWriter.getStringType(edge.getProperty(key)));
+                    for (Edge edge : vertex.getEdges(Direction.OUT)) {
+                        discoverKeyTypes(edge, edgeKeyTypes);
+                        if (null != edges) {
+                            edges.add(edge);
+                        } else if (null != spool) {
+                            spool.writeEdge(edge);
                         }
                     }
                 }
-            }
 
-            if (null == this.vertexKeyTypes) {
-                this.vertexKeyTypes = vertexKeyTypes;
+                if (null == this.vertexKeyTypes) {
+                    this.vertexKeyTypes = vertexKeyTypes;
+                }
+
+                if (null == this.edgeKeyTypes) {
+                    this.edgeKeyTypes = edgeKeyTypes;
+                }
             }
 
-            if (null == this.edgeKeyTypes) {
-                this.edgeKeyTypes = edgeKeyTypes;
+            writeGraph(graphMLOutputStream, vertices, edges, spool);
+        } finally {
+            if (null != spool) {
+                spool.close();
             }
         }
+    }
+
+    private void writeGraph(final OutputStream graphMLOutputStream, final List<Vertex> readVertices,
+                            final List<Edge> readEdges, final Spool spool) throws IOException {
 
         // adding the edge label key will push the label into the data portion of the graphml otherwise it
         // will live with the edge data itself (which won't validate against the graphml schema)
@@ -198,31 +254,101 @@ public class GraphMLWriter {
             writer.writeAttribute(GraphMLTokens.ID, GraphMLTokens.G);
             writer.writeAttribute(GraphMLTokens.EDGEDEFAULT, GraphMLTokens.DIRECTED);
 
-            Iterable<Vertex> vertices;
-            if (normalize) {
+            if (null != spool) {
+                spool.replay(writer);
+            } else {
+                writeElements(writer, readVertices, readEdges);
+            }
+
+            writer.writeEndElement(); // graph
+            writer.writeEndElement(); // graphml
+            writer.writeEndDocument();
+
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException xse) {
+            throw new IOException(xse);
+        }
+    }
+
+    private void writeElements(final XMLStreamWriter writer, final List<Vertex> readVertices,
+                               final List<Edge> readEdges) throws XMLStreamException {
+        Iterable<Vertex> vertices;
+        if (normalize) {
+            if (null == readVertices) {
                 vertices = new ArrayList<Vertex>();
                 for (Vertex v : graph.getVertices()) {
                     ((Collection<Vertex>) vertices).add(v);
                 }
-                Collections.sort((List<Vertex>) vertices, new LexicographicalElementComparator());
             } else {
-                vertices = graph.getVertices();
+                vertices = readVertices;
+            }
+            Collections.sort((List<Vertex>) vertices, new LexicographicalElementComparator());
+        } else {
+            vertices = graph.getVertices();
+        }
+        for (Vertex vertex : vertices) {
+            writer.writeStartElement(GraphMLTokens.NODE);
+            writer.writeAttribute(GraphMLTokens.ID, vertex.getId().toString());
+            Collection<String> keys;
+            if (normalize) {
+                keys = new ArrayList<String>();
+                keys.addAll(vertex.getPropertyKeys());
+                Collections.sort((List<String>) keys);
+            } else {
+                keys = vertex.getPropertyKeys();
+            }
+            for (String key : keys) {
+                writer.writeStartElement(GraphMLTokens.DATA);
+                writer.writeAttribute(GraphMLTokens.KEY, key);
+                Object value = vertex.getProperty(key);
+                if (null != value) {
+                    writer.writeCharacters(value.toString());
+                }
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+        }
+
+        if (normalize) {
+            List<Edge> edges;
+            if (null == readEdges) {
+                edges = new ArrayList<Edge>();
+                for (Vertex vertex : graph.getVertices()) {
+                    for (Edge edge : vertex.getEdges(Direction.OUT)) {
+                        edges.add(edge);
+                    }
+                }
+            } else {
+                edges = readEdges;
             }
-            for (Vertex vertex : vertices) {
-                writer.writeStartElement(GraphMLTokens.NODE);
-                writer.writeAttribute(GraphMLTokens.ID, vertex.getId().toString());
-                Collection<String> keys;
-                if (normalize) {
-                    keys = new ArrayList<String>();
-                    keys.addAll(vertex.getPropertyKeys());
-                    Collections.sort((List<String>) keys);
+            Collections.sort(edges, new LexicographicalElementComparator());
+
+            for (Edge edge : edges) {
+                writer.writeStartElement(GraphMLTokens.EDGE);
+                writer.writeAttribute(GraphMLTokens.ID, edge.getId().toString());
+                writer.writeAttribute(GraphMLTokens.SOURCE, edge.getVertex(Direction.OUT).getId().toString());
+                writer.writeAttribute(GraphMLTokens.TARGET, edge.getVertex(Direction.IN).getId().toString());
+
+                if (this.edgeLabelKey == null) {
+                    // this will not comply with the graphml schema but is here so that the label is not
+                    // mixed up with properties.
+                    writer.writeAttribute(GraphMLTokens.LABEL, edge.getLabel());
                 } else {
-                    keys = vertex.getPropertyKeys();
+                    writer.writeStartElement(GraphMLTokens.DATA);
+                    writer.writeAttribute(GraphMLTokens.KEY, this.edgeLabelKey);
+                    writer.writeCharacters(edge.getLabel());
+                    writer.writeEndElement();
                 }
+
+                final List<String> keys = new ArrayList<String>();
+                keys.addAll(edge.getPropertyKeys());
+                Collections.sort(keys);
+
                 for (String key : keys) {
                     writer.writeStartElement(GraphMLTokens.DATA);
                     writer.writeAttribute(GraphMLTokens.KEY, key);
-                    Object value = vertex.getProperty(key);
+                    Object value = edge.getProperty(key);
                     if (null != value) {
                         writer.writeCharacters(value.toString());
                     }
@@ -230,38 +356,16 @@ public class GraphMLWriter {
                 }
                 writer.writeEndElement();
             }
-
-            if (normalize) {
-                List<Edge> edges = new ArrayList<Edge>();
-                for (Vertex vertex : graph.getVertices()) {
-                    for (Edge edge : vertex.getEdges(Direction.OUT)) {
-                        edges.add(edge);
-                    }
-                }
-                Collections.sort(edges, new LexicographicalElementComparator());
-
-                for (Edge edge : edges) {
+        } else {
+            for (Vertex vertex : graph.getVertices()) {
+                for (Edge edge : vertex.getEdges(Direction.OUT)) {
                     writer.writeStartElement(GraphMLTokens.EDGE);
                     writer.writeAttribute(GraphMLTokens.ID, edge.getId().toString());
                     writer.writeAttribute(GraphMLTokens.SOURCE, edge.getVertex(Direction.OUT).getId().toString());
                     writer.writeAttribute(GraphMLTokens.TARGET, edge.getVertex(Direction.IN).getId().toString());
+                    writer.writeAttribute(GraphMLTokens.LABEL, edge.getLabel());
 
-                    if (this.edgeLabelKey == null) {
-                        // this will not comply with the graphml schema but is here so that the label is not
-                        // mixed up with properties.
-                        writer.writeAttribute(GraphMLTokens.LABEL, edge.getLabel());
-                    } else {
-                        writer.writeStartElement(GraphMLTokens.DATA);
-                        writer.writeAttribute(GraphMLTokens.KEY, this.edgeLabelKey);
-                        writer.writeCharacters(edge.getLabel());
-                        writer.writeEndElement();
-                    }
-
-                    final List<String> keys = new ArrayList<String>();
-                    keys.addAll(edge.getPropertyKeys());
-                    Collections.sort(keys);
-
-                    for (String key : keys) {
+                    for (String key : edge.getPropertyKeys()) {
                         writer.writeStartElement(GraphMLTokens.DATA);
                         writer.writeAttribute(GraphMLTokens.KEY, key);
                         Object value = edge.getProperty(key);
@@ -272,37 +376,15 @@ public class GraphMLWriter {
                     }
                     writer.writeEndElement();
                 }
-            } else {
-                for (Vertex vertex : graph.getVertices()) {
-                    for (Edge edge : vertex.getEdges(Direction.OUT)) {
-                        writer.writeStartElement(GraphMLTokens.EDGE);
-                        writer.writeAttribute(GraphMLTokens.ID, edge.getId().toString());
-                        writer.writeAttribute(GraphMLTokens.SOURCE, edge.getVertex(Direction.OUT).getId().toString());
-                        writer.writeAttribute(GraphMLTokens.TARGET, edge.getVertex(Direction.IN).getId().toString());
-                        writer.writeAttribute(GraphMLTokens.LABEL, edge.getLabel());
-
-                        for (String key : edge.getPropertyKeys()) {
-                            writer.writeStartElement(GraphMLTokens.DATA);
-                            writer.writeAttribute(GraphMLTokens.KEY, key);
-                            Object value = edge.getProperty(key);
-                            if (null != value) {
-                                writer.writeCharacters(value.toString());
-                            }
-                            writer.writeEndElement();
-                        }
-                        writer.writeEndElement();
-                    }
-                }
             }
+        }
+    }
 
-            writer.writeEndElement(); // graph
-            writer.writeEndElement(); // graphml
-            writer.writeEndDocument();
-
-            writer.flush();
-            writer.close();
-        } catch (XMLStreamException xse) {
-            throw new IOException(xse);
+    private static void discoverKeyTypes(final Element element, final Map<String, String> keyTypes) {
+        for (String key : element.getPropertyKeys()) {
+            if (!keyTypes.containsKey(key)) {
+                keyTypes.put(key, GraphMLWriter.getStringType(element.getProperty(key)));
+            }
         }
     }
 
@@ -381,4 +463,128 @@ public class GraphMLWriter {
             return GraphMLTokens.STRING;
         }
     }
+
+    /**
+     * Holds the nodes and edges of single pass output in temporary files until the key definitions are written.
+     */
+    private static final class Spool implements Closeable {
+        private static final Charset UTF8 = Charset.forName("UTF-8");
+        private static final int IO_BUFFER_SIZE = 1 << 16;
+
+        private final File vertexFile;
+        private final File edgeFile;
+        private final DataOutputStream vertexOut;
+        private final DataOutputStream edgeOut;
+        private long vertexCount = 0l;
+        private long edgeCount = 0l;
+
+        private Spool(final File directory) throws IOException {
+            this.vertexFile = File.createTempFile("graphml", ".nodes", directory);
+            this.vertexFile.deleteOnExit();
+            this.edgeFile = File.createTempFile("graphml", ".edges", directory);
+            this.edgeFile.deleteOnExit();
+            this.vertexOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.vertexFile), IO_BUFFER_SIZE));
+            this.edgeOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.edgeFile), IO_BUFFER_SIZE));
+        }
+
+        private void writeVertex(final Vertex vertex) throws IOException {
+            writeString(this.vertexOut, vertex.getId().toString());
+            writeProperties(this.vertexOut, vertex);
+            this.vertexCount++;
+        }
+
+        private void writeEdge(final Edge edge) throws IOException {
+            writeString(this.edgeOut, edge.getId().toString());
+            writeString(this.edgeOut, edge.getVertex(Direction.OUT).getId().toString());
+            writeString(this.edgeOut, edge.getVertex(Direction.IN).getId().toString());
+            writeString(this.edgeOut, edge.getLabel());
+            writeProperties(this.edgeOut, edge);
+            this.edgeCount++;
+        }
+
+        /**
+         * Writes the spooled nodes and then the spooled edges as the non-normalized output does.
+         */
+        private void replay(final XMLStreamWriter writer) throws IOException, XMLStreamException {
+            this.vertexOut.close();
+            this.edgeOut.close();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.vertexFile), IO_BUFFER_SIZE));
+            try {
+                for (long i = 0; i < this.vertexCount; i++) {
+                    writer.writeStartElement(GraphMLTokens.NODE);
+                    writer.writeAttribute(GraphMLTokens.ID, readString(in));
+                    replayProperties(writer, in);
+                    writer.writeEndElement();
+                }
+            } finally {
+                in.close();
+            }
+
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.edgeFile), IO_BUFFER_SIZE));
+            try {
+                for (long i = 0; i < this.edgeCount; i++) {
+                    writer.writeStartElement(GraphMLTokens.EDGE);
+                    writer.writeAttribute(GraphMLTokens.ID, readString(in));
+                    writer.writeAttribute(GraphMLTokens.SOURCE, readString(in));
+                    writer.writeAttribute(GraphMLTokens.TARGET, readString(in));
+                    writer.writeAttribute(GraphMLTokens.LABEL, readString(in));
+                    replayProperties(writer, in);
+                    writer.writeEndElement();
+                }
+            } finally {
+                in.close();
+            }
+        }
+
+        /**
+         * Deletes the spool files.
+         */
+        public void close() throws IOException {
+            try {
+                this.vertexOut.close();
+                this.edgeOut.close();
+            } finally {
+                this.vertexFile.delete();
+                this.edgeFile.delete();
+            }
+        }
+
+        private static void writeProperties(final DataOutputStream out, final Element element) throws IOException {
+            final Set<String> keys = element.getPropertyKeys();
+            out.writeInt(keys.size());
+            for (String key : keys) {
+                writeString(out, key);
+                final Object value = element.getProperty(key);
+                out.writeBoolean(null != value);
+                if (null != value) {
+                    writeString(out, value.toString());
+                }
+            }
+        }
+
+        private static void replayProperties(final XMLStreamWriter writer, final DataInputStream in) throws IOException, XMLStreamException {
+            final int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                writer.writeStartElement(GraphMLTokens.DATA);
+                writer.writeAttribute(GraphMLTokens.KEY, readString(in));
+                if (in.readBoolean()) {
+                    writer.writeCharacters(readString(in));
+                }
+                writer.writeEndElement();
+            }
+        }
+
+        private static void writeString(final DataOutputStream out, final String string) throws IOException {
+            final byte[] bytes = string.getBytes(UTF8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(final DataInputStream in) throws IOException {
+            final byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, UTF8);
+        }
+    }
 }
@@ -1,59 +1,261 @@
 package com.tinkerpop.blueprints.util.io.graphml;
 
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
+import com.tinkerpop.blueprints.util.wrappers.batch.ParallelBatchLoader;
 
 import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
+import java.util.Set;
 
 /**
- * GraphMigrator takes the data in one graph and pipes it to another graph.
+ * GraphMigrator takes the data in one graph and copies it to another graph.  Vertices and then edges are read from
+ * the source graph and added to the target graph through a BatchGraph or, when more than one thread is set, through a
+ * ParallelBatchLoader, which requires a target graph that supports concurrent writes.
+ * <p>
+ * A migration reports its progress to a ProgressListener after every bufferSize elements.  With a single thread the
+ * elements reported have been committed to the target graph, and a failed migration can be resumed from the counts of
+ * the last report as long as the source graph iterates its elements in the same order.
  *
  * @author Alex Averbuch (alex.averbuch@gmail.com)
  */
 public class GraphMigrator {
 
     /**
-     * Pipe the data from one graph to another graph.
-     *
+     * Default number of elements added to the target graph per transaction
+     */
+    public static final long DEFAULT_BUFFER_SIZE = 1000;
+
+    private final Graph fromGraph;
+    private final Graph toGraph;
+    private long bufferSize = DEFAULT_BUFFER_SIZE;
+    private int threads = 1;
+    private String vertexIdKey = null;
+    private String edgeIdKey = null;
+    private ProgressListener listener = null;
+    private long resumeVertices = 0l;
+    private long resumeEdges = 0l;
+
+    private volatile long vertexCount = 0l;
+    private volatile long edgeCount = 0l;
+    private volatile long startTime = 0l;
+
+    /**
      * @param fromGraph the graph to take data from
      * @param toGraph   the graph to take data to
-     * @throws XMLStreamException thrown if the serialization process causes an exception
-     * @throws IOException        thrown if there is an error in steam between the two graphs
      */
-    public static void migrateGraph(final Graph fromGraph, final Graph toGraph) throws XMLStreamException, IOException {
+    public GraphMigrator(final Graph fromGraph, final Graph toGraph) {
+        if (fromGraph == null || toGraph == null) throw new IllegalArgumentException("Graph may not be null");
+        this.fromGraph = fromGraph;
+        this.toGraph = toGraph;
+    }
+
+    /**
+     * @param bufferSize the number of elements added to the target graph per transaction and between progress reports
+     */
+    public void setBufferSize(final long bufferSize) {
+        if (bufferSize <= 0) throw new IllegalArgumentException("BufferSize must be positive");
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @param threads the number of threads adding elements to the target graph, which must support concurrent writes
+     *                if more than one
+     */
+    public void setThreads(final int threads) {
+        if (threads <= 0) throw new IllegalArgumentException("Number of threads must be positive");
+        this.threads = threads;
+    }
+
+    /**
+     * @param vertexIdKey the key of the property to store the source vertex id in, which is required to resume a
+     *                    migration to a graph that ignores supplied ids
+     */
+    public void setVertexIdKey(final String vertexIdKey) {
+        this.vertexIdKey = vertexIdKey;
+    }
+
+    /**
+     * @param edgeIdKey the key of the property to store the source edge id in
+     */
+    public void setEdgeIdKey(final String edgeIdKey) {
+        this.edgeIdKey = edgeIdKey;
+    }
+
+    public void setProgressListener(final ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Resumes a migration that failed after reporting the given counts by skipping as many vertices and edges of the
+     * source graph.  The vertices of the skipped edges are looked up in the target graph, so only a single thread is
+     * supported.
+     *
+     * @param vertices the number of vertices reported
+     * @param edges    the number of edges reported
+     */
+    public void resume(final long vertices, final long edges) {
+        if (vertices < 0 || edges < 0) throw new IllegalArgumentException("Counts may not be negative");
+        this.resumeVertices = vertices;
+        this.resumeEdges = edges;
+    }
+
+    /**
+     * @return the number of vertices migrated so far, including those skipped when resuming
+     */
+    public long getVertexCount() {
+        return this.vertexCount;
+    }
+
+    /**
+     * @return the number of edges migrated so far, including those skipped when resuming
+     */
+    public long getEdgeCount() {
+        return this.edgeCount;
+    }
+
+    /**
+     * @return the milliseconds since the migration started
+     */
+    public long getElapsedTime() {
+        return this.startTime == 0l ? 0l : System.currentTimeMillis() - this.startTime;
+    }
+
+    /**
+     * Copies the vertices and then the edges of the source graph to the target graph.
+     */
+    public void migrate() {
+        final boolean resuming = this.resumeVertices > 0 || this.resumeEdges > 0;
+        if (resuming && this.threads > 1)
+            throw new IllegalStateException("Resuming a migration requires a single thread");
+
+        this.startTime = System.currentTimeMillis();
+        this.vertexCount = this.resumeVertices;
+        this.edgeCount = this.resumeEdges;
+        if (this.threads > 1)
+            this.migrateParallel();
+        else
+            this.migrateSequential(resuming);
+    }
+
+    private void migrateSequential(final boolean resuming) {
+        final BatchGraph graph = BatchGraph.wrap(this.toGraph, this.bufferSize);
+        graph.setVertexIdKey(this.vertexIdKey);
+        graph.setEdgeIdKey(this.edgeIdKey);
+        if (resuming)
+            graph.setLoadingFromScratch(false);
+
+        long skip = this.resumeVertices;
+        long buffered = 0l;
+        for (final Vertex vertex : this.fromGraph.getVertices()) {
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            graph.addVertex(vertex.getId(), properties(vertex));
+            this.vertexCount++;
+            if (++buffered == this.bufferSize) {
+                graph.commit();
+                this.report();
+                buffered = 0l;
+            }
+        }
+
+        skip = this.resumeEdges;
+        for (final Edge edge : this.fromGraph.getEdges()) {
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            final Object outId = edge.getVertex(Direction.OUT).getId();
+            final Object inId = edge.getVertex(Direction.IN).getId();
+            final Vertex out = graph.getVertex(outId);
+            if (out == null) throw new IllegalArgumentException("Target graph has no vertex with id: " + outId);
+            final Vertex in = graph.getVertex(inId);
+            if (in == null) throw new IllegalArgumentException("Target graph has no vertex with id: " + inId);
+            graph.addEdge(edge.getId(), out, in, edge.getLabel(), properties(edge));
+            this.edgeCount++;
+            if (++buffered == this.bufferSize) {
+                graph.commit();
+                this.report();
+                buffered = 0l;
+            }
+        }
+
+        graph.commit();
+        this.report();
+    }
 
-        final PipedInputStream inPipe = new PipedInputStream() {
-            // Default is 1024
-            protected static final int PIPE_SIZE = 1024;
-        };
-
-        final PipedOutputStream outPipe = new PipedOutputStream(inPipe) {
-            public void close() throws IOException {
-                while (inPipe.available() > 0) {
-                    try {
-                        Thread.sleep(500);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
+    private void migrateParallel() {
+        final ParallelBatchLoader loader = ParallelBatchLoader.wrap(this.toGraph, this.threads, this.bufferSize);
+        loader.setVertexIdKey(this.vertexIdKey);
+        loader.setEdgeIdKey(this.edgeIdKey);
+        try {
+            long buffered = 0l;
+            for (final Vertex vertex : this.fromGraph.getVertices()) {
+                loader.addVertex(vertex.getId(), properties(vertex));
+                this.vertexCount++;
+                if (++buffered == this.bufferSize) {
+                    this.report();
+                    buffered = 0l;
                 }
-                super.close();
             }
-        };
-
-        new Thread(new Runnable() {
-            public void run() {
-                try {
-                    GraphMLWriter.outputGraph(fromGraph, outPipe);
-                    outPipe.flush();
-                    outPipe.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
+            for (final Edge edge : this.fromGraph.getEdges()) {
+                loader.addEdge(edge.getId(), edge.getVertex(Direction.OUT).getId(), edge.getVertex(Direction.IN).getId(),
+                        edge.getLabel(), properties(edge));
+                this.edgeCount++;
+                if (++buffered == this.bufferSize) {
+                    this.report();
+                    buffered = 0l;
                 }
             }
-        }).start();
+        } finally {
+            loader.finish();
+        }
+        this.report();
+    }
+
+    private void report() {
+        if (this.listener != null)
+            this.listener.progress(this.vertexCount, this.edgeCount, this.getElapsedTime());
+    }
+
+    private static Object[] properties(final Element element) {
+        final Set<String> keys = element.getPropertyKeys();
+        final Object[] properties = new Object[keys.size() << 1];
+        int i = 0;
+        for (final String key : keys) {
+            properties[i++] = key;
+            properties[i++] = element.getProperty(key);
+        }
+        return properties;
+    }
+
+    /**
+     * Copies the data from one graph to another graph.
+     *
+     * @param fromGraph the graph to take data from
+     * @param toGraph   the graph to take data to
+     * @throws XMLStreamException not thrown since the graphs are no longer piped through GraphML
+     * @throws IOException        not thrown since the graphs are no longer piped through GraphML
+     */
+    public static void migrateGraph(final Graph fromGraph, final Graph toGraph) throws XMLStreamException, IOException {
+        new GraphMigrator(fromGraph, toGraph).migrate();
+    }
 
-        GraphMLReader.inputGraph(toGraph, inPipe);
+    /**
+     * Receives the progress of a migration.
+     */
+    public interface ProgressListener {
+        /**
+         * @param vertices    the number of vertices migrated
+         * @param edges       the number of edges migrated
+         * @param elapsedTime the milliseconds since the migration started
+         */
+        public void progress(long vertices, long edges, long elapsedTime);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,434 @@
+package com.tinkerpop.blueprints.util.io.graphson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.util.io.graphson.GraphSONStreamReader.ParsedElement;
+import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
+import com.tinkerpop.blueprints.util.wrappers.batch.ParallelBatchLoader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * GraphSONLinesReader reads line-delimited GraphSON as written by GraphSONLinesWriter into a graph.  The lines are
+ * parsed in chunks on a thread pool and their elements are added in the order of the chunks, either through a
+ * BatchGraph or, to add them on several threads as well, through a ParallelBatchLoader.
+ * <p>
+ * A file with an index is split into chunks by the index and each chunk is read by the thread parsing it.  Otherwise
+ * the lines are scanned on the calling thread and split into chunks of a number of lines.
+ */
+public class GraphSONLinesReader {
+
+    /**
+     * Default number of lines parsed together when the input has no index
+     */
+    public static final int DEFAULT_CHUNK_SIZE = GraphSONLinesWriter.DEFAULT_CHUNK_SIZE;
+
+    private static final JsonFactory jsonFactory = new MappingJsonFactory();
+
+    private final Graph graph;
+    private final ParallelBatchLoader loader;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private long bufferSize = BatchGraph.DEFAULT_BUFFER_SIZE;
+
+    /**
+     * @param graph the graph to populate with the JSON data, which is loaded through a BatchGraph
+     */
+    public GraphSONLinesReader(final Graph graph) {
+        if (graph == null) throw new IllegalArgumentException("Graph may not be null");
+        this.graph = graph;
+        this.loader = null;
+    }
+
+    /**
+     * @param loader the loader of the graph to populate with the JSON data, which is finished after the input
+     */
+    public GraphSONLinesReader(final ParallelBatchLoader loader) {
+        if (loader == null) throw new IllegalArgumentException("Loader may not be null");
+        this.graph = null;
+        this.loader = loader;
+    }
+
+    /**
+     * Sets the number of threads parsing lines, which defaults to the number of processors.
+     */
+    public void setThreads(final int threads) {
+        if (threads <= 0) throw new IllegalArgumentException("Number of threads must be positive");
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the number of lines parsed together when the input has no index.
+     */
+    public void setChunkSize(final int chunkSize) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("ChunkSize must be positive");
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Sets the amount of elements to hold in memory before committing a transaction when loading through a
+     * BatchGraph (only valid for TransactionalGraphs).
+     */
+    public void setBufferSize(final long bufferSize) {
+        if (bufferSize <= 0) throw new IllegalArgumentException("BufferSize must be positive");
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Input the line-delimited GraphSON data into the graph.
+     *
+     * @param jsonInputStream an InputStream of line-delimited GraphSON
+     * @throws IOException thrown when the JSON data is not correctly formatted
+     */
+    public void inputGraph(final InputStream jsonInputStream) throws IOException {
+        inputGraph(jsonInputStream, null, null);
+    }
+
+    /**
+     * Input the line-delimited GraphSON data into the graph.  The file is read in parallel if there is an index file
+     * of the same name with GraphSONLinesWriter.INDEX_EXTENSION appended.
+     *
+     * @param filename name of a file of line-delimited GraphSON
+     * @throws IOException thrown when the JSON data is not correctly formatted
+     */
+    public void inputGraph(final String filename) throws IOException {
+        inputGraph(filename, null, null);
+    }
+
+    /**
+     * Input the line-delimited GraphSON data into the graph.
+     *
+     * @param jsonInputStream    an InputStream of line-delimited GraphSON
+     * @param edgePropertyKeys   the keys of the edge properties to read or null for all
+     * @param vertexPropertyKeys the keys of the vertex properties to read or null for all
+     * @throws IOException thrown when the JSON data is not correctly formatted
+     */
+    public void inputGraph(final InputStream jsonInputStream, final Set<String> edgePropertyKeys,
+                           final Set<String> vertexPropertyKeys) throws IOException {
+        if (jsonInputStream == null) {
+            throw new IllegalArgumentException("InputStream must not be null");
+        }
+
+        final Loading loading = new Loading(ElementPropertyConfig.includeProperties(vertexPropertyKeys, edgePropertyKeys));
+        try {
+            loading.scan(jsonInputStream);
+            loading.finish();
+        } finally {
+            loading.close();
+        }
+    }
+
+    /**
+     * Input the line-delimited GraphSON data into the graph.  The file is read in parallel if there is an index file
+     * of the same name with GraphSONLinesWriter.INDEX_EXTENSION appended.
+     *
+     * @param filename           name of a file of line-delimited GraphSON
+     * @param edgePropertyKeys   the keys of the edge properties to read or null for all
+     * @param vertexPropertyKeys the keys of the vertex properties to read or null for all
+     * @throws IOException thrown when the JSON data is not correctly formatted
+     */
+    public void inputGraph(final String filename, final Set<String> edgePropertyKeys,
+                           final Set<String> vertexPropertyKeys) throws IOException {
+        final File index = new File(filename + GraphSONLinesWriter.INDEX_EXTENSION);
+        final FileInputStream fis = new FileInputStream(filename);
+        try {
+            if (!index.isFile()) {
+                inputGraph(fis, edgePropertyKeys, vertexPropertyKeys);
+                return;
+            }
+
+            final Loading loading = new Loading(ElementPropertyConfig.includeProperties(vertexPropertyKeys, edgePropertyKeys));
+            try {
+                loading.readIndexed(fis.getChannel(), index);
+                loading.finish();
+            } finally {
+                loading.close();
+            }
+        } finally {
+            fis.close();
+        }
+    }
+
+    /**
+     * Input the line-delimited GraphSON data into the graph.
+     *
+     * @param graph    the graph to populate with the JSON data
+     * @param filename name of a file of line-delimited GraphSON
+     * @throws IOException thrown when the JSON data is not correctly formatted
+     */
+    public static void inputGraph(final Graph graph, final String filename) throws IOException {
+        new GraphSONLinesReader(graph).inputGraph(filename);
+    }
+
+    /**
+     * Input the line-delimited GraphSON data into the graph.
+     *
+     * @param graph           the graph to populate with the JSON data
+     * @param jsonInputStream an InputStream of line-delimited GraphSON
+     * @throws IOException thrown when the JSON data is not correctly formatted
+     */
+    public static void inputGraph(final Graph graph, final InputStream jsonInputStream) throws IOException {
+        new GraphSONLinesReader(graph).inputGraph(jsonInputStream);
+    }
+
+    /**
+     * The state of a single input: the pool parsing its chunks and the chunks being parsed, which are added to the
+     * graph in order once more than two per thread are outstanding.
+     */
+    private class Loading {
+        private final ElementPropertyConfig config;
+        private final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        private final Deque<Future<List<ParsedElement>>> parsing = new ArrayDeque<Future<List<ParsedElement>>>();
+        private final BatchGraph batchGraph;
+        private GraphSONMode mode = GraphSONMode.NORMAL;
+
+        private Loading(final ElementPropertyConfig config) {
+            this.config = config;
+            this.batchGraph = loader == null ? BatchGraph.wrap(graph, bufferSize) : null;
+        }
+
+        /**
+         * Splits the lines of the stream into chunks.  Lines starting with a quote name the section of the lines
+         * that follow, and the first line is the header if it is an object with the mode.
+         */
+        private void scan(final InputStream in) throws IOException {
+            final byte[] block = new byte[1 << 16];
+            byte[] chunk = new byte[1 << 16];
+            int length = 0;
+            int lineStart = 0;
+            int lines = 0;
+            boolean first = true;
+            Boolean edges = null;
+
+            int read;
+            boolean eof = false;
+            while (!eof) {
+                read = in.read(block);
+                if (read == -1) {
+                    // terminate a last line without a newline
+                    eof = true;
+                    if (length == lineStart)
+                        break;
+                    block[0] = '\n';
+                    read = 1;
+                }
+
+                for (int i = 0; i < read; i++) {
+                    if (length == chunk.length) {
+                        final byte[] grown = new byte[chunk.length << 1];
+                        System.arraycopy(chunk, 0, grown, 0, length);
+                        chunk = grown;
+                    }
+                    final byte b = block[i];
+                    chunk[length++] = b;
+                    if (b != '\n')
+                        continue;
+
+                    final int lineLength = length - 1 - lineStart;
+                    if (lineLength == 0 || (lineLength == 1 && chunk[lineStart] == '\r')) {
+                        length = lineStart;
+                    } else if (chunk[lineStart] == '"' || (first && chunk[lineStart] == '{' && this.isHeader(chunk, lineStart, lineLength))) {
+                        final JsonNode control = readTree(chunk, lineStart, lineLength);
+                        length = lineStart;
+                        if (lines > 0) {
+                            this.submit(new Chunk(chunk, length, edges));
+                            chunk = new byte[chunk.length];
+                            length = lineStart = lines = 0;
+                        }
+                        if (control.isTextual())
+                            edges = section(control.textValue());
+                    } else {
+                        if (edges == null)
+                            throw new IOException("Elements must follow the \"" + GraphSONTokens.VERTICES + "\" or \"" + GraphSONTokens.EDGES + "\" line");
+                        lineStart = length;
+                        if (++lines == chunkSize) {
+                            this.submit(new Chunk(chunk, length, edges));
+                            chunk = new byte[chunk.length];
+                            length = lineStart = lines = 0;
+                        }
+                    }
+                    first = false;
+                }
+            }
+
+            if (lines > 0)
+                this.submit(new Chunk(chunk, length, edges));
+        }
+
+        /**
+         * Reads the chunks of the index from the channel.
+         */
+        private void readIndexed(final FileChannel channel, final File index) throws IOException {
+            final JsonParser jp = jsonFactory.createParser(index);
+            final JsonNode node;
+            try {
+                node = jp.readValueAsTree();
+            } finally {
+                jp.close();
+            }
+            if (node == null || !node.isObject())
+                throw new IOException("Index must be a JSON object");
+            if (node.has(GraphSONTokens.MODE))
+                this.mode = GraphSONMode.valueOf(node.get(GraphSONTokens.MODE).asText());
+
+            for (final String section : new String[]{GraphSONTokens.VERTICES, GraphSONTokens.EDGES}) {
+                final JsonNode offsets = node.get(section);
+                if (offsets == null)
+                    continue;
+                for (int i = 1; i < offsets.size(); i++) {
+                    final long start = offsets.get(i - 1).asLong();
+                    this.submit(new Chunk(channel, start, (int) (offsets.get(i).asLong() - start),
+                            section.equals(GraphSONTokens.EDGES)));
+                }
+            }
+        }
+
+        private boolean isHeader(final byte[] bytes, final int offset, final int length) throws IOException {
+            final JsonNode node = readTree(bytes, offset, length);
+            if (!node.has(GraphSONTokens.MODE))
+                return false;
+            this.mode = GraphSONMode.valueOf(node.get(GraphSONTokens.MODE).asText());
+            return true;
+        }
+
+        private void submit(final Chunk chunk) throws IOException {
+            chunk.mode = this.mode;
+            chunk.config = this.config;
+            this.parsing.add(this.pool.submit(chunk));
+            if (this.parsing.size() > 2 * threads)
+                this.load(this.parsing.remove());
+        }
+
+        private void finish() throws IOException {
+            while (!this.parsing.isEmpty()) {
+                this.load(this.parsing.remove());
+            }
+            if (loader != null)
+                loader.finish();
+            else
+                this.batchGraph.commit();
+        }
+
+        private void load(final Future<List<ParsedElement>> chunk) throws IOException {
+            final List<ParsedElement> elements;
+            try {
+                elements = chunk.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e.getMessage(), e);
+            } catch (ExecutionException e) {
+                throw GraphSONLinesWriter.rethrow(e);
+            }
+
+            for (final ParsedElement element : elements) {
+                if (!element.edge) {
+                    if (loader != null)
+                        loader.addVertex(element.id, element.properties);
+                    else
+                        this.batchGraph.addVertex(element.id, element.properties);
+                } else {
+                    if (loader != null)
+                        loader.addEdge(element.id, element.outId, element.inId, element.label, element.properties);
+                    else
+                        this.batchGraph.addEdge(element.id, this.batchGraph.getVertex(element.outId),
+                                this.batchGraph.getVertex(element.inId), element.label, element.properties);
+                }
+            }
+        }
+
+        private void close() {
+            this.pool.shutdownNow();
+        }
+    }
+
+    private static JsonNode readTree(final byte[] bytes, final int offset, final int length) throws IOException {
+        final JsonParser jp = jsonFactory.createParser(bytes, offset, length);
+        try {
+            return jp.readValueAsTree();
+        } finally {
+            jp.close();
+        }
+    }
+
+    private static boolean section(final String name) throws IOException {
+        if (name.equals(GraphSONTokens.VERTICES))
+            return false;
+        if (name.equals(GraphSONTokens.EDGES))
+            return true;
+        throw new IOException("Unknown section: " + name);
+    }
+
+    /**
+     * Parses the lines of a chunk, which are either given or read from a channel.
+     */
+    private static class Chunk implements Callable<List<ParsedElement>> {
+        private final FileChannel channel;
+        private final long position;
+        private final int length;
+        private final boolean edges;
+        private byte[] bytes;
+        private GraphSONMode mode;
+        private ElementPropertyConfig config;
+
+        private Chunk(final byte[] bytes, final int length, final boolean edges) {
+            this.channel = null;
+            this.position = 0l;
+            this.bytes = bytes;
+            this.length = length;
+            this.edges = edges;
+        }
+
+        private Chunk(final FileChannel channel, final long position, final int length, final boolean edges) {
+            this.channel = channel;
+            this.position = position;
+            this.length = length;
+            this.edges = edges;
+        }
+
+        public List<ParsedElement> call() throws IOException {
+            if (this.bytes == null) {
+                this.bytes = new byte[this.length];
+                final ByteBuffer buffer = ByteBuffer.wrap(this.bytes);
+                while (buffer.hasRemaining()) {
+                    if (this.channel.read(buffer, this.position + buffer.position()) == -1)
+                        throw new IOException("Index points past the end of the file");
+                }
+            }
+
+            final GraphSONStreamReader graphson = new GraphSONStreamReader(this.mode, null, this.config);
+            final List<ParsedElement> elements = new ArrayList<ParsedElement>();
+            final JsonParser jp = jsonFactory.createParser(this.bytes, 0, this.length);
+            try {
+                JsonToken token;
+                while ((token = jp.nextToken()) != null) {
+                    if (token != JsonToken.START_OBJECT)
+                        throw new JsonParseException("Expected an element object", jp.getCurrentLocation());
+                    elements.add(graphson.parseElement(jp, this.edges));
+                }
+            } finally {
+                jp.close();
+            }
+            return elements;
+        }
+    }
+}
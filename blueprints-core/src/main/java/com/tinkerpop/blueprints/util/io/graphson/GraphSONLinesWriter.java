@@ -0,0 +1,374 @@
+package com.tinkerpop.blueprints.util.io.graphson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * GraphSONLinesWriter writes a Graph as line-delimited GraphSON: a line with the mode, the line "vertices" followed by
+ * a line per vertex and the line "edges" followed by a line per edge.  The elements are the JSON objects of
+ * GraphSONWriter.  They are serialized in chunks on a thread pool and may be taken from several partitions of the
+ * vertices and edges at once, each of which is iterated by its own thread.  The chunks are written in the order they
+ * are serialized, so the order of the elements within a section is not that of the graph.
+ * <p>
+ * An index of the byte offsets of the chunks may be written along with the lines.  GraphSONLinesReader reads and
+ * parses the chunks of an indexed file in parallel.
+ */
+public class GraphSONLinesWriter {
+
+    /**
+     * Extension of the index file written next to a file of line-delimited GraphSON
+     */
+    public static final String INDEX_EXTENSION = ".idx";
+
+    /**
+     * Default number of elements serialized together
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private static final JsonFactory jsonFactory = new MappingJsonFactory();
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Queued by a feeder after the chunks of its partition
+     */
+    private static final Future<byte[]> END = new FutureTask<byte[]>(new Runnable() {
+        public void run() {
+        }
+    }, null);
+
+    private final Graph graph;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * @param graph the Graph to pull the data from
+     */
+    public GraphSONLinesWriter(final Graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Sets the number of threads serializing elements, which defaults to the number of processors.
+     */
+    public void setThreads(final int threads) {
+        if (threads <= 0) throw new IllegalArgumentException("Number of threads must be positive");
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the number of elements serialized together and thus the granularity of the index.
+     */
+    public void setChunkSize(final int chunkSize) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("ChunkSize must be positive");
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Write the data in a Graph to a file of line-delimited GraphSON and its index to the file of the same name
+     * with INDEX_EXTENSION appended.
+     *
+     * @param filename           the file to write the Graph data to
+     * @param vertexPropertyKeys the keys of the vertex elements to write to JSON
+     * @param edgePropertyKeys   the keys of the edge elements to write to JSON
+     * @param mode               determines the format of the GraphSON
+     * @throws IOException thrown if there is an error generating the JSON data
+     */
+    public void outputGraph(final String filename, final Set<String> vertexPropertyKeys,
+                            final Set<String> edgePropertyKeys, final GraphSONMode mode) throws IOException {
+        final FileOutputStream fos = new FileOutputStream(filename);
+        try {
+            final FileOutputStream index = new FileOutputStream(filename + INDEX_EXTENSION);
+            try {
+                outputGraph(fos, index, vertexPropertyKeys, edgePropertyKeys, mode);
+            } finally {
+                index.close();
+            }
+        } finally {
+            fos.close();
+        }
+    }
+
+    /**
+     * Write the data in a Graph to a line-delimited GraphSON OutputStream.
+     *
+     * @param jsonOutputStream   the OutputStream to write the Graph data to
+     * @param vertexPropertyKeys the keys of the vertex elements to write to JSON
+     * @param edgePropertyKeys   the keys of the edge elements to write to JSON
+     * @param mode               determines the format of the GraphSON
+     * @throws IOException thrown if there is an error generating the JSON data
+     */
+    public void outputGraph(final OutputStream jsonOutputStream, final Set<String> vertexPropertyKeys,
+                            final Set<String> edgePropertyKeys, final GraphSONMode mode) throws IOException {
+        outputGraph(jsonOutputStream, null, vertexPropertyKeys, edgePropertyKeys, mode);
+    }
+
+    /**
+     * Write the data in a Graph to a line-delimited GraphSON OutputStream and, optionally, its index.
+     *
+     * @param jsonOutputStream   the OutputStream to write the Graph data to
+     * @param indexOutputStream  the OutputStream to write the index to or null
+     * @param vertexPropertyKeys the keys of the vertex elements to write to JSON
+     * @param edgePropertyKeys   the keys of the edge elements to write to JSON
+     * @param mode               determines the format of the GraphSON
+     * @throws IOException thrown if there is an error generating the JSON data
+     */
+    public void outputGraph(final OutputStream jsonOutputStream, final OutputStream indexOutputStream,
+                            final Set<String> vertexPropertyKeys, final Set<String> edgePropertyKeys,
+                            final GraphSONMode mode) throws IOException {
+        outputGraph(jsonOutputStream, indexOutputStream,
+                Collections.singletonList(this.graph.getVertices()), Collections.singletonList(this.graph.getEdges()),
+                vertexPropertyKeys, edgePropertyKeys, mode);
+    }
+
+    /**
+     * Write the vertices and edges of the given partitions to a line-delimited GraphSON OutputStream and, optionally,
+     * its index.  Each partition is iterated by its own thread, so the graph must allow the partitions to be read
+     * concurrently.  Partitions are typically disjoint ranges of the elements, e.g. the vertices of an index for
+     * different values of a key, and together should hold each vertex and edge once.
+     *
+     * @param jsonOutputStream   the OutputStream to write the Graph data to
+     * @param indexOutputStream  the OutputStream to write the index to or null
+     * @param vertexPartitions   the partitions of the vertices to write
+     * @param edgePartitions     the partitions of the edges to write
+     * @param vertexPropertyKeys the keys of the vertex elements to write to JSON
+     * @param edgePropertyKeys   the keys of the edge elements to write to JSON
+     * @param mode               determines the format of the GraphSON
+     * @throws IOException thrown if there is an error generating the JSON data
+     */
+    public void outputGraph(final OutputStream jsonOutputStream, final OutputStream indexOutputStream,
+                            final List<? extends Iterable<Vertex>> vertexPartitions,
+                            final List<? extends Iterable<Edge>> edgePartitions,
+                            final Set<String> vertexPropertyKeys, final Set<String> edgePropertyKeys,
+                            final GraphSONMode mode) throws IOException {
+        if (jsonOutputStream == null) {
+            throw new IllegalArgumentException("OutputStream must not be null");
+        }
+
+        final GraphSONStreamWriter graphson = new GraphSONStreamWriter(mode,
+                ElementPropertyConfig.includeProperties(vertexPropertyKeys, edgePropertyKeys, false));
+        final ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        final Output output = new Output(jsonOutputStream);
+        final List<Long> vertexOffsets;
+        final List<Long> edgeOffsets;
+        try {
+            output.write(line("{\"" + GraphSONTokens.MODE + "\":\"" + mode + "\"}"));
+            output.write(line("\"" + GraphSONTokens.VERTICES + "\""));
+            vertexOffsets = writeSection(output, pool, graphson, vertexPartitions);
+            output.write(line("\"" + GraphSONTokens.EDGES + "\""));
+            edgeOffsets = writeSection(output, pool, graphson, edgePartitions);
+        } finally {
+            pool.shutdownNow();
+        }
+        jsonOutputStream.flush();
+
+        if (indexOutputStream != null) {
+            final JsonGenerator jg = jsonFactory.createGenerator(indexOutputStream);
+            jg.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            jg.writeStartObject();
+            jg.writeStringField(GraphSONTokens.MODE, mode.toString());
+            writeOffsets(jg, GraphSONTokens.VERTICES, vertexOffsets);
+            writeOffsets(jg, GraphSONTokens.EDGES, edgeOffsets);
+            jg.writeEndObject();
+            jg.flush();
+            jg.close();
+        }
+    }
+
+    /**
+     * Writes the chunks of the partitions as they are serialized and returns the offsets of the chunks followed by
+     * the offset of the end of the section.
+     */
+    private List<Long> writeSection(final Output output, final ExecutorService pool, final GraphSONStreamWriter graphson,
+                                    final List<? extends Iterable<? extends Element>> partitions) throws IOException {
+        final BlockingQueue<Future<byte[]>> queue = new ArrayBlockingQueue<Future<byte[]>>(2 * this.threads + partitions.size());
+        final List<Thread> feeders = new ArrayList<Thread>(partitions.size());
+        for (final Iterable<? extends Element> partition : partitions) {
+            final Thread feeder = new Thread(new Feeder(partition, queue, pool, graphson), "GraphSONLinesWriter-" + feeders.size());
+            feeder.setDaemon(true);
+            feeders.add(feeder);
+            feeder.start();
+        }
+
+        final List<Long> offsets = new ArrayList<Long>();
+        try {
+            int running = feeders.size();
+            while (running > 0) {
+                final Future<byte[]> chunk = queue.take();
+                if (chunk == END) {
+                    running--;
+                } else {
+                    offsets.add(output.offset);
+                    output.write(chunk.get());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw rethrow(e);
+        } finally {
+            for (final Thread feeder : feeders) {
+                feeder.interrupt();
+            }
+        }
+        offsets.add(output.offset);
+        return offsets;
+    }
+
+    private static void writeOffsets(final JsonGenerator jg, final String section, final List<Long> offsets) throws IOException {
+        jg.writeArrayFieldStart(section);
+        for (final Long offset : offsets) {
+            jg.writeNumber(offset);
+        }
+        jg.writeEndArray();
+    }
+
+    private static byte[] line(final String json) {
+        return (json + "\n").getBytes(UTF8);
+    }
+
+    static IOException rethrow(final ExecutionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof IOException)
+            return (IOException) cause;
+        if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+        if (cause instanceof Error)
+            throw (Error) cause;
+        throw new RuntimeException(cause.getMessage(), cause);
+    }
+
+    /**
+     * Write the data in a Graph to a line-delimited GraphSON OutputStream. All keys are written to JSON. Utilizing
+     * GraphSONMode.NORMAL.
+     *
+     * @param graph            the graph to serialize to JSON
+     * @param jsonOutputStream the OutputStream to write the Graph data to
+     * @throws IOException thrown if there is an error generating the JSON data
+     */
+    public static void outputGraph(final Graph graph, final OutputStream jsonOutputStream) throws IOException {
+        final GraphSONLinesWriter writer = new GraphSONLinesWriter(graph);
+        writer.outputGraph(jsonOutputStream, null, null, GraphSONMode.NORMAL);
+    }
+
+    /**
+     * Write the data in a Graph to a file of line-delimited GraphSON and its index. All keys are written to JSON.
+     *
+     * @param graph    the graph to serialize to JSON
+     * @param filename the file to write the Graph data to
+     * @param mode     determines the format of the GraphSON
+     * @throws IOException thrown if there is an error generating the JSON data
+     */
+    public static void outputGraph(final Graph graph, final String filename, final GraphSONMode mode) throws IOException {
+        final GraphSONLinesWriter writer = new GraphSONLinesWriter(graph);
+        writer.outputGraph(filename, null, null, mode);
+    }
+
+    private static class Output {
+        private final OutputStream out;
+        private long offset = 0l;
+
+        private Output(final OutputStream out) {
+            this.out = out;
+        }
+
+        private void write(final byte[] bytes) throws IOException {
+            this.out.write(bytes);
+            this.offset += bytes.length;
+        }
+    }
+
+    /**
+     * Iterates a partition and submits its chunks for serialization, followed by END.
+     */
+    private class Feeder implements Runnable {
+        private final Iterable<? extends Element> partition;
+        private final BlockingQueue<Future<byte[]>> queue;
+        private final ExecutorService pool;
+        private final GraphSONStreamWriter graphson;
+
+        private Feeder(final Iterable<? extends Element> partition, final BlockingQueue<Future<byte[]>> queue,
+                       final ExecutorService pool, final GraphSONStreamWriter graphson) {
+            this.partition = partition;
+            this.queue = queue;
+            this.pool = pool;
+            this.graphson = graphson;
+        }
+
+        public void run() {
+            try {
+                try {
+                    List<Element> chunk = new ArrayList<Element>(chunkSize);
+                    for (final Element element : this.partition) {
+                        chunk.add(element);
+                        if (chunk.size() == chunkSize) {
+                            this.queue.put(this.pool.submit(new Serializer(chunk, this.graphson)));
+                            chunk = new ArrayList<Element>(chunkSize);
+                        }
+                    }
+                    if (!chunk.isEmpty())
+                        this.queue.put(this.pool.submit(new Serializer(chunk, this.graphson)));
+                } catch (final RuntimeException e) {
+                    final FutureTask<byte[]> failure = new FutureTask<byte[]>(new Callable<byte[]>() {
+                        public byte[] call() {
+                            throw e;
+                        }
+                    });
+                    failure.run();
+                    this.queue.put(failure);
+                }
+                this.queue.put(END);
+            } catch (InterruptedException e) {
+                // the section was abandoned
+            }
+        }
+    }
+
+    /**
+     * Serializes a chunk of elements to a line each.
+     */
+    private static class Serializer implements Callable<byte[]> {
+        private final List<Element> chunk;
+        private final GraphSONStreamWriter graphson;
+
+        private Serializer(final List<Element> chunk, final GraphSONStreamWriter graphson) {
+            this.chunk = chunk;
+            this.graphson = graphson;
+        }
+
+        public byte[] call() throws IOException {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(this.chunk.size() << 7);
+            final JsonGenerator jg = jsonFactory.createGenerator(bytes);
+            jg.setRootValueSeparator(null);
+            for (final Element element : this.chunk) {
+                this.graphson.writeElement(jg, element);
+                jg.writeRaw('\n');
+            }
+            jg.close();
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -3,10 +3,8 @@ package com.tinkerpop.blueprints.util.io.graphson;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.MappingJsonFactory;
 import com.tinkerpop.blueprints.Graph;
-import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
 
 import java.io.FileInputStream;
@@ -146,28 +144,26 @@ public class GraphSONReader {
         final BatchGraph graph = BatchGraph.wrap(inputGraph, bufferSize);
 
         final ElementFactory elementFactory = new GraphElementFactory(graph);
-        GraphSONUtility graphson = new GraphSONUtility(GraphSONMode.NORMAL, elementFactory,
-                vertexPropertyKeys, edgePropertyKeys);
+        final ElementPropertyConfig config = ElementPropertyConfig.includeProperties(vertexPropertyKeys, edgePropertyKeys);
+
+        // elements are created from the parser tokens rather than from a tree per element
+        GraphSONStreamReader graphson = new GraphSONStreamReader(GraphSONMode.NORMAL, elementFactory, config);
 
         while (jp.nextToken() != JsonToken.END_OBJECT) {
             final String fieldname = jp.getCurrentName() == null ? "" : jp.getCurrentName();
             if (fieldname.equals(GraphSONTokens.MODE)) {
                 jp.nextToken();
                 final GraphSONMode mode = GraphSONMode.valueOf(jp.getText());
-                graphson = new GraphSONUtility(mode, elementFactory, vertexPropertyKeys, edgePropertyKeys);
+                graphson = new GraphSONStreamReader(mode, elementFactory, config);
             } else if (fieldname.equals(GraphSONTokens.VERTICES)) {
                 jp.nextToken();
                 while (jp.nextToken() != JsonToken.END_ARRAY) {
-                    final JsonNode node = jp.readValueAsTree();
-                    graphson.vertexFromJson(node);
+                    graphson.readVertex(jp);
                 }
             } else if (fieldname.equals(GraphSONTokens.EDGES)) {
                 jp.nextToken();
                 while (jp.nextToken() != JsonToken.END_ARRAY) {
-                    final JsonNode node = jp.readValueAsTree();
-                    final Vertex inV = graph.getVertex(GraphSONUtility.getTypedValueFromJsonNode(node.get(GraphSONTokens._IN_V)));
-                    final Vertex outV = graph.getVertex(GraphSONUtility.getTypedValueFromJsonNode(node.get(GraphSONTokens._OUT_V)));
-                    graphson.edgeFromJson(node, outV, inV);
+                    graphson.readEdge(jp, graph);
                 }
             }
         }
@@ -0,0 +1,332 @@
+package com.tinkerpop.blueprints.util.io.graphson;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.io.graphson.ElementPropertyConfig.ElementPropertiesRule;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads GraphSON vertices and edges from the tokens of a JsonParser without building a JsonNode tree per element.
+ * Property values are decoded as they are parsed and buffered only until the reserved keys an element is created with
+ * have been read, as these may follow the properties.  The values produced are the same as those of GraphSONUtility.
+ */
+class GraphSONStreamReader {
+
+    private static final String EMPTY_STRING = "";
+
+    private final ElementFactory factory;
+    private final boolean hasEmbeddedTypes;
+    private final List<String> vertexPropertyKeys;
+    private final List<String> edgePropertyKeys;
+    private final ElementPropertiesRule vertexPropertiesRule;
+    private final ElementPropertiesRule edgePropertiesRule;
+
+    private String[] keys = new String[8];
+    private Object[] values = new Object[8];
+    private int size = 0;
+    private Object id;
+    private Object outId;
+    private Object inId;
+    private String label;
+
+    GraphSONStreamReader(final GraphSONMode mode, final ElementFactory factory, final ElementPropertyConfig config) {
+        this.factory = factory;
+        this.hasEmbeddedTypes = mode == GraphSONMode.EXTENDED;
+        this.vertexPropertyKeys = config.getVertexPropertyKeys();
+        this.edgePropertyKeys = config.getEdgePropertyKeys();
+        this.vertexPropertiesRule = config.getVertexPropertiesRule();
+        this.edgePropertiesRule = config.getEdgePropertiesRule();
+    }
+
+    /**
+     * Reads a vertex from the parser, which is positioned at the start of the vertex object, and leaves the parser at
+     * its end.
+     */
+    Vertex readVertex(final JsonParser jp) throws IOException {
+        this.parseObject(jp, false);
+        final Vertex vertex = this.factory.createVertex(this.id);
+        this.setProperties(vertex);
+        return vertex;
+    }
+
+    /**
+     * Reads an edge from the parser, which is positioned at the start of the edge object, and leaves the parser at
+     * its end.  The vertices of the edge are looked up in the graph by the ids in the edge.
+     */
+    Edge readEdge(final JsonParser jp, final Graph graph) throws IOException {
+        this.parseObject(jp, true);
+        final Vertex in = graph.getVertex(this.inId);
+        final Vertex out = graph.getVertex(this.outId);
+        final Edge edge = this.factory.createEdge(this.id, out, in, this.label);
+        this.setProperties(edge);
+        return edge;
+    }
+
+    /**
+     * Reads a vertex or an edge from the parser like readVertex() and readEdge() but returns its ids, label and
+     * properties rather than creating it, so that it may be parsed on one thread and added to a graph on another.
+     */
+    ParsedElement parseElement(final JsonParser jp, final boolean edge) throws IOException {
+        this.parseObject(jp, edge);
+        final Object[] properties = new Object[this.size << 1];
+        for (int i = 0; i < this.size; i++) {
+            properties[i << 1] = this.keys[i];
+            properties[(i << 1) + 1] = this.values[i];
+            this.keys[i] = null;
+            this.values[i] = null;
+        }
+        this.size = 0;
+        return new ParsedElement(edge, this.id, this.outId, this.inId, this.label, properties);
+    }
+
+    private void parseObject(final JsonParser jp, final boolean edge) throws IOException {
+        this.id = null;
+        this.outId = null;
+        this.inId = null;
+
+        // assigned an empty string edge label in cases where one does not exist, as GraphSONUtility does
+        this.label = edge ? EMPTY_STRING : null;
+        while (jp.nextToken() != JsonToken.END_OBJECT) {
+            final String key = jp.getCurrentName();
+            final JsonToken token = jp.nextToken();
+            if (key.equals(GraphSONTokens._ID)) {
+                this.id = readId(jp);
+            } else if (!edge) {
+                this.readProperty(jp, key, this.vertexPropertyKeys, this.vertexPropertiesRule);
+            } else if (key.equals(GraphSONTokens._OUT_V)) {
+                this.outId = readId(jp);
+            } else if (key.equals(GraphSONTokens._IN_V)) {
+                this.inId = readId(jp);
+            } else if (key.equals(GraphSONTokens._LABEL)) {
+                this.label = token == JsonToken.VALUE_STRING ? jp.getText() : null;
+                jp.skipChildren();
+            } else {
+                this.readProperty(jp, key, this.edgePropertyKeys, this.edgePropertiesRule);
+            }
+        }
+    }
+
+    private void readProperty(final JsonParser jp, final String key, final List<String> propertyKeys,
+                              final ElementPropertiesRule rule) throws IOException {
+        if (GraphSONUtility.isReservedKey(key) || !GraphSONUtility.includeKey(key, propertyKeys, rule)) {
+            jp.skipChildren();
+            return;
+        }
+
+        // graphson containing null values can't be shoved into element property keys
+        final Object value = this.hasEmbeddedTypes ? readTypedValue(jp) : readValue(jp);
+        if (value == null)
+            return;
+
+        if (this.size == this.keys.length) {
+            final String[] keys = new String[this.size << 1];
+            final Object[] values = new Object[this.size << 1];
+            System.arraycopy(this.keys, 0, keys, 0, this.size);
+            System.arraycopy(this.values, 0, values, 0, this.size);
+            this.keys = keys;
+            this.values = values;
+        }
+        this.keys[this.size] = key;
+        this.values[this.size] = value;
+        this.size++;
+    }
+
+    private void setProperties(final Element element) {
+        for (int i = 0; i < this.size; i++) {
+            element.setProperty(this.keys[i], this.values[i]);
+            this.keys[i] = null;
+            this.values[i] = null;
+        }
+        this.size = 0;
+    }
+
+    /**
+     * Reads an element id the way GraphSONUtility.getTypedValueFromJsonNode() converts it.
+     */
+    private static Object readId(final JsonParser jp) throws IOException {
+        switch (jp.getCurrentToken()) {
+            case VALUE_TRUE:
+                return true;
+            case VALUE_FALSE:
+                return false;
+            case VALUE_NUMBER_FLOAT:
+                return jp.getDoubleValue();
+            case VALUE_NUMBER_INT:
+                return readInteger(jp);
+            case VALUE_STRING:
+                return jp.getText();
+            case START_ARRAY:
+            case START_OBJECT:
+                // structured ids are passed on as json to be reprocessed by the graph
+                return jp.readValueAsTree();
+            default:
+                return null;
+        }
+    }
+
+    private static Object readValue(final JsonParser jp) throws IOException {
+        switch (jp.getCurrentToken()) {
+            case VALUE_TRUE:
+                return true;
+            case VALUE_FALSE:
+                return false;
+            case VALUE_NUMBER_FLOAT:
+                return jp.getDoubleValue();
+            case VALUE_NUMBER_INT:
+                return readInteger(jp);
+            case VALUE_STRING:
+                return jp.getText();
+            case START_ARRAY:
+                final List list = new ArrayList();
+                while (jp.nextToken() != JsonToken.END_ARRAY) {
+                    list.add(readValue(jp));
+                }
+                return list;
+            case START_OBJECT:
+                final Map<String, Object> map = new HashMap<String, Object>();
+                while (jp.nextToken() != JsonToken.END_OBJECT) {
+                    final String key = jp.getCurrentName();
+                    jp.nextToken();
+                    final Object value = readValue(jp);
+                    if (value != null)
+                        map.put(key, value);
+                }
+                return map;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Reads an integer as Integer or Long.  Larger integers are dropped like those of a JsonNode.
+     */
+    private static Object readInteger(final JsonParser jp) throws IOException {
+        switch (jp.getNumberType()) {
+            case INT:
+                return jp.getIntValue();
+            case LONG:
+                return jp.getLongValue();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Reads a value of EXTENDED GraphSON, i.e. an object of its type and its value.  Should the value precede the
+     * type, it is read as a JsonNode and converted by GraphSONUtility.
+     */
+    private static Object readTypedValue(final JsonParser jp) throws IOException {
+        if (jp.getCurrentToken() != JsonToken.START_OBJECT)
+            throw new JsonParseException("Expected an object of type and value", jp.getCurrentLocation());
+
+        String type = null;
+        JsonNode untypedValue = null;
+        Object value = null;
+        while (jp.nextToken() != JsonToken.END_OBJECT) {
+            final String key = jp.getCurrentName();
+            jp.nextToken();
+            if (key.equals(GraphSONTokens.TYPE) && jp.getCurrentToken() == JsonToken.VALUE_STRING) {
+                type = jp.getText();
+            } else if (key.equals(GraphSONTokens.VALUE) && type != null) {
+                value = readValueOfType(jp, type);
+            } else if (key.equals(GraphSONTokens.VALUE)) {
+                untypedValue = jp.readValueAsTree();
+            } else {
+                jp.skipChildren();
+            }
+        }
+
+        if (untypedValue != null) {
+            final ObjectNode node = JsonNodeFactory.instance.objectNode();
+            node.put(GraphSONTokens.TYPE, type);
+            node.put(GraphSONTokens.VALUE, untypedValue);
+            return GraphSONUtility.readProperty(node, true);
+        }
+        return value;
+    }
+
+    private static Object readValueOfType(final JsonParser jp, final String type) throws IOException {
+        final JsonToken token = jp.getCurrentToken();
+        final boolean number = token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT;
+        final Object value;
+        if (type.equals(GraphSONTokens.TYPE_BOOLEAN)) {
+            value = token == JsonToken.VALUE_TRUE;
+        } else if (type.equals(GraphSONTokens.TYPE_FLOAT)) {
+            value = Float.parseFloat(jp.getText());
+        } else if (type.equals(GraphSONTokens.TYPE_BYTE)) {
+            value = Byte.parseByte(jp.getText());
+        } else if (type.equals(GraphSONTokens.TYPE_SHORT)) {
+            value = Short.parseShort(jp.getText());
+        } else if (type.equals(GraphSONTokens.TYPE_DOUBLE)) {
+            value = number ? jp.getDoubleValue() : 0d;
+        } else if (type.equals(GraphSONTokens.TYPE_INTEGER)) {
+            value = number ? jp.getIntValue() : 0;
+        } else if (type.equals(GraphSONTokens.TYPE_LONG)) {
+            value = number ? jp.getLongValue() : 0l;
+        } else if (type.equals(GraphSONTokens.TYPE_STRING)) {
+            value = token == JsonToken.VALUE_STRING ? jp.getText() : null;
+        } else if (type.equals(GraphSONTokens.TYPE_LIST)) {
+            final List list = new ArrayList();
+            if (token == JsonToken.START_ARRAY) {
+                while (jp.nextToken() != JsonToken.END_ARRAY) {
+                    list.add(readTypedValue(jp));
+                }
+            }
+            value = list;
+        } else if (type.equals(GraphSONTokens.TYPE_MAP)) {
+            final Map<String, Object> map = new HashMap<String, Object>();
+            if (token == JsonToken.START_OBJECT) {
+                while (jp.nextToken() != JsonToken.END_OBJECT) {
+                    final String key = jp.getCurrentName();
+                    jp.nextToken();
+                    final Object entry = readTypedValue(jp);
+                    if (entry != null)
+                        map.put(key, entry);
+                }
+            }
+            value = map;
+        } else {
+            // unknown and unrecognized types
+            value = null;
+        }
+
+        // containers not consumed above
+        jp.skipChildren();
+        return value;
+    }
+
+    /**
+     * The ids, label and alternating property keys and values of a parsed vertex or edge.
+     */
+    static final class ParsedElement {
+        final boolean edge;
+        final Object id;
+        final Object outId;
+        final Object inId;
+        final String label;
+        final Object[] properties;
+
+        private ParsedElement(final boolean edge, final Object id, final Object outId, final Object inId,
+                              final String label, final Object[] properties) {
+            this.edge = edge;
+            this.id = id;
+            this.outId = outId;
+            this.inId = inId;
+            this.label = label;
+            this.properties = properties;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.tinkerpop.blueprints.util.io.graphson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.io.graphson.ElementPropertyConfig.ElementPropertiesRule;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes GraphSON vertices and edges straight to a JsonGenerator rather than building an ObjectNode per element.
+ * The JSON written is that of GraphSONUtility.objectNodeFromElement() except for the order of the properties, which
+ * is that of the element or, if normalized, sorted by key.  Only property values that are collections in EXTENDED mode
+ * are built as JsonNodes first, as their embedded types depend on the JSON of their items.
+ */
+class GraphSONStreamWriter {
+
+    private final GraphSONMode mode;
+    private final boolean showTypes;
+    private final boolean normalized;
+    private final List<String> vertexPropertyKeys;
+    private final List<String> edgePropertyKeys;
+    private final ElementPropertiesRule vertexPropertiesRule;
+    private final ElementPropertiesRule edgePropertiesRule;
+
+    GraphSONStreamWriter(final GraphSONMode mode, final ElementPropertyConfig config) {
+        this.mode = mode;
+        this.showTypes = mode == GraphSONMode.EXTENDED;
+        this.normalized = config.isNormalized();
+        this.vertexPropertyKeys = config.getVertexPropertyKeys();
+        this.edgePropertyKeys = config.getEdgePropertyKeys();
+        this.vertexPropertiesRule = config.getVertexPropertiesRule();
+        this.edgePropertiesRule = config.getEdgePropertiesRule();
+    }
+
+    void writeElement(final JsonGenerator jg, final Element element) throws IOException {
+        // check Edge first and then Vertex because there are graph implementations that have Edge extend from Vertex
+        final boolean isEdge = element instanceof Edge;
+        final List<String> propertyKeys = isEdge ? this.edgePropertyKeys : this.vertexPropertyKeys;
+        final ElementPropertiesRule rule = isEdge ? this.edgePropertiesRule : this.vertexPropertiesRule;
+
+        jg.writeStartObject();
+        if (propertyKeys != null && rule == ElementPropertiesRule.INCLUDE) {
+            for (String key : propertyKeys) {
+                this.writeProperty(jg, element, key, propertyKeys);
+            }
+        } else {
+            final List<String> keys = new ArrayList<String>(element.getPropertyKeys());
+            if (this.normalized)
+                Collections.sort(keys);
+            for (String key : keys) {
+                if (propertyKeys == null || !propertyKeys.contains(key))
+                    this.writeProperty(jg, element, key, propertyKeys);
+            }
+        }
+
+        if (isEdge) {
+            final Edge edge = (Edge) element;
+            if (this.includeReservedKey(GraphSONTokens._ID, propertyKeys, rule)) {
+                jg.writeFieldName(GraphSONTokens._ID);
+                writeObject(jg, edge.getId());
+            }
+            if (this.includeReservedKey(GraphSONTokens._TYPE, propertyKeys, rule)) {
+                jg.writeStringField(GraphSONTokens._TYPE, GraphSONTokens.EDGE);
+            }
+            if (this.includeReservedKey(GraphSONTokens._OUT_V, propertyKeys, rule)) {
+                jg.writeFieldName(GraphSONTokens._OUT_V);
+                writeObject(jg, edge.getVertex(Direction.OUT).getId());
+            }
+            if (this.includeReservedKey(GraphSONTokens._IN_V, propertyKeys, rule)) {
+                jg.writeFieldName(GraphSONTokens._IN_V);
+                writeObject(jg, edge.getVertex(Direction.IN).getId());
+            }
+            if (this.includeReservedKey(GraphSONTokens._LABEL, propertyKeys, rule)) {
+                jg.writeStringField(GraphSONTokens._LABEL, edge.getLabel());
+            }
+        } else if (element instanceof Vertex) {
+            if (this.includeReservedKey(GraphSONTokens._ID, propertyKeys, rule)) {
+                jg.writeFieldName(GraphSONTokens._ID);
+                writeObject(jg, element.getId());
+            }
+            if (this.includeReservedKey(GraphSONTokens._TYPE, propertyKeys, rule)) {
+                jg.writeStringField(GraphSONTokens._TYPE, GraphSONTokens.VERTEX);
+            }
+        }
+        jg.writeEndObject();
+    }
+
+    private boolean includeReservedKey(final String key, final List<String> propertyKeys, final ElementPropertiesRule rule) {
+        return this.mode != GraphSONMode.COMPACT || GraphSONUtility.includeKey(key, propertyKeys, rule);
+    }
+
+    private void writeProperty(final JsonGenerator jg, final Element element, final String key,
+                               final List<String> propertyKeys) throws IOException {
+        // the reserved keys are written after the properties and take their place
+        if (GraphSONUtility.isReservedKey(key))
+            return;
+
+        final Object value = element.getProperty(key);
+        if (value == null)
+            return;
+
+        jg.writeFieldName(key);
+        if (!this.showTypes) {
+            writeValue(jg, value, propertyKeys);
+        } else if (isScalar(value)) {
+            jg.writeStartObject();
+            jg.writeStringField(GraphSONTokens.TYPE, typeOf(value));
+            jg.writeFieldName(GraphSONTokens.VALUE);
+            writeObject(jg, value);
+            jg.writeEndObject();
+        } else {
+            jg.writeTree((JsonNode) GraphSONUtility.jsonValue(value, propertyKeys, true));
+        }
+    }
+
+    /**
+     * Writes a value without embedded types as GraphSONUtility.createJSONMap() converts it.
+     */
+    private static void writeValue(final JsonGenerator jg, final Object value, final List<String> propertyKeys) throws IOException {
+        if (value instanceof List) {
+            writeList(jg, ((List) value).iterator(), propertyKeys);
+        } else if (value instanceof Iterable) {
+            writeList(jg, ((Iterable) value).iterator(), propertyKeys);
+        } else if (value instanceof Iterator) {
+            writeList(jg, (Iterator) value, propertyKeys);
+        } else if (value instanceof Map) {
+            writeMap(jg, (Map) value, propertyKeys);
+        } else if (value instanceof Element) {
+            jg.writeTree((JsonNode) GraphSONUtility.jsonValue(value, propertyKeys, false));
+        } else if (value != null && value.getClass().isArray()) {
+            writeArray(jg, value, propertyKeys);
+        } else {
+            writeObject(jg, value);
+        }
+    }
+
+    private static void writeList(final JsonGenerator jg, final Iterator items, final List<String> propertyKeys) throws IOException {
+        jg.writeStartArray();
+        while (items.hasNext()) {
+            writeItem(jg, items.next(), propertyKeys);
+        }
+        jg.writeEndArray();
+    }
+
+    private static void writeArray(final JsonGenerator jg, final Object array, final List<String> propertyKeys) throws IOException {
+        jg.writeStartArray();
+        final int length = Array.getLength(array);
+        for (int i = 0; i < length; i++) {
+            writeItem(jg, Array.get(array, i), propertyKeys);
+        }
+        jg.writeEndArray();
+    }
+
+    /**
+     * Writes an item of a list, which unlike a value of a map is not converted if it is a non-list Iterable.
+     */
+    private static void writeItem(final JsonGenerator jg, final Object item, final List<String> propertyKeys) throws IOException {
+        if (item instanceof List || item instanceof Map || item instanceof Element || (item != null && item.getClass().isArray()))
+            writeValue(jg, item, propertyKeys);
+        else
+            writeObject(jg, item);
+    }
+
+    private static void writeMap(final JsonGenerator jg, final Map map, final List<String> propertyKeys) throws IOException {
+        jg.writeStartObject();
+        for (Object entry : map.entrySet()) {
+            jg.writeFieldName(((Map.Entry) entry).getKey().toString());
+            writeValue(jg, ((Map.Entry) entry).getValue(), propertyKeys);
+        }
+        jg.writeEndObject();
+    }
+
+    private static boolean isScalar(final Object value) {
+        return !(value instanceof Iterable || value instanceof Iterator || value instanceof Map
+                || value instanceof Element || value.getClass().isArray());
+    }
+
+    /**
+     * Writes a scalar as GraphSONUtility.putObject() does.
+     */
+    private static void writeObject(final JsonGenerator jg, final Object value) throws IOException {
+        if (value == null) {
+            jg.writeNull();
+        } else if (value.getClass() == Boolean.class) {
+            jg.writeBoolean((Boolean) value);
+        } else if (value.getClass() == Long.class) {
+            jg.writeNumber((Long) value);
+        } else if (value.getClass() == Integer.class) {
+            jg.writeNumber((Integer) value);
+        } else if (value.getClass() == Float.class) {
+            jg.writeNumber((Float) value);
+        } else if (value.getClass() == Double.class) {
+            jg.writeNumber((Double) value);
+        } else if (value.getClass() == Short.class) {
+            jg.writeNumber((Short) value);
+        } else if (value.getClass() == Byte.class) {
+            jg.writeNumber((Byte) value);
+        } else if (value.getClass() == String.class) {
+            jg.writeString((String) value);
+        } else {
+            jg.writeString(value.toString());
+        }
+    }
+
+    private static String typeOf(final Object value) {
+        final Class c = value.getClass();
+        if (c == Double.class)
+            return GraphSONTokens.TYPE_DOUBLE;
+        else if (c == Float.class)
+            return GraphSONTokens.TYPE_FLOAT;
+        else if (c == Byte.class)
+            return GraphSONTokens.TYPE_BYTE;
+        else if (c == Short.class)
+            return GraphSONTokens.TYPE_SHORT;
+        else if (c == Integer.class)
+            return GraphSONTokens.TYPE_INTEGER;
+        else if (c == Long.class)
+            return GraphSONTokens.TYPE_LONG;
+        else if (c == Boolean.class)
+            return GraphSONTokens.TYPE_BOOLEAN;
+        else
+            return GraphSONTokens.TYPE_STRING;
+    }
+}
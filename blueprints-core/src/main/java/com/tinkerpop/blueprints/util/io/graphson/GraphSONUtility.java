@@ -435,7 +435,7 @@ public class GraphSONUtility {
         return mode != GraphSONMode.COMPACT || includeKey(key, propertyKeys, rule);
     }
 
-    private static boolean includeKey(final String key, final List<String> propertyKeys,
+    static boolean includeKey(final String key, final List<String> propertyKeys,
                                       final ElementPropertiesRule rule) {
         if (propertyKeys == null) {
             // when null always include the key and shortcut this piece
@@ -458,12 +458,12 @@ public class GraphSONUtility {
         return keySituation;
     }
 
-    private static boolean isReservedKey(final String key) {
+    static boolean isReservedKey(final String key) {
         return key.equals(GraphSONTokens._ID) || key.equals(GraphSONTokens._TYPE) || key.equals(GraphSONTokens._LABEL)
                 || key.equals(GraphSONTokens._OUT_V) || key.equals(GraphSONTokens._IN_V);
     }
 
-    private static Object readProperty(final JsonNode node, final boolean hasEmbeddedTypes) {
+    static Object readProperty(final JsonNode node, final boolean hasEmbeddedTypes) {
         final Object propertyValue;
 
         if (hasEmbeddedTypes) {
@@ -549,28 +549,34 @@ public class GraphSONUtility {
     private static ObjectNode createJSONMap(final Map map, final List<String> propertyKeys, final boolean showTypes) {
         final ObjectNode jsonMap = jsonNodeFactory.objectNode();
         for (Object key : map.keySet()) {
-            Object value = map.get(key);
-            if (value != null) {
-                if (value instanceof List) {
-                    value = createJSONList((List) value, propertyKeys, showTypes);
-                } else if (value instanceof Iterable){
-                    value = createJSONList(getList((Iterable) value), propertyKeys, showTypes);
-                } else if (value instanceof Iterator){
-                    value = createJSONList(getList((Iterator) value), propertyKeys, showTypes);
-                } else if (value instanceof Map) {
-                    value = createJSONMap((Map) value, propertyKeys, showTypes);
-                } else if (value instanceof Element) {
-                    value = objectNodeFromElement((Element) value, propertyKeys,
-                            showTypes ? GraphSONMode.EXTENDED : GraphSONMode.NORMAL);
-                } else if (value.getClass().isArray()) {
-                    value = createJSONList(convertArrayToList(value), propertyKeys, showTypes);
-                }
-            }
-
-            putObject(jsonMap, key.toString(), getValue(value, showTypes));
+            putObject(jsonMap, key.toString(), jsonValue(map.get(key), propertyKeys, showTypes));
         }
         return jsonMap;
 
+    }
+
+    /**
+     * Converts a property value to the value put into the JSON of its element.
+     */
+    static Object jsonValue(Object value, final List<String> propertyKeys, final boolean showTypes) {
+        if (value != null) {
+            if (value instanceof List) {
+                value = createJSONList((List) value, propertyKeys, showTypes);
+            } else if (value instanceof Iterable){
+                value = createJSONList(getList((Iterable) value), propertyKeys, showTypes);
+            } else if (value instanceof Iterator){
+                value = createJSONList(getList((Iterator) value), propertyKeys, showTypes);
+            } else if (value instanceof Map) {
+                value = createJSONMap((Map) value, propertyKeys, showTypes);
+            } else if (value instanceof Element) {
+                value = objectNodeFromElement((Element) value, propertyKeys,
+                        showTypes ? GraphSONMode.EXTENDED : GraphSONMode.NORMAL);
+            } else if (value.getClass().isArray()) {
+                value = createJSONList(convertArrayToList(value), propertyKeys, showTypes);
+            }
+        }
+
+        return getValue(value, showTypes);
     }
     
 	private static List getList(final Iterable value) {
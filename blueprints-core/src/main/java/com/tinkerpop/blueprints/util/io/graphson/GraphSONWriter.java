@@ -3,18 +3,16 @@ package com.tinkerpop.blueprints.util.io.graphson;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.MappingJsonFactory;
-import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Graph;
-import com.tinkerpop.blueprints.Vertex;
-import com.tinkerpop.blueprints.util.io.LexicographicalElementComparator;
+import com.tinkerpop.blueprints.util.io.ExternalSort;
 
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
+import java.io.StringWriter;
+import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -25,6 +23,8 @@ import java.util.Set;
 public class GraphSONWriter {
     private static final JsonFactory jsonFactory = new MappingJsonFactory();
     private final Graph graph;
+    private long sortMemoryLimit = ExternalSort.DEFAULT_MEMORY_LIMIT;
+    private File sortDirectory = new File(System.getProperty("java.io.tmpdir"));
 
     /**
      * @param graph the Graph to pull the data from
@@ -64,6 +64,17 @@ public class GraphSONWriter {
     }
 
 
+    /**
+     * Write the data in a Graph to a JSON OutputStream.  Normalized output is sorted by element id and property key,
+     * where the elements are sorted in bounded memory by spilling them to temporary files.
+     *
+     * @param jsonOutputStream   the JSON OutputStream to write the Graph data to
+     * @param vertexPropertyKeys the keys of the vertex elements to write to JSON
+     * @param edgePropertyKeys   the keys of the edge elements to write to JSON
+     * @param mode               determines the format of the GraphSON
+     * @param normalize          whether to write the elements in a deterministic order
+     * @throws IOException thrown if there is an error generating the JSON data
+     */
     public void outputGraph(final OutputStream jsonOutputStream, final Set<String> vertexPropertyKeys,
                             final Set<String> edgePropertyKeys, final GraphSONMode mode, final boolean normalize) throws IOException {
         final JsonGenerator jg = jsonFactory.createGenerator(jsonOutputStream);
@@ -71,7 +82,7 @@ public class GraphSONWriter {
         // don't let the JsonGenerator close the underlying stream...leave that to the client passing in the stream
         jg.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
 
-        final GraphSONUtility graphson = new GraphSONUtility(mode, null,
+        final GraphSONStreamWriter graphson = new GraphSONStreamWriter(mode,
                 ElementPropertyConfig.includeProperties(vertexPropertyKeys, edgePropertyKeys, normalize));
 
         jg.writeStartObject();
@@ -79,20 +90,11 @@ public class GraphSONWriter {
         jg.writeStringField(GraphSONTokens.MODE, mode.toString());
 
         jg.writeArrayFieldStart(GraphSONTokens.VERTICES);
-
-        final Iterable<Vertex> vertices = vertices(normalize);
-        for (Vertex v : vertices) {
-            jg.writeTree(graphson.objectNodeFromElement(v));
-        }
-
+        writeElements(jg, graphson, graph.getVertices(), normalize);
         jg.writeEndArray();
 
         jg.writeArrayFieldStart(GraphSONTokens.EDGES);
-
-        final Iterable<Edge> edges = edges(normalize);
-        for (Edge e : edges) {
-            jg.writeTree(graphson.objectNodeFromElement(e));
-        }
+        writeElements(jg, graphson, graph.getEdges(), normalize);
         jg.writeEndArray();
 
         jg.writeEndObject();
@@ -101,32 +103,48 @@ public class GraphSONWriter {
         jg.close();
     }
 
-    private Iterable<Vertex> vertices(boolean normalize) {
-        Iterable<Vertex> vertices;
-        if (normalize) {
-            vertices = new ArrayList<Vertex>();
-            for (Vertex v : graph.getVertices()) {
-                ((Collection<Vertex>) vertices).add(v);
+    /**
+     * Sets the number of characters of normalized JSON held in memory before it is spilled to disk for sorting.
+     */
+    public void setSortMemoryLimit(final long sortMemoryLimit) {
+        this.sortMemoryLimit = sortMemoryLimit;
+    }
+
+    /**
+     * Sets the directory of the temporary files of normalized output.
+     */
+    public void setSortDirectory(final File sortDirectory) {
+        this.sortDirectory = sortDirectory;
+    }
+
+    private void writeElements(final JsonGenerator jg, final GraphSONStreamWriter graphson,
+                               final Iterable<? extends Element> elements, final boolean normalize) throws IOException {
+        if (!normalize) {
+            for (Element element : elements) {
+                graphson.writeElement(jg, element);
             }
-            Collections.sort((List<Vertex>) vertices, new LexicographicalElementComparator());
-        } else {
-            vertices = graph.getVertices();
+            return;
         }
-        return vertices;
-    }
 
-    private Iterable<Edge> edges(boolean normalize) {
-        Iterable<Edge> edges;
-        if (normalize) {
-            edges = new ArrayList<Edge>();
-            for (Edge v : graph.getEdges()) {
-                ((Collection<Edge>) edges).add(v);
+        // elements are sorted as by LexicographicalElementComparator
+        final ExternalSort sort = new ExternalSort(this.sortMemoryLimit, this.sortDirectory);
+        try {
+            final StringWriter json = new StringWriter();
+            for (Element element : elements) {
+                final JsonGenerator elementGenerator = jsonFactory.createGenerator(json);
+                graphson.writeElement(elementGenerator, element);
+                elementGenerator.close();
+                sort.add(element.getId().toString(), json.toString());
+                json.getBuffer().setLength(0);
+            }
+
+            final Iterator<String> sorted = sort.sorted();
+            while (sorted.hasNext()) {
+                jg.writeRawValue(sorted.next());
             }
-            Collections.sort((List<Edge>) edges, new LexicographicalElementComparator());
-        } else {
-            edges = graph.getEdges();
+        } finally {
+            sort.close();
         }
-        return edges;
     }
 
     /**
@@ -15,6 +15,8 @@ import com.tinkerpop.blueprints.util.wrappers.WrapperGraph;
 import com.tinkerpop.blueprints.util.wrappers.batch.cache.VertexCache;
 import com.tinkerpop.blueprints.util.wrappers.id.IdGraph;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -78,8 +80,21 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
      * @param bufferSize Defines the number of vertices and edges loaded before starting a new transaction. The larger this value, the more memory is required but the faster the loading process.
      */
     public BatchGraph(final T graph, final VertexIDType type, final long bufferSize) {
+        this(graph, vertexCache(type), bufferSize);
+    }
+
+    /**
+     * Constructs a BatchGraph wrapping the provided baseGraph, using the specified buffer size and vertex cache.
+     * Use this constructor to configure a cache, e.g. the memory limit of an off-heap cache. A cache that is
+     * {@link Closeable} is closed when the BatchGraph is shut down.
+     *
+     * @param graph      Graph to be wrapped
+     * @param cache      Cache mapping the supplied vertex ids to the vertices of the wrapped graph
+     * @param bufferSize Defines the number of vertices and edges loaded before starting a new transaction. The larger this value, the more memory is required but the faster the loading process.
+     */
+    public BatchGraph(final T graph, final VertexCache cache, final long bufferSize) {
         if (graph == null) throw new IllegalArgumentException("Graph may not be null");
-        if (type == null) throw new IllegalArgumentException("Type may not be null");
+        if (cache == null) throw new IllegalArgumentException("Cache may not be null");
         if (bufferSize <= 0) throw new IllegalArgumentException("BufferSize must be positive");
         this.baseGraph = graph;
         this.bufferSize = bufferSize;
@@ -87,10 +102,15 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
         vertexIdKey = null;
         edgeIdKey = null;
 
-        cache = type.getVertexCache();
+        this.cache = cache;
 
         remainingBufferSize = this.bufferSize;
     }
+
+    private static VertexCache vertexCache(final VertexIDType type) {
+        if (type == null) throw new IllegalArgumentException("Type may not be null");
+        return type.getVertexCache();
+    }
     
     /**
      * Constructs a BatchGraph wrapping the provided baseGraph.
@@ -137,6 +157,21 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
         else return new BatchGraph(new WritethroughGraph(graph), VertexIDType.OBJECT, buffer);
     }
 
+    /**
+     * Constructs a BatchGraph wrapping the provided baseGraph with the provided vertex cache. Immediately returns the
+     * baseGraph if its a BatchGraph and wraps non-transactional graphs in an additional {@link WritethroughGraph}.
+     *
+     * @param graph  Graph to be wrapped
+     * @param cache  Cache mapping the supplied vertex ids to the vertices of the wrapped graph
+     * @param buffer Size of the buffer
+     */
+    public static BatchGraph wrap(final Graph graph, final VertexCache cache, final long buffer) {
+        if (graph instanceof BatchGraph) return (BatchGraph) graph;
+        else if (graph instanceof TransactionalGraph)
+            return new BatchGraph((TransactionalGraph) graph, cache, buffer);
+        else return new BatchGraph(new WritethroughGraph(graph), cache, buffer);
+    }
+
     /**
      * Sets the key to be used when setting the vertex id as a property on the respective vertex.
      * If the key is null, then no property will be set.
@@ -269,6 +304,13 @@ public class BatchGraph<T extends TransactionalGraph> implements TransactionalGr
         baseGraph.shutdown();
         currentEdge = null;
         currentEdgeCached = null;
+        if (cache instanceof Closeable) {
+            try {
+                ((Closeable) cache).close();
+            } catch (IOException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }
     }
 
     @Override
@@ -0,0 +1,431 @@
+package com.tinkerpop.blueprints.util.wrappers.batch;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.ThreadedTransactionalGraph;
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.ExceptionFactory;
+import com.tinkerpop.blueprints.util.ElementHelper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ParallelBatchLoader loads vertices and edges into a graph with a number of worker threads, each of which commits its
+ * own transaction every bufferSize elements. Loading happens in two passes: all vertices are added first and then all
+ * edges, and the first call to {@link #addEdge} ends the vertex pass.
+ * <p>
+ * Vertices are partitioned among the workers by their id and edges by the id of their out vertex, so that all edges
+ * leaving a vertex are added by the same worker, which keeps the contention on vertices low. The ids assigned to the
+ * vertices by the wrapped graph are kept in a concurrent cache shared by the workers once the transactions adding the
+ * vertices have been committed. The elements are handed to the workers through bounded queues, so that loading blocks
+ * the calling thread rather than buffering the input when the workers fall behind.
+ * <p>
+ * If the wrapped graph is a {@link ThreadedTransactionalGraph} which supports threaded transactions, every worker
+ * transaction is created with {@link ThreadedTransactionalGraph#newTransaction()}. Otherwise the workers rely on the
+ * wrapped graph binding transactions to the executing thread, as {@link TransactionalGraph} does, and the graph must
+ * support concurrent writes.
+ * <p>
+ * Failures of the workers are rethrown by the next call to this loader. Transactions committed before the failure
+ * remain persisted.
+ */
+public class ParallelBatchLoader<T extends TransactionalGraph> {
+
+    /**
+     * Default number of elements handed to a worker at once
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    /**
+     * Default number of chunks that may be queued for a worker before loading blocks
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    private enum Pass {
+        VERTICES, EDGES, FINISHED
+    }
+
+    private final T baseGraph;
+    private final boolean threaded;
+    private final long bufferSize;
+    private final int chunkSize;
+
+    private final List<Worker> workers;
+    private final Thread[] threads;
+    private final List<Element>[] chunks;
+
+    private final Map<Object, Object> cache = new ConcurrentHashMap<Object, Object>();
+    private final AtomicLong vertexCount = new AtomicLong();
+    private final AtomicLong edgeCount = new AtomicLong();
+    private volatile Throwable failure = null;
+
+    private String vertexIdKey = null;
+    private String edgeIdKey = null;
+    private Pass pass = Pass.VERTICES;
+
+    /**
+     * Constructs a ParallelBatchLoader which loads into the provided baseGraph with the given number of workers.
+     *
+     * @param graph         Graph to be loaded into
+     * @param workers       Number of worker threads and transactions
+     * @param bufferSize    Number of vertices and edges loaded by a worker before committing its transaction
+     * @param chunkSize     Number of vertices or edges handed to a worker at once
+     * @param queueCapacity Number of chunks queued for a worker before loading blocks
+     */
+    @SuppressWarnings("unchecked")
+    public ParallelBatchLoader(final T graph, final int workers, final long bufferSize, final int chunkSize, final int queueCapacity) {
+        if (graph == null) throw new IllegalArgumentException("Graph may not be null");
+        if (workers <= 0) throw new IllegalArgumentException("Number of workers must be positive");
+        if (bufferSize <= 0) throw new IllegalArgumentException("BufferSize must be positive");
+        if (chunkSize <= 0) throw new IllegalArgumentException("ChunkSize must be positive");
+        if (queueCapacity <= 0) throw new IllegalArgumentException("QueueCapacity must be positive");
+        this.baseGraph = graph;
+        this.threaded = graph instanceof ThreadedTransactionalGraph && graph.getFeatures().supportsThreadedTransactions;
+        this.bufferSize = bufferSize;
+        this.chunkSize = chunkSize;
+
+        this.workers = new ArrayList<Worker>(workers);
+        this.threads = new Thread[workers];
+        this.chunks = new List[workers];
+        for (int i = 0; i < workers; i++) {
+            final Worker worker = new Worker(queueCapacity);
+            this.workers.add(worker);
+            this.threads[i] = new Thread(worker, "ParallelBatchLoader-" + i);
+            this.threads[i].setDaemon(true);
+            this.threads[i].start();
+            this.chunks[i] = new ArrayList<Element>(chunkSize);
+        }
+    }
+
+    /**
+     * Constructs a ParallelBatchLoader which loads into the provided baseGraph with the given number of workers.
+     *
+     * @param graph      Graph to be loaded into
+     * @param workers    Number of worker threads and transactions
+     * @param bufferSize Number of vertices and edges loaded by a worker before committing its transaction
+     */
+    public ParallelBatchLoader(final T graph, final int workers, final long bufferSize) {
+        this(graph, workers, bufferSize, DEFAULT_CHUNK_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructs a ParallelBatchLoader which loads into the provided baseGraph with one worker per processor.
+     *
+     * @param graph Graph to be loaded into
+     */
+    public ParallelBatchLoader(final T graph) {
+        this(graph, Runtime.getRuntime().availableProcessors(), BatchGraph.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a ParallelBatchLoader which loads into the provided graph and wraps non-transactional graphs in an
+     * additional {@link WritethroughGraph}. The graph must support concurrent writes.
+     *
+     * @param graph      Graph to be loaded into
+     * @param workers    Number of worker threads and transactions
+     * @param bufferSize Number of vertices and edges loaded by a worker before committing its transaction
+     */
+    public static ParallelBatchLoader wrap(final Graph graph, final int workers, final long bufferSize) {
+        if (graph instanceof TransactionalGraph)
+            return new ParallelBatchLoader<TransactionalGraph>((TransactionalGraph) graph, workers, bufferSize);
+        else
+            return new ParallelBatchLoader<TransactionalGraph>(new WritethroughGraph<Graph>(graph), workers, bufferSize);
+    }
+
+    /**
+     * Sets the key to be used when setting the vertex id as a property on the respective vertex.
+     * If the key is null, then no property will be set.
+     *
+     * @param key Key to be used.
+     */
+    public void setVertexIdKey(final String key) {
+        this.vertexIdKey = key;
+    }
+
+    public String getVertexIdKey() {
+        return this.vertexIdKey;
+    }
+
+    /**
+     * Sets the key to be used when setting the edge id as a property on the respective edge.
+     * If the key is null, then no property will be set.
+     *
+     * @param key Key to be used.
+     */
+    public void setEdgeIdKey(final String key) {
+        this.edgeIdKey = key;
+    }
+
+    public String getEdgeIdKey() {
+        return this.edgeIdKey;
+    }
+
+    /**
+     * Adds a vertex with the given id and properties. Vertices may only be added before the first edge.
+     *
+     * @param id         Id of the vertex, which is unique among the loaded vertices
+     * @param properties Alternating property keys and values
+     */
+    public void addVertex(final Object id, final Object... properties) {
+        if (id == null) throw ExceptionFactory.vertexIdCanNotBeNull();
+        if (this.pass != Pass.VERTICES) throw new IllegalStateException("Vertices must be added before edges");
+        this.enqueue(id, new Element(id, null, null, null, properties));
+    }
+
+    /**
+     * Adds an edge between the vertices with the given ids. The first edge ends the vertex pass and waits for all
+     * vertices to be committed.
+     *
+     * @param id          Id of the edge or null
+     * @param outVertexId Id of the out vertex as passed to {@link #addVertex}
+     * @param inVertexId  Id of the in vertex as passed to {@link #addVertex}
+     * @param label       Label of the edge
+     * @param properties  Alternating property keys and values
+     */
+    public void addEdge(final Object id, final Object outVertexId, final Object inVertexId, final String label, final Object... properties) {
+        if (label == null) throw ExceptionFactory.edgeLabelCanNotBeNull();
+        if (outVertexId == null || inVertexId == null) throw ExceptionFactory.vertexIdCanNotBeNull();
+        if (this.pass == Pass.FINISHED) throw new IllegalStateException("Loading has been finished");
+        if (this.pass == Pass.VERTICES) {
+            this.barrier();
+            this.pass = Pass.EDGES;
+        }
+        this.enqueue(outVertexId, new Element(id, outVertexId, inVertexId, label, properties));
+    }
+
+    /**
+     * Commits all outstanding transactions and stops the workers.
+     */
+    public void finish() {
+        if (this.pass == Pass.FINISHED) return;
+        try {
+            this.barrier();
+        } finally {
+            this.pass = Pass.FINISHED;
+            for (final Worker worker : this.workers) {
+                worker.put(Chunk.STOP);
+            }
+            for (final Thread thread : this.threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finishes loading and shuts down the wrapped graph.
+     */
+    public void shutdown() {
+        try {
+            this.finish();
+        } finally {
+            this.baseGraph.shutdown();
+        }
+    }
+
+    public T getBaseGraph() {
+        return this.baseGraph;
+    }
+
+    public long getVertexCount() {
+        return this.vertexCount.get();
+    }
+
+    public long getEdgeCount() {
+        return this.edgeCount.get();
+    }
+
+    private void enqueue(final Object partitionKey, final Element element) {
+        this.checkFailure();
+        final int partition = (partitionKey.hashCode() & Integer.MAX_VALUE) % this.workers.size();
+        final List<Element> chunk = this.chunks[partition];
+        chunk.add(element);
+        if (chunk.size() >= this.chunkSize) {
+            this.workers.get(partition).put(new Chunk(chunk, null));
+            this.chunks[partition] = new ArrayList<Element>(this.chunkSize);
+        }
+    }
+
+    /**
+     * Hands the pending chunks to the workers and waits for them to commit.
+     */
+    private void barrier() {
+        final CountDownLatch latch = new CountDownLatch(this.workers.size());
+        for (int i = 0; i < this.workers.size(); i++) {
+            this.workers.get(i).put(new Chunk(this.chunks[i], latch));
+            this.chunks[i] = new ArrayList<Element>(this.chunkSize);
+        }
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e.getMessage(), e);
+        }
+        this.checkFailure();
+    }
+
+    private void checkFailure() {
+        final Throwable t = this.failure;
+        if (t == null) return;
+        if (t instanceof RuntimeException) throw (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        throw new RuntimeException(t.getMessage(), t);
+    }
+
+    private static final class Element {
+        private final Object id;
+        private final Object outVertexId;
+        private final Object inVertexId;
+        private final String label;
+        private final Object[] properties;
+
+        private Element(final Object id, final Object outVertexId, final Object inVertexId, final String label, final Object[] properties) {
+            this.id = id;
+            this.outVertexId = outVertexId;
+            this.inVertexId = inVertexId;
+            this.label = label;
+            this.properties = properties;
+        }
+    }
+
+    private static final class Chunk {
+        private static final Chunk STOP = new Chunk(null, null);
+
+        private final List<Element> elements;
+        private final CountDownLatch commit;
+
+        private Chunk(final List<Element> elements, final CountDownLatch commit) {
+            this.elements = elements;
+            this.commit = commit;
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        private final BlockingQueue<Chunk> queue;
+        private final Map<Object, Vertex> uncommitted = new HashMap<Object, Vertex>();
+        private TransactionalGraph transaction = null;
+        private long remainingBufferSize = bufferSize;
+
+        private Worker(final int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<Chunk>(queueCapacity);
+        }
+
+        private void put(final Chunk chunk) {
+            try {
+                this.queue.put(chunk);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                final Chunk chunk;
+                try {
+                    chunk = this.queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (chunk == Chunk.STOP) return;
+
+                // after a failure the queue is still drained so that loading does not block
+                if (failure == null) {
+                    try {
+                        for (final Element element : chunk.elements) {
+                            if (element.label == null) this.addVertex(element);
+                            else this.addEdge(element);
+                        }
+                        if (chunk.commit != null) this.commit();
+                    } catch (Throwable t) {
+                        fail(t);
+                        this.rollback();
+                    }
+                }
+                if (chunk.commit != null) chunk.commit.countDown();
+            }
+        }
+
+        private TransactionalGraph transaction() {
+            if (this.remainingBufferSize <= 0) {
+                this.commit();
+            }
+            this.remainingBufferSize--;
+            if (this.transaction == null)
+                this.transaction = threaded ? ((ThreadedTransactionalGraph) baseGraph).newTransaction() : baseGraph;
+            return this.transaction;
+        }
+
+        private void addVertex(final Element element) {
+            if (this.uncommitted.containsKey(element.id) || cache.containsKey(element.id))
+                throw ExceptionFactory.vertexWithIdAlreadyExists(element.id);
+
+            final Vertex vertex = this.transaction().addVertex(element.id);
+            if (vertexIdKey != null) vertex.setProperty(vertexIdKey, element.id);
+            ElementHelper.setProperties(vertex, element.properties);
+            this.uncommitted.put(element.id, vertex);
+            vertexCount.incrementAndGet();
+        }
+
+        private void addEdge(final Element element) {
+            final TransactionalGraph graph = this.transaction();
+            final Edge edge = graph.addEdge(element.id, this.getVertex(graph, element.outVertexId), this.getVertex(graph, element.inVertexId), element.label);
+            if (edgeIdKey != null && element.id != null) edge.setProperty(edgeIdKey, element.id);
+            ElementHelper.setProperties(edge, element.properties);
+            edgeCount.incrementAndGet();
+        }
+
+        private Vertex getVertex(final TransactionalGraph graph, final Object externalId) {
+            final Object id = cache.get(externalId);
+            final Vertex vertex = id == null ? null : graph.getVertex(id);
+            if (vertex == null)
+                throw new IllegalArgumentException("Vertex for given ID cannot be found: " + externalId);
+            return vertex;
+        }
+
+        /**
+         * Commits the transaction of this worker and publishes the ids of its vertices, which may only be final
+         * once committed.
+         */
+        private void commit() {
+            if (this.transaction != null) {
+                this.transaction.commit();
+                if (threaded) this.transaction = null;
+            }
+            for (final Map.Entry<Object, Vertex> entry : this.uncommitted.entrySet()) {
+                cache.put(entry.getKey(), entry.getValue().getId());
+            }
+            this.uncommitted.clear();
+            this.remainingBufferSize = bufferSize;
+        }
+
+        private void rollback() {
+            this.uncommitted.clear();
+            if (this.transaction == null) return;
+            try {
+                this.transaction.rollback();
+            } catch (RuntimeException e) {
+                // the graph may not support rolling back, the failure is reported regardless
+            }
+            if (threaded) this.transaction = null;
+        }
+    }
+
+    private synchronized void fail(final Throwable t) {
+        if (this.failure == null) this.failure = t;
+    }
+}
@@ -1,7 +1,9 @@
 package com.tinkerpop.blueprints.util.wrappers.batch;
 
+import com.tinkerpop.blueprints.util.wrappers.batch.cache.LongIDOffHeapVertexCache;
 import com.tinkerpop.blueprints.util.wrappers.batch.cache.LongIDVertexCache;
 import com.tinkerpop.blueprints.util.wrappers.batch.cache.ObjectIDVertexCache;
+import com.tinkerpop.blueprints.util.wrappers.batch.cache.StringIDOffHeapVertexCache;
 import com.tinkerpop.blueprints.util.wrappers.batch.cache.StringIDVertexCache;
 import com.tinkerpop.blueprints.util.wrappers.batch.cache.URLCompression;
 import com.tinkerpop.blueprints.util.wrappers.batch.cache.VertexCache;
@@ -9,6 +11,7 @@ import com.tinkerpop.blueprints.util.wrappers.batch.cache.VertexCache;
 /**
  * Type of vertex ids expected by BatchGraph. The default is IdType.OBJECT.
  * Use the IdType that best matches the used vertex id types in order to save memory.
+ * The OFF_HEAP types keep the cache out of the Java heap and spill it to disk once it outgrows its memory limit.
  *
  * @author Matthias Broecheler (http://www.matthiasb.com)
  */
@@ -41,6 +44,20 @@ public enum VertexIDType {
             return new StringIDVertexCache(new URLCompression());
 
         }
+    },
+
+    OFF_HEAP_NUMBER {
+        @Override
+        public VertexCache getVertexCache() {
+            return new LongIDOffHeapVertexCache();
+        }
+    },
+
+    OFF_HEAP_STRING {
+        @Override
+        public VertexCache getVertexCache() {
+            return new StringIDOffHeapVertexCache();
+        }
     };
 
     public abstract VertexCache getVertexCache();
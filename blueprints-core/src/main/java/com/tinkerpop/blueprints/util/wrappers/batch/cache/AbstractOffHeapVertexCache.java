@@ -0,0 +1,261 @@
+package com.tinkerpop.blueprints.util.wrappers.batch.cache;
+
+import com.tinkerpop.blueprints.Vertex;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A VertexCache that keeps its entries out of the Java heap in an open addressing hash table with linear probing.
+ * Every slot of the table is a fixed number of longs: the key words defined by the subclass followed by a value tag
+ * and the value.  Vertex ids that are Longs or Integers are stored in the slot itself, String vertex ids are stored
+ * in an off-heap byte heap and any other vertex ids are kept on the heap.
+ * <p>
+ * Only the vertices of the current transaction are held on the heap, as they may not be reduced to their ids until
+ * the transaction is committed.  newTransaction() writes their ids to the table.
+ * <p>
+ * The table lives in direct memory up to the memory limit and beyond it in a memory-mapped spill file, so a cache
+ * that outgrows RAM is paged to disk by the operating system rather than failing.  Close the cache to delete the
+ * spill file; BatchGraph does so on shutdown.
+ */
+abstract class AbstractOffHeapVertexCache implements VertexCache, Closeable {
+
+    public static final long DEFAULT_MEMORY_LIMIT = 1l << 30;
+    public static final long DEFAULT_EXPECTED_VERTICES = 1l << 16;
+
+    protected static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final double LOAD_FACTOR = 0.7d;
+
+    private static final long EMPTY = 0l;
+    private static final long LONG = 1l;
+    private static final long INTEGER = 2l;
+    private static final long STRING = 3l;
+    private static final long OBJECT = 4l;
+
+    protected final OffHeapMemory memory;
+    protected final OffHeapByteHeap heap;
+    private final int keyWords;
+    private final int slotWidth;
+
+    protected OffHeapLongArray table;
+    private long capacity;
+    private long size = 0l;
+
+    private final List<Object> objectValues = new ArrayList<Object>();
+    private final Map<Object, Vertex> transaction = new HashMap<Object, Vertex>(AbstractIDVertexCache.INITIAL_TX_CAPACITY);
+
+    AbstractOffHeapVertexCache(final int keyWords, final long expectedVertices, final long memoryLimit, final File spillDirectory) {
+        if (expectedVertices <= 0) throw new IllegalArgumentException("Expected number of vertices must be positive");
+        this.memory = new OffHeapMemory(memoryLimit, spillDirectory);
+        this.heap = new OffHeapByteHeap(this.memory);
+        this.keyWords = keyWords;
+        this.slotWidth = keyWords + 2;
+        this.capacity = capacityFor(expectedVertices);
+        this.table = new OffHeapLongArray(this.memory, this.capacity * this.slotWidth);
+    }
+
+    static File defaultSpillDirectory() {
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * @return the external id normalized to the key of the cache
+     */
+    protected abstract Object key(final Object externalId);
+
+    protected abstract long hash(final Object key);
+
+    /**
+     * @return whether the key words of the slot at base hold the key
+     */
+    protected abstract boolean matches(final long base, final Object key, final long hash);
+
+    protected abstract void writeKey(final long base, final Object key, final long hash);
+
+    /**
+     * @return the hash of the key held by the slot at base of the table
+     */
+    protected abstract long slotHash(final OffHeapLongArray table, final long base);
+
+    @Override
+    public Object getEntry(final Object externalId) {
+        final Object key = this.key(externalId);
+        final Vertex vertex = this.transaction.get(key);
+        if (null != vertex)
+            return vertex;
+
+        final long base = this.find(key, this.hash(key));
+        return this.decode(base);
+    }
+
+    @Override
+    public void set(final Vertex vertex, final Object externalId) {
+        this.transaction.put(this.key(externalId), vertex);
+    }
+
+    @Override
+    public void setId(final Object vertexId, final Object externalId) {
+        if (vertexId instanceof Vertex) {
+            this.set((Vertex) vertexId, externalId);
+        } else {
+            final Object key = this.key(externalId);
+            this.transaction.remove(key);
+            this.store(key, vertexId);
+        }
+    }
+
+    @Override
+    public boolean contains(final Object externalId) {
+        final Object key = this.key(externalId);
+        return this.transaction.containsKey(key) || this.table.get(this.find(key, this.hash(key)) + this.keyWords) != EMPTY;
+    }
+
+    @Override
+    public void newTransaction() {
+        for (final Map.Entry<Object, Vertex> entry : this.transaction.entrySet()) {
+            this.store(entry.getKey(), entry.getValue().getId());
+        }
+        this.transaction.clear();
+    }
+
+    /**
+     * @return the number of external ids whose vertex ids are held off-heap
+     */
+    public long size() {
+        return this.size;
+    }
+
+    public long getDirectBytes() {
+        return this.memory.getDirectBytes();
+    }
+
+    public long getSpilledBytes() {
+        return this.memory.getSpilledBytes();
+    }
+
+    public void close() throws IOException {
+        this.transaction.clear();
+        this.objectValues.clear();
+        this.table.release();
+        this.heap.release();
+        this.memory.close();
+        this.size = 0l;
+    }
+
+    /**
+     * @return the base of the slot holding the key or of the empty slot where it belongs
+     */
+    private long find(final Object key, final long hash) {
+        final long mask = this.capacity - 1;
+        for (long i = hash & mask; ; i = (i + 1) & mask) {
+            final long base = i * this.slotWidth;
+            if (this.table.get(base + this.keyWords) == EMPTY || this.matches(base, key, hash))
+                return base;
+        }
+    }
+
+    private void store(final Object key, final Object vertexId) {
+        if (this.size + 1 > this.capacity * LOAD_FACTOR)
+            this.grow();
+
+        final long hash = this.hash(key);
+        final long base = this.find(key, hash);
+        final long tag = this.table.get(base + this.keyWords);
+        if (tag == EMPTY) {
+            this.writeKey(base, key, hash);
+            this.size++;
+        } else if (vertexId.equals(this.decode(base))) {
+            return;
+        }
+        this.encode(base, vertexId);
+    }
+
+    private void encode(final long base, final Object vertexId) {
+        final long tag;
+        final long value;
+        if (vertexId instanceof Long) {
+            tag = LONG;
+            value = (Long) vertexId;
+        } else if (vertexId instanceof Integer) {
+            tag = INTEGER;
+            value = (Integer) vertexId;
+        } else if (vertexId instanceof String) {
+            tag = STRING;
+            value = this.heap.append(((String) vertexId).getBytes(UTF8));
+        } else {
+            tag = OBJECT;
+            value = this.objectValues.size();
+            this.objectValues.add(vertexId);
+        }
+        this.table.set(base + this.keyWords + 1, value);
+        this.table.set(base + this.keyWords, tag);
+    }
+
+    private Object decode(final long base) {
+        final long tag = this.table.get(base + this.keyWords);
+        if (tag == EMPTY)
+            return null;
+
+        final long value = this.table.get(base + this.keyWords + 1);
+        if (tag == LONG)
+            return value;
+        else if (tag == INTEGER)
+            return (int) value;
+        else if (tag == STRING)
+            return new String(this.heap.get(value), UTF8);
+        else
+            return this.objectValues.get((int) value);
+    }
+
+    private void grow() {
+        final OffHeapLongArray oldTable = this.table;
+        final long oldCapacity = this.capacity;
+        final OffHeapLongArray newTable = new OffHeapLongArray(this.memory, (oldCapacity << 1) * this.slotWidth);
+        this.capacity = oldCapacity << 1;
+        this.table = newTable;
+
+        final long mask = this.capacity - 1;
+        for (long slot = 0; slot < oldCapacity; slot++) {
+            final long oldBase = slot * this.slotWidth;
+            if (oldTable.get(oldBase + this.keyWords) == EMPTY)
+                continue;
+
+            long i = this.slotHash(oldTable, oldBase) & mask;
+            while (newTable.get(i * this.slotWidth + this.keyWords) != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            for (int w = 0; w < this.slotWidth; w++) {
+                newTable.set(i * this.slotWidth + w, oldTable.get(oldBase + w));
+            }
+        }
+        oldTable.release();
+    }
+
+    private static long capacityFor(final long expectedVertices) {
+        final long slots = (long) Math.ceil(expectedVertices / LOAD_FACTOR);
+        long capacity = 16l;
+        while (capacity < slots) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * The finalization step of MurmurHash3, which spreads the bits of a long over the whole word.
+     */
+    protected static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdl;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53l;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
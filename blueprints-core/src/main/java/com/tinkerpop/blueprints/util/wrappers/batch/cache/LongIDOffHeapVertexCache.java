@@ -0,0 +1,49 @@
+package com.tinkerpop.blueprints.util.wrappers.batch.cache;
+
+import java.io.File;
+
+/**
+ * An off-heap VertexCache for numeric external ids, which are stored as primitive longs.
+ *
+ * @see AbstractOffHeapVertexCache
+ */
+public class LongIDOffHeapVertexCache extends AbstractOffHeapVertexCache {
+
+    public LongIDOffHeapVertexCache(final long expectedVertices, final long memoryLimit, final File spillDirectory) {
+        super(1, expectedVertices, memoryLimit, spillDirectory);
+    }
+
+    public LongIDOffHeapVertexCache(final long expectedVertices) {
+        this(expectedVertices, DEFAULT_MEMORY_LIMIT, defaultSpillDirectory());
+    }
+
+    public LongIDOffHeapVertexCache() {
+        this(DEFAULT_EXPECTED_VERTICES);
+    }
+
+    @Override
+    protected Object key(final Object externalId) {
+        if (!(externalId instanceof Number)) throw new IllegalArgumentException("Number expected.");
+        return ((Number) externalId).longValue();
+    }
+
+    @Override
+    protected long hash(final Object key) {
+        return mix((Long) key);
+    }
+
+    @Override
+    protected boolean matches(final long base, final Object key, final long hash) {
+        return this.table.get(base) == (Long) key;
+    }
+
+    @Override
+    protected void writeKey(final long base, final Object key, final long hash) {
+        this.table.set(base, (Long) key);
+    }
+
+    @Override
+    protected long slotHash(final OffHeapLongArray table, final long base) {
+        return mix(table.get(base));
+    }
+}
@@ -0,0 +1,84 @@
+package com.tinkerpop.blueprints.util.wrappers.batch.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append-only heap of byte strings held in pages of off-heap memory.  Each string is stored with an int length
+ * prefix and never spans two pages, so it is addressed by a single long offset.  Pages start small and double in
+ * size up to PAGE_SIZE.
+ */
+class OffHeapByteHeap {
+
+    static final int PAGE_SIZE = 1 << 26;
+    private static final int PAGE_SHIFT = 26;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int FIRST_PAGE_SIZE = 1 << 16;
+
+    private final OffHeapMemory memory;
+    private final List<ByteBuffer> pages = new ArrayList<ByteBuffer>();
+    private int pagePosition = 0;
+    private int pageSize = 0;
+
+    OffHeapByteHeap(final OffHeapMemory memory) {
+        this.memory = memory;
+    }
+
+    /**
+     * @return the offset of the appended bytes
+     */
+    public long append(final byte[] bytes) {
+        final int length = 4 + bytes.length;
+        if (length > PAGE_SIZE)
+            throw new IllegalArgumentException("String of " + bytes.length + " bytes is too long for the vertex cache");
+        if (this.pagePosition + length > this.pageSize) {
+            this.pageSize = Math.min(PAGE_SIZE, Math.max(length, Math.max(FIRST_PAGE_SIZE, this.pageSize << 1)));
+            this.pages.add(this.memory.allocate(this.pageSize));
+            this.pagePosition = 0;
+        }
+
+        final ByteBuffer page = this.pages.get(this.pages.size() - 1);
+        final long offset = ((long) (this.pages.size() - 1) << PAGE_SHIFT) | this.pagePosition;
+        page.putInt(this.pagePosition, bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            page.put(this.pagePosition + 4 + i, bytes[i]);
+        }
+        this.pagePosition += length;
+        return offset;
+    }
+
+    public byte[] get(final long offset) {
+        final ByteBuffer page = this.pages.get((int) (offset >>> PAGE_SHIFT));
+        final int position = (int) offset & PAGE_MASK;
+        final byte[] bytes = new byte[page.getInt(position)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = page.get(position + 4 + i);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return whether the bytes at the offset are equal to the given bytes, without copying them
+     */
+    public boolean equals(final long offset, final byte[] bytes) {
+        final ByteBuffer page = this.pages.get((int) (offset >>> PAGE_SHIFT));
+        final int position = (int) offset & PAGE_MASK;
+        if (page.getInt(position) != bytes.length)
+            return false;
+        for (int i = 0; i < bytes.length; i++) {
+            if (page.get(position + 4 + i) != bytes[i])
+                return false;
+        }
+        return true;
+    }
+
+    public void release() {
+        for (final ByteBuffer page : this.pages) {
+            this.memory.release(page);
+        }
+        this.pages.clear();
+        this.pagePosition = 0;
+        this.pageSize = 0;
+    }
+}
@@ -0,0 +1,46 @@
+package com.tinkerpop.blueprints.util.wrappers.batch.cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A fixed length array of longs held in pages of off-heap memory.  All elements are initially zero.
+ */
+class OffHeapLongArray {
+
+    static final int PAGE_SHIFT = 24;
+    private static final int PAGE_LONGS = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_LONGS - 1;
+
+    private final OffHeapMemory memory;
+    private final ByteBuffer[] pages;
+    private final long length;
+
+    OffHeapLongArray(final OffHeapMemory memory, final long length) {
+        this.memory = memory;
+        this.length = length;
+        this.pages = new ByteBuffer[(int) ((length + PAGE_MASK) >>> PAGE_SHIFT)];
+        for (int i = 0; i < this.pages.length; i++) {
+            final long longs = Math.min(PAGE_LONGS, length - ((long) i << PAGE_SHIFT));
+            this.pages[i] = memory.allocate((int) (longs << 3));
+        }
+    }
+
+    public long length() {
+        return this.length;
+    }
+
+    public long get(final long index) {
+        return this.pages[(int) (index >>> PAGE_SHIFT)].getLong(((int) index & PAGE_MASK) << 3);
+    }
+
+    public void set(final long index, final long value) {
+        this.pages[(int) (index >>> PAGE_SHIFT)].putLong(((int) index & PAGE_MASK) << 3, value);
+    }
+
+    public void release() {
+        for (int i = 0; i < this.pages.length; i++) {
+            this.memory.release(this.pages[i]);
+            this.pages[i] = null;
+        }
+    }
+}
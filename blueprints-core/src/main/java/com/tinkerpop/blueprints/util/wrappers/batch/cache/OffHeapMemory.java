@@ -0,0 +1,94 @@
+package com.tinkerpop.blueprints.util.wrappers.batch.cache;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Allocates the pages of the off-heap vertex caches.  Pages are direct buffers until the memory limit is reached and
+ * then regions of a temporary spill file mapped into memory, which the operating system pages out to disk as RAM
+ * runs out.  All pages are zeroed when they are allocated.
+ * <p>
+ * Direct buffers are returned to the operating system when they are garbage collected.  The spill file is deleted
+ * when the memory is closed.
+ */
+class OffHeapMemory implements Closeable {
+
+    private final long memoryLimit;
+    private final File spillDirectory;
+
+    private long directBytes = 0l;
+    private RandomAccessFile spillFile;
+    private File spillPath;
+    private long spillBytes = 0l;
+    private final Set<ByteBuffer> spilledPages = Collections.newSetFromMap(new IdentityHashMap<ByteBuffer, Boolean>());
+
+    OffHeapMemory(final long memoryLimit, final File spillDirectory) {
+        if (memoryLimit < 0) throw new IllegalArgumentException("Memory limit may not be negative");
+        if (spillDirectory == null) throw new IllegalArgumentException("Spill directory may not be null");
+        this.memoryLimit = memoryLimit;
+        this.spillDirectory = spillDirectory;
+    }
+
+    public ByteBuffer allocate(final int bytes) {
+        if (this.directBytes + bytes <= this.memoryLimit) {
+            try {
+                final ByteBuffer page = ByteBuffer.allocateDirect(bytes);
+                this.directBytes += bytes;
+                return page;
+            } catch (OutOfMemoryError e) {
+                // the JVM's direct memory is exhausted before the limit, spill from here on
+            }
+        }
+        return this.map(bytes);
+    }
+
+    /**
+     * Account for a direct page that is no longer referenced.  Mapped regions of the spill file are not reused.
+     */
+    public void release(final ByteBuffer page) {
+        if (!this.spilledPages.remove(page))
+            this.directBytes -= page.capacity();
+    }
+
+    public long getDirectBytes() {
+        return this.directBytes;
+    }
+
+    public long getSpilledBytes() {
+        return this.spillBytes;
+    }
+
+    private ByteBuffer map(final int bytes) {
+        try {
+            if (null == this.spillFile) {
+                this.spillPath = File.createTempFile("vertex-cache", ".spill", this.spillDirectory);
+                this.spillPath.deleteOnExit();
+                this.spillFile = new RandomAccessFile(this.spillPath, "rw");
+            }
+            final ByteBuffer page = this.spillFile.getChannel().map(FileChannel.MapMode.READ_WRITE, this.spillBytes, bytes);
+            this.spillBytes += bytes;
+            this.spilledPages.add(page);
+            return page;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not spill the vertex cache to " + this.spillDirectory + ": " + e.getMessage(), e);
+        }
+    }
+
+    public void close() throws IOException {
+        if (null != this.spillFile) {
+            this.spillFile.close();
+            this.spillFile = null;
+            this.spillPath.delete();
+        }
+        this.spilledPages.clear();
+        this.directBytes = 0l;
+        this.spillBytes = 0l;
+    }
+}
@@ -0,0 +1,63 @@
+package com.tinkerpop.blueprints.util.wrappers.batch.cache;
+
+import java.io.File;
+
+/**
+ * An off-heap VertexCache for string external ids.  A slot holds the 64 bit hash of the id and the offset of the
+ * (compressed) id in the byte heap, so ids are compared by hash first and only by content when the hashes agree.
+ *
+ * @see AbstractOffHeapVertexCache
+ */
+public class StringIDOffHeapVertexCache extends AbstractOffHeapVertexCache {
+
+    private final StringCompression compression;
+
+    public StringIDOffHeapVertexCache(final StringCompression compression, final long expectedVertices, final long memoryLimit, final File spillDirectory) {
+        super(2, expectedVertices, memoryLimit, spillDirectory);
+        if (compression == null) throw new IllegalArgumentException("Compression expected.");
+        this.compression = compression;
+    }
+
+    public StringIDOffHeapVertexCache(final long expectedVertices) {
+        this(StringCompression.NO_COMPRESSION, expectedVertices, DEFAULT_MEMORY_LIMIT, defaultSpillDirectory());
+    }
+
+    public StringIDOffHeapVertexCache() {
+        this(DEFAULT_EXPECTED_VERTICES);
+    }
+
+    @Override
+    protected Object key(final Object externalId) {
+        return this.compression.compress(externalId.toString());
+    }
+
+    /**
+     * FNV-1a over the chars of the id.
+     */
+    @Override
+    protected long hash(final Object key) {
+        final String string = (String) key;
+        long hash = 0xcbf29ce484222325l;
+        for (int i = 0; i < string.length(); i++) {
+            hash ^= string.charAt(i);
+            hash *= 0x100000001b3l;
+        }
+        return mix(hash);
+    }
+
+    @Override
+    protected boolean matches(final long base, final Object key, final long hash) {
+        return this.table.get(base) == hash && this.heap.equals(this.table.get(base + 1), ((String) key).getBytes(UTF8));
+    }
+
+    @Override
+    protected void writeKey(final long base, final Object key, final long hash) {
+        this.table.set(base, hash);
+        this.table.set(base + 1, this.heap.append(((String) key).getBytes(UTF8)));
+    }
+
+    @Override
+    protected long slotHash(final OffHeapLongArray table, final long base) {
+        return table.get(base);
+    }
+}
@@ -0,0 +1,31 @@
+package com.tinkerpop.blueprints.util.wrappers.cached;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * An edge of a CachedGraph.
+ */
+public class CachedEdge extends CachedElement implements Edge {
+
+    protected CachedEdge(final Edge baseEdge, final CachedGraph graph) {
+        super(baseEdge, graph);
+    }
+
+    public Vertex getVertex(final Direction direction) throws IllegalArgumentException {
+        return new CachedVertex(((Edge) this.baseElement).getVertex(direction), this.graph);
+    }
+
+    public String getLabel() {
+        return ((Edge) this.baseElement).getLabel();
+    }
+
+    public void remove() {
+        this.graph.removeEdge(this);
+    }
+
+    public Edge getBaseEdge() {
+        return (Edge) this.baseElement;
+    }
+}
@@ -0,0 +1,41 @@
+package com.tinkerpop.blueprints.util.wrappers.cached;
+
+import com.tinkerpop.blueprints.CloseableIterable;
+import com.tinkerpop.blueprints.Edge;
+
+import java.util.Iterator;
+
+class CachedEdgeIterable implements CloseableIterable<Edge> {
+
+    private final Iterable<Edge> iterable;
+    private final CachedGraph graph;
+
+    public CachedEdgeIterable(final Iterable<Edge> iterable, final CachedGraph graph) {
+        this.iterable = iterable;
+        this.graph = graph;
+    }
+
+    public Iterator<Edge> iterator() {
+        return new Iterator<Edge>() {
+            private final Iterator<Edge> itty = iterable.iterator();
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            public boolean hasNext() {
+                return this.itty.hasNext();
+            }
+
+            public Edge next() {
+                return new CachedEdge(this.itty.next(), graph);
+            }
+        };
+    }
+
+    public void close() {
+        if (this.iterable instanceof CloseableIterable) {
+            ((CloseableIterable) iterable).close();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.tinkerpop.blueprints.util.wrappers.cached;
+
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.util.ElementHelper;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An element of a CachedGraph, whose properties are read from the property map cached by the graph.
+ */
+public abstract class CachedElement implements Element {
+
+    protected final Element baseElement;
+    protected final CachedGraph graph;
+
+    protected CachedElement(final Element baseElement, final CachedGraph graph) {
+        this.baseElement = baseElement;
+        this.graph = graph;
+    }
+
+    public void setProperty(final String key, final Object value) {
+        this.baseElement.setProperty(key, value);
+        this.graph.invalidateProperties(this.baseElement);
+    }
+
+    public <T> T getProperty(final String key) {
+        return (T) this.graph.getProperties(this.baseElement).get(key);
+    }
+
+    public <T> T removeProperty(final String key) {
+        final T value = this.baseElement.removeProperty(key);
+        this.graph.invalidateProperties(this.baseElement);
+        return value;
+    }
+
+    public Set<String> getPropertyKeys() {
+        return new HashSet<String>(this.graph.getProperties(this.baseElement).keySet());
+    }
+
+    public Object getId() {
+        return this.baseElement.getId();
+    }
+
+    public boolean equals(final Object object) {
+        return ElementHelper.areEqual(this, object);
+    }
+
+    public int hashCode() {
+        return this.baseElement.hashCode();
+    }
+
+    public Element getBaseElement() {
+        return this.baseElement;
+    }
+
+    public String toString() {
+        return this.baseElement.toString();
+    }
+}
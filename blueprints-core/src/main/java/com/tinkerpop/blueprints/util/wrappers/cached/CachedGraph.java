@@ -0,0 +1,303 @@
+package com.tinkerpop.blueprints.util.wrappers.cached;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Features;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.StringFactory;
+import com.tinkerpop.blueprints.util.wrappers.WrappedGraphQuery;
+import com.tinkerpop.blueprints.util.wrappers.WrapperGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CachedGraph is a read-through cache in front of a graph whose reads are expensive, e.g. a remote or disk based
+ * graph.  It caches the elements looked up by id, the property maps of elements and the incident edges of vertices per
+ * direction and labels, each in a WeightedLruCache: elements weigh one, property maps one plus their number of
+ * properties and adjacency lists one plus their number of edges.  The caches and their hit, miss and eviction counts
+ * are available from the graph.
+ * <p>
+ * Writes made through the CachedGraph invalidate what they change: the properties of an element, the adjacency lists
+ * of the vertices of an added or removed edge and everything cached about a removed vertex and its edges.  Writes made
+ * to the base graph otherwise, e.g. by another process or a rolled back transaction, are not seen until the values are
+ * evicted or clearCache() is called.  Iteration over all elements, key lookups and queries are passed through without
+ * caching.
+ */
+public class CachedGraph<T extends Graph> implements Graph, WrapperGraph<T> {
+
+    public static final long DEFAULT_ELEMENT_CACHE_SIZE = 100000l;
+    public static final long DEFAULT_PROPERTY_CACHE_WEIGHT = 1000000l;
+    public static final long DEFAULT_ADJACENCY_CACHE_WEIGHT = 1000000l;
+
+    private static final List<String> NO_LABELS = Collections.emptyList();
+
+    protected final T baseGraph;
+    private final Features features;
+    private final WeightedLruCache<CacheKey, Element> elementCache;
+    private final WeightedLruCache<CacheKey, Map<String, Object>> propertyCache;
+    private final WeightedLruCache<CacheKey, Map<List<String>, List<Edge>>> adjacencyCache;
+
+    public CachedGraph(final T baseGraph) {
+        this(baseGraph, DEFAULT_ELEMENT_CACHE_SIZE, DEFAULT_PROPERTY_CACHE_WEIGHT, DEFAULT_ADJACENCY_CACHE_WEIGHT);
+    }
+
+    /**
+     * @param elementCacheSize     the maximum number of elements cached
+     * @param propertyCacheWeight  the maximum weight of the cached property maps, about their number of properties
+     * @param adjacencyCacheWeight the maximum weight of the cached adjacency lists, about their number of edges
+     */
+    public CachedGraph(final T baseGraph, final long elementCacheSize, final long propertyCacheWeight, final long adjacencyCacheWeight) {
+        if (baseGraph == null) throw new IllegalArgumentException("Graph may not be null");
+        this.baseGraph = baseGraph;
+        this.features = this.baseGraph.getFeatures().copyFeatures();
+        this.features.isWrapper = true;
+
+        this.elementCache = new WeightedLruCache<CacheKey, Element>(elementCacheSize, null);
+        this.propertyCache = new WeightedLruCache<CacheKey, Map<String, Object>>(propertyCacheWeight,
+                new WeightedLruCache.Weigher<Map<String, Object>>() {
+                    public int weigh(final Map<String, Object> properties) {
+                        return 1 + properties.size();
+                    }
+                });
+        this.adjacencyCache = new WeightedLruCache<CacheKey, Map<List<String>, List<Edge>>>(adjacencyCacheWeight,
+                new WeightedLruCache.Weigher<Map<List<String>, List<Edge>>>() {
+                    public int weigh(final Map<List<String>, List<Edge>> lists) {
+                        int weight = 1;
+                        for (final List<Edge> edges : lists.values()) {
+                            weight += edges.size();
+                        }
+                        return weight;
+                    }
+                });
+    }
+
+    public WeightedLruCache<?, Element> getElementCache() {
+        return this.elementCache;
+    }
+
+    public WeightedLruCache<?, Map<String, Object>> getPropertyCache() {
+        return this.propertyCache;
+    }
+
+    public WeightedLruCache<?, Map<List<String>, List<Edge>>> getAdjacencyCache() {
+        return this.adjacencyCache;
+    }
+
+    /**
+     * Drops everything cached, e.g. after the base graph was changed other than through this graph.
+     */
+    public void clearCache() {
+        this.elementCache.clear();
+        this.propertyCache.clear();
+        this.adjacencyCache.clear();
+    }
+
+    public void shutdown() {
+        this.clearCache();
+        this.baseGraph.shutdown();
+    }
+
+    public Vertex addVertex(final Object id) {
+        final Vertex vertex = this.baseGraph.addVertex(id);
+        this.elementCache.put(new CacheKey(vertex.getId(), Vertex.class), vertex);
+        return new CachedVertex(vertex, this);
+    }
+
+    public Vertex getVertex(final Object id) {
+        if (null == id) {
+            final Vertex vertex = this.baseGraph.getVertex(null);
+            return null == vertex ? null : new CachedVertex(vertex, this);
+        }
+        final CacheKey key = new CacheKey(id, Vertex.class);
+        Vertex vertex = (Vertex) this.elementCache.get(key);
+        if (null == vertex) {
+            vertex = this.baseGraph.getVertex(id);
+            if (null == vertex)
+                return null;
+            // cached by its own id, which is what writes invalidate
+            this.elementCache.put(new CacheKey(vertex.getId(), Vertex.class), vertex);
+        }
+        return new CachedVertex(vertex, this);
+    }
+
+    public Iterable<Vertex> getVertices() {
+        return new CachedVertexIterable(this.baseGraph.getVertices(), this);
+    }
+
+    public Iterable<Vertex> getVertices(final String key, final Object value) {
+        return new CachedVertexIterable(this.baseGraph.getVertices(key, value), this);
+    }
+
+    public Edge addEdge(final Object id, final Vertex outVertex, final Vertex inVertex, final String label) {
+        final Vertex out = outVertex instanceof CachedVertex ? ((CachedVertex) outVertex).getBaseVertex() : outVertex;
+        final Vertex in = inVertex instanceof CachedVertex ? ((CachedVertex) inVertex).getBaseVertex() : inVertex;
+        final Edge edge = this.baseGraph.addEdge(id, out, in, label);
+        this.invalidateAdjacency(out.getId());
+        this.invalidateAdjacency(in.getId());
+        this.elementCache.put(new CacheKey(edge.getId(), Edge.class), edge);
+        return new CachedEdge(edge, this);
+    }
+
+    public Edge getEdge(final Object id) {
+        if (null == id) {
+            final Edge edge = this.baseGraph.getEdge(null);
+            return null == edge ? null : new CachedEdge(edge, this);
+        }
+        final CacheKey key = new CacheKey(id, Edge.class);
+        Edge edge = (Edge) this.elementCache.get(key);
+        if (null == edge) {
+            edge = this.baseGraph.getEdge(id);
+            if (null == edge)
+                return null;
+            this.elementCache.put(new CacheKey(edge.getId(), Edge.class), edge);
+        }
+        return new CachedEdge(edge, this);
+    }
+
+    public Iterable<Edge> getEdges() {
+        return new CachedEdgeIterable(this.baseGraph.getEdges(), this);
+    }
+
+    public Iterable<Edge> getEdges(final String key, final Object value) {
+        return new CachedEdgeIterable(this.baseGraph.getEdges(key, value), this);
+    }
+
+    public void removeEdge(final Edge edge) {
+        final Edge baseEdge = edge instanceof CachedEdge ? ((CachedEdge) edge).getBaseEdge() : edge;
+        this.invalidateEdge(baseEdge);
+        this.baseGraph.removeEdge(baseEdge);
+    }
+
+    public void removeVertex(final Vertex vertex) {
+        final Vertex baseVertex = vertex instanceof CachedVertex ? ((CachedVertex) vertex).getBaseVertex() : vertex;
+        for (final Edge edge : baseVertex.getEdges(Direction.BOTH)) {
+            this.invalidateEdge(edge);
+        }
+        final Object id = baseVertex.getId();
+        this.elementCache.remove(new CacheKey(id, Vertex.class));
+        this.propertyCache.remove(new CacheKey(id, Vertex.class));
+        this.invalidateAdjacency(id);
+        this.baseGraph.removeVertex(baseVertex);
+    }
+
+    public GraphQuery query() {
+        final CachedGraph graph = this;
+        return new WrappedGraphQuery(this.baseGraph.query()) {
+            @Override
+            public Iterable<Edge> edges() {
+                return new CachedEdgeIterable(this.query.edges(), graph);
+            }
+
+            @Override
+            public Iterable<Vertex> vertices() {
+                return new CachedVertexIterable(this.query.vertices(), graph);
+            }
+        };
+    }
+
+    @Override
+    public T getBaseGraph() {
+        return this.baseGraph;
+    }
+
+    public Features getFeatures() {
+        return this.features;
+    }
+
+    public String toString() {
+        return StringFactory.graphString(this, this.baseGraph.toString());
+    }
+
+    /**
+     * @return the cached properties of the base element, which may not be modified
+     */
+    Map<String, Object> getProperties(final Element baseElement) {
+        final CacheKey key = new CacheKey(baseElement.getId(), baseElement instanceof Vertex ? Vertex.class : Edge.class);
+        Map<String, Object> properties = this.propertyCache.get(key);
+        if (null == properties) {
+            properties = new HashMap<String, Object>();
+            for (final String propertyKey : baseElement.getPropertyKeys()) {
+                properties.put(propertyKey, baseElement.getProperty(propertyKey));
+            }
+            this.propertyCache.put(key, properties);
+        }
+        return properties;
+    }
+
+    void invalidateProperties(final Element baseElement) {
+        this.propertyCache.remove(new CacheKey(baseElement.getId(), baseElement instanceof Vertex ? Vertex.class : Edge.class));
+    }
+
+    /**
+     * @return the cached edges of the base vertex, which may not be modified
+     */
+    List<Edge> getAdjacentEdges(final Vertex baseVertex, final Direction direction, final String... labels) {
+        final CacheKey key = new CacheKey(baseVertex.getId(), direction);
+        final List<String> labelList = labels.length == 0 ? NO_LABELS : Arrays.asList(labels.clone());
+        final Map<List<String>, List<Edge>> lists = this.adjacencyCache.peek(key);
+        List<Edge> edges = null == lists ? null : lists.get(labelList);
+        if (null != edges) {
+            this.adjacencyCache.recordHit();
+            return edges;
+        }
+
+        this.adjacencyCache.recordMiss();
+        edges = new ArrayList<Edge>();
+        for (final Edge edge : baseVertex.getEdges(direction, labels)) {
+            edges.add(edge);
+        }
+        // the lists of the vertex are copied so that readers of the cached map never see it change
+        final Map<List<String>, List<Edge>> updated = null == lists
+                ? new HashMap<List<String>, List<Edge>>(4)
+                : new HashMap<List<String>, List<Edge>>(lists);
+        updated.put(labelList, edges);
+        this.adjacencyCache.put(key, updated);
+        return edges;
+    }
+
+    private void invalidateAdjacency(final Object vertexId) {
+        this.adjacencyCache.remove(new CacheKey(vertexId, Direction.OUT));
+        this.adjacencyCache.remove(new CacheKey(vertexId, Direction.IN));
+        this.adjacencyCache.remove(new CacheKey(vertexId, Direction.BOTH));
+    }
+
+    private void invalidateEdge(final Edge baseEdge) {
+        final Object id = baseEdge.getId();
+        this.elementCache.remove(new CacheKey(id, Edge.class));
+        this.propertyCache.remove(new CacheKey(id, Edge.class));
+        this.invalidateAdjacency(baseEdge.getVertex(Direction.OUT).getId());
+        this.invalidateAdjacency(baseEdge.getVertex(Direction.IN).getId());
+    }
+
+    /**
+     * Identifies an element by its id and kind, or the adjacency lists of a vertex by its id and the direction.
+     */
+    private static final class CacheKey {
+        private final Object id;
+        private final Object kind;
+
+        private CacheKey(final Object id, final Object kind) {
+            this.id = id;
+            this.kind = kind;
+        }
+
+        public boolean equals(final Object object) {
+            if (!(object instanceof CacheKey))
+                return false;
+            final CacheKey other = (CacheKey) object;
+            return this.kind == other.kind && this.id.equals(other.id);
+        }
+
+        public int hashCode() {
+            return 31 * this.id.hashCode() + this.kind.hashCode();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.tinkerpop.blueprints.util.wrappers.cached;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.VertexQuery;
+import com.tinkerpop.blueprints.util.wrappers.WrapperVertexQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A vertex of a CachedGraph, whose incident edges and adjacent vertices are read from the adjacency lists cached by
+ * the graph.  Vertex queries are not cached.
+ */
+public class CachedVertex extends CachedElement implements Vertex {
+
+    protected CachedVertex(final Vertex baseVertex, final CachedGraph graph) {
+        super(baseVertex, graph);
+    }
+
+    public Iterable<Edge> getEdges(final Direction direction, final String... labels) {
+        return new CachedEdgeIterable(this.graph.getAdjacentEdges((Vertex) this.baseElement, direction, labels), this.graph);
+    }
+
+    public Iterable<Vertex> getVertices(final Direction direction, final String... labels) {
+        final List<Edge> edges = this.graph.getAdjacentEdges((Vertex) this.baseElement, direction, labels);
+        final List<Vertex> vertices = new ArrayList<Vertex>(edges.size());
+        for (final Edge edge : edges) {
+            if (direction == Direction.OUT) {
+                vertices.add(edge.getVertex(Direction.IN));
+            } else if (direction == Direction.IN) {
+                vertices.add(edge.getVertex(Direction.OUT));
+            } else {
+                final Vertex out = edge.getVertex(Direction.OUT);
+                vertices.add(out.getId().equals(this.baseElement.getId()) ? edge.getVertex(Direction.IN) : out);
+            }
+        }
+        return new CachedVertexIterable(vertices, this.graph);
+    }
+
+    public VertexQuery query() {
+        return new WrapperVertexQuery(((Vertex) this.baseElement).query()) {
+            @Override
+            public Iterable<Vertex> vertices() {
+                return new CachedVertexIterable(this.query.vertices(), graph);
+            }
+
+            @Override
+            public Iterable<Edge> edges() {
+                return new CachedEdgeIterable(this.query.edges(), graph);
+            }
+        };
+    }
+
+    public Edge addEdge(final String label, final Vertex vertex) {
+        return this.graph.addEdge(null, this, vertex, label);
+    }
+
+    public void remove() {
+        this.graph.removeVertex(this);
+    }
+
+    public Vertex getBaseVertex() {
+        return (Vertex) this.baseElement;
+    }
+}
@@ -0,0 +1,41 @@
+package com.tinkerpop.blueprints.util.wrappers.cached;
+
+import com.tinkerpop.blueprints.CloseableIterable;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.util.Iterator;
+
+class CachedVertexIterable implements CloseableIterable<Vertex> {
+
+    private final Iterable<Vertex> iterable;
+    private final CachedGraph graph;
+
+    public CachedVertexIterable(final Iterable<Vertex> iterable, final CachedGraph graph) {
+        this.iterable = iterable;
+        this.graph = graph;
+    }
+
+    public Iterator<Vertex> iterator() {
+        return new Iterator<Vertex>() {
+            private final Iterator<Vertex> itty = iterable.iterator();
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            public boolean hasNext() {
+                return this.itty.hasNext();
+            }
+
+            public Vertex next() {
+                return new CachedVertex(this.itty.next(), graph);
+            }
+        };
+    }
+
+    public void close() {
+        if (this.iterable instanceof CloseableIterable) {
+            ((CloseableIterable) iterable).close();
+        }
+    }
+}
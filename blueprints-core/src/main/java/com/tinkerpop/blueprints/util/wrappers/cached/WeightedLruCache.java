@@ -0,0 +1,161 @@
+package com.tinkerpop.blueprints.util.wrappers.cached;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A least recently used cache bounded by the total weight of its values rather than their number, so that a cache of
+ * property maps or adjacency lists holds about as much data however large the individual values are.  Once the total
+ * weight exceeds the maximum weight, the least recently used values are evicted.  A value that alone weighs more than
+ * the maximum weight is not cached.
+ * <p>
+ * The cache counts hits, misses and evictions.  All methods are synchronized.
+ */
+public class WeightedLruCache<K, V> {
+
+    /**
+     * Determines the weight of a value.
+     */
+    public interface Weigher<V> {
+        public int weigh(V value);
+    }
+
+    private final long maxWeight;
+    private final Weigher<V> weigher;
+    private final LinkedHashMap<K, Weighted<V>> map = new LinkedHashMap<K, Weighted<V>>(16, 0.75f, true);
+    private long weight = 0l;
+    private long hitCount = 0l;
+    private long missCount = 0l;
+    private long evictionCount = 0l;
+
+    /**
+     * @param maxWeight the maximum total weight of the values in the cache
+     * @param weigher   determines the weight of a value or null to weigh every value 1
+     */
+    public WeightedLruCache(final long maxWeight, final Weigher<V> weigher) {
+        if (maxWeight <= 0) throw new IllegalArgumentException("MaxWeight must be positive");
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * @return the value of the key, which becomes the most recently used, or null if it is not cached
+     */
+    public synchronized V get(final K key) {
+        final V value = this.peek(key);
+        if (null == value)
+            this.missCount++;
+        else
+            this.hitCount++;
+        return value;
+    }
+
+    /**
+     * Caches the value for the key, replacing and reweighing a value already cached for it.
+     */
+    public synchronized void put(final K key, final V value) {
+        final int valueWeight = null == this.weigher ? 1 : this.weigher.weigh(value);
+        if (valueWeight > this.maxWeight) {
+            this.remove(key);
+            return;
+        }
+
+        final Weighted<V> previous = this.map.put(key, new Weighted<V>(value, valueWeight));
+        if (null != previous)
+            this.weight -= previous.weight;
+        this.weight += valueWeight;
+
+        final Iterator<Weighted<V>> eldest = this.map.values().iterator();
+        while (this.weight > this.maxWeight) {
+            this.weight -= eldest.next().weight;
+            eldest.remove();
+            this.evictionCount++;
+        }
+    }
+
+    /**
+     * @return the value that was cached for the key or null
+     */
+    public synchronized V remove(final K key) {
+        final Weighted<V> previous = this.map.remove(key);
+        if (null == previous)
+            return null;
+        this.weight -= previous.weight;
+        return previous.value;
+    }
+
+    public synchronized void clear() {
+        this.map.clear();
+        this.weight = 0l;
+    }
+
+    public synchronized int size() {
+        return this.map.size();
+    }
+
+    public synchronized long getWeight() {
+        return this.weight;
+    }
+
+    public long getMaxWeight() {
+        return this.maxWeight;
+    }
+
+    public synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    /**
+     * @return the share of the lookups that were hits, or 0 if there were none
+     */
+    public synchronized double getHitRate() {
+        final long lookups = this.hitCount + this.missCount;
+        return lookups == 0l ? 0d : (double) this.hitCount / lookups;
+    }
+
+    public synchronized long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    public synchronized void resetStatistics() {
+        this.hitCount = 0l;
+        this.missCount = 0l;
+        this.evictionCount = 0l;
+    }
+
+    public synchronized String toString() {
+        return "cache[size:" + this.map.size() + " weight:" + this.weight + "/" + this.maxWeight + " hits:" + this.hitCount
+                + " misses:" + this.missCount + " evictions:" + this.evictionCount + "]";
+    }
+
+    /**
+     * Looks up a value like get() without counting a hit or miss, for lookups that count themselves.
+     */
+    synchronized V peek(final K key) {
+        final Weighted<V> weighted = this.map.get(key);
+        return null == weighted ? null : weighted.value;
+    }
+
+    synchronized void recordHit() {
+        this.hitCount++;
+    }
+
+    synchronized void recordMiss() {
+        this.missCount++;
+    }
+
+    private static class Weighted<V> {
+        private final V value;
+        private final int weight;
+
+        private Weighted(final V value, final int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,509 @@
+package com.tinkerpop.blueprints.util.wrappers.event;
+
+import com.tinkerpop.blueprints.util.wrappers.event.listener.Event;
+import com.tinkerpop.blueprints.util.wrappers.event.listener.GraphChangedBatchListener;
+import com.tinkerpop.blueprints.util.wrappers.event.listener.GraphChangedListener;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AsyncEventDispatcher raises the events of an EventGraph on listener threads rather than on the thread that changed
+ * the graph.  Events are published to a bounded ring buffer and each GraphChangedListener has its own thread, which
+ * takes the events it has not seen yet in batches of up to maxBatchSize and raises them in the order they were
+ * published.  A slow listener only holds back the others once the ring buffer is full, at which point the
+ * Backpressure decides whether the publishing thread waits, the event is dropped or publishing fails.
+ * <p>
+ * A listener may change the graph it listens to.  Its thread never waits for room in the ring buffer, as it may be the
+ * listener that holds the room up: where the Backpressure says to wait, its events fail as with FAIL.
+ * <p>
+ * A listener that throws a RuntimeException does not stop its thread.  The error is counted and the next event is
+ * raised.  Listeners that implement GraphChangedBatchListener are told when each batch ends.
+ * <p>
+ * Since events are raised after the graph moved on, listeners should only read the elements passed to them with care,
+ * for example an element reported as added may have been removed again.
+ */
+public class AsyncEventDispatcher {
+
+    /**
+     * What a publishing thread does when the ring buffer has no room for an event
+     */
+    public enum Backpressure {
+        /**
+         * Wait until the slowest listener frees a slot
+         */
+        BLOCK,
+        /**
+         * Drop the event, which is counted by getDroppedCount()
+         */
+        DROP,
+        /**
+         * Throw an IllegalStateException
+         */
+        FAIL
+    }
+
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    private final Event[] ring;
+    private final int mask;
+    private final Backpressure backpressure;
+    private final int maxBatchSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = this.lock.newCondition();
+    private final Condition consumed = this.lock.newCondition();
+
+    private final List<Consumer> consumers = new ArrayList<Consumer>();
+    private long sequence = 0l;
+    private long droppedCount = 0l;
+    private boolean shutdown = false;
+    // the thread publishing a queue larger than the ring buffer, which others may not interleave
+    private Thread publisher = null;
+
+    public AsyncEventDispatcher() {
+        this(DEFAULT_CAPACITY, Backpressure.BLOCK, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param capacity     the number of events the ring buffer holds, rounded up to a power of two
+     * @param backpressure what to do when the ring buffer is full
+     * @param maxBatchSize the maximum number of events a listener thread takes at once
+     */
+    public AsyncEventDispatcher(final int capacity, final Backpressure backpressure, final int maxBatchSize) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+        if (capacity > 1 << 30) throw new IllegalArgumentException("Capacity may not exceed " + (1 << 30));
+        if (backpressure == null) throw new IllegalArgumentException("Backpressure may not be null");
+        if (maxBatchSize <= 0) throw new IllegalArgumentException("MaxBatchSize must be positive");
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.ring = new Event[size];
+        this.mask = size - 1;
+        this.backpressure = backpressure;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getCapacity() {
+        return this.ring.length;
+    }
+
+    public Backpressure getBackpressure() {
+        return this.backpressure;
+    }
+
+    /**
+     * Starts a thread for the listener, which receives the events published from now on.
+     */
+    public void addListener(final GraphChangedListener listener) {
+        if (listener == null) throw new IllegalArgumentException("Listener may not be null");
+        final Consumer consumer;
+        this.lock.lock();
+        try {
+            if (this.shutdown) throw new IllegalStateException("Dispatcher is shut down");
+            consumer = new Consumer(listener, this.sequence);
+            this.consumers.add(consumer);
+        } finally {
+            this.lock.unlock();
+        }
+        consumer.start();
+    }
+
+    /**
+     * Stops the thread of the listener once it has raised its current batch.  Events the listener has not taken yet
+     * are not raised to it.
+     */
+    public void removeListener(final GraphChangedListener listener) {
+        this.lock.lock();
+        try {
+            final Consumer consumer = this.find(listener);
+            if (consumer != null) {
+                this.consumers.remove(consumer);
+                consumer.removed = true;
+                this.published.signalAll();
+                this.consumed.signalAll();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public void removeAllListeners() {
+        this.lock.lock();
+        try {
+            for (final Consumer consumer : this.consumers) {
+                consumer.removed = true;
+            }
+            this.consumers.clear();
+            this.published.signalAll();
+            this.consumed.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Publishes an event to the listeners.
+     */
+    public void publish(final Event event) {
+        this.lock.lock();
+        try {
+            if (this.reserve(1, this.backpressure(false), false))
+                this.offer(event);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Publishes the events of a committed transaction in the order of the queue, which is emptied.  The events of one
+     * queue are not interleaved with events published by other threads: the ring buffer must have room for all of
+     * them before any is published.  As the transaction can no longer fail, events that are not published, because
+     * the Backpressure says to drop or fail them or the dispatcher is shut down, are counted by getDroppedCount() rather
+     * than thrown.  A queue larger than the ring buffer is published in chunks of its size, each of which waits for
+     * room whatever the Backpressure, while the other threads wait for the whole queue.
+     */
+    public void publishAll(final Deque<Event> events) {
+        if (events.isEmpty())
+            return;
+        this.lock.lock();
+        try {
+            if (events.size() <= this.ring.length) {
+                if (this.reserve(events.size(), this.backpressure(true), true)) {
+                    for (final Event event : events) {
+                        this.offer(event);
+                    }
+                }
+            } else {
+                final Backpressure backpressure = this.isListenerThread() ? Backpressure.DROP : Backpressure.BLOCK;
+                this.publisher = Thread.currentThread();
+                try {
+                    while (!events.isEmpty()) {
+                        final int count = Math.min(events.size(), this.ring.length);
+                        if (!this.reserve(count, backpressure, true)) {
+                            this.droppedCount += events.size() - count;
+                            break;
+                        }
+                        for (int i = 0; i < count; i++) {
+                            this.offer(events.pollFirst());
+                        }
+                    }
+                } finally {
+                    this.publisher = null;
+                    this.consumed.signalAll();
+                }
+            }
+        } finally {
+            events.clear();
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every listener has raised all published events.
+     *
+     * @return true if the listeners caught up before the timeout elapsed
+     */
+    public boolean drain(final long timeout, final TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        this.lock.lock();
+        try {
+            while (this.minimumSequence() < this.sequence) {
+                if (nanos <= 0l)
+                    return false;
+                nanos = this.consumed.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Refuses further events, lets the listeners raise the events already published and waits for their threads to
+     * end.
+     */
+    public void shutdown() {
+        final List<Consumer> running;
+        this.lock.lock();
+        try {
+            this.shutdown = true;
+            running = new ArrayList<Consumer>(this.consumers);
+            this.published.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+        try {
+            for (final Consumer consumer : running) {
+                consumer.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    public boolean isShutdown() {
+        this.lock.lock();
+        try {
+            return this.shutdown;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of published events the listener has not raised yet, or -1 if it is not registered
+     */
+    public long getLag(final GraphChangedListener listener) {
+        this.lock.lock();
+        try {
+            final Consumer consumer = this.find(listener);
+            return consumer == null ? -1l : this.sequence - consumer.sequence;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of events raised to the listener, or -1 if it is not registered
+     */
+    public long getProcessedCount(final GraphChangedListener listener) {
+        this.lock.lock();
+        try {
+            final Consumer consumer = this.find(listener);
+            return consumer == null ? -1l : consumer.processedCount;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of events for which the listener threw a RuntimeException, or -1 if it is not registered
+     */
+    public long getErrorCount(final GraphChangedListener listener) {
+        this.lock.lock();
+        try {
+            final Consumer consumer = this.find(listener);
+            return consumer == null ? -1l : consumer.errorCount;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of events dropped because the ring buffer was full
+     */
+    public long getDroppedCount() {
+        this.lock.lock();
+        try {
+            return this.droppedCount;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void checkOpen() {
+        if (this.shutdown) throw new IllegalStateException("Dispatcher is shut down");
+    }
+
+    /**
+     * Makes room in the ring buffer for the given number of events as the Backpressure says, once no other thread is
+     * publishing a queue in chunks.  The lock is held again when this returns, and no other thread can publish until
+     * the events are offered.
+     *
+     * @param committed whether the events belong to a committed transaction, which are dropped where they would fail
+     * @return false if the events are to be dropped
+     */
+    private boolean reserve(final int count, final Backpressure backpressure, final boolean committed) {
+        while (this.shutdown || (null != this.publisher && this.publisher != Thread.currentThread())
+                || this.ring.length - (this.sequence - this.minimumSequence()) < count) {
+            if (this.shutdown) {
+                if (!committed)
+                    this.checkOpen();
+                if (!this.consumers.isEmpty())
+                    this.droppedCount += count;
+                return false;
+            }
+            switch (backpressure) {
+                case DROP:
+                    this.droppedCount += count;
+                    return false;
+                case FAIL:
+                    throw new IllegalStateException(this.isListenerThread()
+                            ? "Event ring buffer is full and a listener thread can not wait for it" : "Event ring buffer is full");
+                default:
+                    try {
+                        this.consumed.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        if (committed) {
+                            this.droppedCount += count;
+                            return false;
+                        }
+                        throw new RuntimeException(e.getMessage(), e);
+                    }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the Backpressure of the current thread, which only waits if it is not a listener thread and only fails
+     *         events of a transaction that is not committed yet
+     */
+    private Backpressure backpressure(final boolean committed) {
+        Backpressure backpressure = this.backpressure;
+        if (backpressure == Backpressure.BLOCK && this.isListenerThread())
+            backpressure = Backpressure.FAIL;
+        if (backpressure == Backpressure.FAIL && committed)
+            backpressure = Backpressure.DROP;
+        return backpressure;
+    }
+
+    private boolean isListenerThread() {
+        for (final Consumer consumer : this.consumers) {
+            if (consumer == Thread.currentThread())
+                return true;
+        }
+        return false;
+    }
+
+    private void offer(final Event event) {
+        if (this.consumers.isEmpty())
+            return;
+
+        this.ring[(int) (this.sequence & this.mask)] = event;
+        this.sequence++;
+        this.published.signalAll();
+    }
+
+    private long minimumSequence() {
+        long minimum = this.sequence;
+        for (final Consumer consumer : this.consumers) {
+            if (consumer.sequence < minimum)
+                minimum = consumer.sequence;
+        }
+        return minimum;
+    }
+
+    private Consumer find(final GraphChangedListener listener) {
+        for (final Consumer consumer : this.consumers) {
+            if (consumer.listener == listener)
+                return consumer;
+        }
+        return null;
+    }
+
+    /**
+     * Raises the events of the ring buffer to one listener.  The fields other than the batch are guarded by the lock.
+     */
+    private class Consumer extends Thread {
+
+        private final GraphChangedListener listener;
+        private final SingleListenerIterator iterator;
+        private final Event[] batch = new Event[maxBatchSize];
+
+        private long sequence;
+        private long processedCount = 0l;
+        private long errorCount = 0l;
+        private boolean removed = false;
+
+        private Consumer(final GraphChangedListener listener, final long sequence) {
+            super("AsyncEventDispatcher-" + listener.getClass().getSimpleName());
+            this.setDaemon(true);
+            this.listener = listener;
+            this.iterator = new SingleListenerIterator(listener);
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                final int size;
+                lock.lock();
+                try {
+                    while (!this.removed && !shutdown && this.sequence == AsyncEventDispatcher.this.sequence) {
+                        published.awaitUninterruptibly();
+                    }
+                    if (this.removed || this.sequence == AsyncEventDispatcher.this.sequence)
+                        return;
+                    size = (int) Math.min(AsyncEventDispatcher.this.sequence - this.sequence, maxBatchSize);
+                    for (int i = 0; i < size; i++) {
+                        this.batch[i] = ring[(int) ((this.sequence + i) & mask)];
+                    }
+                } finally {
+                    lock.unlock();
+                }
+
+                int errors = 0;
+                for (int i = 0; i < size; i++) {
+                    this.iterator.reset();
+                    try {
+                        this.batch[i].fireEvent(this.iterator);
+                    } catch (RuntimeException e) {
+                        errors++;
+                    }
+                    this.batch[i] = null;
+                }
+                if (this.listener instanceof GraphChangedBatchListener) {
+                    try {
+                        ((GraphChangedBatchListener) this.listener).batchEnded(size);
+                    } catch (RuntimeException e) {
+                        errors++;
+                    }
+                }
+
+                lock.lock();
+                try {
+                    this.sequence += size;
+                    this.processedCount += size;
+                    this.errorCount += errors;
+                    consumed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Iterates a single listener so that an Event raises itself to one listener without allocating an iterator.
+     */
+    private static class SingleListenerIterator implements Iterator<GraphChangedListener> {
+
+        private final GraphChangedListener listener;
+        private boolean hasNext = true;
+
+        private SingleListenerIterator(final GraphChangedListener listener) {
+            this.listener = listener;
+        }
+
+        private void reset() {
+            this.hasNext = true;
+        }
+
+        public boolean hasNext() {
+            return this.hasNext;
+        }
+
+        public GraphChangedListener next() {
+            if (!this.hasNext)
+                throw new NoSuchElementException();
+            this.hasNext = false;
+            return this.listener;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
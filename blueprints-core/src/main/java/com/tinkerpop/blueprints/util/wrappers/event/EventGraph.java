@@ -32,6 +32,9 @@ import java.util.Map;
  * the EventGraph by utilizing the addListener method.  EventGraph allows the addition of multiple GraphChangedListener
  * implementations.  Each listener will be notified in the order that it was added.
  *
+ * By default listeners are notified on the thread that changed the graph.  Once an {@link AsyncEventDispatcher} is
+ * set, each listener is notified on its own thread instead.
+ *
  * @author Stephen Mallette
  */
 public class EventGraph<T extends Graph> implements Graph, WrapperGraph<T> {
@@ -54,10 +57,16 @@ public class EventGraph<T extends Graph> implements Graph, WrapperGraph<T> {
 
     public void removeAllListeners() {
         this.graphChangedListeners.clear();
+        final AsyncEventDispatcher dispatcher = this.trigger.getDispatcher();
+        if (dispatcher != null)
+            dispatcher.removeAllListeners();
     }
 
     public void addListener(final GraphChangedListener listener) {
         this.graphChangedListeners.add(listener);
+        final AsyncEventDispatcher dispatcher = this.trigger.getDispatcher();
+        if (dispatcher != null)
+            dispatcher.addListener(listener);
     }
 
     public Iterator<GraphChangedListener> getListenerIterator() {
@@ -70,6 +79,34 @@ public class EventGraph<T extends Graph> implements Graph, WrapperGraph<T> {
 
     public void removeListener(final GraphChangedListener listener) {
         this.graphChangedListeners.remove(listener);
+        final AsyncEventDispatcher dispatcher = this.trigger.getDispatcher();
+        if (dispatcher != null)
+            dispatcher.removeListener(listener);
+    }
+
+    public AsyncEventDispatcher getAsyncDispatcher() {
+        return this.trigger.getDispatcher();
+    }
+
+    /**
+     * Raises events on the listener threads of the dispatcher, which takes over the listeners already added and is
+     * shut down with the graph.  Setting null removes the listeners from the previous dispatcher and raises events on
+     * the thread that changed the graph again.
+     *
+     * @param dispatcher the dispatcher to publish events to
+     */
+    public void setAsyncDispatcher(final AsyncEventDispatcher dispatcher) {
+        final AsyncEventDispatcher previous = this.trigger.getDispatcher();
+        if (previous == dispatcher)
+            return;
+        if (previous != null)
+            previous.removeAllListeners();
+        if (dispatcher != null) {
+            for (final GraphChangedListener listener : this.graphChangedListeners) {
+                dispatcher.addListener(listener);
+            }
+        }
+        this.trigger.setDispatcher(dispatcher);
     }
 
     protected void onVertexAdded(Vertex vertex) {
@@ -208,6 +245,10 @@ public class EventGraph<T extends Graph> implements Graph, WrapperGraph<T> {
             // TODO: hmmmmmm??
             this.trigger.fireEventQueue();
             this.trigger.resetEventQueue();
+
+            final AsyncEventDispatcher dispatcher = this.trigger.getDispatcher();
+            if (dispatcher != null)
+                dispatcher.shutdown();
         } catch (Exception re) {
 
         }
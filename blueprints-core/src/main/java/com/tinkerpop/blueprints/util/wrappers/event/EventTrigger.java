@@ -24,32 +24,54 @@ public class EventTrigger {
 
     private final EventGraph graph;
 
+    /**
+     * When set, events are published to the dispatcher instead of being raised on the thread that changed the graph.
+     */
+    private volatile AsyncEventDispatcher dispatcher = null;
+
     public EventTrigger(final EventGraph graph, final boolean enqueEvents) {
         this.enqueEvents = enqueEvents;
         this.graph = graph;
     }
 
+    AsyncEventDispatcher getDispatcher() {
+        return this.dispatcher;
+    }
+
+    void setDispatcher(final AsyncEventDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
     /**
      * Add an event to the event queue.
      *
-     * If the enqueEvents is false, then the queue fires and resets after each event is added.
+     * If the enqueEvents is false, then the event fires right away without being queued.
      */
     public void addEvent(Event evt) {
-        this.eventQueue.get().add(evt);
-
-        if (!this.enqueEvents) {
-            this.fireEventQueue();
-            this.resetEventQueue();
+        if (this.enqueEvents) {
+            this.eventQueue.get().add(evt);
+        } else {
+            final AsyncEventDispatcher dispatcher = this.dispatcher;
+            if (dispatcher != null)
+                dispatcher.publish(evt);
+            else
+                evt.fireEvent(this.graph.getListenerIterator());
         }
     }
 
     public void resetEventQueue() {
-        eventQueue.set(new ArrayDeque<Event>());
+        eventQueue.get().clear();
     }
 
     public void fireEventQueue() {
         Deque<Event> deque = eventQueue.get();
 
+        final AsyncEventDispatcher dispatcher = this.dispatcher;
+        if (dispatcher != null) {
+            dispatcher.publishAll(deque);
+            return;
+        }
+
         // This array
         for (Event event = deque.pollFirst(); event != null; event = deque.pollFirst()) {
             event.fireEvent(this.graph.getListenerIterator());
@@ -0,0 +1,15 @@
+package com.tinkerpop.blueprints.util.wrappers.event.listener;
+
+/**
+ * A GraphChangedListener that is told when a batch of events raised by an AsyncEventDispatcher ends, for example to
+ * flush what it did for the events of the batch at once.
+ */
+public interface GraphChangedBatchListener extends GraphChangedListener {
+
+    /**
+     * Raised after the events of a batch were raised to the listener.
+     *
+     * @param size the number of events in the batch
+     */
+    public void batchEnded(final int size);
+}
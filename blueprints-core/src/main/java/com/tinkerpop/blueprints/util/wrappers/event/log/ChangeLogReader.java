@@ -0,0 +1,346 @@
+package com.tinkerpop.blueprints.util.wrappers.event.log;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.io.binary.BinaryInput;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * ChangeLogReader replays the change log written by a ChangeLogWriter into another graph, e.g. to keep a warm standby
+ * of a graph without exporting it again.  The reader starts at a sequence number and follows the log from segment to
+ * segment, also while the writer appends to it.  A reader remembers its sequence, so a standby that stores the
+ * sequence after each replay can resume from it later.
+ * <p>
+ * The target graph must honor the ids of the elements it is given, or be wrapped in an IdGraph.  Replay tolerates
+ * records that are already reflected in the target graph: adding an element that exists and removing or updating one
+ * that does not are skipped.  A TransactionalGraph is committed every bufferSize records and after each replay.
+ */
+public class ChangeLogReader {
+
+    /**
+     * Default number of records applied to a TransactionalGraph per transaction
+     */
+    public static final long DEFAULT_BUFFER_SIZE = 1000;
+    private static final int IO_BUFFER_SIZE = 1 << 20;
+    private static final int HEADER_SIZE = ChangeLogTokens.MAGIC.length + 1;
+
+    private final File directory;
+    private final CRC32 crc = new CRC32();
+    private long bufferSize = DEFAULT_BUFFER_SIZE;
+    private volatile boolean stopped = false;
+
+    private long sequence;
+    private long segmentBase = -1l;
+    private long segmentSequence;
+    private FileChannel channel;
+    private long position;
+    private ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER_SIZE);
+    private BinaryInput input = new BinaryInput(this.buffer);
+    private int recordEnd = -1;
+    private boolean torn = false;
+
+    /**
+     * Reads the log from its first record that was not deleted.
+     */
+    public ChangeLogReader(final File directory) {
+        this.directory = directory;
+        final long[] segments = ChangeLogWriter.segments(directory);
+        this.sequence = segments.length == 0 ? 0l : segments[0];
+        this.buffer.flip();
+    }
+
+    /**
+     * Reads the log from the record with the sequence number.
+     */
+    public ChangeLogReader(final File directory, final long sequence) {
+        if (sequence < 0) throw new IllegalArgumentException("Sequence may not be negative");
+        final long[] segments = ChangeLogWriter.segments(directory);
+        if (segments.length > 0 && sequence < segments[0])
+            throw new IllegalArgumentException("Sequence " + sequence + " was deleted from the log");
+        this.directory = directory;
+        this.sequence = sequence;
+        this.buffer.flip();
+    }
+
+    /**
+     * @param bufferSize the number of records applied to a TransactionalGraph per transaction
+     */
+    public void setBufferSize(final long bufferSize) {
+        if (bufferSize <= 0) throw new IllegalArgumentException("BufferSize must be positive");
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @return the sequence number of the next record to replay
+     */
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * Applies the records written to the log so far to the graph.
+     *
+     * @return the number of records applied
+     */
+    public long replay(final Graph graph) throws IOException {
+        final TransactionalGraph transactional = graph instanceof TransactionalGraph ? (TransactionalGraph) graph : null;
+        long count = 0l;
+        long buffered = 0l;
+        while (this.nextRecord()) {
+            apply(graph, this.input);
+            this.sequence++;
+            count++;
+            if (null != transactional && ++buffered == this.bufferSize) {
+                transactional.commit();
+                buffered = 0l;
+            }
+        }
+        if (null != transactional && buffered > 0)
+            transactional.commit();
+        return count;
+    }
+
+    /**
+     * Applies records to the graph as they are written to the log until stop() is called or the thread is
+     * interrupted.
+     *
+     * @param pollInterval the number of milliseconds to wait for new records once all were applied
+     */
+    public void tail(final Graph graph, final long pollInterval) throws IOException {
+        while (!this.stopped) {
+            if (this.replay(graph) == 0l) {
+                try {
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes a running tail return after its current replay.
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+
+    public void close() throws IOException {
+        this.stop();
+        if (null != this.channel) {
+            this.channel.close();
+            this.channel = null;
+        }
+    }
+
+    /**
+     * Positions the input at the next record to replay.
+     *
+     * @return false if no complete record follows yet
+     */
+    private boolean nextRecord() throws IOException {
+        while (true) {
+            if (null == this.channel && !this.openSegment())
+                return false;
+
+            if (this.readFrame()) {
+                if (this.segmentSequence++ >= this.sequence)
+                    return true;
+                continue;
+            }
+
+            // the segment is complete once the writer started the next one, which was written after its records
+            final long[] segments = ChangeLogWriter.segments(this.directory);
+            final int next = Arrays.binarySearch(segments, this.segmentBase) + 1;
+            if (next <= 0 || next >= segments.length)
+                return false;
+            if (this.readFrame()) {
+                if (this.segmentSequence++ >= this.sequence)
+                    return true;
+                continue;
+            }
+            if (this.torn)
+                throw new IOException("Corrupt record " + this.segmentSequence + " in change log " + this.directory);
+            if (segments[next] != this.segmentSequence)
+                throw new IOException("Change log " + this.directory + " is missing records from " + this.segmentSequence);
+            this.channel.close();
+            this.channel = null;
+        }
+    }
+
+    /**
+     * Opens the segment that holds the record with the next sequence number.
+     */
+    private boolean openSegment() throws IOException {
+        final long[] segments = ChangeLogWriter.segments(this.directory);
+        long base = -1l;
+        for (final long segment : segments) {
+            if (segment > this.sequence)
+                break;
+            base = segment;
+        }
+        if (base < 0l)
+            return false;
+
+        final RandomAccessFile file = new RandomAccessFile(ChangeLogWriter.segmentFile(this.directory, base), "r");
+        final FileChannel channel = file.getChannel();
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        int read = 0;
+        while (header.hasRemaining() && read >= 0) {
+            read = channel.read(header, header.position());
+        }
+        if (header.hasRemaining()) {
+            // the writer has not written the header yet
+            file.close();
+            return false;
+        }
+        final byte[] magic = new byte[ChangeLogTokens.MAGIC.length];
+        header.flip();
+        header.get(magic);
+        if (!Arrays.equals(magic, ChangeLogTokens.MAGIC)) {
+            file.close();
+            throw new IOException("Not a change log segment: " + ChangeLogWriter.segmentFile(this.directory, base));
+        }
+        final byte version = header.get();
+        if (version != ChangeLogTokens.VERSION) {
+            file.close();
+            throw new IOException("Unsupported change log version " + version);
+        }
+
+        this.channel = channel;
+        this.segmentBase = base;
+        this.segmentSequence = base;
+        this.position = HEADER_SIZE;
+        this.recordEnd = -1;
+        this.buffer.clear();
+        this.buffer.flip();
+        return true;
+    }
+
+    /**
+     * Reads the frame of the next record of the segment and positions the input at its bytes.
+     *
+     * @return false if the segment does not hold a complete valid record yet
+     */
+    private boolean readFrame() throws IOException {
+        this.torn = false;
+        if (this.recordEnd >= 0) {
+            this.buffer.position(this.recordEnd);
+            this.recordEnd = -1;
+        }
+        if (!this.fill(8))
+            return false;
+        final int start = this.buffer.position();
+        final int length = this.buffer.getInt(start);
+        final int checksum = this.buffer.getInt(start + 4);
+        if (length < 0) {
+            this.torn = true;
+            return false;
+        }
+        if (!this.fill(8 + length))
+            return false;
+
+        final int offset = this.buffer.position();
+        this.crc.reset();
+        this.crc.update(this.buffer.array(), this.buffer.arrayOffset() + offset + 8, length);
+        if ((int) this.crc.getValue() != checksum) {
+            // a record torn by a crash is cut off and written again when the writer opens the log
+            this.torn = true;
+            return false;
+        }
+
+        // the input decodes the record in place before the buffer is refilled
+        this.buffer.position(offset + 8);
+        this.recordEnd = offset + 8 + length;
+        this.position += 8 + length;
+        return true;
+    }
+
+    /**
+     * Makes at least the given number of bytes of the segment available in the buffer.
+     */
+    private boolean fill(final int bytes) throws IOException {
+        if (this.buffer.remaining() >= bytes)
+            return true;
+
+        if (bytes > this.buffer.capacity()) {
+            final ByteBuffer larger = ByteBuffer.allocate(Math.max(bytes, this.buffer.capacity() << 1));
+            larger.put(this.buffer);
+            this.buffer = larger;
+            this.input = new BinaryInput(this.buffer);
+        } else {
+            this.buffer.compact();
+        }
+        int read;
+        do {
+            read = this.channel.read(this.buffer, this.position + this.buffer.position());
+        } while (read > 0 && this.buffer.hasRemaining());
+        this.buffer.flip();
+        return this.buffer.remaining() >= bytes;
+    }
+
+    private static void apply(final Graph graph, final BinaryInput in) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+            case ChangeLogTokens.VERTEX_ADDED: {
+                final Object id = in.readValue();
+                if (null == graph.getVertex(id))
+                    graph.addVertex(id);
+                break;
+            }
+            case ChangeLogTokens.VERTEX_REMOVED: {
+                final Vertex vertex = graph.getVertex(in.readValue());
+                if (null != vertex)
+                    graph.removeVertex(vertex);
+                break;
+            }
+            case ChangeLogTokens.EDGE_ADDED: {
+                final Object id = in.readValue();
+                final Vertex outVertex = graph.getVertex(in.readValue());
+                final Vertex inVertex = graph.getVertex(in.readValue());
+                final String label = in.readString();
+                if (null == graph.getEdge(id) && null != outVertex && null != inVertex)
+                    graph.addEdge(id, outVertex, inVertex, label);
+                break;
+            }
+            case ChangeLogTokens.EDGE_REMOVED: {
+                final Edge edge = graph.getEdge(in.readValue());
+                if (null != edge)
+                    graph.removeEdge(edge);
+                break;
+            }
+            case ChangeLogTokens.VERTEX_PROPERTY_CHANGED:
+            case ChangeLogTokens.EDGE_PROPERTY_CHANGED: {
+                final Object id = in.readValue();
+                final Element element = type == ChangeLogTokens.VERTEX_PROPERTY_CHANGED ? graph.getVertex(id) : graph.getEdge(id);
+                final String key = in.readString();
+                final Object value = in.readValue();
+                if (null != element)
+                    element.setProperty(key, value);
+                break;
+            }
+            case ChangeLogTokens.VERTEX_PROPERTY_REMOVED:
+            case ChangeLogTokens.EDGE_PROPERTY_REMOVED: {
+                final Object id = in.readValue();
+                final Element element = type == ChangeLogTokens.VERTEX_PROPERTY_REMOVED ? graph.getVertex(id) : graph.getEdge(id);
+                final String key = in.readString();
+                if (null != element)
+                    element.removeProperty(key);
+                break;
+            }
+            default:
+                throw new IOException("unknown change log record: " + type);
+        }
+    }
+}
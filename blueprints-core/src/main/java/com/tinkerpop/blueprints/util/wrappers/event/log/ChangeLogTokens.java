@@ -0,0 +1,25 @@
+package com.tinkerpop.blueprints.util.wrappers.event.log;
+
+/**
+ * A collection of tokens used for the change log.
+ * <p>
+ * The log is a directory of segment files, each named by the zero padded sequence number of its first record and the
+ * SEGMENT_EXTENSION.  A segment starts with MAGIC and VERSION and is followed by records, each framed by its int length
+ * and the int CRC32 of its bytes.  A record is its type byte followed by the id value of the element and, depending on
+ * the type, the out vertex id value, in vertex id value and label of an added edge, or the key and, for a change, the
+ * new value of a property.  Values and strings are encoded as in the binary graph format.
+ */
+public class ChangeLogTokens {
+    public static final byte[] MAGIC = {'B', 'P', 'C', 'L'};
+    public static final byte VERSION = 1;
+    public static final String SEGMENT_EXTENSION = ".cdc";
+
+    public static final byte VERTEX_ADDED = 1;
+    public static final byte VERTEX_REMOVED = 2;
+    public static final byte VERTEX_PROPERTY_CHANGED = 3;
+    public static final byte VERTEX_PROPERTY_REMOVED = 4;
+    public static final byte EDGE_ADDED = 5;
+    public static final byte EDGE_REMOVED = 6;
+    public static final byte EDGE_PROPERTY_CHANGED = 7;
+    public static final byte EDGE_PROPERTY_REMOVED = 8;
+}
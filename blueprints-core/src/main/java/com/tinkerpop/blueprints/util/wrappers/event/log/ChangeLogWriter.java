@@ -0,0 +1,431 @@
+package com.tinkerpop.blueprints.util.wrappers.event.log;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.io.binary.BinaryOutput;
+import com.tinkerpop.blueprints.util.wrappers.event.listener.GraphChangedBatchListener;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * ChangeLogWriter is a GraphChangedListener that appends the events of an EventGraph to a durable change log, from
+ * which a ChangeLogReader replays them into another graph.
+ * <p>
+ * Records are collected in memory and group committed: the batch is written out when it grows large, at the end of
+ * each batch of an AsyncEventDispatcher, and fsynced every sync interval, or after every record when the sync interval
+ * is zero.  The log is append-only and split into segments, a new one being started once the current one outgrows the
+ * segment size.  Each record is framed with its length and a CRC32, so a record torn by a crash is detected and cut
+ * off when the log is opened again.
+ * <p>
+ * Records hold element ids rather than elements, and the new value but not the old value of a changed property.  The
+ * properties of removed elements are not logged.
+ */
+public class ChangeLogWriter implements GraphChangedBatchListener {
+
+    public static final long DEFAULT_SEGMENT_SIZE = 64l * 1024l * 1024l;
+    public static final long DEFAULT_SYNC_INTERVAL = 100l;
+    private static final int BATCH_SIZE = 64 * 1024;
+    private static final int HEADER_SIZE = ChangeLogTokens.MAGIC.length + 1;
+
+    private final File directory;
+    private final long segmentSize;
+    private final long syncInterval;
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream(BATCH_SIZE);
+    private final DataOutputStream batchOut = new DataOutputStream(this.batch);
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private final BinaryOutput recordOut = new BinaryOutput(this.record, 1024);
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService syncer;
+    private FileChannel channel;
+    private long sequence;
+    private boolean closed = false;
+
+    public ChangeLogWriter(final File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_SYNC_INTERVAL);
+    }
+
+    /**
+     * Opens the log of the directory for appending, cutting off a record torn by a crash.
+     *
+     * @param segmentSize  the size in bytes of a segment that starts a new one
+     * @param syncInterval the number of milliseconds between fsyncs of the log or zero to fsync every record
+     */
+    public ChangeLogWriter(final File directory, final long segmentSize, final long syncInterval) throws IOException {
+        if (segmentSize <= 0) throw new IllegalArgumentException("SegmentSize must be positive");
+        if (syncInterval < 0) throw new IllegalArgumentException("SyncInterval may not be negative");
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Could not create directory " + directory);
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncInterval = syncInterval;
+        this.open();
+
+        if (syncInterval > 0) {
+            this.syncer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "changelog-sync");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.syncer.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    try {
+                        sync();
+                    } catch (RuntimeException e) {
+                        // the next write reports a log that can not be written
+                    }
+                }
+            }, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.syncer = null;
+        }
+    }
+
+    /**
+     * @return the sequence number of the next record, which is the number of records ever appended to the log
+     */
+    public synchronized long getSequence() {
+        return this.sequence;
+    }
+
+    public synchronized void vertexAdded(final Vertex vertex) {
+        try {
+            this.recordOut.writeByte(ChangeLogTokens.VERTEX_ADDED);
+            this.recordOut.writeValue(vertex.getId());
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    public synchronized void vertexPropertyChanged(final Vertex vertex, final String key, final Object oldValue, final Object setValue) {
+        this.propertyChanged(ChangeLogTokens.VERTEX_PROPERTY_CHANGED, vertex.getId(), key, setValue);
+    }
+
+    public synchronized void vertexPropertyRemoved(final Vertex vertex, final String key, final Object removedValue) {
+        this.propertyRemoved(ChangeLogTokens.VERTEX_PROPERTY_REMOVED, vertex.getId(), key);
+    }
+
+    public synchronized void vertexRemoved(final Vertex vertex, final Map<String, Object> props) {
+        try {
+            this.recordOut.writeByte(ChangeLogTokens.VERTEX_REMOVED);
+            this.recordOut.writeValue(vertex.getId());
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    public synchronized void edgeAdded(final Edge edge) {
+        try {
+            this.recordOut.writeByte(ChangeLogTokens.EDGE_ADDED);
+            this.recordOut.writeValue(edge.getId());
+            this.recordOut.writeValue(edge.getVertex(Direction.OUT).getId());
+            this.recordOut.writeValue(edge.getVertex(Direction.IN).getId());
+            this.recordOut.writeString(edge.getLabel());
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    public synchronized void edgePropertyChanged(final Edge edge, final String key, final Object oldValue, final Object setValue) {
+        this.propertyChanged(ChangeLogTokens.EDGE_PROPERTY_CHANGED, edge.getId(), key, setValue);
+    }
+
+    public synchronized void edgePropertyRemoved(final Edge edge, final String key, final Object removedValue) {
+        this.propertyRemoved(ChangeLogTokens.EDGE_PROPERTY_REMOVED, edge.getId(), key);
+    }
+
+    public synchronized void edgeRemoved(final Edge edge, final Map<String, Object> props) {
+        try {
+            this.recordOut.writeByte(ChangeLogTokens.EDGE_REMOVED);
+            this.recordOut.writeValue(edge.getId());
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    /**
+     * Writes the records of the batch to the log without an fsync, so that tailing readers see them.
+     */
+    public synchronized void batchEnded(final int size) {
+        if (this.closed)
+            return;
+        try {
+            this.flush();
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+    }
+
+    /**
+     * Write the records collected so far to the log and fsync it.
+     */
+    public synchronized void sync() {
+        if (this.closed)
+            return;
+        try {
+            this.flush();
+            this.channel.force(false);
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+    }
+
+    /**
+     * Deletes the segments that only hold records before the sequence number, e.g. those every reader has replayed.
+     * The current segment is never deleted.
+     */
+    public synchronized void deleteSegmentsBefore(final long sequence) {
+        final long[] segments = segments(this.directory);
+        for (int i = 0; i < segments.length - 1; i++) {
+            if (segments[i + 1] > sequence)
+                break;
+            final File segment = segmentFile(this.directory, segments[i]);
+            if (!segment.delete())
+                throw new RuntimeException("Could not delete " + segment);
+        }
+    }
+
+    public synchronized void close() {
+        if (this.closed)
+            return;
+        if (null != this.syncer)
+            this.syncer.shutdown();
+        try {
+            this.flush();
+            this.channel.force(false);
+            this.channel.close();
+            this.closed = true;
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+    }
+
+    private void propertyChanged(final byte type, final Object id, final String key, final Object value) {
+        try {
+            this.recordOut.writeByte(type);
+            this.recordOut.writeValue(id);
+            this.recordOut.writeString(key);
+            this.recordOut.writeValue(value);
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    private void propertyRemoved(final byte type, final Object id, final String key) {
+        try {
+            this.recordOut.writeByte(type);
+            this.recordOut.writeValue(id);
+            this.recordOut.writeString(key);
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.append();
+    }
+
+    /**
+     * Frame the current record into the batch, then commit the batch as needed.
+     */
+    private void append() {
+        if (this.closed) {
+            this.discard();
+            throw new IllegalStateException("Change log is closed");
+        }
+        try {
+            this.recordOut.flush();
+            final byte[] bytes = this.record.toByteArray();
+            this.record.reset();
+            this.crc.reset();
+            this.crc.update(bytes, 0, bytes.length);
+            this.batchOut.writeInt(bytes.length);
+            this.batchOut.writeInt((int) this.crc.getValue());
+            this.batchOut.write(bytes);
+        } catch (IOException e) {
+            throw this.failed(e);
+        }
+        this.sequence++;
+
+        if (this.syncInterval <= 0) {
+            this.sync();
+        } else if (this.batch.size() >= BATCH_SIZE) {
+            try {
+                this.flush();
+            } catch (IOException e) {
+                throw this.failed(e);
+            }
+        }
+    }
+
+    /**
+     * Write the batch to the current segment and start a new segment if it is full.
+     */
+    private void flush() throws IOException {
+        if (this.batch.size() == 0)
+            return;
+
+        final ByteBuffer buffer = ByteBuffer.wrap(this.batch.toByteArray());
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+        this.batch.reset();
+
+        if (this.channel.size() >= this.segmentSize) {
+            this.channel.force(false);
+            this.channel.close();
+            this.createSegment(this.sequence);
+        }
+    }
+
+    private void open() throws IOException {
+        final long[] segments = segments(this.directory);
+        if (segments.length == 0) {
+            this.createSegment(0l);
+            this.sequence = 0l;
+            return;
+        }
+
+        final long base = segments[segments.length - 1];
+        final File file = segmentFile(this.directory, base);
+        final long[] scan = scan(file);
+        if (scan[0] < HEADER_SIZE) {
+            // the segment was created but its header was not written
+            this.createSegment(base);
+            this.sequence = base;
+            return;
+        }
+
+        this.channel = new RandomAccessFile(file, "rw").getChannel();
+        if (scan[0] < this.channel.size()) {
+            this.channel.truncate(scan[0]);
+            this.channel.force(false);
+        }
+        this.channel.position(scan[0]);
+        this.sequence = base + scan[1];
+    }
+
+    private void createSegment(final long base) throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(segmentFile(this.directory, base), "rw");
+        file.setLength(0l);
+        this.channel = file.getChannel();
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(ChangeLogTokens.MAGIC);
+        header.put(ChangeLogTokens.VERSION);
+        header.flip();
+        while (header.hasRemaining()) {
+            this.channel.write(header);
+        }
+        this.channel.force(false);
+    }
+
+    /**
+     * @return the length of the valid part of the segment and the number of records in it
+     */
+    private static long[] scan(final File segment) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment), 1 << 16));
+        final CRC32 crc = new CRC32();
+        final long length = segment.length();
+        long valid = 0l;
+        long records = 0l;
+        try {
+            final byte[] magic = new byte[ChangeLogTokens.MAGIC.length];
+            try {
+                in.readFully(magic);
+                if (!Arrays.equals(magic, ChangeLogTokens.MAGIC))
+                    throw new IOException("Not a change log segment: " + segment);
+                final byte version = in.readByte();
+                if (version != ChangeLogTokens.VERSION)
+                    throw new IOException("Unsupported change log version " + version + " in " + segment);
+            } catch (EOFException e) {
+                return new long[]{0l, 0l};
+            }
+            valid = HEADER_SIZE;
+
+            byte[] bytes = new byte[1024];
+            while (true) {
+                final int size;
+                final int checksum;
+                try {
+                    size = in.readInt();
+                    checksum = in.readInt();
+                    if (size < 0 || valid + 8 + size > length)
+                        break;
+                    if (size > bytes.length)
+                        bytes = new byte[Math.max(size, bytes.length << 1)];
+                    in.readFully(bytes, 0, size);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(bytes, 0, size);
+                if ((int) crc.getValue() != checksum)
+                    break;
+                valid = valid + 8 + size;
+                records++;
+            }
+        } finally {
+            in.close();
+        }
+        return new long[]{valid, records};
+    }
+
+    private RuntimeException failed(final IOException e) {
+        this.discard();
+        return new RuntimeException("Could not write the change log: " + e.getMessage(), e);
+    }
+
+    private void discard() {
+        try {
+            this.recordOut.flush();
+        } catch (IOException e) {
+            // only written to memory
+        }
+        this.record.reset();
+    }
+
+    /**
+     * @return the sequence numbers of the first records of the segments of the directory in ascending order
+     */
+    static long[] segments(final File directory) {
+        final String[] names = directory.list(new FilenameFilter() {
+            public boolean accept(final File dir, final String name) {
+                return name.endsWith(ChangeLogTokens.SEGMENT_EXTENSION);
+            }
+        });
+        if (null == names)
+            return new long[0];
+        final long[] segments = new long[names.length];
+        for (int i = 0; i < names.length; i++) {
+            segments[i] = Long.parseLong(names[i].substring(0, names[i].length() - ChangeLogTokens.SEGMENT_EXTENSION.length()));
+        }
+        Arrays.sort(segments);
+        return segments;
+    }
+
+    static File segmentFile(final File directory, final long base) {
+        return new File(directory, String.format("%020d", base) + ChangeLogTokens.SEGMENT_EXTENSION);
+    }
+}
@@ -0,0 +1,83 @@
+package com.tinkerpop.blueprints.util.wrappers.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An IdFactory which creates Long IDs from blocks of consecutive IDs reserved by a BlockAllocator.
+ * Each thread takes its IDs from its own block, so concurrent writers do not contend for a shared counter,
+ * and the allocator is consulted once per block only.
+ * An allocator which reserves its blocks durably, e.g. in a sequence of a database,
+ * lets several processes create unique IDs for the same graph.
+ *
+ * IDs are unique but not consecutive across threads, and the unused IDs of a block are lost when the factory is discarded.
+ */
+public class BlockIdFactory implements IdGraph.IdFactory {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1000;
+
+    private final BlockAllocator allocator;
+    private final int blockSize;
+    private final ThreadLocal<long[]> blocks = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            // the next ID of the block and the end of the block
+            return new long[]{0l, 0l};
+        }
+    };
+
+    /**
+     * Creates IDs from zero, reserving blocks of the default size from a counter of this factory.
+     */
+    public BlockIdFactory() {
+        this(new CounterBlockAllocator(0l), DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param allocator reserves the blocks of IDs
+     * @param blockSize the number of IDs reserved at once
+     */
+    public BlockIdFactory(final BlockAllocator allocator, final int blockSize) {
+        if (null == allocator) throw new IllegalArgumentException("Allocator may not be null");
+        if (blockSize <= 0) throw new IllegalArgumentException("BlockSize must be positive");
+        this.allocator = allocator;
+        this.blockSize = blockSize;
+    }
+
+    public Object createId() {
+        final long[] block = this.blocks.get();
+        if (block[0] == block[1]) {
+            block[0] = this.allocator.allocate(this.blockSize);
+            block[1] = block[0] + this.blockSize;
+        }
+        return block[0]++;
+    }
+
+    /**
+     * Reserves blocks of IDs.  Blocks must not overlap, and allocate may be called by several threads at once.
+     */
+    public static interface BlockAllocator {
+        /**
+         * @return the first ID of a block of the given number of consecutive IDs reserved for the caller
+         */
+        long allocate(int blockSize);
+    }
+
+    /**
+     * A BlockAllocator which reserves blocks from an in-memory counter.
+     */
+    public static class CounterBlockAllocator implements BlockAllocator {
+
+        private final AtomicLong next;
+
+        /**
+         * @param first the first ID of the first block
+         */
+        public CounterBlockAllocator(final long first) {
+            this.next = new AtomicLong(first);
+        }
+
+        public long allocate(final int blockSize) {
+            return this.next.getAndAdd(blockSize);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.tinkerpop.blueprints.util.wrappers.id;
 
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Features;
@@ -14,6 +15,7 @@ import com.tinkerpop.blueprints.util.ExceptionFactory;
 import com.tinkerpop.blueprints.util.StringFactory;
 import com.tinkerpop.blueprints.util.wrappers.WrappedGraphQuery;
 import com.tinkerpop.blueprints.util.wrappers.WrapperGraph;
+import com.tinkerpop.blueprints.util.wrappers.cached.WeightedLruCache;
 
 import java.util.HashSet;
 import java.util.Iterator;
@@ -31,6 +33,9 @@ import java.util.logging.Logger;
  * For those graphs which support vertex indices but not edge indices (or vice versa),
  * you may configure IdGraph to use custom IDs only for vertices or only for edges.
  *
+ * Custom IDs are resolved to the IDs of the base graph through bounded caches,
+ * so that repeated lookups of an element skip the ID index of the base graph.
+ *
  * @author Joshua Shinavier (http://fortytwo.net)
  */
 public class IdGraph<T extends KeyIndexableGraph> implements KeyIndexableGraph, WrapperGraph<T>, IndexableGraph, TransactionalGraph {
@@ -40,6 +45,11 @@ public class IdGraph<T extends KeyIndexableGraph> implements KeyIndexableGraph,
     // Note: using "__id" instead of "_id" avoids collision with Rexster's "_id"
     public static final String ID = "__id";
 
+    /**
+     * The default maximum number of custom IDs cached per element class
+     */
+    public static final long DEFAULT_ID_CACHE_SIZE = 100000l;
+
     private final T baseGraph;
 
     private IdFactory vertexIdFactory;
@@ -51,6 +61,9 @@ public class IdGraph<T extends KeyIndexableGraph> implements KeyIndexableGraph,
 
     private boolean uniqueIds = true;
 
+    private WeightedLruCache<Object, Object> vertexIdCache;
+    private WeightedLruCache<Object, Object> edgeIdCache;
+
     /**
      * Adds custom ID functionality to the given graph,
      * supporting both custom vertex IDs and custom edge IDs.
@@ -88,6 +101,35 @@ public class IdGraph<T extends KeyIndexableGraph> implements KeyIndexableGraph,
 
         vertexIdFactory = new DefaultIdFactory();
         edgeIdFactory = new DefaultIdFactory();
+
+        setIdCacheSize(DEFAULT_ID_CACHE_SIZE);
+    }
+
+    /**
+     * @param idCacheSize the maximum number of custom vertex IDs and of custom edge IDs whose base graph IDs are cached.
+     *                    A size of zero disables the caches.
+     */
+    public void setIdCacheSize(final long idCacheSize) {
+        if (idCacheSize < 0) {
+            throw new IllegalArgumentException("id cache size may not be negative");
+        }
+
+        vertexIdCache = 0 == idCacheSize ? null : new WeightedLruCache<Object, Object>(idCacheSize, null);
+        edgeIdCache = 0 == idCacheSize ? null : new WeightedLruCache<Object, Object>(idCacheSize, null);
+    }
+
+    /**
+     * @return the cache from custom vertex IDs to base graph vertex IDs, or null if it is disabled
+     */
+    public WeightedLruCache<Object, Object> getVertexIdCache() {
+        return vertexIdCache;
+    }
+
+    /**
+     * @return the cache from custom edge IDs to base graph edge IDs, or null if it is disabled
+     */
+    public WeightedLruCache<Object, Object> getEdgeIdCache() {
+        return edgeIdCache;
     }
 
     /**
@@ -138,6 +180,7 @@ public class IdGraph<T extends KeyIndexableGraph> implements KeyIndexableGraph,
 
             if (null != v) {
                 base.setProperty(ID, v);
+                cacheId(vertexIdCache, v, base);
             }
         }
 
@@ -150,6 +193,19 @@ public class IdGraph<T extends KeyIndexableGraph> implements KeyIndexableGraph,
         }
 
         if (supportVertexIds) {
+            final WeightedLruCache<Object, Object> cache = vertexIdCache;
+            if (null != cache) {
+                final Object baseId = cache.get(id);
+                if (null != baseId) {
+                    final Vertex base = baseGraph.getVertex(baseId);
+                    // the base vertex may have been removed, e.g. by a rollback, or its id reused
+                    if (null != base && id.equals(base.getProperty(ID))) {
+                        return new IdVertex(base, this);
+                    }
+                    cache.remove(id);
+                }
+            }
+
             final Iterable<Vertex> i = baseGraph.getVertices(ID, id);
             final Iterator<Vertex> iter = i.iterator();
             if (!iter.hasNext()) {
@@ -161,6 +217,7 @@ public class IdGraph<T extends KeyIndexableGraph> implements KeyIndexableGraph,
                     LOGGER.warning("multiple vertices exist with id '" + id + "'. Arbitarily choosing " + v);
                 }
 
+                cacheId(cache, id, v);
                 return new IdVertex(v, this);
             }
         } else {
@@ -171,7 +228,16 @@ public class IdGraph<T extends KeyIndexableGraph> implements KeyIndexableGraph,
 
     public void removeVertex(final Vertex vertex) {
         verifyNativeElement(vertex);
-        baseGraph.removeVertex(((IdVertex) vertex).getBaseVertex());
+        final Vertex base = ((IdVertex) vertex).getBaseVertex();
+        if (supportVertexIds) {
+            uncacheId(vertexIdCache, base);
+        }
+        if (supportEdgeIds && null != edgeIdCache) {
+            for (final Edge edge : base.getEdges(Direction.BOTH)) {
+                uncacheId(edgeIdCache, edge);
+            }
+        }
+        baseGraph.removeVertex(base);
     }
 
     public Iterable<Vertex> getVertices() {
@@ -205,6 +271,7 @@ public class IdGraph<T extends KeyIndexableGraph> implements KeyIndexableGraph,
 
             if (null != v) {
                 base.setProperty(ID, v);
+                cacheId(edgeIdCache, v, base);
             }
         }
 
@@ -217,6 +284,18 @@ public class IdGraph<T extends KeyIndexableGraph> implements KeyIndexableGraph,
         }
 
         if (supportEdgeIds) {
+            final WeightedLruCache<Object, Object> cache = edgeIdCache;
+            if (null != cache) {
+                final Object baseId = cache.get(id);
+                if (null != baseId) {
+                    final Edge base = baseGraph.getEdge(baseId);
+                    if (null != base && id.equals(base.getProperty(ID))) {
+                        return new IdEdge(base, this);
+                    }
+                    cache.remove(id);
+                }
+            }
+
             Iterable<Edge> i = baseGraph.getEdges(ID, id);
             Iterator<Edge> iter = i.iterator();
             if (!iter.hasNext()) {
@@ -228,6 +307,7 @@ public class IdGraph<T extends KeyIndexableGraph> implements KeyIndexableGraph,
                     LOGGER.warning("multiple edges exist with id '" + id + "'. Arbitarily choosing " + e);
                 }
 
+                cacheId(cache, id, e);
                 return new IdEdge(e, this);
             }
         } else {
@@ -239,7 +319,11 @@ public class IdGraph<T extends KeyIndexableGraph> implements KeyIndexableGraph,
     public void removeEdge(final Edge edge) {
         verifyNativeElement(edge);
 
-        baseGraph.removeEdge(((IdEdge) edge).getBaseEdge());
+        final Edge base = ((IdEdge) edge).getBaseEdge();
+        if (supportEdgeIds) {
+            uncacheId(edgeIdCache, base);
+        }
+        baseGraph.removeEdge(base);
     }
 
     public Iterable<Edge> getEdges() {
@@ -264,6 +348,7 @@ public class IdGraph<T extends KeyIndexableGraph> implements KeyIndexableGraph,
     }
 
     public void rollback() {
+        // cached ids of elements added in the transaction are dropped once a lookup finds the element gone
         if (this.baseGraph instanceof TransactionalGraph) {
             ((TransactionalGraph) baseGraph).rollback();
         }
@@ -407,6 +492,21 @@ public class IdGraph<T extends KeyIndexableGraph> implements KeyIndexableGraph,
         }
     }
 
+    private static void cacheId(final WeightedLruCache<Object, Object> cache, final Object id, final Element base) {
+        if (null != cache) {
+            cache.put(id, base.getId());
+        }
+    }
+
+    private static void uncacheId(final WeightedLruCache<Object, Object> cache, final Element base) {
+        if (null != cache) {
+            final Object id = base.getProperty(ID);
+            if (null != id) {
+                cache.remove(id);
+            }
+        }
+    }
+
     private void verifyBaseGraphIsIndexableGraph() {
         if (!(baseGraph instanceof IndexableGraph)) {
             throw new IllegalStateException("base graph is not an indexable graph");
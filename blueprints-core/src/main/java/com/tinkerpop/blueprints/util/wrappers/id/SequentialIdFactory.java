@@ -0,0 +1,37 @@
+package com.tinkerpop.blueprints.util.wrappers.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An IdFactory which creates consecutive Long IDs from a shared counter.
+ * Long IDs are far smaller in the ID index of the base graph than UUID strings.
+ * The factory may be used by concurrent writers, and by the vertices and the edges of a graph alike.
+ *
+ * The counter is not persisted: a factory for a graph which already holds IDs should start after the largest of them.
+ */
+public class SequentialIdFactory implements IdGraph.IdFactory {
+
+    private final AtomicLong next;
+
+    public SequentialIdFactory() {
+        this(0l);
+    }
+
+    /**
+     * @param first the first ID to create
+     */
+    public SequentialIdFactory(final long first) {
+        this.next = new AtomicLong(first);
+    }
+
+    public Object createId() {
+        return this.next.getAndIncrement();
+    }
+
+    /**
+     * @return the ID the factory creates next
+     */
+    public long getNext() {
+        return this.next.get();
+    }
+}
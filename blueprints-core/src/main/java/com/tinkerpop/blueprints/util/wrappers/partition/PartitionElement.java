@@ -65,7 +65,7 @@ public abstract class PartitionElement implements Element {
     }
 
     public void setPartition(final String partition) {
-        this.baseElement.setProperty(this.graph.getPartitionKey(), partition);
+        this.graph.setPartition(this.baseElement, partition);
     }
 
     public void remove() {
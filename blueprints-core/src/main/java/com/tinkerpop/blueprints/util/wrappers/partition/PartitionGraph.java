@@ -6,16 +6,35 @@ import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Features;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.Index;
+import com.tinkerpop.blueprints.IndexableGraph;
+import com.tinkerpop.blueprints.KeyIndexStatisticsGraph;
+import com.tinkerpop.blueprints.KeyIndexableGraph;
 import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.MultiIterable;
+import com.tinkerpop.blueprints.util.PropertyFilteredIterable;
 import com.tinkerpop.blueprints.util.StringFactory;
 import com.tinkerpop.blueprints.util.wrappers.WrappedGraphQuery;
 import com.tinkerpop.blueprints.util.wrappers.WrapperGraph;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
+ * With setPartitionIndexing(true), PartitionGraph indexes the partition key of the base graph, so that scans and
+ * lookups cost in proportion to the size of the read partitions rather than of the graph.  A KeyIndexableGraph gets a
+ * key index on the partition key, and an IndexableGraph without key indices gets a vertex and an edge index named
+ * after the partition key with a _V and _E suffix, which are maintained as elements are written.  getVertices() and
+ * getEdges() then read the read partitions from the index.  getVertices(key, value) and getEdges(key, value) use the
+ * key index of the key when there is one, unless a KeyIndexStatisticsGraph counts fewer elements in the read
+ * partitions than with the value.
+ * <p>
+ * Partition indexing is off by default, as it writes indices to the base graph and as elements without a partition,
+ * which are in every partition, are not found through the partition index.
+ *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
 public class PartitionGraph<T extends Graph> implements Graph, WrapperGraph<T> {
@@ -24,6 +43,12 @@ public class PartitionGraph<T extends Graph> implements Graph, WrapperGraph<T> {
     private String writePartition;
     private Set<String> readPartitions = new HashSet<String>();
     private String partitionKey;
+    private boolean partitionIndexing = false;
+
+    private boolean vertexKeyIndexed = false;
+    private boolean edgeKeyIndexed = false;
+    private Index<Vertex> vertexPartitionIndex = null;
+    private Index<Edge> edgePartitionIndex = null;
 
     private final Features features;
 
@@ -62,6 +87,23 @@ public class PartitionGraph<T extends Graph> implements Graph, WrapperGraph<T> {
 
     public void setPartitionKey(final String partitionKey) {
         this.partitionKey = partitionKey;
+        if (this.partitionIndexing)
+            this.createPartitionIndices();
+    }
+
+    /**
+     * Enabling partition indexing creates the partition index in the base graph if it does not exist yet.
+     *
+     * @param partitionIndexing whether scans and lookups read the read partitions from the partition index rather than
+     *                          the whole base graph
+     */
+    public void setPartitionIndexing(final boolean partitionIndexing) {
+        this.partitionIndexing = partitionIndexing;
+        this.createPartitionIndices();
+    }
+
+    public boolean getPartitionIndexing() {
+        return this.partitionIndexing;
     }
 
     public String getPartitionKey() {
@@ -100,11 +142,16 @@ public class PartitionGraph<T extends Graph> implements Graph, WrapperGraph<T> {
     }
 
     public Iterable<Vertex> getVertices() {
-        return new PartitionVertexIterable(this.baseGraph.getVertices(), this);
+        final Iterable<Vertex> partitioned = this.getPartitionVertices();
+        return new PartitionVertexIterable(null == partitioned ? this.baseGraph.getVertices() : partitioned, this);
     }
 
     public Iterable<Vertex> getVertices(final String key, final Object value) {
-        return new PartitionVertexIterable(this.baseGraph.getVertices(key, value), this);
+        final Iterable<Vertex> partitioned = key.equals(this.partitionKey) ? null : this.getPartitionVertices();
+        if (null == partitioned || this.isKeyIndexCheaper(key, value, Vertex.class))
+            return new PartitionVertexIterable(this.baseGraph.getVertices(key, value), this);
+        else
+            return new PartitionVertexIterable(new PropertyFilteredIterable<Vertex>(key, value, partitioned), this);
     }
 
     public Edge addEdge(final Object id, final Vertex outVertex, final Vertex inVertex, final String label) {
@@ -122,11 +169,16 @@ public class PartitionGraph<T extends Graph> implements Graph, WrapperGraph<T> {
     }
 
     public Iterable<Edge> getEdges() {
-        return new PartitionEdgeIterable(this.baseGraph.getEdges(), this);
+        final Iterable<Edge> partitioned = this.getPartitionEdges();
+        return new PartitionEdgeIterable(null == partitioned ? this.baseGraph.getEdges() : partitioned, this);
     }
 
     public Iterable<Edge> getEdges(final String key, final Object value) {
-        return new PartitionEdgeIterable(this.baseGraph.getEdges(key, value), this);
+        final Iterable<Edge> partitioned = key.equals(this.partitionKey) ? null : this.getPartitionEdges();
+        if (null == partitioned || this.isKeyIndexCheaper(key, value, Edge.class))
+            return new PartitionEdgeIterable(this.baseGraph.getEdges(key, value), this);
+        else
+            return new PartitionEdgeIterable(new PropertyFilteredIterable<Edge>(key, value, partitioned), this);
     }
 
     public void removeEdge(final Edge edge) {
@@ -164,4 +216,126 @@ public class PartitionGraph<T extends Graph> implements Graph, WrapperGraph<T> {
             }
         };
     }
+
+    /**
+     * Writes the partition of a base element, keeping a partition index of an IndexableGraph up to date.
+     */
+    void setPartition(final Element baseElement, final String partition) {
+        final Index index = baseElement instanceof Vertex ? this.vertexPartitionIndex : this.edgePartitionIndex;
+        if (null != index) {
+            final Object previous = baseElement.getProperty(this.partitionKey);
+            if (null != previous)
+                index.remove(this.partitionKey, previous, baseElement);
+            if (null != partition)
+                index.put(this.partitionKey, partition, baseElement);
+        }
+        if (null == partition)
+            baseElement.removeProperty(this.partitionKey);
+        else
+            baseElement.setProperty(this.partitionKey, partition);
+    }
+
+    private void createPartitionIndices() {
+        this.vertexKeyIndexed = false;
+        this.edgeKeyIndexed = false;
+        this.vertexPartitionIndex = null;
+        this.edgePartitionIndex = null;
+        if (!this.partitionIndexing)
+            return;
+
+        if (this.baseGraph instanceof KeyIndexableGraph) {
+            final KeyIndexableGraph graph = (KeyIndexableGraph) this.baseGraph;
+            if (Boolean.TRUE.equals(this.features.supportsVertexKeyIndex)) {
+                if (!graph.getIndexedKeys(Vertex.class).contains(this.partitionKey))
+                    graph.createKeyIndex(this.partitionKey, Vertex.class);
+                this.vertexKeyIndexed = true;
+            }
+            if (Boolean.TRUE.equals(this.features.supportsEdgeKeyIndex)) {
+                if (!graph.getIndexedKeys(Edge.class).contains(this.partitionKey))
+                    graph.createKeyIndex(this.partitionKey, Edge.class);
+                this.edgeKeyIndexed = true;
+            }
+        } else if (this.baseGraph instanceof IndexableGraph) {
+            final IndexableGraph graph = (IndexableGraph) this.baseGraph;
+            if (Boolean.TRUE.equals(this.features.supportsVertexIndex)) {
+                this.vertexPartitionIndex = graph.getIndex(this.partitionKey + "_V", Vertex.class);
+                if (null == this.vertexPartitionIndex) {
+                    this.vertexPartitionIndex = graph.createIndex(this.partitionKey + "_V", Vertex.class);
+                    this.indexPartitions(this.vertexPartitionIndex, this.baseGraph.getVertices());
+                }
+            }
+            if (Boolean.TRUE.equals(this.features.supportsEdgeIndex)) {
+                this.edgePartitionIndex = graph.getIndex(this.partitionKey + "_E", Edge.class);
+                if (null == this.edgePartitionIndex) {
+                    this.edgePartitionIndex = graph.createIndex(this.partitionKey + "_E", Edge.class);
+                    this.indexPartitions(this.edgePartitionIndex, this.baseGraph.getEdges());
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts the elements written before the partition index was created into it.
+     */
+    private <E extends Element> void indexPartitions(final Index<E> index, final Iterable<E> elements) {
+        for (final E element : elements) {
+            final Object partition = element.getProperty(this.partitionKey);
+            if (null != partition)
+                index.put(this.partitionKey, partition, element);
+        }
+    }
+
+    /**
+     * @return the vertices of the read partitions, or null if they are not indexed
+     */
+    private Iterable<Vertex> getPartitionVertices() {
+        if (!this.vertexKeyIndexed && null == this.vertexPartitionIndex)
+            return null;
+        final List<Iterable<Vertex>> iterables = new ArrayList<Iterable<Vertex>>();
+        for (final String partition : this.readPartitions) {
+            iterables.add(this.vertexKeyIndexed
+                    ? this.baseGraph.getVertices(this.partitionKey, partition)
+                    : this.vertexPartitionIndex.get(this.partitionKey, partition));
+        }
+        return new MultiIterable<Vertex>(iterables);
+    }
+
+    /**
+     * @return the edges of the read partitions, or null if they are not indexed
+     */
+    private Iterable<Edge> getPartitionEdges() {
+        if (!this.edgeKeyIndexed && null == this.edgePartitionIndex)
+            return null;
+        final List<Iterable<Edge>> iterables = new ArrayList<Iterable<Edge>>();
+        for (final String partition : this.readPartitions) {
+            iterables.add(this.edgeKeyIndexed
+                    ? this.baseGraph.getEdges(this.partitionKey, partition)
+                    : this.edgePartitionIndex.get(this.partitionKey, partition));
+        }
+        return new MultiIterable<Edge>(iterables);
+    }
+
+    /**
+     * Determines whether the key index of the base graph finds the elements with the value faster than filtering the
+     * elements of the read partitions.
+     */
+    private boolean isKeyIndexCheaper(final String key, final Object value, final Class<? extends Element> elementClass) {
+        if (!(this.baseGraph instanceof KeyIndexableGraph) || !((KeyIndexableGraph) this.baseGraph).getIndexedKeys(elementClass).contains(key))
+            return false;
+        if (!(this.baseGraph instanceof KeyIndexStatisticsGraph))
+            return true;
+
+        final KeyIndexStatisticsGraph graph = (KeyIndexStatisticsGraph) this.baseGraph;
+        final Index index = Vertex.class.isAssignableFrom(elementClass) ? this.vertexPartitionIndex : this.edgePartitionIndex;
+        final long matches = graph.countKeyIndex(key, value, elementClass);
+        long partitionSize = 0l;
+        for (final String partition : this.readPartitions) {
+            partitionSize += null == index
+                    ? graph.countKeyIndex(this.partitionKey, partition, elementClass)
+                    : index.count(this.partitionKey, partition);
+            if (partitionSize >= matches)
+                return true;
+        }
+        return false;
+    }
 }
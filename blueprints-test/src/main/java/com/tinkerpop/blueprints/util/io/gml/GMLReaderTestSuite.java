@@ -664,14 +664,14 @@ public class GMLReaderTestSuite extends TestSuite {
                     assertEquals(e.getId(), "7");
                     counter++;
                 } else if (e.getVertex(Direction.IN).getId().equals("3")) {
-                    assertEquals(Math.round((Float) e.getProperty("weight")), 0);
+                    assertEquals(Math.round(((Number) e.getProperty("weight")).floatValue()), 0);
                     assertEquals(e.getProperty("id2"), 10);
                     assertEquals(e.getProperty("label2"), "has high fived");
                     assertEquals(e.getLabel(), "created");
                     assertEquals(e.getId(), "9");
                     counter++;
                 } else if (e.getVertex(Direction.IN).getId().equals("4")) {
-                    assertEquals(Math.round((Float) e.getProperty("weight")), 1);
+                    assertEquals(Math.round(((Number) e.getProperty("weight")).floatValue()), 1);
                     assertEquals(e.getProperty("id2"), 9);
                     assertEquals(e.getProperty("label2"), "has high fived");
                     assertEquals(e.getLabel(), "knows");
@@ -701,14 +701,14 @@ public class GMLReaderTestSuite extends TestSuite {
             assertEquals(josh.getProperty("age"), 32);
             for (Edge e : toGraph.getVertex(4).getEdges(Direction.OUT)) {
                 if (e.getVertex(Direction.IN).getId().equals("3")) {
-                    assertEquals(Math.round((Float) e.getProperty("weight")), 0);
+                    assertEquals(Math.round(((Number) e.getProperty("weight")).floatValue()), 0);
                     assertEquals(e.getProperty("id2"), 13);
                     assertEquals(e.getProperty("label2"), null);
                     assertEquals(e.getLabel(), "created");
                     assertEquals(e.getId(), "11");
                     counter++;
                 } else if (e.getVertex(Direction.IN).getId().equals("5")) {
-                    assertEquals(Math.round((Float) e.getProperty("weight")), 1);
+                    assertEquals(Math.round(((Number) e.getProperty("weight")).floatValue()), 1);
                     assertEquals(e.getProperty("id2"), 11);
                     assertEquals(e.getProperty("label2"), "has high fived");
                     assertEquals(e.getLabel(), "created");
@@ -732,7 +732,7 @@ public class GMLReaderTestSuite extends TestSuite {
 
             for (Edge e : toGraph.getVertex(6).getEdges(Direction.OUT)) {
                 if (e.getVertex(Direction.IN).getId().equals("3")) {
-                    assertEquals(Math.round((Float) e.getProperty("weight")), 0);
+                    assertEquals(Math.round(((Number) e.getProperty("weight")).floatValue()), 0);
                     assertEquals(e.getProperty("id2"), null);
                     assertEquals(e.getProperty("label2"), null);
                     assertEquals(e.getLabel(), "created");
@@ -0,0 +1,236 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.EdgeTestSuite;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphQueryTestSuite;
+import com.tinkerpop.blueprints.GraphTestSuite;
+import com.tinkerpop.blueprints.IndexTestSuite;
+import com.tinkerpop.blueprints.IndexableGraphTestSuite;
+import com.tinkerpop.blueprints.KeyIndexableGraphTestSuite;
+import com.tinkerpop.blueprints.TestSuite;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.VertexQueryTestSuite;
+import com.tinkerpop.blueprints.VertexTestSuite;
+import com.tinkerpop.blueprints.impls.GraphTest;
+import com.tinkerpop.blueprints.util.io.gml.GMLReaderTestSuite;
+import com.tinkerpop.blueprints.util.io.graphml.GraphMLReaderTestSuite;
+import com.tinkerpop.blueprints.util.io.graphson.GraphSONReaderTestSuite;
+import org.apache.commons.configuration.BaseConfiguration;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Tests ColumnarTinkerGraph using the standard test suites.
+ */
+public class ColumnarTinkerGraphTest extends GraphTest {
+
+    public void testGraphTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new GraphTestSuite(this));
+        printTestPerformance("GraphTestSuite", this.stopWatch());
+    }
+
+    public void testVertexTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new VertexTestSuite(this));
+        printTestPerformance("VertexTestSuite", this.stopWatch());
+    }
+
+    public void testEdgeTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new EdgeTestSuite(this));
+        printTestPerformance("EdgeTestSuite", this.stopWatch());
+    }
+
+    public void testKeyIndexableGraphTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new KeyIndexableGraphTestSuite(this));
+        printTestPerformance("KeyIndexableGraphTestSuite", this.stopWatch());
+    }
+
+    public void testIndexableGraphTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new IndexableGraphTestSuite(this));
+        printTestPerformance("IndexableGraphTestSuite", this.stopWatch());
+    }
+
+    public void testIndexTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new IndexTestSuite(this));
+        printTestPerformance("IndexTestSuite", this.stopWatch());
+    }
+
+    public void testVertexQueryTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new VertexQueryTestSuite(this));
+        printTestPerformance("VertexQueryTestSuite", this.stopWatch());
+    }
+
+    public void testGraphQueryTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new GraphQueryTestSuite(this));
+        printTestPerformance("GraphQueryTestSuite", this.stopWatch());
+    }
+
+    public void testGraphMLReaderTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new GraphMLReaderTestSuite(this));
+        printTestPerformance("GraphMLReaderTestSuite", this.stopWatch());
+    }
+
+    public void testGraphSONReaderTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new GraphSONReaderTestSuite(this));
+        printTestPerformance("GraphSONReaderTestSuite", this.stopWatch());
+    }
+
+    public void testGMLReaderTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new GMLReaderTestSuite(this));
+        printTestPerformance("GMLReaderTestSuite", this.stopWatch());
+    }
+
+    public void testOpenViaTinkerGraphFactory() {
+        final BaseConfiguration conf = new BaseConfiguration();
+        conf.setProperty("blueprints.tg.storage", "COLUMNAR");
+        assertTrue(TinkerGraphFactory.open(conf) instanceof ColumnarTinkerGraph);
+
+        conf.setProperty("blueprints.tg.storage", "DEFAULT");
+        assertTrue(TinkerGraphFactory.open(conf) instanceof TinkerGraph);
+    }
+
+    public void testPropertyColumnPromotion() {
+        final ColumnarTinkerGraph graph = new ColumnarTinkerGraph();
+        final Vertex a = graph.addVertex(null);
+        final Vertex b = graph.addVertex(null);
+        final Vertex c = graph.addVertex(null);
+
+        a.setProperty("value", 1);
+        b.setProperty("value", 2);
+        assertTrue(graph.vertexProperties.get("value") instanceof TinkerPropertyColumn.IntColumn);
+
+        c.setProperty("value", "three");
+        assertTrue(graph.vertexProperties.get("value") instanceof TinkerPropertyColumn.ObjectColumn);
+        assertEquals(1, a.getProperty("value"));
+        assertEquals(2, b.getProperty("value"));
+        assertEquals("three", c.getProperty("value"));
+
+        assertEquals(2, b.removeProperty("value"));
+        assertNull(b.getProperty("value"));
+        assertEquals(0, b.getPropertyKeys().size());
+    }
+
+    public void testHandlesAreEqualAcrossLookups() {
+        final ColumnarTinkerGraph graph = new ColumnarTinkerGraph();
+        final Vertex a = graph.addVertex(null);
+        final Vertex b = graph.addVertex(null);
+        final Edge e = graph.addEdge(null, a, b, "knows");
+
+        assertEquals(a, graph.getVertex(a.getId()));
+        assertEquals(a, graph.getVertex(a.getId().toString()));
+        assertEquals(e, graph.getEdge(e.getId()));
+        assertEquals(b, e.getVertex(Direction.IN));
+        assertEquals(e, a.getEdges(Direction.OUT, "knows").iterator().next());
+        assertNull(graph.getVertex("not-a-long"));
+    }
+
+    public void testRemovedSlotsAreSkipped() {
+        final ColumnarTinkerGraph graph = new ColumnarTinkerGraph();
+        final Vertex a = graph.addVertex(null);
+        final Vertex b = graph.addVertex(null);
+        final Vertex c = graph.addVertex(null);
+        graph.addEdge(null, a, b, "knows");
+        graph.addEdge(null, b, c, "knows");
+
+        graph.removeVertex(b);
+        assertEquals(2, count(graph.getVertices()));
+        assertEquals(0, count(graph.getEdges()));
+        assertEquals(0, count(a.getEdges(Direction.BOTH)));
+        assertNull(graph.getVertex(b.getId()));
+        assertEquals(Arrays.asList(a, c), asList(graph.getVertices()));
+    }
+
+    public void testCompactedAdjacency() {
+        final ColumnarTinkerGraph graph = new ColumnarTinkerGraph();
+        final Vertex hub = graph.addVertex(null);
+        for (int i = 0; i < 100; i++) {
+            final Vertex other = graph.addVertex(null);
+            graph.addEdge(null, hub, other, i % 2 == 0 ? "knows" : "created");
+            graph.addEdge(null, other, hub, "likes");
+        }
+        graph.addEdge(null, hub, hub, "self");
+
+        graph.compact();
+        assertEquals(101, count(hub.getEdges(Direction.OUT)));
+        assertEquals(50, count(hub.getEdges(Direction.OUT, "knows")));
+        assertEquals(50, count(hub.getVertices(Direction.OUT, "created")));
+        assertEquals(100, count(hub.getEdges(Direction.OUT, "knows", "created")));
+        assertEquals(101, count(hub.getEdges(Direction.IN)));
+        assertEquals(202, count(hub.getEdges(Direction.BOTH)));
+        assertEquals(hub, hub.getVertices(Direction.OUT, "self").iterator().next());
+        assertEquals(0, count(hub.getEdges(Direction.OUT, "likes")));
+        assertEquals(0, count(hub.getEdges(Direction.OUT, "missing")));
+
+        // edges added after compaction land in the delta and removed edges are skipped
+        final Vertex late = graph.addVertex(null);
+        graph.addEdge(null, hub, late, "knows");
+        graph.addEdge(null, late, hub, "knows");
+        for (final Edge edge : hub.getEdges(Direction.OUT, "created")) {
+            graph.removeEdge(edge);
+        }
+        assertEquals(51, count(hub.getEdges(Direction.OUT, "knows")));
+        assertEquals(0, count(hub.getEdges(Direction.OUT, "created")));
+        assertEquals(2, count(late.getEdges(Direction.BOTH)));
+        assertEquals(1, count(hub.getEdges(Direction.IN, "knows")));
+
+        graph.compact();
+        assertEquals(51, count(hub.getEdges(Direction.OUT, "knows")));
+        assertEquals(1, count(hub.getEdges(Direction.IN, "knows")));
+        assertEquals(100, count(hub.getEdges(Direction.IN, "likes")));
+
+        graph.removeVertex(hub);
+        assertEquals(101, count(graph.getVertices()));
+        assertEquals(0, count(graph.getEdges()));
+    }
+
+    public void testIteratorSurvivesCompactionAndRemoval() {
+        final ColumnarTinkerGraph graph = new ColumnarTinkerGraph();
+        final Vertex a = graph.addVertex(null);
+        for (int i = 0; i < 10; i++) {
+            graph.addEdge(null, a, graph.addVertex(null), "knows");
+        }
+
+        int seen = 0;
+        for (final Edge edge : a.getEdges(Direction.OUT)) {
+            graph.addEdge(null, a, graph.addVertex(null), "knows");
+            graph.compact();
+            graph.removeEdge(edge);
+            seen++;
+        }
+        assertEquals(10, seen);
+        assertEquals(10, count(a.getEdges(Direction.OUT)));
+    }
+
+    @Override
+    public Graph generateGraph() {
+        return new ColumnarTinkerGraph();
+    }
+
+    @Override
+    public Graph generateGraph(final String graphDirectoryName) {
+        return this.generateGraph();
+    }
+
+    @Override
+    public void doTestSuite(final TestSuite testSuite) throws Exception {
+        for (Method method : testSuite.getClass().getDeclaredMethods()) {
+            if (method.getName().startsWith("test")) {
+                System.out.println("Testing " + method.getName() + "...");
+                method.invoke(testSuite);
+            }
+        }
+    }
+}
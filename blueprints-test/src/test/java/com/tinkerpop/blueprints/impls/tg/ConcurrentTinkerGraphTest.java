@@ -0,0 +1,210 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import org.apache.commons.configuration.BaseConfiguration;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tests ConcurrentTinkerGraph using the standard test suite and with many threads writing at once.
+ */
+public class ConcurrentTinkerGraphTest extends TinkerGraphTest {
+
+    @Override
+    public Graph generateGraph() {
+        return generateGraph("graph");
+    }
+
+    @Override
+    public Graph generateGraph(final String graphDirectoryName) {
+        return new ConcurrentTinkerGraph(getDirectory() + "/" + graphDirectoryName);
+    }
+
+    public void testOpenViaTinkerGraphFactory() {
+        final BaseConfiguration conf = new BaseConfiguration();
+        conf.setProperty("blueprints.tg.storage", "CONCURRENT");
+        assertTrue(TinkerGraphFactory.open(conf) instanceof ConcurrentTinkerGraph);
+    }
+
+    public void testLoadFromTinkerGraphFile() {
+        final String path = getDirectory() + "/graph-concurrent-graphson";
+        deleteDirectory(new File(path));
+
+        final TinkerGraph source = new TinkerGraph(path, TinkerGraph.FileType.GRAPHSON);
+        source.createKeyIndex("name", Vertex.class);
+        final Vertex marko = source.addVertex("1");
+        marko.setProperty("name", "marko");
+        final Vertex lop = source.addVertex("2");
+        lop.setProperty("name", "lop");
+        source.addEdge("3", marko, lop, "created").setProperty("weight", 0.4d);
+        source.createIndex("names", Vertex.class).put("name", "lop", lop);
+        source.shutdown();
+
+        final ConcurrentTinkerGraph graph = new ConcurrentTinkerGraph(path, TinkerGraph.FileType.GRAPHSON);
+        assertEquals(2, count(graph.getVertices()));
+        assertEquals(1, count(graph.getEdges()));
+        assertEquals(graph.getVertex("1"), graph.getVertices("name", "marko").iterator().next());
+        assertEquals(graph.getVertex("2"), graph.getVertex("1").getVertices(Direction.OUT, "created").iterator().next());
+        assertEquals(0.4d, graph.getEdge("3").getProperty("weight"));
+        assertEquals(graph.getVertex("2"), graph.getIndex("names", Vertex.class).get("name", "lop").iterator().next());
+
+        final Vertex ripple = graph.addVertex(null);
+        assertFalse(ripple.getId().equals("1") || ripple.getId().equals("2") || ripple.getId().equals("3"));
+        graph.shutdown();
+        deleteDirectory(new File(path));
+    }
+
+    public void testConcurrentWrites() throws Exception {
+        final ConcurrentTinkerGraph graph = new ConcurrentTinkerGraph();
+        graph.createKeyIndex("group", Vertex.class);
+        final Vertex hub = graph.addVertex("hub");
+
+        final int threads = 8;
+        final int verticesPerThread = 500;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<Object>> futures = new ArrayList<Future<Object>>();
+        for (int t = 0; t < threads; t++) {
+            final int group = t;
+            futures.add(executor.submit(new Callable<Object>() {
+                public Object call() {
+                    Vertex previous = null;
+                    for (int i = 0; i < verticesPerThread; i++) {
+                        final Vertex vertex = graph.addVertex(null);
+                        vertex.setProperty("group", group);
+                        graph.addEdge(null, hub, vertex, "member");
+                        if (null != previous)
+                            graph.addEdge(null, previous, vertex, "next");
+                        previous = vertex;
+                        count(graph.getVertices("group", group));
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (final Future<Object> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(threads * verticesPerThread + 1, count(graph.getVertices()));
+        assertEquals(threads * (2 * verticesPerThread - 1), count(graph.getEdges()));
+        assertEquals(threads * verticesPerThread, count(hub.getEdges(Direction.OUT, "member")));
+        for (int t = 0; t < threads; t++) {
+            assertEquals(verticesPerThread, count(graph.getVertices("group", t)));
+        }
+
+        for (final Edge edge : graph.getEdges()) {
+            assertNotNull(graph.getVertex(edge.getVertex(Direction.IN).getId()));
+        }
+
+        graph.removeVertex(hub);
+        assertEquals(threads * (verticesPerThread - 1), count(graph.getEdges()));
+    }
+
+    public void testWriteAheadLogWithConcurrentWrites() throws Exception {
+        final String path = getDirectory() + "/graph-concurrent-wal";
+        deleteDirectory(new File(path));
+
+        final ConcurrentTinkerGraph graph = new ConcurrentTinkerGraph(path, TinkerGraph.FileType.BINARY, true);
+        final Vertex hub = graph.addVertex("hub");
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<Object>> futures = new ArrayList<Future<Object>>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(new Callable<Object>() {
+                public Object call() {
+                    for (int i = 0; i < 250; i++) {
+                        graph.addEdge(null, hub, graph.addVertex(null), "member").setProperty("rank", i);
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (final Future<Object> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        graph.shutdown();
+
+        final ConcurrentTinkerGraph reopened = new ConcurrentTinkerGraph(path, TinkerGraph.FileType.BINARY, true);
+        assertEquals(1001, count(reopened.getVertices()));
+        assertEquals(1000, count(reopened.getVertex("hub").getEdges(Direction.OUT, "member")));
+        assertEquals(0, new File(path + TinkerWriteAheadLog.LOG_FILE).length());
+        reopened.shutdown();
+        deleteDirectory(new File(path));
+    }
+
+    public void testWriteAheadLogCheckpointsInBackground() throws Exception {
+        final String path = getDirectory() + "/graph-concurrent-wal-checkpoint";
+        deleteDirectory(new File(path));
+
+        final ConcurrentTinkerGraph graph = new ConcurrentTinkerGraph(walConfiguration(path, TinkerGraph.FileType.BINARY, 4096));
+        final Vertex hub = graph.addVertex("hub");
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<Object>> futures = new ArrayList<Future<Object>>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(new Callable<Object>() {
+                public Object call() {
+                    for (int i = 0; i < 250; i++) {
+                        graph.addEdge(null, hub, graph.addVertex(null), "member").setProperty("rank", i);
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (final Future<Object> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        // the log was moved aside and snapshot while the writers kept going
+        assertTrue(new File(path + "/tinkergraph.bin").exists());
+        graph.shutdown();
+        assertFalse(new File(path + TinkerWriteAheadLog.ROTATED_LOG_FILE).exists());
+        assertFalse(new File(path + TinkerWriteAheadLog.CHECKPOINT_DIRECTORY).exists());
+
+        final ConcurrentTinkerGraph reopened = new ConcurrentTinkerGraph(walConfiguration(path, TinkerGraph.FileType.BINARY, 4096));
+        assertEquals(1001, count(reopened.getVertices()));
+        assertEquals(1000, count(reopened.getVertex("hub").getEdges(Direction.OUT, "member")));
+        reopened.shutdown();
+        deleteDirectory(new File(path));
+    }
+
+    public void testSuppliedIdsAreClaimedOnce() throws Exception {
+        final ConcurrentTinkerGraph graph = new ConcurrentTinkerGraph();
+        final int threads = 4;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(new Callable<Integer>() {
+                public Integer call() {
+                    int added = 0;
+                    for (int i = 0; i < 1000; i++) {
+                        try {
+                            graph.addVertex("v" + i);
+                            added++;
+                        } catch (IllegalArgumentException e) {
+                            // another thread claimed the id first
+                        }
+                    }
+                    return added;
+                }
+            }));
+        }
+        int total = 0;
+        for (final Future<Integer> future : futures) {
+            total = total + future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(1000, total);
+        assertEquals(1000, count(graph.getVertices()));
+    }
+}
@@ -0,0 +1,153 @@
+package com.tinkerpop.blueprints.impls.tg;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.ElementHelper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TinkerBinaryTest {
+
+    private File file;
+
+    @Before
+    public void beforeTest() throws IOException {
+        this.file = File.createTempFile("tinkergraph", ".bin");
+    }
+
+    @After
+    public void afterTest() {
+        this.file.delete();
+    }
+
+    @Test
+    public void toyGraphRoundTrips() throws IOException {
+        final TinkerGraph graph = TinkerGraphFactory.createTinkerGraph();
+        TinkerBinaryWriter.save(graph, this.file.getPath());
+
+        final TinkerGraph loaded = new TinkerGraph();
+        TinkerBinaryReader.load(loaded, this.file.getPath());
+        assertSameGraph(graph, loaded);
+    }
+
+    @Test
+    public void manySegmentsRoundTripInParallel() throws IOException {
+        final TinkerGraph graph = new TinkerGraph();
+        Vertex previous = null;
+        for (int i = 0; i < 1000; i++) {
+            final Vertex vertex = graph.addVertex(i % 3 == 0 ? "v" + i : null);
+            vertex.setProperty("number", i);
+            if (i % 2 == 0)
+                vertex.setProperty("even", true);
+            if (null != previous)
+                graph.addEdge(null, previous, vertex, i % 5 == 0 ? "five" : "next").setProperty("weight", i / 10.0d);
+            previous = vertex;
+        }
+
+        new TinkerBinaryWriter(graph, 37).save(this.file.getPath());
+        final TinkerGraph loaded = new TinkerGraph();
+        new TinkerBinaryReader(loaded, 4).load(this.file.getPath());
+        assertSameGraph(graph, loaded);
+    }
+
+    @Test
+    public void propertyTypesRoundTrip() throws IOException {
+        final TinkerGraph graph = new TinkerGraph();
+        final Map<String, Object> map = new HashMap<String, Object>();
+        map.put("a", 1);
+        final Vertex a = graph.addVertex("007");
+        a.setProperty("string", "été 東京");
+        a.setProperty("integer", -42);
+        a.setProperty("long", Long.MIN_VALUE);
+        a.setProperty("short", (short) -3);
+        a.setProperty("float", 1.5f);
+        a.setProperty("double", Double.NaN);
+        a.setProperty("boolean", false);
+        a.setProperty("byte", (byte) -1);
+        a.setProperty("list", Arrays.asList(1, 2, 3));
+        a.setProperty("map", map);
+        a.setProperty("date", new Date(0));
+        a.setProperty("mixed", 1);
+        final Vertex b = graph.addVertex("9223372036854775807");
+        b.setProperty("mixed", "one");
+        final Vertex c = graph.addVertex("");
+        c.setProperty("mixed", 1l);
+        graph.addEdge("e", a, a, "self").setProperty("mixed", new int[]{1, 2});
+
+        TinkerBinaryWriter.save(graph, this.file.getPath());
+        final TinkerGraph loaded = new TinkerGraph();
+        TinkerBinaryReader.load(loaded, this.file.getPath());
+        assertSameGraph(graph, loaded);
+
+        final Vertex loadedA = loaded.getVertex("007");
+        Assert.assertEquals(Long.MIN_VALUE, loadedA.getProperty("long"));
+        Assert.assertEquals((short) -3, loadedA.getProperty("short"));
+        Assert.assertEquals((byte) -1, loadedA.getProperty("byte"));
+        Assert.assertEquals(map, loadedA.getProperty("map"));
+        Assert.assertEquals(1l, loaded.getVertex("").getProperty("mixed"));
+        Assert.assertArrayEquals(new int[]{1, 2}, (int[]) loaded.getEdge("e").getProperty("mixed"));
+    }
+
+    @Test
+    public void emptyGraphRoundTrips() throws IOException {
+        TinkerBinaryWriter.save(new TinkerGraph(), this.file.getPath());
+        final TinkerGraph loaded = new TinkerGraph();
+        TinkerBinaryReader.load(loaded, this.file.getPath());
+        Assert.assertEquals(0, loaded.vertices.size());
+        Assert.assertEquals(0, loaded.edges.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void newerVersionIsRejected() throws IOException {
+        TinkerBinaryWriter.save(TinkerGraphFactory.createTinkerGraph(), this.file.getPath());
+        final RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+        raf.seek(4);
+        raf.writeInt(TinkerBinaryWriter.VERSION + 1);
+        raf.close();
+
+        TinkerBinaryReader.load(new TinkerGraph(), this.file.getPath());
+    }
+
+    private static void assertSameGraph(final TinkerGraph expected, final TinkerGraph actual) {
+        Assert.assertEquals(expected.vertices.size(), actual.vertices.size());
+        Assert.assertEquals(expected.edges.size(), actual.edges.size());
+        for (final Vertex vertex : expected.getVertices()) {
+            final Vertex other = actual.getVertex(vertex.getId());
+            Assert.assertNotNull(other);
+            Assert.assertEquals(vertex.getPropertyKeys(), other.getPropertyKeys());
+            for (final String key : vertex.getPropertyKeys()) {
+                Assert.assertEquals(vertex.getProperty(key), other.getProperty(key));
+            }
+            Assert.assertEquals(count(vertex.getEdges(Direction.OUT)), count(other.getEdges(Direction.OUT)));
+            Assert.assertEquals(count(vertex.getEdges(Direction.IN)), count(other.getEdges(Direction.IN)));
+        }
+        for (final Edge edge : expected.getEdges()) {
+            final Edge other = actual.getEdge(edge.getId());
+            Assert.assertNotNull(other);
+            Assert.assertEquals(edge.getLabel(), other.getLabel());
+            Assert.assertEquals(edge.getVertex(Direction.OUT).getId(), other.getVertex(Direction.OUT).getId());
+            Assert.assertEquals(edge.getVertex(Direction.IN).getId(), other.getVertex(Direction.IN).getId());
+            if (!(edge.getProperty("mixed") instanceof int[]))
+                Assert.assertTrue(ElementHelper.haveEqualProperties(edge, other));
+        }
+    }
+
+    private static int count(final Iterable<?> iterable) {
+        int count = 0;
+        for (final Object object : iterable) {
+            count++;
+        }
+        return count;
+    }
+}
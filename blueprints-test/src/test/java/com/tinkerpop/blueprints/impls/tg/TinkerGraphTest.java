@@ -1,5 +1,7 @@
 package com.tinkerpop.blueprints.impls.tg;
 
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Contains;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.EdgeTestSuite;
@@ -10,20 +12,30 @@ import com.tinkerpop.blueprints.Index;
 import com.tinkerpop.blueprints.IndexTestSuite;
 import com.tinkerpop.blueprints.IndexableGraphTestSuite;
 import com.tinkerpop.blueprints.KeyIndexableGraphTestSuite;
+import com.tinkerpop.blueprints.Parameter;
+import com.tinkerpop.blueprints.RangeIndexableGraph;
 import com.tinkerpop.blueprints.TestSuite;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.VertexQueryTestSuite;
 import com.tinkerpop.blueprints.VertexTestSuite;
 import com.tinkerpop.blueprints.impls.GraphTest;
+import com.tinkerpop.blueprints.util.DefaultGraphQuery;
 import com.tinkerpop.blueprints.util.ElementHelper;
+import com.tinkerpop.blueprints.util.QueryPlan;
 import com.tinkerpop.blueprints.util.io.gml.GMLReaderTestSuite;
 import com.tinkerpop.blueprints.util.io.graphml.GraphMLReaderTestSuite;
 import com.tinkerpop.blueprints.util.io.graphson.GraphSONReaderTestSuite;
 import com.tinkerpop.blueprints.util.io.graphson.GraphSONWriterTestSuite;
+import org.apache.commons.configuration.BaseConfiguration;
 
 import java.io.File;
+import java.io.RandomAccessFile;
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -197,10 +209,382 @@ public class TinkerGraphTest extends GraphTest {
         printPerformance(graph.toString(), iterations, "iterations of shutdown and restart", this.stopWatch());
     }
 
+    public void testRangeKeyIndex() {
+        deleteDirectory(new File(getDirectory()));
+        final TinkerGraph graph = (TinkerGraph) this.generateGraph();
+        graph.createKeyIndex("age", Vertex.class, new Parameter<String, String>(RangeIndexableGraph.TYPE, RangeIndexableGraph.RANGE));
+        graph.createKeyIndex("name", Vertex.class);
+        assertEquals(1, graph.getRangeIndexedKeys(Vertex.class).size());
+        assertTrue(graph.getRangeIndexedKeys(Vertex.class).contains("age"));
+        assertEquals(2, graph.getIndexedKeys(Vertex.class).size());
+
+        for (int i = 0; i < 100; i++) {
+            graph.addVertex(null).setProperty("age", i);
+        }
+        final Vertex unknown = graph.addVertex(null);
+        unknown.setProperty("age", "unknown");
+        final Vertex fifty = graph.addVertex(null);
+        fifty.setProperty("age", 50l);
+
+        assertEquals(10, count(graph.getVertices("age", 10, true, 20, false)));
+        assertEquals(9, count(graph.getVertices("age", 10, false, 20, false)));
+        assertEquals(11, count(graph.getVertices("age", 10, true, 20, true)));
+        assertEquals(10, count(graph.getVertices("age", 90, true, null, false)));
+        assertEquals(5, count(graph.getVertices("age", null, false, 5, false)));
+        assertEquals(0, count(graph.getVertices("age", 20, true, 10, true)));
+        assertEquals(1, count(graph.getVertices("age", 50l, true, null, false)));
+
+        assertEquals(10, count(graph.query().interval("age", 10, 20).vertices()));
+        assertEquals(5, count(graph.query().has("age", Compare.GREATER_THAN, 94).vertices()));
+        assertEquals(6, count(graph.query().has("age", Compare.LESS_THAN_EQUAL, 5).vertices()));
+        assertEquals(3, count(graph.query().has("age", Compare.GREATER_THAN, 10).has("age", Compare.LESS_THAN, 20).has("age", Compare.LESS_THAN, 14).vertices()));
+        assertEquals(2, count(graph.query().interval("age", 10, 20).limit(2).vertices()));
+
+        for (final Vertex vertex : graph.getVertices("age", 10, true, 15, false)) {
+            vertex.setProperty("age", ((Integer) vertex.getProperty("age")) + 100);
+        }
+        assertEquals(5, count(graph.getVertices("age", 10, true, 20, false)));
+        assertEquals(5, count(graph.getVertices("age", 110, true, 115, false)));
+        graph.removeVertex(graph.getVertices("age", 110, true, 111, false).iterator().next());
+        assertEquals(4, count(graph.getVertices("age", 110, true, 115, false)));
+
+        graph.removeVertex(unknown);
+        graph.removeVertex(fifty);
+        graph.dropKeyIndex("age", Vertex.class);
+        assertEquals(0, graph.getRangeIndexedKeys(Vertex.class).size());
+        assertEquals(5, count(graph.query().interval("age", 10, 20).vertices()));
+
+        graph.createKeyIndex("name", Vertex.class, new Parameter<String, String>(RangeIndexableGraph.TYPE, RangeIndexableGraph.RANGE));
+        assertTrue(graph.getRangeIndexedKeys(Vertex.class).contains("name"));
+        graph.shutdown();
+    }
+
+    public void testQueryPlanner() {
+        deleteDirectory(new File(getDirectory()));
+        final TinkerGraph graph = (TinkerGraph) this.generateGraph();
+        graph.createKeyIndex("country", Vertex.class);
+        graph.createKeyIndex("city", Vertex.class);
+        graph.createKeyIndex("age", Vertex.class, new Parameter<String, String>(RangeIndexableGraph.TYPE, RangeIndexableGraph.RANGE));
+        for (int i = 0; i < 1000; i++) {
+            final Vertex vertex = graph.addVertex(null);
+            vertex.setProperty("country", i < 900 ? "us" : "fr");
+            vertex.setProperty("city", "city" + (i % 100));
+            vertex.setProperty("age", i % 50);
+        }
+
+        assertEquals(900, graph.countKeyIndex("country", "us", Vertex.class));
+        assertEquals(1000, graph.countKeyIndex("country", Vertex.class));
+        assertEquals(10, graph.countKeyIndex("city", "city7", Vertex.class));
+
+        DefaultGraphQuery query = (DefaultGraphQuery) graph.query().has("country", "us").has("city", "city7");
+        QueryPlan plan = query.explainVertices();
+        assertFalse(plan.isScan());
+        assertEquals(10, plan.getEstimatedCount());
+        assertEquals("lookup(city = city7) ~10 -> filter(2)", plan.toString());
+        assertEquals(9, count(query.vertices()));
+
+        query = (DefaultGraphQuery) graph.query().has("city", "city7").has("city", Contains.IN, Arrays.asList("city7", "city8", "city9"));
+        plan = query.explainVertices();
+        assertEquals("lookup(city = city7) ~10 -> intersect(union(city in [city7, city8, city9]) ~30) -> filter(2)", plan.toString());
+        assertEquals(10, count(query.vertices()));
+
+        query = (DefaultGraphQuery) graph.query().has("country", Contains.IN, Arrays.asList("fr", "de")).has("age", Compare.GREATER_THAN_EQUAL, 45);
+        plan = query.explainVertices();
+        assertEquals(100, plan.getEstimatedCount());
+        assertEquals("union(country in [fr, de]) ~100 -> filter(2)", plan.toString());
+        assertEquals(10, count(query.vertices()));
+
+        query = (DefaultGraphQuery) graph.query().has("country", "us").interval("age", 10, 20);
+        assertEquals("range(age >= 10, age < 20) ~100 -> filter(3)", query.explainVertices().toString());
+        assertEquals(180, count(query.vertices()));
+
+        // a null in the values also matches the vertices without the key, which are not in the key index
+        final Vertex countryless = graph.addVertex(null);
+        query = (DefaultGraphQuery) graph.query().has("country", Contains.IN, Arrays.asList("fr", null));
+        assertEquals("scan(vertices) -> filter(1)", query.explainVertices().toString());
+        assertEquals(101, count(query.vertices()));
+        graph.removeVertex(countryless);
+
+        query = (DefaultGraphQuery) graph.query().has("name", "marko");
+        assertTrue(query.explainVertices().isScan());
+        assertEquals("scan(vertices) -> filter(1)", query.explainVertices().toString());
+        assertEquals(0, count(query.vertices()));
+
+        for (final Vertex vertex : graph.getVertices("city", "city7")) {
+            graph.removeVertex(vertex);
+        }
+        assertEquals(0, graph.countKeyIndex("city", "city7", Vertex.class));
+        assertEquals(990, graph.countKeyIndex("city", Vertex.class));
+        graph.shutdown();
+    }
+
+    public void testRangeKeyIndexSurvivesRestart() {
+        for (final TinkerGraph.FileType fileType : TinkerGraph.FileType.values()) {
+            final String path = getDirectory() + "/graph-range-" + fileType.toString().toLowerCase();
+            deleteDirectory(new File(path));
+
+            TinkerGraph graph = new TinkerGraph(path, fileType);
+            graph.createKeyIndex("weight", Edge.class, new Parameter<String, String>(RangeIndexableGraph.TYPE, RangeIndexableGraph.RANGE));
+            final Vertex a = graph.addVertex(null);
+            for (int i = 0; i < 10; i++) {
+                graph.addEdge(null, a, graph.addVertex(null), "knows").setProperty("weight", i);
+            }
+            graph.shutdown();
+
+            graph = new TinkerGraph(path, fileType);
+            assertTrue(graph.getRangeIndexedKeys(Edge.class).contains("weight"));
+            assertEquals(3, count(graph.getEdges("weight", 2, true, 4, true)));
+            graph.addEdge(null, a, a, "self").setProperty("weight", 3);
+            assertEquals(4, count(graph.getEdges("weight", 2, true, 4, true)));
+            graph.shutdown();
+            deleteDirectory(new File(path));
+        }
+    }
+
+    public void testIterationWhileWriting() {
+        final TinkerGraph graph = new TinkerGraph();
+        graph.createKeyIndex("name", Vertex.class);
+        final Index<Vertex> index = graph.createIndex("names", Vertex.class);
+        final Set<Vertex> original = new HashSet<Vertex>();
+        for (int i = 0; i < 100; i++) {
+            final Vertex vertex = graph.addVertex(null);
+            vertex.setProperty("name", "marko");
+            index.put("name", "marko", vertex);
+            original.add(vertex);
+        }
+
+        final Iterable<Vertex> vertices = graph.getVertices();
+        final Iterator<Vertex> first = vertices.iterator();
+        final Iterator<Vertex> abandoned = vertices.iterator();
+        abandoned.next();
+        final Set<Vertex> seen = new HashSet<Vertex>();
+        while (first.hasNext()) {
+            final Vertex vertex = first.next();
+            seen.add(vertex);
+            graph.removeVertex(vertex);
+            graph.addVertex(null).setProperty("name", "marko");
+        }
+        assertEquals(original, seen);
+        assertEquals(99, count(abandoned));
+        assertEquals(100, count(vertices));
+        assertTrue(Collections.disjoint(original, new HashSet<Vertex>(asList(vertices))));
+
+        final Iterator<Vertex> named = graph.getVertices("name", "marko").iterator();
+        named.next();
+        for (final Vertex vertex : graph.getVertices()) {
+            vertex.removeProperty("name");
+        }
+        assertEquals(99, count(named));
+        assertEquals(0, count(graph.getVertices("name", "marko")));
+
+        final Vertex lop = graph.addVertex(null);
+        index.put("name", "lop", lop);
+        final Iterator<Vertex> manual = index.get("name", "lop").iterator();
+        index.put("name", "lop", graph.addVertex(null));
+        assertEquals(1, count(manual));
+        assertEquals(2, count(index.get("name", "lop")));
+
+        final Iterator<Edge> edges = graph.getEdges().iterator();
+        graph.addEdge(null, lop, lop, "self");
+        assertFalse(edges.hasNext());
+        assertEquals(1, count(graph.getEdges()));
+    }
+
+    public void testInternedLabelsAndKeys() {
+        final String path = getDirectory() + "/graph-symbols";
+        deleteDirectory(new File(path));
+        TinkerGraph graph = new TinkerGraph(path, TinkerGraph.FileType.JAVA);
+        final Vertex marko = graph.addVertex("1");
+        final Vertex peter = graph.addVertex("2");
+        for (int i = 0; i < 40; i++) {
+            marko.setProperty("key" + i, i);
+        }
+        for (int i = 0; i < 40; i += 2) {
+            assertEquals(i, marko.removeProperty("key" + i));
+        }
+        marko.setProperty("key1", "one");
+        assertEquals(20, marko.getPropertyKeys().size());
+        assertEquals("one", marko.getProperty("key1"));
+        assertEquals(39, marko.getProperty("key39"));
+        assertNull(marko.getProperty("key0"));
+        assertNull(marko.getProperty("unknown"));
+        assertNull(marko.removeProperty("unknown"));
+        assertNull(peter.getProperty("key1"));
+
+        graph.addEdge("3", marko, peter, "knows");
+        graph.addEdge("4", marko, peter, "created");
+        graph.addEdge("5", peter, marko, "knows");
+        assertEquals(1, count(marko.getEdges(Direction.OUT, "knows")));
+        assertEquals(2, count(marko.getEdges(Direction.BOTH, "knows")));
+        assertEquals(2, count(marko.getEdges(Direction.OUT, "knows", "created", "unknown")));
+        assertEquals(0, count(marko.getEdges(Direction.OUT, "unknown")));
+        assertEquals(3, count(marko.getEdges(Direction.BOTH)));
+        graph.removeEdge(graph.getEdge("3"));
+        assertEquals(0, count(marko.getEdges(Direction.OUT, "knows")));
+        assertEquals("created", graph.getEdge("4").getLabel());
+        graph.shutdown();
+
+        graph = new TinkerGraph(path, TinkerGraph.FileType.JAVA);
+        final Vertex loaded = graph.getVertex("1");
+        assertEquals(20, loaded.getPropertyKeys().size());
+        assertEquals("one", loaded.getProperty("key1"));
+        assertEquals(1, count(loaded.getEdges(Direction.OUT, "created")));
+        assertEquals(1, count(loaded.getEdges(Direction.IN, "knows")));
+        loaded.setProperty("key0", 0);
+        assertEquals(0, loaded.getProperty("key0"));
+        graph.shutdown();
+        deleteDirectory(new File(path));
+    }
+
+    public void testWriteAheadLogSurvivesCrash() throws Exception {
+        for (final TinkerGraph.FileType fileType : TinkerGraph.FileType.values()) {
+            final String path = getDirectory() + "/graph-wal-" + fileType.toString().toLowerCase();
+            deleteDirectory(new File(path));
+
+            TinkerGraph graph = new TinkerGraph(walConfiguration(path, fileType, TinkerWriteAheadLog.DEFAULT_CHECKPOINT_SIZE));
+            graph.createKeyIndex("name", Vertex.class);
+            final Vertex marko = graph.addVertex("1");
+            marko.setProperty("name", "marko");
+            marko.setProperty("age", 29);
+            final Vertex peter = graph.addVertex(null);
+            peter.setProperty("name", "peter");
+            final Vertex lop = graph.addVertex("3");
+            lop.setProperty("name", "lop");
+            graph.addEdge("7", marko, lop, "created").setProperty("weight", 0.4f);
+            graph.addEdge(null, peter, lop, "created");
+            graph.createIndex("ages", Vertex.class).put("age", 29, marko);
+            marko.removeProperty("age");
+            graph.removeVertex(peter);
+            // the graph is never shut down
+
+            final RandomAccessFile log = new RandomAccessFile(path + TinkerWriteAheadLog.LOG_FILE, "rw");
+            log.seek(log.length());
+            log.write(new byte[]{0, 0, 0, 42, 1, 2});
+            log.close();
+
+            graph = new TinkerGraph(walConfiguration(path, fileType, TinkerWriteAheadLog.DEFAULT_CHECKPOINT_SIZE));
+            assertEquals(2, count(graph.getVertices()));
+            assertEquals(1, count(graph.getEdges()));
+            assertEquals(graph.getVertex("1"), graph.getVertices("name", "marko").iterator().next());
+            assertNull(graph.getVertex("1").getProperty("age"));
+            assertEquals(0.4f, graph.getEdge("7").getProperty("weight"));
+            assertEquals(graph.getVertex("1"), graph.getIndex("ages", Vertex.class).get("age", 29).iterator().next());
+            assertEquals(0, count(graph.getVertices("name", "peter")));
+
+            graph.getVertex("3").setProperty("lang", "java");
+            graph.shutdown();
+            assertEquals(0, new File(path + TinkerWriteAheadLog.LOG_FILE).length());
+
+            graph = new TinkerGraph(path, fileType);
+            assertEquals(2, count(graph.getVertices()));
+            assertEquals("java", graph.getVertex("3").getProperty("lang"));
+            graph.shutdown();
+            deleteDirectory(new File(path));
+        }
+    }
+
+    public void testWriteAheadLogCheckpoints() {
+        final String path = getDirectory() + "/graph-wal-checkpoint";
+        deleteDirectory(new File(path));
+
+        TinkerGraph graph = new TinkerGraph(walConfiguration(path, TinkerGraph.FileType.BINARY, 4096));
+        Vertex previous = graph.addVertex(null);
+        for (int i = 0; i < 1000; i++) {
+            final Vertex vertex = graph.addVertex(null);
+            vertex.setProperty("number", i);
+            graph.addEdge(null, previous, vertex, "next");
+            previous = vertex;
+        }
+        assertTrue(new File(path + TinkerWriteAheadLog.LOG_FILE).length() < 4096);
+        assertFalse(new File(path + TinkerWriteAheadLog.ROTATED_LOG_FILE).exists());
+        assertFalse(new File(path + TinkerWriteAheadLog.CHECKPOINT_DIRECTORY).exists());
+
+        // an interrupted checkpoint that was never completed is discarded
+        final File checkpoint = new File(path + TinkerWriteAheadLog.CHECKPOINT_DIRECTORY);
+        checkpoint.mkdirs();
+        new File(checkpoint, "tinkergraph.bin").mkdir();
+
+        graph = new TinkerGraph(walConfiguration(path, TinkerGraph.FileType.BINARY, 4096));
+        assertEquals(1001, count(graph.getVertices()));
+        assertEquals(1000, count(graph.getEdges()));
+        assertEquals(999, graph.getVertex(previous.getId()).getProperty("number"));
+        assertFalse(checkpoint.exists());
+        graph.shutdown();
+        deleteDirectory(new File(path));
+    }
+
+    static BaseConfiguration walConfiguration(final String path, final TinkerGraph.FileType fileType, final long checkpointSize) {
+        final BaseConfiguration configuration = new BaseConfiguration();
+        configuration.setProperty("blueprints.tg.directory", path);
+        configuration.setProperty("blueprints.tg.file-type", fileType.toString());
+        configuration.setProperty("blueprints.tg.wal", true);
+        configuration.setProperty("blueprints.tg.wal.sync-interval", 0);
+        configuration.setProperty("blueprints.tg.wal.checkpoint-size", checkpointSize);
+        return configuration;
+    }
+
     public void testGraphFileTypeJava() {
         testGraphFileType("graph-test-java", TinkerGraph.FileType.JAVA);
     }
 
+    public void testGraphFileTypeJavaLongPath() {
+        final String path = getDirectory() + "/graph-test-java-path";
+        deleteDirectory(new File(path));
+
+        TinkerGraph graph = new TinkerGraph(path, TinkerGraph.FileType.JAVA);
+        final Vertex first = graph.addVertex(null);
+        Vertex previous = first;
+        for (int i = 0; i < 100000; i++) {
+            final Vertex vertex = graph.addVertex(null);
+            graph.addEdge(null, previous, vertex, "next");
+            previous = vertex;
+        }
+        graph.shutdown();
+
+        graph = new TinkerGraph(path, TinkerGraph.FileType.JAVA);
+        assertEquals(100001, count(graph.getVertices()));
+        assertEquals(100000, count(graph.getEdges()));
+        Vertex vertex = graph.getVertex(first.getId());
+        int length = 0;
+        for (Iterator<Vertex> next = vertex.getVertices(Direction.OUT, "next").iterator(); next.hasNext(); next = vertex.getVertices(Direction.OUT, "next").iterator()) {
+            vertex = next.next();
+            length++;
+        }
+        assertEquals(100000, length);
+        assertEquals(previous.getId(), vertex.getId());
+        graph.shutdown();
+        deleteDirectory(new File(path));
+    }
+
+    public void testGraphFileTypeJavaFromEarlierVersion() throws Exception {
+        final String path = getDirectory() + "/graph-test-java-earlier";
+        deleteDirectory(new File(path));
+        final TinkerGraph graph = new TinkerGraph(path, TinkerGraph.FileType.JAVA);
+        graph.addVertex(null);
+        graph.shutdown();
+
+        // a snapshot of an earlier version carries the serialVersionUID computed for its TinkerGraph class
+        final RandomAccessFile file = new RandomAccessFile(path + "/tinkergraph.dat", "rw");
+        final byte[] bytes = new byte[(int) file.length()];
+        file.readFully(bytes);
+        final byte[] descriptor = (TinkerGraph.class.getName() + "\0\0\0\0\0\0\0\1").getBytes("UTF-8");
+        int position = 0;
+        while (!Arrays.equals(descriptor, Arrays.copyOfRange(bytes, position, position + descriptor.length))) {
+            position++;
+        }
+        file.seek(position + descriptor.length - 1);
+        file.write(2);
+        file.close();
+
+        try {
+            new TinkerGraph(path, TinkerGraph.FileType.JAVA);
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("earlier version of TinkerGraph"));
+        }
+        deleteDirectory(new File(path));
+    }
+
     public void testGraphFileTypeGML() {
         testGraphFileType("graph-test-gml", TinkerGraph.FileType.GML);
     }
@@ -213,6 +597,10 @@ public class TinkerGraphTest extends GraphTest {
         testGraphFileType("graph-test-graphson", TinkerGraph.FileType.GRAPHSON);
     }
 
+    public void testGraphFileTypeBinary() {
+        testGraphFileType("graph-test-binary", TinkerGraph.FileType.BINARY);
+    }
+
     private void testGraphFileType(final String directory, final TinkerGraph.FileType fileType) {
         final String path = getDirectory() + "/" + directory;
         deleteDirectory(new File(path));
@@ -0,0 +1,138 @@
+package com.tinkerpop.blueprints.util.io.binary;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+public class BinaryGraphReaderTest {
+
+    @Test
+    public void roundTripTinkerGraph() throws IOException {
+        final TinkerGraph graph = TinkerGraphFactory.createTinkerGraph();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryGraphWriter.outputGraph(graph, out);
+
+        final TinkerGraph copy = new TinkerGraph();
+        BinaryGraphReader.inputGraph(copy, new ByteArrayInputStream(out.toByteArray()));
+        assertSameGraph(graph, copy);
+        Assert.assertEquals(0.4f, copy.getEdge(9).getProperty("weight"));
+    }
+
+    @Test
+    public void roundTripPropertyTypes() throws IOException {
+        final TinkerGraph graph = new TinkerGraph();
+        final Vertex v = graph.addVertex(1);
+        v.setProperty("boolean", true);
+        v.setProperty("byte", (byte) -3);
+        v.setProperty("short", (short) 300);
+        v.setProperty("integer", -70000);
+        v.setProperty("long", Long.MIN_VALUE);
+        v.setProperty("float", 1.5f);
+        v.setProperty("double", Math.PI);
+        v.setProperty("character", 'x');
+        v.setProperty("string", "héllo");
+        v.setProperty("uuid", UUID.fromString("e6a4a3d8-8f1f-4d4c-9a44-5a6e1f7b0d2c"));
+        v.setProperty("list", Arrays.asList(1, "two", 3.0, null));
+        final Map<Object, Object> map = new HashMap<Object, Object>();
+        map.put("nested", Arrays.asList(1l, 2l));
+        map.put(7, false);
+        v.setProperty("map", map);
+        v.setProperty("booleans", new boolean[]{true, false});
+        v.setProperty("bytes", new byte[]{1, -1});
+        v.setProperty("shorts", new short[]{-1, 2});
+        v.setProperty("integers", new int[]{Integer.MAX_VALUE, Integer.MIN_VALUE});
+        v.setProperty("longs", new long[]{Long.MAX_VALUE, 0l});
+        v.setProperty("floats", new float[]{0.1f});
+        v.setProperty("doubles", new double[]{0.1, -0.2});
+        v.setProperty("characters", new char[]{'a', '€'});
+        v.setProperty("strings", new String[]{"a", null});
+        v.setProperty("objects", new Object[]{1, "b"});
+        final StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            large.append((char) ('a' + i % 26));
+        }
+        v.setProperty("large", large.toString());
+        final Vertex w = graph.addVertex(2);
+        graph.addEdge("e", v, w, "link").setProperty("long", 1l);
+
+        final File file = File.createTempFile("graph", ".bin");
+        try {
+            BinaryGraphWriter.outputGraph(graph, file.getPath());
+
+            // read from the mapped file and from a stream through a buffer smaller than some of the values
+            final TinkerGraph mapped = new TinkerGraph();
+            BinaryGraphReader.inputGraph(mapped, file.getPath());
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            BinaryGraphWriter.outputGraph(graph, out);
+            Assert.assertEquals(file.length(), out.size());
+            final TinkerGraph streamed = new TinkerGraph();
+            BinaryGraphReader.inputGraph(streamed, new ByteArrayInputStream(out.toByteArray()));
+
+            for (TinkerGraph copy : Arrays.asList(mapped, streamed)) {
+                assertSameGraph(graph, copy);
+                final Vertex c = copy.getVertex(1);
+                Assert.assertTrue(Arrays.equals(new boolean[]{true, false}, (boolean[]) c.getProperty("booleans")));
+                Assert.assertArrayEquals(new byte[]{1, -1}, (byte[]) c.getProperty("bytes"));
+                Assert.assertArrayEquals(new short[]{-1, 2}, (short[]) c.getProperty("shorts"));
+                Assert.assertArrayEquals(new int[]{Integer.MAX_VALUE, Integer.MIN_VALUE}, (int[]) c.getProperty("integers"));
+                Assert.assertArrayEquals(new long[]{Long.MAX_VALUE, 0l}, (long[]) c.getProperty("longs"));
+                Assert.assertArrayEquals(new float[]{0.1f}, (float[]) c.getProperty("floats"), 0f);
+                Assert.assertArrayEquals(new double[]{0.1, -0.2}, (double[]) c.getProperty("doubles"), 0d);
+                Assert.assertArrayEquals(new char[]{'a', '€'}, (char[]) c.getProperty("characters"));
+                Assert.assertArrayEquals(new String[]{"a", null}, (String[]) c.getProperty("strings"));
+                Assert.assertArrayEquals(new Object[]{1, "b"}, (Object[]) c.getProperty("objects"));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void inputGraphNotBinary() throws IOException {
+        BinaryGraphReader.inputGraph(new TinkerGraph(), new ByteArrayInputStream("{\"mode\":\"NORMAL\"}".getBytes()));
+    }
+
+    private static void assertSameGraph(final TinkerGraph expected, final TinkerGraph actual) {
+        Assert.assertEquals(count(expected.getVertices()), count(actual.getVertices()));
+        Assert.assertEquals(count(expected.getEdges()), count(actual.getEdges()));
+        for (Vertex vertex : expected.getVertices()) {
+            final Vertex other = actual.getVertex(vertex.getId());
+            Assert.assertEquals(vertex.getPropertyKeys(), other.getPropertyKeys());
+            for (String key : vertex.getPropertyKeys()) {
+                if (!vertex.getProperty(key).getClass().isArray())
+                    Assert.assertEquals(vertex.getProperty(key), other.getProperty(key));
+            }
+        }
+        for (Edge edge : expected.getEdges()) {
+            final Edge other = actual.getEdge(edge.getId());
+            Assert.assertEquals(edge.getLabel(), other.getLabel());
+            Assert.assertEquals(edge.getVertex(Direction.OUT).getId(), other.getVertex(Direction.OUT).getId());
+            Assert.assertEquals(edge.getVertex(Direction.IN).getId(), other.getVertex(Direction.IN).getId());
+            Assert.assertEquals(edge.getPropertyKeys(), other.getPropertyKeys());
+            for (String key : edge.getPropertyKeys()) {
+                Assert.assertEquals(edge.getProperty(key), other.getProperty(key));
+            }
+        }
+    }
+
+    private static int count(final Iterable<?> iterable) {
+        int count = 0;
+        for (Object ignored : iterable) {
+            count++;
+        }
+        return count;
+    }
+}
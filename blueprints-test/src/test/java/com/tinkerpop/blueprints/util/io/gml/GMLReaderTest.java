@@ -9,9 +9,13 @@ import org.junit.Assert;
 import org.junit.Test;
 import sun.misc.IOUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Iterator;
@@ -150,6 +154,72 @@ public class GMLReaderTest {
         Assert.assertEquals(1, getIterableCount(graph2.getVertices()));
     }
 
+    @Test
+    public void numbersKeepTheirPrecision() throws IOException {
+        final String gml = "graph [\n" +
+                "  node [ id 1 int -2147483648 long 9007199254740993 min -9223372036854775808 big 9223372036854775808\n" +
+                "    real 0.25 exp 1.5e3 neg -0.5 ]\n" +
+                "  node [ id 3000000000 ]\n" +
+                "  edge [ source 1 target 3000000000 weight 2 ]\n" +
+                "]";
+        final TinkerGraph graph = new TinkerGraph();
+        GMLReader.inputGraph(graph, new ByteArrayInputStream(gml.getBytes("ISO-8859-1")));
+
+        final Vertex v = graph.getVertex(1);
+        Assert.assertEquals(Integer.MIN_VALUE, v.getProperty("int"));
+        Assert.assertEquals(9007199254740993l, v.getProperty("long"));
+        Assert.assertEquals(Long.MIN_VALUE, v.getProperty("min"));
+        Assert.assertEquals(9223372036854775808d, v.getProperty("big"));
+        Assert.assertEquals(0.25f, v.getProperty("real"));
+        Assert.assertEquals(1500, v.getProperty("exp"));
+        Assert.assertEquals(-0.5f, v.getProperty("neg"));
+
+        final Edge e = v.getEdges(Direction.OUT).iterator().next();
+        Assert.assertEquals(graph.getVertex(3000000000l), e.getVertex(Direction.IN));
+        Assert.assertEquals(2, e.getProperty("weight"));
+    }
+
+    @Test
+    public void fileAndStreamReadTheSame() throws IOException {
+        final File file = File.createTempFile("example", ".gml");
+        try {
+            final InputStream in = GMLReader.class.getResourceAsStream("example2.gml");
+            final OutputStream out = new FileOutputStream(file);
+            final byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            in.close();
+            out.close();
+
+            final TinkerGraph mapped = new TinkerGraph();
+            new GMLReader(mapped).inputGraph(file.getPath());
+            final TinkerGraph streamed = new TinkerGraph();
+            new GMLReader(streamed).inputGraph(GMLReader.class.getResourceAsStream("example2.gml"));
+
+            for (TinkerGraph graph : new TinkerGraph[]{mapped, streamed}) {
+                Assert.assertEquals(2, getIterableCount(graph.getVertices()));
+                Assert.assertEquals("Mars", graph.getVertex(2).getProperty(LABEL));
+                Assert.assertEquals(0.055f, ((Map) graph.getVertex(2).getProperty(GMLTokens.GRAPHICS)).get("w"));
+                Assert.assertEquals(GMLReader.DEFAULT_LABEL, graph.getEdges().iterator().next().getLabel());
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void malformedReportsLineNumber() throws IOException {
+        try {
+            GMLReader.inputGraph(new TinkerGraph(), new ByteArrayInputStream("graph [\n node [\n label \"a\"\n ]\n]".getBytes("ISO-8859-1")));
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("GML malformed line number 4: ", e.getMessage());
+            Assert.assertEquals("No id found for node", e.getCause().getMessage());
+        }
+    }
+
     private int getIterableCount(Iterable<?> elements) {
         int counter = 0;
 
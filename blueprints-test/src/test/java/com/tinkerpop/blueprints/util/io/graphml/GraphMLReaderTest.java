@@ -0,0 +1,89 @@
+package com.tinkerpop.blueprints.util.io.graphml;
+
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.util.wrappers.batch.VertexIDType;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+
+public class GraphMLReaderTest extends TestCase {
+
+    private static final String EDGE_BEFORE_NODES = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+            "<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">" +
+            "<key id=\"_id\" for=\"node\" attr.name=\"_id\" attr.type=\"string\"/>" +
+            "<key id=\"name\" for=\"node\" attr.name=\"name\" attr.type=\"string\"/>" +
+            "<key id=\"weight\" for=\"edge\" attr.name=\"weight\" attr.type=\"double\"/>" +
+            "<graph id=\"G\" edgedefault=\"directed\">" +
+            "<edge id=\"e\" source=\"n1\" target=\"n2\" label=\"knows\"><data key=\"weight\">0.5</data></edge>" +
+            "<node id=\"n1\"><data key=\"_id\">a</data><data key=\"name\">marko</data></node>" +
+            "<node id=\"n2\"><data key=\"_id\">b</data><data key=\"name\">vadas</data></node>" +
+            "</graph></graphml>";
+
+    public void testVerticesFirstOffHeap() throws Exception {
+        final Graph expected = new TinkerGraph();
+        GraphMLReader.inputGraph(expected, GraphMLReader.class.getResourceAsStream("graph-example-3.xml"));
+
+        final File directory = File.createTempFile("spool", "");
+        directory.delete();
+        directory.mkdir();
+        try {
+            final Graph graph = new TinkerGraph();
+            final GraphMLReader reader = new GraphMLReader(graph);
+            reader.setVertexIDType(VertexIDType.OFF_HEAP_STRING);
+            reader.setVerticesFirst(true);
+            reader.setSpoolDirectory(directory);
+            reader.inputGraph(GraphMLReader.class.getResourceAsStream("graph-example-3.xml"), 2);
+            assertEquals(0, directory.list().length);
+
+            assertEquals(BaseTest.count(expected.getVertices()), BaseTest.count(graph.getVertices()));
+            assertEquals(BaseTest.count(expected.getEdges()), BaseTest.count(graph.getEdges()));
+            for (Edge edge : expected.getEdges()) {
+                final Edge other = graph.getEdge(edge.getId());
+                assertEquals(edge.getLabel(), other.getLabel());
+                assertEquals(edge.getVertex(Direction.OUT).getId(), other.getVertex(Direction.OUT).getId());
+                assertEquals(edge.getVertex(Direction.IN).getId(), other.getVertex(Direction.IN).getId());
+                assertEquals(edge.getPropertyKeys(), other.getPropertyKeys());
+                for (String key : edge.getPropertyKeys()) {
+                    assertEquals(edge.getProperty(key), other.getProperty(key));
+                }
+            }
+        } finally {
+            directory.delete();
+        }
+    }
+
+    public void testMappedIdsWithVerticesFirst() throws Exception {
+        final Graph graph = new TinkerGraph();
+        final GraphMLReader reader = new GraphMLReader(graph);
+        reader.setVertexIdKey("_id");
+        reader.setVerticesFirst(true);
+        reader.inputGraph(new ByteArrayInputStream(EDGE_BEFORE_NODES.getBytes("UTF-8")));
+
+        assertEquals(2, BaseTest.count(graph.getVertices()));
+        final Vertex a = graph.getVertex("a");
+        assertEquals("marko", a.getProperty("name"));
+        final Edge edge = a.getEdges(Direction.OUT, "knows").iterator().next();
+        assertEquals("b", edge.getVertex(Direction.IN).getId());
+        assertEquals("vadas", edge.getVertex(Direction.IN).getProperty("name"));
+        assertEquals(0.5, edge.getProperty("weight"));
+    }
+
+    public void testMappedIdsInOnePass() throws Exception {
+        // vertices referenced before their nodes keep the ids of their nodes
+        final Graph graph = new TinkerGraph();
+        final GraphMLReader reader = new GraphMLReader(graph);
+        reader.setVertexIdKey("_id");
+        reader.setVertexIDType(VertexIDType.STRING);
+        reader.inputGraph(new ByteArrayInputStream(EDGE_BEFORE_NODES.getBytes("UTF-8")));
+
+        assertEquals(4, BaseTest.count(graph.getVertices()));
+        assertEquals("n2", graph.getEdge("e").getVertex(Direction.IN).getId());
+        assertEquals("marko", graph.getVertex("a").getProperty("name"));
+    }
+}
@@ -7,6 +7,7 @@ import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
 import junit.framework.TestCase;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -111,4 +112,52 @@ public class GraphMLWriterTest extends TestCase {
 
         assertTrue(outContent.toString().endsWith("working" + System.getProperty("line.separator")));
     }
+
+    public void testSinglePass() throws Exception {
+        final Graph g = TinkerGraphFactory.createTinkerGraph();
+        g.getVertex(1).setProperty("text", "\u00E9 <&>");
+
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new GraphMLWriter(g).outputGraph(expected);
+
+        final File directory = File.createTempFile("spool", "");
+        directory.delete();
+        directory.mkdir();
+        try {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            final GraphMLWriter writer = new GraphMLWriter(g);
+            writer.setSinglePass(true);
+            writer.setSpoolDirectory(directory);
+            writer.outputGraph(bos);
+
+            assertEquals(expected.toString("UTF-8"), bos.toString("UTF-8"));
+            assertEquals(0, directory.list().length);
+
+            final Graph g2 = new TinkerGraph();
+            GraphMLReader.inputGraph(g2, new ByteArrayInputStream(bos.toByteArray()));
+            assertEquals("\u00E9 <&>", g2.getVertex(1).getProperty("text"));
+            assertEquals(0.4f, g2.getEdge(9).getProperty("weight"));
+        } finally {
+            directory.delete();
+        }
+    }
+
+    public void testSinglePassNormalized() throws Exception {
+        final Graph g = TinkerGraphFactory.createTinkerGraph();
+
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        GraphMLWriter writer = new GraphMLWriter(g);
+        writer.setEdgeLabelKey("label");
+        writer.setNormalize(true);
+        writer.outputGraph(expected);
+
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        writer = new GraphMLWriter(g);
+        writer.setEdgeLabelKey("label");
+        writer.setNormalize(true);
+        writer.setSinglePass(true);
+        writer.outputGraph(bos);
+
+        assertEquals(expected.toString("UTF-8"), bos.toString("UTF-8"));
+    }
 }
@@ -0,0 +1,122 @@
+package com.tinkerpop.blueprints.util.io.graphml;
+
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.ConcurrentTinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.MockTransactionalGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class GraphMigratorTest extends TestCase {
+
+    private static final int VERTICES = 1000;
+
+    public void testMigrateTinkerGraph() throws Exception {
+        final TinkerGraph graph = TinkerGraphFactory.createTinkerGraph();
+        final TinkerGraph toGraph = new TinkerGraph();
+        GraphMigrator.migrateGraph(graph, toGraph);
+        assertSameGraph(graph, toGraph);
+        assertEquals(0.4f, toGraph.getEdge(9).getProperty("weight"));
+    }
+
+    public void testMigrateParallel() {
+        final TinkerGraph graph = createGraph();
+        final ConcurrentTinkerGraph toGraph = new ConcurrentTinkerGraph();
+        final GraphMigrator migrator = new GraphMigrator(graph, toGraph);
+        migrator.setThreads(4);
+        migrator.setBufferSize(100);
+        final List<long[]> reports = new ArrayList<long[]>();
+        migrator.setProgressListener(new GraphMigrator.ProgressListener() {
+            public void progress(final long vertices, final long edges, final long elapsedTime) {
+                reports.add(new long[]{vertices, edges});
+            }
+        });
+        migrator.migrate();
+
+        assertSameGraph(graph, toGraph);
+        assertEquals(VERTICES, migrator.getVertexCount());
+        assertEquals(2 * VERTICES, migrator.getEdgeCount());
+        assertEquals(31, reports.size());
+        assertEquals(VERTICES, reports.get(reports.size() - 1)[0]);
+    }
+
+    public void testResume() {
+        final TinkerGraph graph = createGraph();
+        final TinkerGraph toGraph = new TinkerGraph();
+        final MockTransactionalGraph tgraph = new MockTransactionalGraph(toGraph);
+
+        // fail after the first report during the edges
+        final long[] checkpoint = new long[2];
+        final GraphMigrator migrator = new GraphMigrator(graph, tgraph);
+        migrator.setBufferSize(300);
+        migrator.setProgressListener(new GraphMigrator.ProgressListener() {
+            public void progress(final long vertices, final long edges, final long elapsedTime) {
+                checkpoint[0] = vertices;
+                checkpoint[1] = edges;
+                if (edges > 0)
+                    throw new IllegalStateException("stop");
+            }
+        });
+        try {
+            migrator.migrate();
+            fail();
+        } catch (IllegalStateException e) {
+        }
+        assertEquals(VERTICES, checkpoint[0]);
+        assertEquals(200, checkpoint[1]);
+        assertEquals(200, BaseTest.count(toGraph.getEdges()));
+
+        final GraphMigrator resumed = new GraphMigrator(graph, tgraph);
+        resumed.resume(checkpoint[0], checkpoint[1]);
+        resumed.migrate();
+        assertSameGraph(graph, toGraph);
+        assertEquals(2 * VERTICES, resumed.getEdgeCount());
+
+        resumed.setThreads(2);
+        try {
+            resumed.migrate();
+            fail();
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    private static TinkerGraph createGraph() {
+        final TinkerGraph graph = new TinkerGraph();
+        for (int i = 0; i < VERTICES; i++) {
+            graph.addVertex(i).setProperty("name", "v" + i);
+        }
+        for (int i = 0; i < VERTICES; i++) {
+            graph.addEdge("a" + i, graph.getVertex(i), graph.getVertex((i + 1) % VERTICES), "next").setProperty("weight", i);
+            graph.addEdge("b" + i, graph.getVertex(i), graph.getVertex((i * 3) % VERTICES), "skip");
+        }
+        return graph;
+    }
+
+    private static void assertSameGraph(final Graph expected, final Graph actual) {
+        assertEquals(BaseTest.count(expected.getVertices()), BaseTest.count(actual.getVertices()));
+        assertEquals(BaseTest.count(expected.getEdges()), BaseTest.count(actual.getEdges()));
+        for (Vertex vertex : expected.getVertices()) {
+            final Vertex other = actual.getVertex(vertex.getId());
+            assertEquals(vertex.getPropertyKeys(), other.getPropertyKeys());
+            for (String key : vertex.getPropertyKeys()) {
+                assertEquals(vertex.getProperty(key), other.getProperty(key));
+            }
+        }
+        for (Edge edge : expected.getEdges()) {
+            final Edge other = actual.getEdge(edge.getId());
+            assertEquals(edge.getLabel(), other.getLabel());
+            assertEquals(edge.getVertex(Direction.OUT).getId(), other.getVertex(Direction.OUT).getId());
+            assertEquals(edge.getVertex(Direction.IN).getId(), other.getVertex(Direction.IN).getId());
+            for (String key : edge.getPropertyKeys()) {
+                assertEquals(edge.getProperty(key), other.getProperty(key));
+            }
+        }
+    }
+}
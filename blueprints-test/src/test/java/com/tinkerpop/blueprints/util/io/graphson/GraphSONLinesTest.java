@@ -0,0 +1,162 @@
+package com.tinkerpop.blueprints.util.io.graphson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.ConcurrentTinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+import com.tinkerpop.blueprints.util.wrappers.batch.ParallelBatchLoader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class GraphSONLinesTest {
+
+    @Test
+    public void roundTripLines() throws IOException {
+        final TinkerGraph graph = TinkerGraphFactory.createTinkerGraph();
+        final GraphSONLinesWriter writer = new GraphSONLinesWriter(graph);
+        writer.setThreads(3);
+        writer.setChunkSize(2);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.outputGraph(out, null, null, GraphSONMode.EXTENDED);
+
+        final String[] lines = out.toString("UTF-8").split("\n");
+        Assert.assertEquals(15, lines.length);
+        Assert.assertEquals("{\"mode\":\"EXTENDED\"}", lines[0]);
+        Assert.assertEquals("\"vertices\"", lines[1]);
+        Assert.assertEquals("\"edges\"", lines[8]);
+
+        final TinkerGraph copy = new TinkerGraph();
+        final GraphSONLinesReader reader = new GraphSONLinesReader(copy);
+        reader.setThreads(2);
+        reader.setChunkSize(2);
+        reader.inputGraph(new ByteArrayInputStream(out.toByteArray()));
+        assertSameGraph(graph, copy);
+    }
+
+    @Test
+    public void roundTripIndexedPartitions() throws IOException {
+        final TinkerGraph graph = new TinkerGraph();
+        for (int i = 0; i < 500; i++) {
+            graph.addVertex(i).setProperty("name", "v" + i);
+        }
+        for (int i = 0; i < 500; i++) {
+            final Edge edge = graph.addEdge(i, graph.getVertex(i), graph.getVertex((i * 7) % 500), "next");
+            edge.setProperty("weight", i / 10.0);
+        }
+
+        final List<List<Vertex>> vertexPartitions = new ArrayList<List<Vertex>>();
+        vertexPartitions.add(new ArrayList<Vertex>());
+        vertexPartitions.add(new ArrayList<Vertex>());
+        vertexPartitions.add(new ArrayList<Vertex>());
+        for (Vertex vertex : graph.getVertices()) {
+            vertexPartitions.get(Integer.parseInt(vertex.getId().toString()) % 3).add(vertex);
+        }
+
+        final File file = File.createTempFile("graphson", ".lines");
+        final File index = new File(file.getPath() + GraphSONLinesWriter.INDEX_EXTENSION);
+        try {
+            final GraphSONLinesWriter writer = new GraphSONLinesWriter(graph);
+            writer.setChunkSize(50);
+            final FileOutputStream out = new FileOutputStream(file);
+            final FileOutputStream indexOut = new FileOutputStream(index);
+            writer.outputGraph(out, indexOut, vertexPartitions, Arrays.asList(graph.getEdges()),
+                    null, null, GraphSONMode.EXTENDED);
+            out.close();
+            indexOut.close();
+
+            // each partition is split into chunks of its own, and the chunks start at line boundaries
+            final JsonNode offsets = new ObjectMapper().readTree(index);
+            Assert.assertEquals(13, offsets.get(GraphSONTokens.VERTICES).size());
+            Assert.assertEquals(11, offsets.get(GraphSONTokens.EDGES).size());
+            final RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                for (JsonNode offset : offsets.get(GraphSONTokens.EDGES)) {
+                    raf.seek(offset.asLong() - 1);
+                    Assert.assertEquals('\n', raf.read());
+                }
+                Assert.assertEquals(raf.length(), offsets.get(GraphSONTokens.EDGES).get(10).asLong());
+            } finally {
+                raf.close();
+            }
+
+            final ConcurrentTinkerGraph copy = new ConcurrentTinkerGraph();
+            final GraphSONLinesReader reader = new GraphSONLinesReader(ParallelBatchLoader.wrap(copy, 3, 100));
+            reader.setThreads(4);
+            reader.inputGraph(file.getPath());
+            assertSameGraph(graph, copy);
+            Assert.assertEquals(0.7, copy.getEdge("7").getProperty("weight"));
+        } finally {
+            file.delete();
+            index.delete();
+        }
+    }
+
+    @Test
+    public void inputGraphLinesWithoutHeader() throws IOException {
+        final String lines = "\"vertices\"\r\n{\"_id\":1,\"name\":\"a\"}\r\n\n{\"_id\":2}\n\"edges\"\n" +
+                "{\"_id\":3,\"_outV\":1,\"_inV\":2,\"_label\":\"knows\",\"weight\":0.5}";
+        final TinkerGraph graph = new TinkerGraph();
+        new GraphSONLinesReader(graph).inputGraph(new ByteArrayInputStream(lines.getBytes("UTF-8")));
+
+        Assert.assertEquals("a", graph.getVertex(1).getProperty("name"));
+        final Edge edge = graph.getEdge(3);
+        Assert.assertEquals("knows", edge.getLabel());
+        Assert.assertEquals(0.5, edge.getProperty("weight"));
+        Assert.assertEquals("2", edge.getVertex(Direction.IN).getId());
+    }
+
+    @Test(expected = IOException.class)
+    public void inputGraphElementsBeforeSection() throws IOException {
+        final String lines = "{\"mode\":\"NORMAL\"}\n{\"_id\":1}\n";
+        new GraphSONLinesReader(new TinkerGraph()).inputGraph(new ByteArrayInputStream(lines.getBytes("UTF-8")));
+    }
+
+    private static void assertSameGraph(final TinkerGraph expected, final TinkerGraph actual) {
+        int vertices = 0;
+        for (Vertex vertex : expected.getVertices()) {
+            final Vertex other = actual.getVertex(vertex.getId());
+            Assert.assertNotNull(other);
+            Assert.assertEquals(vertex.getPropertyKeys(), other.getPropertyKeys());
+            for (String key : vertex.getPropertyKeys()) {
+                Assert.assertEquals(vertex.getProperty(key), other.getProperty(key));
+            }
+            vertices++;
+        }
+        int edges = 0;
+        for (Edge edge : expected.getEdges()) {
+            final Edge other = actual.getEdge(edge.getId());
+            Assert.assertNotNull(other);
+            Assert.assertEquals(edge.getLabel(), other.getLabel());
+            Assert.assertEquals(edge.getVertex(Direction.OUT).getId(), other.getVertex(Direction.OUT).getId());
+            Assert.assertEquals(edge.getVertex(Direction.IN).getId(), other.getVertex(Direction.IN).getId());
+            for (String key : edge.getPropertyKeys()) {
+                Assert.assertEquals(edge.getProperty(key), other.getProperty(key));
+            }
+            edges++;
+        }
+        Assert.assertEquals(vertices, count(actual.getVertices()));
+        Assert.assertEquals(edges, count(actual.getEdges()));
+    }
+
+    private static int count(final Iterable<?> iterable) {
+        int count = 0;
+        for (Object ignored : iterable) {
+            count++;
+        }
+        return count;
+    }
+}
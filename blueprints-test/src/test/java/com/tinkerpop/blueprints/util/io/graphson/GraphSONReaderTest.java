@@ -3,6 +3,7 @@ package com.tinkerpop.blueprints.util.io.graphson;
 
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
@@ -316,6 +317,53 @@ public class GraphSONReaderTest {
     }
 
 
+    @Test
+    public void inputGraphMatchesElementReading() throws IOException {
+        final String[] vertices = {
+                "{\"name\":\"marko\", \"age\":29, \"big\":100000000000000000000, \"nothing\":null, \"nested\":{\"list\":[1, 2.5, \"x\", null], \"nil\":null}, \"_type\":\"vertex\", \"_id\":1}",
+                "{\"_id\":\"v2\", \"flag\":true, \"long\":10000000000}"};
+        final String edge = "{\"weight\":0.5, \"_label\":\"knows\", \"_outV\":1, \"_id\":100, \"_inV\":\"v2\", \"list\":[[1], {\"a\":false}]}";
+        final String extendedVertex = "{\"_id\":1, \"typed\":{\"value\":7, \"type\":\"long\"}, \"f\":{\"type\":\"float\", \"value\":1.5}, \"s\":{\"type\":\"short\", \"value\":3}, \"u\":{\"type\":\"unknown\", \"value\":null}, \"m\":{\"type\":\"map\", \"value\":{\"l\":{\"type\":\"list\", \"value\":[{\"type\":\"integer\", \"value\":1}, {\"type\":\"string\", \"value\":\"a\"}]}}}}";
+
+        for (GraphSONMode mode : GraphSONMode.values()) {
+            final boolean extended = mode == GraphSONMode.EXTENDED;
+            final String json = "{\"mode\":\"" + mode + "\", \"vertices\":[" + (extended ? extendedVertex + ", {\"_id\":\"v2\"}" : vertices[0] + ", " + vertices[1])
+                    + "], \"edges\":[" + (extended ? "{\"_id\":100, \"_outV\":1, \"_inV\":\"v2\", \"_label\":\"knows\"}" : edge) + "]}";
+            final TinkerGraph streamed = new TinkerGraph();
+            GraphSONReader.inputGraph(streamed, new ByteArrayInputStream(json.getBytes()));
+
+            final TinkerGraph tree = new TinkerGraph();
+            final GraphSONUtility graphson = new GraphSONUtility(mode, new GraphElementFactory(tree));
+            final Vertex v1 = graphson.vertexFromJson(extended ? extendedVertex : vertices[0]);
+            final Vertex v2 = graphson.vertexFromJson(extended ? "{\"_id\":\"v2\"}" : vertices[1]);
+            graphson.edgeFromJson(extended ? "{\"_id\":100, \"_label\":\"knows\"}" : edge, v1, v2);
+
+            for (Vertex vertex : tree.getVertices()) {
+                assertSameProperties(vertex, streamed.getVertex(vertex.getId()));
+            }
+            final Edge e = streamed.getEdge(100);
+            Assert.assertEquals("knows", e.getLabel());
+            Assert.assertEquals(streamed.getVertex(1), e.getVertex(Direction.OUT));
+            Assert.assertEquals(streamed.getVertex("v2"), e.getVertex(Direction.IN));
+            assertSameProperties(tree.getEdge(100), e);
+        }
+
+        final TinkerGraph graph = new TinkerGraph();
+        final Set<String> keys = new HashSet<String>();
+        keys.add("age");
+        GraphSONReader.inputGraph(graph, new ByteArrayInputStream(("{\"vertices\":[" + vertices[0] + "]}").getBytes()), 10, null, keys);
+        Assert.assertEquals(29, graph.getVertex(1).getProperty("age"));
+        Assert.assertEquals(1, graph.getVertex(1).getPropertyKeys().size());
+    }
+
+    private static void assertSameProperties(final Element expected, final Element actual) {
+        Assert.assertNotNull(actual);
+        Assert.assertEquals(expected.getPropertyKeys(), actual.getPropertyKeys());
+        for (String key : expected.getPropertyKeys()) {
+            Assert.assertEquals(key, expected.getProperty(key), actual.getProperty(key));
+        }
+    }
+
     private int getIterableCount(Iterable elements) {
         int counter = 0;
 
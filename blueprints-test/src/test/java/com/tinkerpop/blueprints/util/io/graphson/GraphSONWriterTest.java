@@ -3,15 +3,23 @@ package com.tinkerpop.blueprints.util.io.graphson;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
 import org.codehaus.jettison.json.JSONException;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 
 public class GraphSONWriterTest {
 
@@ -118,6 +126,78 @@ public class GraphSONWriterTest {
         Assert.assertEquals(6, edges.size());
     }
 
+    @Test
+    public void outputGraphMatchesObjectNodes() throws IOException {
+        final TinkerGraph g = TinkerGraphFactory.createTinkerGraph();
+        final Vertex v = g.getVertex(1);
+        v.setProperty("float", 1.5f);
+        v.setProperty("double", 0.25d);
+        v.setProperty("long", 10000000000l);
+        v.setProperty("short", (short) 3);
+        v.setProperty("byte", (byte) 4);
+        v.setProperty("boolean", true);
+        v.setProperty("list", Arrays.asList(1, "two", Arrays.asList(3l), null));
+        v.setProperty("array", new int[]{1, 2});
+        final Map<String, Object> map = new HashMap<String, Object>();
+        map.put("inner", Arrays.asList(1.5f, (short) 2));
+        map.put("set", new HashSet<String>(Arrays.asList("a")));
+        map.put("nothing", null);
+        v.setProperty("map", map);
+        v.setProperty("other", new StringBuilder("text"));
+        g.getEdge(7).setProperty("list", Arrays.asList(true, false));
+
+        final ObjectMapper m = new ObjectMapper();
+        for (GraphSONMode mode : GraphSONMode.values()) {
+            final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            new GraphSONWriter(g).outputGraph(stream, null, null, mode);
+            final JsonNode rootNode = m.readTree(stream.toByteArray());
+
+            final GraphSONUtility graphson = new GraphSONUtility(mode, null);
+            for (JsonNode node : rootNode.get(GraphSONTokens.VERTICES)) {
+                final Vertex vertex = g.getVertex(node.get(GraphSONTokens._ID).asText());
+                Assert.assertEquals(m.readTree(m.writeValueAsString(graphson.objectNodeFromElement(vertex))), node);
+            }
+            for (JsonNode node : rootNode.get(GraphSONTokens.EDGES)) {
+                final Edge edge = g.getEdge(node.get(GraphSONTokens._ID).asText());
+                Assert.assertEquals(m.readTree(m.writeValueAsString(graphson.objectNodeFromElement(edge))), node);
+            }
+        }
+    }
+
+    @Test
+    public void outputGraphNormalizedSpills() throws IOException {
+        final TinkerGraph g = new TinkerGraph();
+        for (int i = 0; i < 500; i++) {
+            final Vertex v = g.addVertex(i);
+            v.setProperty("b", i);
+            v.setProperty("a", "v" + i);
+            if (i > 0) g.addEdge("e" + i, v, g.getVertex(i / 2), "parent");
+        }
+
+        final ByteArrayOutputStream inMemory = new ByteArrayOutputStream();
+        new GraphSONWriter(g).outputGraph(inMemory, null, null, GraphSONMode.NORMAL, true);
+
+        final File directory = new File(System.getProperty("java.io.tmpdir"), "graphson-sort-" + System.nanoTime());
+        Assert.assertTrue(directory.mkdir());
+        final ByteArrayOutputStream spilled = new ByteArrayOutputStream();
+        final GraphSONWriter writer = new GraphSONWriter(g);
+        writer.setSortMemoryLimit(1000);
+        writer.setSortDirectory(directory);
+        writer.outputGraph(spilled, null, null, GraphSONMode.NORMAL, true);
+        Assert.assertEquals(0, directory.list().length);
+        directory.delete();
+
+        final String json = new String(inMemory.toByteArray());
+        Assert.assertEquals(json, new String(spilled.toByteArray()));
+        Assert.assertTrue(json.startsWith("{\"mode\":\"NORMAL\",\"vertices\":[{\"a\":\"v0\",\"b\":0,\"_id\":\"0\",\"_type\":\"vertex\"},{\"a\":\"v1\",\"b\":1,\"_id\":\"1\",\"_type\":\"vertex\"},{\"a\":\"v10\","));
+
+        final JsonNode edges = new ObjectMapper().readTree(json).get(GraphSONTokens.EDGES);
+        Assert.assertEquals(499, edges.size());
+        for (int i = 1; i < edges.size(); i++) {
+            Assert.assertTrue(edges.get(i - 1).get(GraphSONTokens._ID).asText().compareTo(edges.get(i).get(GraphSONTokens._ID).asText()) < 0);
+        }
+    }
+
     @Test
     public void streamStaysOpen() throws JSONException, IOException {
         final Graph g = TinkerGraphFactory.createTinkerGraph();
@@ -11,8 +11,12 @@ import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.impls.tg.IgnoreIdTinkerGraph;
 import com.tinkerpop.blueprints.impls.tg.MockTransactionalGraph;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.util.wrappers.batch.cache.LongIDOffHeapVertexCache;
+import com.tinkerpop.blueprints.util.wrappers.batch.cache.StringCompression;
+import com.tinkerpop.blueprints.util.wrappers.batch.cache.StringIDOffHeapVertexCache;
 import junit.framework.TestCase;
 
+import java.io.File;
 import java.util.Random;
 
 /**
@@ -63,6 +67,64 @@ public class BatchGraphTest extends TestCase {
         loadingTest(200000, 10000, VertexIDType.URL, new URLLoadingFactory());
     }
 
+    public void testOffHeapIdLoading() {
+        loadingTest(5000, 100, VertexIDType.OFF_HEAP_NUMBER, new NumberLoadingFactory());
+        loadingTest(200000, 10000, VertexIDType.OFF_HEAP_NUMBER, new NumberLoadingFactory());
+        loadingTest(5000, 100, VertexIDType.OFF_HEAP_STRING, new StringLoadingFactory());
+        loadingTest(200000, 10000, VertexIDType.OFF_HEAP_STRING, new StringLoadingFactory());
+
+        ignoreIDs = true;
+        loadingTest(5000, 100, VertexIDType.OFF_HEAP_NUMBER, new NumberLoadingFactory());
+        loadingTest(5000, 100, VertexIDType.OFF_HEAP_STRING, new StringLoadingFactory());
+        ignoreIDs = false;
+    }
+
+    public void testOffHeapCacheSpilling() throws Exception {
+        final File directory = new File(System.getProperty("java.io.tmpdir"));
+        final LongIDOffHeapVertexCache numbers = new LongIDOffHeapVertexCache(16, 0, directory);
+        final StringIDOffHeapVertexCache strings = new StringIDOffHeapVertexCache(StringCompression.NO_COMPRESSION, 16, 0, directory);
+        final int total = 50000;
+        for (int i = 0; i < total; i++) {
+            numbers.setId((long) i * 31, i);
+            strings.setId(i % 3 == 0 ? "v" + i : i % 3 == 1 ? Integer.valueOf(i) : Long.valueOf(i), "id" + i);
+        }
+        assertEquals(total, numbers.size());
+        assertEquals(total, strings.size());
+        assertEquals(0, numbers.getDirectBytes());
+        assertTrue(numbers.getSpilledBytes() > 0);
+        assertTrue(strings.getSpilledBytes() > 0);
+
+        for (int i = 0; i < total; i++) {
+            assertEquals((long) i * 31, numbers.getEntry(Integer.valueOf(i)));
+            assertEquals(i % 3 == 0 ? "v" + i : i % 3 == 1 ? Integer.valueOf(i) : Long.valueOf(i), strings.getEntry("id" + i));
+        }
+        assertFalse(numbers.contains(total));
+        assertNull(numbers.getEntry(-1l));
+        assertFalse(strings.contains("id" + total));
+
+        final TinkerGraph graph = new TinkerGraph();
+        final Vertex vertex = graph.addVertex("x");
+        strings.set(vertex, "vertex");
+        assertSame(vertex, strings.getEntry("vertex"));
+        strings.newTransaction();
+        assertEquals("x", strings.getEntry("vertex"));
+        strings.setId("x", "vertex");
+        assertEquals(total + 1, strings.size());
+
+        try {
+            numbers.getEntry("a");
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+
+        numbers.close();
+        strings.close();
+        assertEquals(0, numbers.getSpilledBytes());
+        for (final String file : directory.list()) {
+            assertFalse(file.startsWith("vertex-cache") && file.endsWith(".spill"));
+        }
+    }
+
     public void testQuadLoading() {
         int numEdges = 10000;
         String[][] quads = generateQuads(100, numEdges, new String[]{"knows", "friend"});
@@ -0,0 +1,166 @@
+package com.tinkerpop.blueprints.util.wrappers.batch;
+
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Features;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.ThreadedTransactionalGraph;
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.ConcurrentTinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.IgnoreIdTinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.MockTransactionalGraph;
+import junit.framework.TestCase;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests {@link ParallelBatchLoader} by loading a graph of numbered vertices, each connected to its successors, and
+ * verifying it against the wrapped graph.
+ */
+public class ParallelBatchLoaderTest extends TestCase {
+
+    private static final int VERTICES = 5000;
+    private static final int DEGREE = 3;
+
+    public void testLoading() {
+        final ConcurrentTinkerGraph graph = new ConcurrentTinkerGraph();
+        final ParallelBatchLoader loader = ParallelBatchLoader.wrap(graph, 4, 100);
+        loader.setVertexIdKey("uid");
+        loader.setEdgeIdKey("uid");
+        load(loader);
+        loader.finish();
+
+        verify(graph);
+        assertEquals(VERTICES, loader.getVertexCount());
+        assertEquals(VERTICES * DEGREE, loader.getEdgeCount());
+        assertEquals(7, graph.getVertex(7).getProperty("uid"));
+        assertEquals("e7-0", graph.getEdge("e7-0").getProperty("uid"));
+    }
+
+    public void testLoadingWithIgnoredIds() {
+        final IgnoreIdTinkerGraph graph = new IgnoreIdTinkerGraph();
+        final MockTransactionalGraph tgraph = new MockTransactionalGraph(graph);
+        final ParallelBatchLoader<MockTransactionalGraph> loader = new ParallelBatchLoader<MockTransactionalGraph>(tgraph, 1, 100, 10, 2);
+        loader.setVertexIdKey("uid");
+        load(loader);
+        loader.shutdown();
+
+        assertEquals(VERTICES, BaseTest.count(graph.getVertices()));
+        assertEquals(VERTICES * DEGREE, BaseTest.count(graph.getEdges()));
+        final Vertex vertex = graph.getVertices("uid", 7).iterator().next();
+        assertEquals(DEGREE, BaseTest.count(vertex.getVertices(Direction.OUT, "next")));
+        assertTrue(tgraph.getNumTransactionsCommitted() >= (VERTICES * (DEGREE + 1)) / 100);
+        assertTrue(tgraph.allSuccessful());
+    }
+
+    public void testThreadedTransactions() {
+        final ThreadedGraph graph = new ThreadedGraph(new ConcurrentTinkerGraph());
+        final ParallelBatchLoader<ThreadedGraph> loader = new ParallelBatchLoader<ThreadedGraph>(graph, 3, 500);
+        load(loader);
+        loader.finish();
+
+        verify((Graph) graph.graph);
+        assertTrue(graph.transactions.get() >= (VERTICES * (DEGREE + 1)) / 500);
+        assertEquals(graph.transactions.get(), graph.commits.get());
+    }
+
+    public void testPassOrder() {
+        final ParallelBatchLoader loader = ParallelBatchLoader.wrap(new ConcurrentTinkerGraph(), 2, 100);
+        loader.addVertex(1);
+        loader.addVertex(2);
+        loader.addEdge(null, 1, 2, "knows");
+        try {
+            loader.addVertex(3);
+            fail();
+        } catch (IllegalStateException e) {
+        }
+        loader.finish();
+        try {
+            loader.addEdge(null, 1, 2, "knows");
+            fail();
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    public void testFailures() {
+        ParallelBatchLoader loader = ParallelBatchLoader.wrap(new ConcurrentTinkerGraph(), 2, 100);
+        loader.addVertex(1);
+        loader.addEdge(null, 1, 2, "knows");
+        try {
+            loader.finish();
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+
+        loader = ParallelBatchLoader.wrap(new ConcurrentTinkerGraph(), 2, 100);
+        loader.addVertex(1);
+        loader.addVertex(1);
+        try {
+            loader.finish();
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+
+        try {
+            ParallelBatchLoader.wrap(new ConcurrentTinkerGraph(), 0, 100);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    private static void load(final ParallelBatchLoader loader) {
+        for (int i = 0; i < VERTICES; i++) {
+            loader.addVertex(i, "name", "v" + i);
+        }
+        for (int i = 0; i < VERTICES; i++) {
+            for (int j = 0; j < DEGREE; j++) {
+                loader.addEdge("e" + i + "-" + j, i, (i + j + 1) % VERTICES, "next", "weight", j);
+            }
+        }
+    }
+
+    private static void verify(final Graph graph) {
+        assertEquals(VERTICES, BaseTest.count(graph.getVertices()));
+        assertEquals(VERTICES * DEGREE, BaseTest.count(graph.getEdges()));
+        for (int i = 0; i < VERTICES; i += 97) {
+            final Vertex vertex = graph.getVertex(i);
+            assertEquals("v" + i, vertex.getProperty("name"));
+            assertEquals(DEGREE, BaseTest.count(vertex.getEdges(Direction.OUT, "next")));
+            assertEquals(DEGREE, BaseTest.count(vertex.getEdges(Direction.IN, "next")));
+        }
+    }
+
+    /**
+     * Counts the transactions created and committed against a thread-safe graph.
+     */
+    private static class ThreadedGraph extends MockTransactionalGraph implements ThreadedTransactionalGraph {
+
+        private final ConcurrentTinkerGraph graph;
+        private final AtomicInteger transactions = new AtomicInteger();
+        private final AtomicInteger commits = new AtomicInteger();
+
+        private ThreadedGraph(final ConcurrentTinkerGraph graph) {
+            super(graph);
+            this.graph = graph;
+        }
+
+        @Override
+        public Features getFeatures() {
+            final Features features = super.getFeatures();
+            features.supportsThreadedTransactions = true;
+            return features;
+        }
+
+        @Override
+        public TransactionalGraph newTransaction() {
+            transactions.incrementAndGet();
+            return new MockTransactionalGraph(graph) {
+                @Override
+                public void commit() {
+                    commits.incrementAndGet();
+                }
+            };
+        }
+    }
+}
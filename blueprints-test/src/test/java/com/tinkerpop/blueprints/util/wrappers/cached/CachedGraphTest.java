@@ -0,0 +1,160 @@
+package com.tinkerpop.blueprints.util.wrappers.cached;
+
+import com.tinkerpop.blueprints.BaseTest;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.EdgeTestSuite;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphTestSuite;
+import com.tinkerpop.blueprints.TestSuite;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.VertexTestSuite;
+import com.tinkerpop.blueprints.impls.GraphTest;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+import com.tinkerpop.blueprints.util.io.gml.GMLReaderTestSuite;
+import com.tinkerpop.blueprints.util.io.graphml.GraphMLReaderTestSuite;
+import com.tinkerpop.blueprints.util.io.graphson.GraphSONReaderTestSuite;
+
+import java.lang.reflect.Method;
+
+public class CachedGraphTest extends GraphTest {
+
+    public void testVertexTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new VertexTestSuite(this));
+        printTestPerformance("VertexTestSuite", this.stopWatch());
+    }
+
+    public void testEdgeTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new EdgeTestSuite(this));
+        printTestPerformance("EdgeTestSuite", this.stopWatch());
+    }
+
+    public void testGraphTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new GraphTestSuite(this));
+        printTestPerformance("GraphTestSuite", this.stopWatch());
+    }
+
+    public void testGraphMLReaderTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new GraphMLReaderTestSuite(this));
+        printTestPerformance("GraphMLReaderTestSuite", this.stopWatch());
+    }
+
+    public void testGMLReaderTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new GMLReaderTestSuite(this));
+        printTestPerformance("GMLReaderTestSuite", this.stopWatch());
+    }
+
+    public void testGraphSONReaderTestSuite() throws Exception {
+        this.stopWatch();
+        doTestSuite(new GraphSONReaderTestSuite(this));
+        printTestPerformance("GraphSONReaderTestSuite", this.stopWatch());
+    }
+
+    public void testHitsAndMisses() {
+        final CachedGraph<TinkerGraph> graph = new CachedGraph<TinkerGraph>(TinkerGraphFactory.createTinkerGraph());
+
+        assertEquals("marko", graph.getVertex("1").getProperty("name"));
+        assertEquals(29, graph.getVertex("1").getProperty("age"));
+        assertEquals(1, graph.getElementCache().getMissCount());
+        assertEquals(1, graph.getElementCache().getHitCount());
+        assertEquals(1, graph.getPropertyCache().getMissCount());
+        assertEquals(1, graph.getPropertyCache().getHitCount());
+        assertEquals(3, graph.getPropertyCache().getWeight());
+
+        final Vertex marko = graph.getVertex("1");
+        assertEquals(3, BaseTest.count(marko.getEdges(Direction.OUT)));
+        assertEquals(2, BaseTest.count(marko.getVertices(Direction.OUT, "knows")));
+        assertEquals(3, BaseTest.count(marko.getEdges(Direction.OUT)));
+        assertEquals(2, graph.getAdjacencyCache().getMissCount());
+        assertEquals(1, graph.getAdjacencyCache().getHitCount());
+        assertEquals(1, graph.getAdjacencyCache().size());
+        assertEquals(6, graph.getAdjacencyCache().getWeight());
+
+        for (Vertex vertex : marko.getVertices(Direction.BOTH)) {
+            assertFalse(vertex.getId().equals("1"));
+        }
+    }
+
+    public void testWritesInvalidate() {
+        final CachedGraph<TinkerGraph> graph = new CachedGraph<TinkerGraph>(TinkerGraphFactory.createTinkerGraph());
+        final Vertex marko = graph.getVertex(1);
+        final Vertex peter = graph.getVertex(6);
+        assertEquals(3, BaseTest.count(marko.getEdges(Direction.OUT)));
+        assertEquals(1, BaseTest.count(peter.getVertices(Direction.OUT)));
+        assertEquals("marko", marko.getProperty("name"));
+
+        marko.setProperty("name", "marko a. rodriguez");
+        assertEquals("marko a. rodriguez", graph.getVertex(1).getProperty("name"));
+        marko.removeProperty("age");
+        assertFalse(marko.getPropertyKeys().contains("age"));
+
+        final Edge edge = graph.addEdge(null, marko, peter, "knows");
+        assertEquals(4, BaseTest.count(marko.getEdges(Direction.OUT)));
+        assertEquals(1, BaseTest.count(peter.getEdges(Direction.IN)));
+        edge.setProperty("weight", 0.1f);
+        assertEquals(0.1f, graph.getEdge(edge.getId()).getProperty("weight"));
+
+        graph.removeEdge(edge);
+        assertNull(graph.getEdge(edge.getId()));
+        assertEquals(3, BaseTest.count(marko.getEdges(Direction.OUT)));
+        assertEquals(0, BaseTest.count(peter.getEdges(Direction.IN)));
+
+        // removing lop drops it from the adjacency of its neighbors
+        graph.getVertex(3).remove();
+        assertNull(graph.getVertex(3));
+        assertEquals(2, BaseTest.count(marko.getEdges(Direction.OUT)));
+        assertEquals(0, BaseTest.count(peter.getVertices(Direction.OUT)));
+    }
+
+    public void testEviction() {
+        final TinkerGraph base = new TinkerGraph();
+        final Vertex hub = base.addVertex("hub");
+        for (int i = 0; i < 100; i++) {
+            final Vertex vertex = base.addVertex(i);
+            vertex.setProperty("name", "v" + i);
+            base.addEdge(null, hub, vertex, "link");
+        }
+
+        final CachedGraph<TinkerGraph> graph = new CachedGraph<TinkerGraph>(base, 10, 20, 50);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("v" + i, graph.getVertex(i).getProperty("name"));
+        }
+        assertEquals(10, graph.getElementCache().size());
+        assertEquals(90, graph.getElementCache().getEvictionCount());
+        assertEquals(10, graph.getPropertyCache().size());
+        assertTrue(graph.getPropertyCache().getWeight() <= 20);
+
+        // the hub's adjacency outweighs the cache and is not cached
+        assertEquals(100, BaseTest.count(graph.getVertex("hub").getEdges(Direction.OUT)));
+        assertEquals(0, graph.getAdjacencyCache().size());
+        assertEquals(1, BaseTest.count(graph.getVertex(0).getVertices(Direction.IN)));
+        assertEquals(1, graph.getAdjacencyCache().size());
+
+        graph.clearCache();
+        assertEquals(0, graph.getElementCache().size());
+        assertEquals(0, graph.getPropertyCache().getWeight());
+    }
+
+    public Graph generateGraph() {
+        return generateGraph("");
+    }
+
+    public Graph generateGraph(final String graphDirectoryName) {
+        return new CachedGraph<TinkerGraph>(new TinkerGraph());
+    }
+
+    public void doTestSuite(final TestSuite testSuite) throws Exception {
+        for (Method method : testSuite.getClass().getDeclaredMethods()) {
+            if (method.getName().startsWith("test")) {
+                System.out.println("Testing " + method.getName() + "...");
+                method.invoke(testSuite);
+            }
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.tinkerpop.blueprints.util.wrappers.event;
+
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.util.wrappers.event.listener.Event;
+import com.tinkerpop.blueprints.util.wrappers.event.listener.GraphChangedBatchListener;
+import com.tinkerpop.blueprints.util.wrappers.event.listener.StubGraphChangedListener;
+import com.tinkerpop.blueprints.util.wrappers.event.listener.VertexAddedEvent;
+import junit.framework.TestCase;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncEventDispatcherTest extends TestCase {
+
+    public void testEventGraph() throws Exception {
+        final EventGraph<TinkerGraph> graph = new EventGraph<TinkerGraph>(new TinkerGraph());
+        final StubGraphChangedListener first = new StubGraphChangedListener();
+        final StubGraphChangedListener second = new StubGraphChangedListener();
+        graph.addListener(first);
+        final AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(8, AsyncEventDispatcher.Backpressure.BLOCK, 3);
+        graph.setAsyncDispatcher(dispatcher);
+        graph.addListener(second);
+
+        final List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            final Vertex vertex = graph.addVertex(i);
+            vertex.setProperty("name", "v" + i);
+            expected.add("v-added-" + i);
+            expected.add("v-property-changed-" + i + "-name:null->v" + i);
+        }
+
+        assertTrue(dispatcher.drain(10, TimeUnit.SECONDS));
+        assertEquals(expected, first.getOrder());
+        assertEquals(expected, second.getOrder());
+        assertEquals(0, dispatcher.getLag(first));
+        assertEquals(200, dispatcher.getProcessedCount(second));
+        assertEquals(0, dispatcher.getErrorCount(first));
+
+        graph.removeListener(first);
+        assertEquals(-1, dispatcher.getLag(first));
+        graph.addVertex(100);
+        graph.shutdown();
+        assertTrue(dispatcher.isShutdown());
+        assertEquals(100, first.addVertexEventRecorded());
+        assertEquals(101, second.addVertexEventRecorded());
+    }
+
+    public void testEventTransactionalGraph() throws Exception {
+        final EventTransactionalGraph<TinkerTransactionalGraph> graph =
+                new EventTransactionalGraph<TinkerTransactionalGraph>(new TinkerTransactionalGraph());
+        final StubGraphChangedListener listener = new StubGraphChangedListener();
+        final AsyncEventDispatcher dispatcher = new AsyncEventDispatcher();
+        graph.setAsyncDispatcher(dispatcher);
+        graph.addListener(listener);
+
+        graph.addVertex(1);
+        graph.rollback();
+        graph.addVertex(2);
+        graph.addVertex(3);
+        assertTrue(dispatcher.drain(10, TimeUnit.SECONDS));
+        assertEquals(0, listener.addVertexEventRecorded());
+
+        graph.commit();
+        assertTrue(dispatcher.drain(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("v-added-2", "v-added-3"), listener.getOrder());
+        dispatcher.shutdown();
+    }
+
+    public void testBackpressure() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<Integer>());
+        final BlockingListener listener = new BlockingListener(started, release, batches);
+        final Vertex vertex = new TinkerGraph().addVertex(null);
+
+        final AsyncEventDispatcher dropping = new AsyncEventDispatcher(4, AsyncEventDispatcher.Backpressure.DROP, 2);
+        dropping.addListener(listener);
+        dropping.publish(new VertexAddedEvent(vertex));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 6; i++) {
+            dropping.publish(new VertexAddedEvent(vertex));
+        }
+        assertEquals(3, dropping.getDroppedCount());
+        assertEquals(4, dropping.getLag(listener));
+
+        final AsyncEventDispatcher failing = new AsyncEventDispatcher(2, AsyncEventDispatcher.Backpressure.FAIL, 2);
+        final StubGraphChangedListener stalled = new StubGraphChangedListener() {
+            public void vertexAdded(final Vertex vertex) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                }
+            }
+        };
+        failing.addListener(stalled);
+        try {
+            for (int i = 0; i < 4; i++) {
+                failing.publish(new VertexAddedEvent(vertex));
+            }
+            fail();
+        } catch (IllegalStateException e) {
+        }
+
+        release.countDown();
+        assertTrue(dropping.drain(10, TimeUnit.SECONDS));
+        dropping.shutdown();
+        failing.shutdown();
+        assertEquals(4, listener.addVertexEventRecorded());
+        assertEquals(0, dropping.getErrorCount(listener));
+        for (Integer size : batches) {
+            assertTrue(size <= 2);
+        }
+        assertEquals(4, sum(batches));
+        try {
+            dropping.publish(new VertexAddedEvent(vertex));
+            fail();
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    public void testPublishAllIsAtomic() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final BlockingListener listener = new BlockingListener(started, release, Collections.synchronizedList(new ArrayList<Integer>()));
+        final TinkerGraph graph = new TinkerGraph();
+
+        final AsyncEventDispatcher dropping = new AsyncEventDispatcher(4, AsyncEventDispatcher.Backpressure.DROP, 4);
+        dropping.addListener(listener);
+        dropping.publish(new VertexAddedEvent(graph.addVertex("0")));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        final Deque<Event> transaction = events(graph, "1", "2", "3", "4");
+        dropping.publishAll(transaction);
+        assertTrue(transaction.isEmpty());
+        assertEquals(4, dropping.getDroppedCount());
+        assertEquals(1, dropping.getLag(listener));
+        dropping.publishAll(events(graph, "10", "11", "12"));
+        assertEquals(4, dropping.getLag(listener));
+
+        final AsyncEventDispatcher failing = new AsyncEventDispatcher(2, AsyncEventDispatcher.Backpressure.FAIL, 2);
+        final BlockingListener stalled = new BlockingListener(new CountDownLatch(1), release, new ArrayList<Integer>());
+        failing.addListener(stalled);
+        failing.publish(new VertexAddedEvent(graph.getVertex("0")));
+        // the events of a committed transaction are dropped rather than failing the commit
+        failing.publishAll(events(graph, "1", "2"));
+        assertEquals(2, failing.getDroppedCount());
+        assertEquals(1, failing.getLag(stalled));
+
+        // a transaction waits for room for all of its events, which other threads can not take in the meantime
+        final AsyncEventDispatcher blocking = new AsyncEventDispatcher(4, AsyncEventDispatcher.Backpressure.BLOCK, 4);
+        final CountDownLatch blockingStarted = new CountDownLatch(1);
+        final CountDownLatch blockingRelease = new CountDownLatch(1);
+        final BlockingListener ordered = new BlockingListener(blockingStarted, blockingRelease, new ArrayList<Integer>());
+        blocking.addListener(ordered);
+        blocking.publish(new VertexAddedEvent(graph.getVertex("0")));
+        assertTrue(blockingStarted.await(10, TimeUnit.SECONDS));
+        final Thread committer = new Thread(new Runnable() {
+            public void run() {
+                blocking.publishAll(events(graph, "1", "2", "3", "4"));
+            }
+        });
+        committer.start();
+        while (committer.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, blocking.getLag(ordered));
+        blocking.publish(new VertexAddedEvent(graph.getVertex("10")));
+
+        release.countDown();
+        blockingRelease.countDown();
+        committer.join();
+        assertTrue(dropping.drain(10, TimeUnit.SECONDS));
+        assertTrue(blocking.drain(10, TimeUnit.SECONDS));
+        dropping.shutdown();
+        failing.shutdown();
+        blocking.shutdown();
+        assertEquals(Arrays.asList("v-added-0", "v-added-10", "v-added-11", "v-added-12"), listener.getOrder());
+        assertEquals(Arrays.asList("v-added-0", "v-added-10", "v-added-1", "v-added-2", "v-added-3", "v-added-4"), ordered.getOrder());
+    }
+
+    public void testPublishAllLargerThanCapacity() throws Exception {
+        final EventTransactionalGraph<TinkerTransactionalGraph> graph =
+                new EventTransactionalGraph<TinkerTransactionalGraph>(new TinkerTransactionalGraph());
+        final StubGraphChangedListener listener = new StubGraphChangedListener();
+        final AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(4, AsyncEventDispatcher.Backpressure.DROP, 2);
+        graph.setAsyncDispatcher(dispatcher);
+        graph.addListener(listener);
+
+        final List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 10; i++) {
+            graph.addVertex(i);
+            expected.add("v-added-" + i);
+        }
+        graph.commit();
+        assertTrue(dispatcher.drain(10, TimeUnit.SECONDS));
+        assertEquals(expected, listener.getOrder());
+        assertEquals(0, dispatcher.getDroppedCount());
+        dispatcher.shutdown();
+    }
+
+    public void testListenerChangesGraph() throws Exception {
+        final EventGraph<TinkerGraph> graph = new EventGraph<TinkerGraph>(new TinkerGraph());
+        final StubGraphChangedListener listener = new StubGraphChangedListener() {
+            public void vertexAdded(final Vertex vertex) {
+                super.vertexAdded(vertex);
+                if (vertex.getId().equals("0")) {
+                    // the listener holds up the ring buffer until it returns, so it can not wait for room
+                    for (int i = 1; i <= 3; i++) {
+                        graph.addVertex(String.valueOf(i));
+                    }
+                }
+            }
+        };
+        final AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(2, AsyncEventDispatcher.Backpressure.BLOCK, 2);
+        graph.setAsyncDispatcher(dispatcher);
+        graph.addListener(listener);
+
+        graph.addVertex("0");
+        assertTrue(dispatcher.drain(10, TimeUnit.SECONDS));
+        assertEquals(1, dispatcher.getErrorCount(listener));
+        assertEquals(Arrays.asList("v-added-0", "v-added-1"), listener.getOrder());
+        assertNotNull(graph.getVertex("2"));
+        assertNull(graph.getVertex("3"));
+        dispatcher.shutdown();
+    }
+
+    public void testListenerErrors() throws Exception {
+        final StubGraphChangedListener listener = new StubGraphChangedListener() {
+            public void vertexAdded(final Vertex vertex) {
+                super.vertexAdded(vertex);
+                if (Integer.parseInt(vertex.getId().toString()) % 2 == 0)
+                    throw new RuntimeException("failed");
+            }
+        };
+        final EventGraph<TinkerGraph> graph = new EventGraph<TinkerGraph>(new TinkerGraph());
+        final AsyncEventDispatcher dispatcher = new AsyncEventDispatcher();
+        graph.setAsyncDispatcher(dispatcher);
+        graph.addListener(listener);
+        for (int i = 0; i < 10; i++) {
+            graph.addVertex(i);
+        }
+        assertTrue(dispatcher.drain(10, TimeUnit.SECONDS));
+        assertEquals(10, listener.addVertexEventRecorded());
+        assertEquals(5, dispatcher.getErrorCount(listener));
+        assertEquals(10, dispatcher.getProcessedCount(listener));
+
+        // back to raising events on the thread that changed the graph
+        graph.setAsyncDispatcher(null);
+        assertEquals(-1, dispatcher.getLag(listener));
+        graph.addVertex(11);
+        assertEquals(11, listener.addVertexEventRecorded());
+        dispatcher.shutdown();
+    }
+
+    private static Deque<Event> events(final TinkerGraph graph, final String... ids) {
+        final Deque<Event> events = new ArrayDeque<Event>();
+        for (final String id : ids) {
+            final Vertex vertex = graph.getVertex(id);
+            events.add(new VertexAddedEvent(null == vertex ? graph.addVertex(id) : vertex));
+        }
+        return events;
+    }
+
+    private static int sum(final List<Integer> values) {
+        int sum = 0;
+        for (Integer value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static class BlockingListener extends StubGraphChangedListener implements GraphChangedBatchListener {
+
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+        private final List<Integer> batches;
+
+        private BlockingListener(final CountDownLatch started, final CountDownLatch release, final List<Integer> batches) {
+            this.started = started;
+            this.release = release;
+            this.batches = batches;
+        }
+
+        public void vertexAdded(final Vertex vertex) {
+            super.vertexAdded(vertex);
+            this.started.countDown();
+            try {
+                this.release.await();
+            } catch (InterruptedException e) {
+            }
+        }
+
+        public void batchEnded(final int size) {
+            this.batches.add(size);
+        }
+    }
+}
@@ -17,6 +17,8 @@ import com.tinkerpop.blueprints.util.io.graphson.GraphSONReaderTestSuite;
 import com.tinkerpop.blueprints.util.wrappers.WrapperGraph;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 
@@ -175,6 +177,89 @@ public class IdGraphTest extends GraphTest {
         assertFalse(e1.getId().equals("edge1"));
     }
 
+    public void testIdCache() throws Exception {
+        IdGraph<TinkerGraph> graph = new IdGraph<TinkerGraph>(new TinkerGraph());
+        Vertex v1 = graph.addVertex("one");
+        Vertex v2 = graph.addVertex("two");
+        Edge e = graph.addEdge("knows", v1, v2, "knows");
+        assertEquals(2, graph.getVertexIdCache().size());
+        assertEquals(1, graph.getEdgeIdCache().size());
+
+        assertEquals(v1, graph.getVertex("one"));
+        assertEquals(e, graph.getEdge("knows"));
+        // the unique id checks of addVertex and addEdge missed
+        assertEquals(2, graph.getVertexIdCache().getMissCount());
+        assertEquals(1, graph.getVertexIdCache().getHitCount());
+        assertEquals(1, graph.getEdgeIdCache().getHitCount());
+
+        graph.removeVertex(v2);
+        assertNull(graph.getVertex("two"));
+        assertNull(graph.getEdge("knows"));
+        assertEquals(1, graph.getVertexIdCache().size());
+        assertEquals(0, graph.getEdgeIdCache().size());
+
+        // an element removed from the base graph directly is dropped from the cache when it is looked up
+        graph.getBaseGraph().removeVertex(((IdVertex) v1).getBaseVertex());
+        assertNull(graph.getVertex("one"));
+        assertEquals(0, graph.getVertexIdCache().size());
+
+        // a looked up element is cached
+        graph.getBaseGraph().addVertex(null).setProperty(IdGraph.ID, "three");
+        assertNotNull(graph.getVertex("three"));
+        assertEquals(1, graph.getVertexIdCache().size());
+
+        graph.setIdCacheSize(0);
+        assertNull(graph.getVertexIdCache());
+        assertNotNull(graph.getVertex("three"));
+        graph.shutdown();
+    }
+
+    public void testSequentialIdFactory() throws Exception {
+        IdGraph graph = (IdGraph) this.generateGraph();
+        SequentialIdFactory f = new SequentialIdFactory(10l);
+        graph.setVertexIdFactory(f);
+        graph.setEdgeIdFactory(f);
+
+        Vertex v1 = graph.addVertex(null);
+        Vertex v2 = graph.addVertex(null);
+        Edge e = graph.addEdge(null, v1, v2, "knows");
+        assertEquals(10l, v1.getId());
+        assertEquals(11l, v2.getId());
+        assertEquals(12l, e.getId());
+        assertEquals(13l, f.getNext());
+        assertEquals(v2, graph.getVertex(11l));
+        graph.shutdown();
+    }
+
+    public void testBlockIdFactory() throws Exception {
+        final BlockIdFactory f = new BlockIdFactory(new BlockIdFactory.CounterBlockAllocator(100l), 7);
+        final Set<Object> ids = Collections.synchronizedSet(new HashSet<Object>());
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        ids.add(f.createId());
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4000, ids.size());
+        for (Object id : ids) {
+            assertTrue((Long) id >= 100l && (Long) id < 100l + 7 * 4 * 143);
+        }
+
+        IdGraph graph = (IdGraph) this.generateGraph();
+        graph.setVertexIdFactory(new BlockIdFactory());
+        assertEquals(0l, graph.addVertex(null).getId());
+        assertEquals(1l, graph.addVertex(null).getId());
+        graph.shutdown();
+    }
+
     public void testVertexTestSuite() throws Exception {
         this.stopWatch();
         doTestSuite(new VertexTestSuite(this));
@@ -5,6 +5,7 @@ import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.EdgeTestSuite;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.GraphTestSuite;
+import com.tinkerpop.blueprints.Index;
 import com.tinkerpop.blueprints.IndexTestSuite;
 import com.tinkerpop.blueprints.IndexableGraphTestSuite;
 import com.tinkerpop.blueprints.TestSuite;
@@ -12,9 +13,12 @@ import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.VertexTestSuite;
 import com.tinkerpop.blueprints.impls.GraphTest;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
 import com.tinkerpop.blueprints.util.io.gml.GMLReaderTestSuite;
 import com.tinkerpop.blueprints.util.io.graphml.GraphMLReaderTestSuite;
 import com.tinkerpop.blueprints.util.io.graphson.GraphSONReaderTestSuite;
+import com.tinkerpop.blueprints.util.wrappers.event.EventIndexableGraph;
+import com.tinkerpop.blueprints.util.wrappers.readonly.ReadOnlyKeyIndexableGraph;
 
 import java.lang.reflect.Method;
 import java.util.Arrays;
@@ -119,6 +123,108 @@ public class PartitionGraphTest extends GraphTest {
         assertNull(graph.getVertex("inp1").getEdges(Direction.OUT).iterator().next().getVertex(Direction.IN));
     }
 
+    public void testPartitionIndexingIsOptIn() {
+        TinkerGraph rawGraph = TinkerGraphFactory.createTinkerGraph();
+        PartitionGraph<TinkerGraph> graph = new PartitionGraph<TinkerGraph>(rawGraph, "_partition", "a");
+        assertFalse(graph.getPartitionIndexing());
+        assertFalse(rawGraph.getIndexedKeys(Vertex.class).contains("_partition"));
+        assertEquals(6, count(graph.getVertices()));
+        assertEquals(1, count(graph.getVertices("name", "marko")));
+        assertNotNull(graph.getVertex(1));
+
+        // a base graph which may not be written can be wrapped
+        PartitionGraph<ReadOnlyKeyIndexableGraph<TinkerGraph>> readOnly = new PartitionGraph<ReadOnlyKeyIndexableGraph<TinkerGraph>>(
+                new ReadOnlyKeyIndexableGraph<TinkerGraph>(rawGraph), "_partition", "a");
+        assertEquals(6, count(readOnly.getVertices()));
+    }
+
+    public void testPartitionKeyIndex() {
+        TinkerGraph rawGraph = new TinkerGraph();
+        PartitionGraph<TinkerGraph> graph = new PartitionGraph<TinkerGraph>(rawGraph, "_partition", "a");
+        graph.setPartitionIndexing(true);
+        assertTrue(rawGraph.getIndexedKeys(Vertex.class).contains("_partition"));
+        assertTrue(rawGraph.getIndexedKeys(Edge.class).contains("_partition"));
+
+        for (int i = 0; i < 10; i++) {
+            graph.setWritePartition(i < 3 ? "a" : "b");
+            Vertex vertex = graph.addVertex(null);
+            vertex.setProperty("name", "v" + (i % 2));
+            vertex.setProperty("age", i % 2);
+            graph.addEdge(null, vertex, vertex, "self").setProperty("weight", i % 2);
+        }
+        rawGraph.createKeyIndex("name", Vertex.class);
+
+        assertEquals(3, count(graph.getVertices()));
+        assertEquals(3, count(graph.getEdges()));
+        assertEquals(2, count(graph.getVertices("name", "v0")));
+        assertEquals(1, count(graph.getVertices("age", 1)));
+        assertEquals(1, count(graph.getEdges("weight", 1)));
+
+        graph.addReadPartition("b");
+        assertEquals(10, count(graph.getVertices()));
+        assertEquals(5, count(graph.getVertices("name", "v0")));
+        assertEquals(5, count(graph.getVertices("age", 1)));
+        assertEquals(5, count(graph.getEdges("weight", 0)));
+
+        graph.removeReadPartition("a");
+        assertEquals(7, count(graph.getVertices()));
+        assertEquals(4, count(graph.getVertices("name", "v1")));
+
+        // elements without a partition are not found through the partition index, only through other key indices
+        Vertex unpartitioned = rawGraph.addVertex(null);
+        unpartitioned.setProperty("name", "v0");
+        unpartitioned.setProperty("age", 0);
+        assertEquals(7, count(graph.getVertices()));
+        assertEquals(3, count(graph.getVertices("age", 0)));
+        assertEquals(4, count(graph.getVertices("name", "v0")));
+        graph.setPartitionIndexing(false);
+        assertEquals(8, count(graph.getVertices()));
+        assertEquals(4, count(graph.getVertices("age", 0)));
+        graph.shutdown();
+    }
+
+    public void testPartitionManualIndex() {
+        EventIndexableGraph<TinkerGraph> rawGraph = new EventIndexableGraph<TinkerGraph>(new TinkerGraph());
+        PartitionIndexableGraph<EventIndexableGraph<TinkerGraph>> graph = new PartitionIndexableGraph<EventIndexableGraph<TinkerGraph>>(rawGraph, "_partition", "a");
+        Vertex a = graph.addVertex(null);
+        a.setProperty("name", "a");
+        assertNull(rawGraph.getIndex("_partition_V", Vertex.class));
+
+        // the elements written before are put into a new index
+        graph.setPartitionIndexing(true);
+        Index<Vertex> vertexIndex = rawGraph.getIndex("_partition_V", Vertex.class);
+        Index<Edge> edgeIndex = rawGraph.getIndex("_partition_E", Edge.class);
+        assertNotNull(vertexIndex);
+        assertNotNull(edgeIndex);
+        assertEquals(1, vertexIndex.count("_partition", "a"));
+
+        graph.setWritePartition("b");
+        Vertex b = graph.addVertex(null);
+        b.setProperty("name", "b");
+        graph.addEdge(null, a, b, "knows");
+        assertEquals(1, vertexIndex.count("_partition", "a"));
+        assertEquals(1, vertexIndex.count("_partition", "b"));
+        assertEquals(1, edgeIndex.count("_partition", "b"));
+
+        assertEquals(1, count(graph.getVertices()));
+        assertEquals(0, count(graph.getEdges()));
+        assertEquals(0, count(graph.getVertices("name", "b")));
+        graph.addReadPartition("b");
+        assertEquals(2, count(graph.getVertices()));
+        assertEquals(1, count(graph.getEdges()));
+        assertEquals(1, count(graph.getVertices("name", "b")));
+
+        ((PartitionVertex) a).setPartition("b");
+        assertEquals(0, vertexIndex.count("_partition", "a"));
+        assertEquals(2, vertexIndex.count("_partition", "b"));
+
+        graph.removeVertex(b);
+        assertEquals(1, vertexIndex.count("_partition", "b"));
+        assertEquals(0, edgeIndex.count("_partition", "b"));
+        assertEquals(1, count(graph.getVertices()));
+        graph.shutdown();
+    }
+
     public void testSpecificBehavior() {
         TinkerGraph rawGraph = new TinkerGraph();
         PartitionIndexableGraph graph = new PartitionIndexableGraph(rawGraph, "_writeGraph", "a");